@@ -0,0 +1,327 @@
+package com.example.order.carga;
+
+import com.example.order.feignclient.ExternalASintetico;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Gerador de carga do pedido-service. Abre sessões em ritmo constante (laço aberto: a próxima sessão começa no
+ * horário previsto, esteja o serviço respondendo ou não) e cada sessão roda em uma thread virtual o fluxo
+ * registro → login → (listar-produtos → fazer-pedido → meus-pedidos) × {@code pedidos-por-sessao}. Ao fim,
+ * mostra vazão, erros por status e percentis de latência por etapa.
+ *
+ * <p>A latência do registro conta a partir do horário previsto da sessão, então o atraso do próprio gerador
+ * ou de um serviço saturado aparece nos percentis em vez de sumir (coordinated omission). Sessões que
+ * excederiam {@code max-sessoes} simultâneas são descartadas e contadas à parte.</p>
+ *
+ * <p>Pensado para o serviço com o perfil {@code sintetico}; os ids dos produtos seguem o catálogo gerado pelo
+ * {@link ExternalASintetico}. Exemplo:</p>
+ * <pre>
+ * mvn -Pcarga test-compile exec:exec -Dcarga.args="--url=http://localhost:8080 --rps=200 --duracao=60"
+ * </pre>
+ */
+public class GeradorCarga {
+
+    enum Etapa {
+        REGISTRO("registro"),
+        LOGIN("login"),
+        LISTAGEM("listar-produtos"),
+        PEDIDO("fazer-pedido"),
+        MEUS_PEDIDOS("meus-pedidos");
+
+        private final String nome;
+
+        Etapa(String nome) {
+            this.nome = nome;
+        }
+    }
+
+    private static final String SENHA = "senha-carga";
+    // Falha de rede ou timeout, sem status HTTP
+    private static final int SEM_RESPOSTA = -1;
+
+    private final Opcoes opcoes;
+    private final HttpClient http;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Map<Etapa, Recorder> gravadores = new EnumMap<>(Etapa.class);
+    private final Map<Etapa, Histogram> totais = new EnumMap<>(Etapa.class);
+    private final Map<Etapa, Map<Integer, LongAdder>> statusPorEtapa = new EnumMap<>(Etapa.class);
+    private final LongAdder sessoesDescartadas = new LongAdder();
+    private final AtomicLong sequenciaUsuario = new AtomicLong();
+    private final String execucao = Long.toString(System.currentTimeMillis(), 36);
+    private volatile long fimAquecimentoNanos;
+
+    GeradorCarga(Opcoes opcoes, ExecutorService executor) {
+        this.opcoes = opcoes;
+        this.http = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(opcoes.timeout())
+                .executor(executor)
+                .build();
+        for (Etapa etapa : Etapa.values()) {
+            gravadores.put(etapa, new Recorder(3));
+            totais.put(etapa, new Histogram(3));
+            statusPorEtapa.put(etapa, new ConcurrentSkipListMap<>());
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Opcoes opcoes = Opcoes.ler(args);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            new GeradorCarga(opcoes, executor).executar(executor);
+        }
+    }
+
+    void executar(ExecutorService executor) throws InterruptedException {
+        int etapasPorSessao = 2 + 3 * opcoes.pedidosPorSessao();
+        double sessoesPorSegundo = opcoes.rps() / etapasPorSessao;
+        long intervaloNanos = (long) (TimeUnit.SECONDS.toNanos(1) / sessoesPorSegundo);
+        System.out.printf("Carga em %s: %.0f req/s (%.2f sessões/s de %d requisições), aquecimento %ds, medição %ds%n",
+                opcoes.url(), opcoes.rps(), sessoesPorSegundo, etapasPorSessao, opcoes.aquecimento().toSeconds(),
+                opcoes.duracao().toSeconds());
+
+        Semaphore sessoes = new Semaphore(opcoes.maxSessoes());
+        long inicio = System.nanoTime();
+        fimAquecimentoNanos = inicio + opcoes.aquecimento().toNanos();
+        long fim = fimAquecimentoNanos + opcoes.duracao().toNanos();
+        long proximoRelatorio = fimAquecimentoNanos + opcoes.relatorioACada().toNanos();
+        for (long n = 0; ; n++) {
+            long previsto = inicio + n * intervaloNanos;
+            if (previsto >= fim) {
+                break;
+            }
+            esperarAte(previsto);
+            if (System.nanoTime() >= proximoRelatorio) {
+                relatorioParcial(opcoes.relatorioACada());
+                proximoRelatorio += opcoes.relatorioACada().toNanos();
+            }
+            if (!sessoes.tryAcquire()) {
+                sessoesDescartadas.increment();
+                continue;
+            }
+            executor.execute(() -> {
+                try {
+                    sessao(previsto);
+                } finally {
+                    sessoes.release();
+                }
+            });
+        }
+
+        // Espera as sessões em andamento terminarem, no máximo um timeout por etapa restante
+        if (!sessoes.tryAcquire(opcoes.maxSessoes(), opcoes.timeout().toSeconds() * etapasPorSessao, TimeUnit.SECONDS)) {
+            System.out.println("Sessões ainda em andamento no fim da medição: "
+                    + (opcoes.maxSessoes() - sessoes.availablePermits()));
+        }
+        relatorioFinal();
+    }
+
+    private void sessao(long inicioPrevistoNanos) {
+        String usuario = "carga-" + execucao + "-" + sequenciaUsuario.incrementAndGet();
+        byte[] credenciais = json(Map.of("idUsuario", usuario, "password", SENHA));
+        if (enviar(Etapa.REGISTRO, inicioPrevistoNanos, post("/api/registro", credenciais).build()).isEmpty()) {
+            return;
+        }
+        Optional<HttpResponse<byte[]>> login = enviar(Etapa.LOGIN, System.nanoTime(),
+                post("/api/login", credenciais).build());
+        if (login.isEmpty()) {
+            return;
+        }
+        String token = lerToken(login.get().body());
+        String etag = null;
+        for (int i = 0; i < opcoes.pedidosPorSessao(); i++) {
+            // Como um navegador: revalida o catálogo com o ETag da última listagem
+            HttpRequest.Builder listagem = get("/api/pedido/listar-produtos").header("Accept-Encoding", "gzip");
+            if (etag != null) {
+                listagem.header("If-None-Match", etag);
+            }
+            Optional<HttpResponse<byte[]>> catalogo = enviar(Etapa.LISTAGEM, System.nanoTime(), listagem.build());
+            if (catalogo.isPresent()) {
+                etag = catalogo.get().headers().firstValue("ETag").orElse(etag);
+            }
+            enviar(Etapa.PEDIDO, System.nanoTime(), post("/api/pedido/fazer-pedido", json(carrinho()))
+                    .header("Authorization", "Bearer " + token)
+                    .header("Idempotency-Key", UUID.randomUUID().toString())
+                    .build());
+            enviar(Etapa.MEUS_PEDIDOS, System.nanoTime(), get("/api/pedido/meus-pedidos/paginado")
+                    .header("Authorization", "Bearer " + token)
+                    .build());
+        }
+    }
+
+    private Map<String, Object> carrinho() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        List<Map<String, Object>> itens = new ArrayList<>(opcoes.itensPorPedido());
+        for (int i = 0; i < opcoes.itensPorPedido(); i++) {
+            itens.add(Map.of("id", ExternalASintetico.idProduto(random.nextInt(opcoes.produtos())),
+                    "quantidade", random.nextInt(1, 4)));
+        }
+        return Map.of("produtoItems", itens);
+    }
+
+    /**
+     * Envia a requisição e registra a latência a partir de {@code inicioNanos}. Devolve a resposta só quando o
+     * status é 2xx ou 304.
+     */
+    private Optional<HttpResponse<byte[]>> enviar(Etapa etapa, long inicioNanos, HttpRequest requisicao) {
+        int status;
+        HttpResponse<byte[]> resposta = null;
+        try {
+            resposta = http.send(requisicao, HttpResponse.BodyHandlers.ofByteArray());
+            status = resposta.statusCode();
+        } catch (IOException e) {
+            status = SEM_RESPOSTA;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Optional.empty();
+        }
+        long fimNanos = System.nanoTime();
+        if (fimNanos >= fimAquecimentoNanos) {
+            gravadores.get(etapa).recordValue(TimeUnit.NANOSECONDS.toMicros(fimNanos - inicioNanos));
+            statusPorEtapa.get(etapa).computeIfAbsent(status, s -> new LongAdder()).increment();
+        }
+        boolean sucesso = (status >= 200 && status < 300) || status == 304;
+        return sucesso ? Optional.of(resposta) : Optional.empty();
+    }
+
+    private HttpRequest.Builder get(String caminho) {
+        return HttpRequest.newBuilder(URI.create(opcoes.url() + caminho)).timeout(opcoes.timeout()).GET();
+    }
+
+    private HttpRequest.Builder post(String caminho, byte[] corpo) {
+        return HttpRequest.newBuilder(URI.create(opcoes.url() + caminho))
+                .timeout(opcoes.timeout())
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(corpo));
+    }
+
+    private byte[] json(Object valor) {
+        try {
+            return objectMapper.writeValueAsBytes(valor);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private String lerToken(byte[] corpo) {
+        try {
+            return objectMapper.readTree(corpo).path("token").asText();
+        } catch (IOException e) {
+            throw new IllegalStateException("Resposta do login sem token", e);
+        }
+    }
+
+    private void relatorioParcial(Duration intervalo) {
+        StringBuilder linha = new StringBuilder("[parcial]");
+        for (Etapa etapa : Etapa.values()) {
+            Histogram parcial = gravadores.get(etapa).getIntervalHistogram();
+            totais.get(etapa).add(parcial);
+            linha.append(String.format(" %s %.0f/s p99 %.1fms;", etapa.nome,
+                    parcial.getTotalCount() / (double) intervalo.toSeconds(), parcial.getValueAtPercentile(99) / 1000.0));
+        }
+        System.out.println(linha);
+    }
+
+    private void relatorioFinal() {
+        double segundos = opcoes.duracao().toMillis() / 1000.0;
+        System.out.printf("%n%-16s %9s %9s %9s %9s %9s %9s %9s %9s  %s%n", "etapa", "total", "req/s", "erros",
+                "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms", "status");
+        long total = 0;
+        for (Etapa etapa : Etapa.values()) {
+            Histogram histograma = totais.get(etapa);
+            histograma.add(gravadores.get(etapa).getIntervalHistogram());
+            Map<Integer, Long> status = new LinkedHashMap<>();
+            long erros = 0;
+            for (Map.Entry<Integer, LongAdder> entrada : statusPorEtapa.get(etapa).entrySet()) {
+                int codigo = entrada.getKey();
+                long quantidade = entrada.getValue().sum();
+                status.put(codigo, quantidade);
+                if (codigo == SEM_RESPOSTA || (codigo >= 400 && codigo != 304)) {
+                    erros += quantidade;
+                }
+            }
+            total += histograma.getTotalCount();
+            System.out.printf("%-16s %9d %9.1f %9d %9.1f %9.1f %9.1f %9.1f %9.1f  %s%n", etapa.nome,
+                    histograma.getTotalCount(), histograma.getTotalCount() / segundos, erros,
+                    ms(histograma, 50), ms(histograma, 90), ms(histograma, 99), ms(histograma, 99.9),
+                    histograma.getMaxValue() / 1000.0, status);
+        }
+        System.out.printf("%-16s %9d %9.1f%n", "total", total, total / segundos);
+        System.out.println("Sessões descartadas (max-sessoes atingido): " + sessoesDescartadas.sum());
+    }
+
+    private static double ms(Histogram histograma, double percentil) {
+        return histograma.getValueAtPercentile(percentil) / 1000.0;
+    }
+
+    private static void esperarAte(long instanteNanos) {
+        long restante;
+        while ((restante = instanteNanos - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(restante);
+        }
+    }
+
+    record Opcoes(String url, double rps, Duration duracao, Duration aquecimento, int pedidosPorSessao,
+                  int itensPorPedido, int produtos, int maxSessoes, Duration timeout, Duration relatorioACada) {
+
+        private static final Map<String, String> PADROES = Map.of(
+                "url", "http://localhost:8080",
+                "rps", "100",
+                "duracao", "60",
+                "aquecimento", "10",
+                "pedidos-por-sessao", "5",
+                "itens-por-pedido", "3",
+                "produtos", "100000",
+                "max-sessoes", "1000",
+                "timeout", "10",
+                "relatorio-a-cada", "10");
+
+        // Argumentos no formato --nome=valor; durações em segundos
+        static Opcoes ler(String[] args) {
+            Map<String, String> valores = new HashMap<>(PADROES);
+            for (String arg : args) {
+                int igual = arg.indexOf('=');
+                if (!arg.startsWith("--") || igual < 0 || !PADROES.containsKey(arg.substring(2, igual))) {
+                    throw new IllegalArgumentException("Argumento inválido: " + arg + " (opções: " + PADROES.keySet() + ")");
+                }
+                valores.put(arg.substring(2, igual), arg.substring(igual + 1));
+            }
+            return new Opcoes(
+                    valores.get("url").replaceAll("/+$", ""),
+                    Double.parseDouble(valores.get("rps")),
+                    Duration.ofSeconds(Long.parseLong(valores.get("duracao"))),
+                    Duration.ofSeconds(Long.parseLong(valores.get("aquecimento"))),
+                    Integer.parseInt(valores.get("pedidos-por-sessao")),
+                    Integer.parseInt(valores.get("itens-por-pedido")),
+                    Integer.parseInt(valores.get("produtos")),
+                    Integer.parseInt(valores.get("max-sessoes")),
+                    Duration.ofSeconds(Long.parseLong(valores.get("timeout"))),
+                    Duration.ofSeconds(Long.parseLong(valores.get("relatorio-a-cada"))));
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.order.config;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.crypto.SecretKey;
+import java.util.Base64;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Verificação de JWT isolada (parser reconstruído a cada chamada x reutilizado) e vazão do filtro
+ * completo. {@link #filtroSemCache} reproduz o filtro anterior ao cache de tokens e usuários; o
+ * {@link UserDetailsService} aqui é um stub em memória, então a economia da consulta ao Mongo evitada
+ * pelo cache de usuários não aparece nesses números e deve ser somada à diferença medida.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class JwtAuthenticationFilterBenchmark {
+
+    private SecretKey secretKey;
+    private JwtParser parser;
+    private String token;
+    private UserDetailsService userDetailsService;
+    private JwtAuthenticationFilter filter;
+
+    @Setup
+    public void setUp() {
+        byte[] chave = new byte[32];
+        secretKey = Keys.hmacShaKeyFor(chave);
+        parser = Jwts.parserBuilder().setSigningKey(secretKey).build();
+        token = Jwts.builder()
+                .setSubject("usuario-benchmark")
+                .setIssuedAt(new Date())
+                .setExpiration(new Date(System.currentTimeMillis() + TimeUnit.HOURS.toMillis(10)))
+                .signWith(secretKey)
+                .compact();
+
+        UserDetails usuario = User.withUsername("usuario-benchmark").password("hash").roles("USER").build();
+        userDetailsService = username -> usuario;
+
+        filter = new JwtAuthenticationFilter(userDetailsService, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(filter, "secretKeyBase64", Base64.getEncoder().encodeToString(chave));
+        filter.afterPropertiesSet();
+    }
+
+    @Benchmark
+    public Claims parserReconstruidoPorRequisicao() {
+        return Jwts.parserBuilder()
+                .setSigningKey(secretKey)
+                .build()
+                .parseClaimsJws(token)
+                .getBody();
+    }
+
+    @Benchmark
+    public Claims parserReutilizado() {
+        return parser.parseClaimsJws(token).getBody();
+    }
+
+    @Benchmark
+    public Object filtroSemCache() {
+        MockHttpServletRequest request = requisicao();
+        String jwt = request.getHeader("Authorization").substring(7);
+        Claims claims = Jwts.parserBuilder()
+                .setSigningKey(secretKey)
+                .build()
+                .parseClaimsJws(jwt)
+                .getBody();
+        UserDetails userDetails = userDetailsService.loadUserByUsername(claims.getSubject());
+        UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
+                userDetails, null, userDetails.getAuthorities());
+        authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+        SecurityContextHolder.getContext().setAuthentication(authToken);
+        SecurityContextHolder.clearContext();
+        return authToken;
+    }
+
+    @Benchmark
+    public Object filtroComCache() throws Exception {
+        MockHttpServletRequest request = requisicao();
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+        Object autenticacao = SecurityContextHolder.getContext().getAuthentication();
+        SecurityContextHolder.clearContext();
+        return autenticacao;
+    }
+
+    private MockHttpServletRequest requisicao() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/pedido/meus-pedidos");
+        request.addHeader("Authorization", "Bearer " + token);
+        return request;
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.order.config;
+
+import com.example.order.model.Pedido;
+import com.example.order.model.Produto;
+import com.example.order.model.ProdutoComprado;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ida e volta dos serializadores de valores de {@link RedisConfig} (JSON com tipagem padrão e codec binário)
+ * para os objetos que o serviço mais grava no Redis. O tamanho serializado de cada objeto é impresso no setup.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RedisSerializerBenchmark {
+
+    @Param({"json", "binario"})
+    private String codec;
+
+    private RedisSerializer<Object> serializer;
+    private Pedido pedido;
+    private List<Produto> produtos;
+    private byte[] pedidoSerializado;
+    private byte[] produtosSerializados;
+
+    @Setup
+    public void setUp() {
+        serializer = RedisConfig.serializadorValores(codec);
+
+        pedido = new Pedido("usuario-benchmark");
+        pedido.setId("65f0c0ffee0000000000beef");
+        pedido.setStatus("PENDENTE PAGAMENTO");
+        pedido.setValorTotal(new BigDecimal("123.45"));
+        for (int i = 0; i < 10; i++) {
+            pedido.getProdutosComprado().add(new ProdutoComprado("P" + i, i + 1, "Produto " + i));
+        }
+
+        produtos = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            produtos.add(new Produto("P" + i, "Produto " + i, BigDecimal.valueOf(100 + i, 2), 1_000));
+        }
+
+        pedidoSerializado = serializer.serialize(pedido);
+        produtosSerializados = serializer.serialize(produtos);
+        System.out.printf("%n[%s] Bytes por entrada: Pedido (10 itens) = %d, List<Produto> (100 itens) = %d%n",
+                codec, pedidoSerializado.length, produtosSerializados.length);
+    }
+
+    @Benchmark
+    public byte[] serializarPedido() {
+        return serializer.serialize(pedido);
+    }
+
+    @Benchmark
+    public Object desserializarPedido() {
+        return serializer.deserialize(pedidoSerializado);
+    }
+
+    @Benchmark
+    public byte[] serializarListaProdutos() {
+        return serializer.serialize(produtos);
+    }
+
+    @Benchmark
+    public Object desserializarListaProdutos() {
+        return serializer.deserialize(produtosSerializados);
+    }
+}
@@ -0,0 +1,241 @@
+package com.example.order.service;
+
+import com.example.order.feignclient.ExternalAClient;
+import com.example.order.model.AlteracoesCatalogo;
+import com.example.order.model.Pedido;
+import com.example.order.model.Produto;
+import com.example.order.repository.PedidoRepository;
+import com.example.order.repository.PedidoRepositoryReativo;
+import org.bson.types.ObjectId;
+import reactor.core.publisher.Mono;
+
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Substitutos em memória do Redis, do Mongo e do External A para os benchmarks: medem apenas o custo
+ * do código da aplicação, sem rede.
+ */
+final class InfraEmMemoria {
+
+    private InfraEmMemoria() {
+    }
+
+    static Map<String, Produto> catalogo(int tamanho) {
+        Map<String, Produto> produtos = new LinkedHashMap<>();
+        for (int i = 0; i < tamanho; i++) {
+            String id = "P" + i;
+            produtos.put(id, Produto.builder()
+                    .id(id)
+                    .nome("Produto " + i)
+                    .valor(BigDecimal.valueOf(100 + i, 2))
+                    .quantidadeDisponivel(1_000_000)
+                    .build());
+        }
+        return produtos;
+    }
+
+    static ExternalAClient externalAClient(Map<String, Produto> catalogo) {
+        return new ExternalAClient() {
+            @Override
+            public Integer getQuantidadeProduto(String idProduto) {
+                Produto produto = catalogo.get(idProduto);
+                return produto != null ? produto.getQuantidadeDisponivel() : 0;
+            }
+
+            @Override
+            public Double getPrecoProduto(String idProduto) {
+                Produto produto = catalogo.get(idProduto);
+                return produto != null ? produto.getValor().doubleValue() : null;
+            }
+
+            @Override
+            public List<Produto> getTodosProdutos() {
+                return new ArrayList<>(catalogo.values());
+            }
+
+            @Override
+            public AlteracoesCatalogo getAlteracoesProdutos(long versao) {
+                return new AlteracoesCatalogo(1L, versao < 1 ? new ArrayList<>(catalogo.values()) : List.of(), List.of());
+            }
+
+            @Override
+            public Produto getProduto(String idProduto) {
+                return catalogo.get(idProduto);
+            }
+
+            @Override
+            public Map<String, Produto> getProdutosEmLote(Collection<String> idsProduto) {
+                Map<String, Produto> encontrados = new HashMap<>();
+                idsProduto.forEach(id -> {
+                    Produto produto = catalogo.get(id);
+                    if (produto != null) {
+                        encontrados.put(id, produto);
+                    }
+                });
+                return encontrados;
+            }
+        };
+    }
+
+    static PedidoRepository pedidoRepository() {
+        return (PedidoRepository) Proxy.newProxyInstance(PedidoRepository.class.getClassLoader(),
+                new Class<?>[]{PedidoRepository.class}, (proxy, method, args) -> {
+                    if (method.getName().equals("save")) {
+                        Pedido pedido = (Pedido) args[0];
+                        pedido.setId(new ObjectId().toHexString());
+                        return pedido;
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    static PedidoRepositoryReativo pedidoRepositoryReativo() {
+        return (PedidoRepositoryReativo) Proxy.newProxyInstance(PedidoRepositoryReativo.class.getClassLoader(),
+                new Class<?>[]{PedidoRepositoryReativo.class}, (proxy, method, args) -> {
+                    if (method.getName().equals("save")) {
+                        Pedido pedido = (Pedido) args[0];
+                        pedido.setId(new ObjectId().toHexString());
+                        return Mono.just(pedido);
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    static class RedisCacheServiceEmMemoria extends RedisCacheService {
+
+        private final Map<String, Object> valores = new ConcurrentHashMap<>();
+
+        RedisCacheServiceEmMemoria() {
+            super(null);
+        }
+
+        @Override
+        public void cacheOrder(String key, Object order) {
+            valores.put(key, order);
+        }
+
+        @Override
+        public void cacheOrder(String key, Object order, long timeout, TimeUnit unit) {
+            valores.put(key, order);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> T getCachedOrder(String key, Class<T> type) {
+            return (T) valores.get(key);
+        }
+
+        @Override
+        public void evict(String key) {
+            valores.remove(key);
+        }
+
+        @Override
+        public List<Object> buscarEmLote(List<String> keys) {
+            List<Object> encontrados = new ArrayList<>(keys.size());
+            for (String key : keys) {
+                encontrados.add(valores.get(key));
+            }
+            return encontrados;
+        }
+
+        @Override
+        public void gravarEmLote(Map<String, ?> novos, long timeout, TimeUnit unit,
+                                 String canal, Collection<String> mensagens) {
+            valores.putAll(novos);
+        }
+
+        @Override
+        public void publicar(String canal, String mensagem) {
+        }
+
+        @Override
+        public boolean tentarBloquear(String key, String token, Duration duracao) {
+            return valores.putIfAbsent(key, token) == null;
+        }
+
+        @Override
+        public void liberarBloqueio(String key, String token) {
+            valores.remove(key, token);
+        }
+    }
+
+    // Os benchmarks não leem meus-pedidos; guardar cada pedido criado só faria a memória crescer durante a medição
+    static class PedidosUsuarioCacheServiceEmMemoria extends PedidosUsuarioCacheService {
+
+        PedidosUsuarioCacheServiceEmMemoria() {
+            super(null);
+        }
+
+        @Override
+        public List<Pedido> listar(String idUsuario) {
+            return null;
+        }
+
+        @Override
+        public void acrescentar(Pedido pedido) {
+        }
+
+        @Override
+        public void popular(String idUsuario, Collection<Pedido> pedidos) {
+        }
+
+        @Override
+        public void evict(String idUsuario) {
+        }
+    }
+
+    static class RedisCacheServiceReativoEmMemoria extends RedisCacheServiceReativo {
+
+        private final Map<String, Object> valores = new ConcurrentHashMap<>();
+
+        RedisCacheServiceReativoEmMemoria() {
+            super(null);
+        }
+
+        @Override
+        public Mono<Object> buscar(String key) {
+            return Mono.justOrEmpty(valores.get(key));
+        }
+
+        @Override
+        public Mono<Map<String, Object>> buscarEmLote(List<String> keys) {
+            Map<String, Object> encontrados = new LinkedHashMap<>();
+            keys.forEach(key -> {
+                Object valor = valores.get(key);
+                if (valor != null) {
+                    encontrados.put(key, valor);
+                }
+            });
+            return Mono.just(encontrados);
+        }
+
+        @Override
+        public Mono<Boolean> gravar(String key, Object valor, Duration ttl) {
+            valores.put(key, valor);
+            return Mono.just(true);
+        }
+
+        @Override
+        public Mono<Void> gravarEmLote(Map<String, ?> novos, Duration ttl) {
+            valores.putAll(novos);
+            return Mono.empty();
+        }
+
+        @Override
+        public Mono<Long> remover(Collection<String> keys) {
+            keys.forEach(valores::remove);
+            return Mono.just((long) keys.size());
+        }
+    }
+}
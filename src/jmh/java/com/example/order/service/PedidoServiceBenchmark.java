@@ -0,0 +1,116 @@
+package com.example.order.service;
+
+import com.example.order.controller.ProdutoItem;
+import com.example.order.feignclient.ExternalAClient;
+import com.example.order.feignclient.ExternalACoalescer;
+import com.example.order.model.Pedido;
+import com.example.order.model.Produto;
+import com.example.order.model.ProdutoComprado;
+import com.example.order.service.dto.PedidoResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Caminho de criação de pedido com Redis, Mongo e External A em memória. O cache de produtos é
+ * aquecido no setup, então a medição cobre o caminho de acerto de cache, precificação e mapeamento.
+ * Com {@code snapshotCatalogo} os produtos vêm do snapshot do catálogo em memória, sem passar pelo cache.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PedidoServiceBenchmark {
+
+    @Param({"1", "10", "100"})
+    private int itensNoCarrinho;
+
+    @Param({"false", "true"})
+    private boolean snapshotCatalogo;
+
+    private PedidoService pedidoService;
+    private ExternalACoalescer coalescer;
+    private List<ProdutoItem> carrinho;
+    private Pedido pedidoSalvo;
+
+    @Setup
+    public void setUp() {
+        Map<String, Produto> catalogo = InfraEmMemoria.catalogo(itensNoCarrinho);
+        ExternalAClient externalAClient = InfraEmMemoria.externalAClient(catalogo);
+        ProdutoCacheService produtoCacheService = new ProdutoCacheService(
+                new InfraEmMemoria.RedisCacheServiceEmMemoria(), new SimpleMeterRegistry(), Runnable::run, 10_000, 30);
+        coalescer = new ExternalACoalescer(externalAClient, Runnable::run, 2_000, 100);
+        CatalogoEmMemoriaService catalogoEmMemoriaService = new CatalogoEmMemoriaService(externalAClient,
+                new SimpleMeterRegistry());
+        if (snapshotCatalogo) {
+            ReflectionTestUtils.setField(catalogoEmMemoriaService, "habilitado", true);
+            catalogoEmMemoriaService.atualizar();
+        }
+        pedidoService = new PedidoService(InfraEmMemoria.pedidoRepository(), externalAClient,
+                new InfraEmMemoria.RedisCacheServiceEmMemoria(), produtoCacheService, catalogoEmMemoriaService,
+                new InfraEmMemoria.PedidosUsuarioCacheServiceEmMemoria(),
+                new ReservaEstoqueService(null, externalAClient, null),
+                new ExpiracaoPedidoService(null, null, null, new SimpleMeterRegistry()),
+                new PedidoWriteBehindService(null, null, new SimpleMeterRegistry()), Runnable::run, coalescer,
+                new SimpleMeterRegistry());
+
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(
+                "usuario-benchmark", null, AuthorityUtils.createAuthorityList("ROLE_USER")));
+
+        carrinho = new ArrayList<>(itensNoCarrinho);
+        for (String id : catalogo.keySet()) {
+            carrinho.add(new ProdutoItem(id, 2));
+        }
+        // Aquece o cache de produtos para que a medição não inclua a primeira busca no External A
+        pedidoService.createBatchPedido(carrinho);
+        pedidoSalvo = pedidoDeExemplo(carrinho);
+    }
+
+    @TearDown
+    public void tearDown() {
+        coalescer.encerrar();
+        SecurityContextHolder.clearContext();
+    }
+
+    @Benchmark
+    public PedidoResponse createBatchPedido() {
+        return pedidoService.createBatchPedido(carrinho);
+    }
+
+    @Benchmark
+    public PedidoResponse mapToResponse() {
+        return pedidoService.mapToResponse(pedidoSalvo);
+    }
+
+    private static Pedido pedidoDeExemplo(List<ProdutoItem> carrinho) {
+        Pedido pedido = new Pedido("usuario-benchmark");
+        pedido.setId("pedido-benchmark");
+        pedido.setStatus("PENDENTE PAGAMENTO");
+        pedido.setValorTotal(BigDecimal.TEN);
+        carrinho.forEach(item -> pedido.getProdutosComprado()
+                .add(new ProdutoComprado(item.getId(), item.getQuantidade(), "Produto")));
+        return pedido;
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.order.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Total de um carrinho somado em {@link BigDecimal} (como createBatchPedido fazia) contra a
+ * {@link PrecificacaoPedido} em centavos, com e sem desconto por linha. Rodar com {@code -prof gc}
+ * para comparar também a alocação por operação.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PrecificacaoBenchmark {
+
+    private static final BigDecimal DESCONTO_INTEGRAL = BigDecimal.valueOf(PrecificacaoPedido.DESCONTO_INTEGRAL);
+
+    @Param({"10", "100", "1000"})
+    private int linhas;
+
+    private BigDecimal[] precos;
+    private long[] precosCentavos;
+    private int[] quantidades;
+    private int[] descontos;
+
+    @Setup
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(42);
+        precos = new BigDecimal[linhas];
+        precosCentavos = new long[linhas];
+        quantidades = new int[linhas];
+        descontos = new int[linhas];
+        for (int i = 0; i < linhas; i++) {
+            precos[i] = BigDecimal.valueOf(random.nextLong(100, 1_000_000), 2);
+            precosCentavos[i] = PrecificacaoPedido.centavos(precos[i]);
+            quantidades[i] = random.nextInt(1, 500);
+            descontos[i] = random.nextInt(0, 2_000);
+        }
+    }
+
+    @Benchmark
+    public BigDecimal bigDecimal() {
+        BigDecimal total = BigDecimal.ZERO;
+        for (int i = 0; i < linhas; i++) {
+            total = total.add(precos[i].multiply(BigDecimal.valueOf(quantidades[i])));
+        }
+        return total;
+    }
+
+    // Preço do produto ainda em BigDecimal: inclui a conversão para centavos de cada linha
+    @Benchmark
+    public BigDecimal centavos() {
+        PrecificacaoPedido precificacao = new PrecificacaoPedido();
+        for (int i = 0; i < linhas; i++) {
+            precificacao.adicionarLinha(precos[i], quantidades[i]);
+        }
+        return precificacao.total();
+    }
+
+    @Benchmark
+    public BigDecimal bigDecimalComDesconto() {
+        BigDecimal total = BigDecimal.ZERO;
+        for (int i = 0; i < linhas; i++) {
+            BigDecimal bruto = precos[i].multiply(BigDecimal.valueOf(quantidades[i]));
+            BigDecimal desconto = bruto.multiply(BigDecimal.valueOf(descontos[i]))
+                    .divide(DESCONTO_INTEGRAL, 2, RoundingMode.HALF_EVEN);
+            total = total.add(bruto.subtract(desconto));
+        }
+        return total;
+    }
+
+    @Benchmark
+    public BigDecimal centavosComDesconto() {
+        PrecificacaoPedido precificacao = new PrecificacaoPedido();
+        for (int i = 0; i < linhas; i++) {
+            precificacao.adicionarLinha(precosCentavos[i], quantidades[i], descontos[i]);
+        }
+        return precificacao.total();
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.order.service;
+
+import org.bson.types.ObjectId;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Custo de agendar a expiração de um pedido com milhões de prazos pendentes: {@link RodaExpiracao} contra uma
+ * tarefa por pedido num {@link ScheduledThreadPoolExecutor} (heap de prazos, O(log n) e um objeto por tarefa).
+ * Rodar com {@code -prof gc} para comparar a alocação.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+@Threads(4)
+@State(Scope.Benchmark)
+public class RodaExpiracaoBenchmark {
+
+    private static final long JANELA_MILLIS = TimeUnit.MINUTES.toMillis(30);
+    private static final Runnable NADA = () -> {
+    };
+
+    @Param({"1000000"})
+    private int pendentes;
+
+    private RodaExpiracao roda;
+    private ScheduledThreadPoolExecutor agendador;
+    private long inicio;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        inicio = System.currentTimeMillis();
+        roda = new RodaExpiracao(1000, 4096, inicio);
+        agendador = new ScheduledThreadPoolExecutor(1);
+        for (int i = 0; i < pendentes; i++) {
+            long atraso = ThreadLocalRandom.current().nextLong(JANELA_MILLIS);
+            roda.agendar(new ObjectId(), inicio + atraso);
+            agendador.schedule(NADA, atraso, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() {
+        agendador.shutdownNow();
+    }
+
+    @Benchmark
+    public void roda() {
+        roda.agendar(new ObjectId(), System.currentTimeMillis() + JANELA_MILLIS);
+    }
+
+    @Benchmark
+    public ScheduledFuture<?> tarefaPorPedido() {
+        return agendador.schedule(NADA, JANELA_MILLIS, TimeUnit.MILLISECONDS);
+    }
+}
@@ -0,0 +1,140 @@
+package com.example.order.service;
+
+import com.example.order.controller.ProdutoItem;
+import com.example.order.feignclient.ExternalAClient;
+import com.example.order.feignclient.ExternalACoalescer;
+import com.example.order.model.Produto;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 1000 clientes simultâneos criando pedidos com um External A que bloqueia {@code latenciaMillis} por chamada,
+ * como o Feign real. Compara o pool de plataforma do Tomcat (200 threads, o padrão de
+ * {@code server.tomcat.threads.max}) com uma thread virtual por requisição ({@code spring.threads.virtual.enabled}).
+ *
+ * <p>O resultado é em requisições por segundo. No fim de cada execução são impressos o pico de threads de
+ * plataforma da JVM e o pico de requisições em andamento ao mesmo tempo.</p>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ThreadsVirtuaisBenchmark {
+
+    private static final int CLIENTES = 1000;
+    private static final int THREADS_TOMCAT = 200;
+
+    @Param({"plataforma", "virtual"})
+    private String modo;
+
+    @Param({"10"})
+    private long latenciaMillis;
+
+    private PedidoService pedidoService;
+    private ExternalACoalescer coalescer;
+    private ExecutorService requisicoes;
+    private List<ProdutoItem> carrinho;
+
+    private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    private final AtomicInteger emAndamento = new AtomicInteger();
+    private final AtomicInteger picoEmAndamento = new AtomicInteger();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Map<String, Produto> catalogo = InfraEmMemoria.catalogo(3);
+        ExternalAClient externalAClient = comLatencia(InfraEmMemoria.externalAClient(catalogo), latenciaMillis);
+        ProdutoCacheService produtoCacheService = new ProdutoCacheService(
+                new InfraEmMemoria.RedisCacheServiceEmMemoria(), new SimpleMeterRegistry(), Runnable::run, 10_000, 30);
+        coalescer = new ExternalACoalescer(externalAClient, Runnable::run, 2_000, 100);
+        pedidoService = new PedidoService(InfraEmMemoria.pedidoRepository(), externalAClient,
+                new InfraEmMemoria.RedisCacheServiceEmMemoria(), produtoCacheService,
+                new CatalogoEmMemoriaService(externalAClient, new SimpleMeterRegistry()),
+                new InfraEmMemoria.PedidosUsuarioCacheServiceEmMemoria(),
+                new ReservaEstoqueService(null, externalAClient, null),
+                new ExpiracaoPedidoService(null, null, null, new SimpleMeterRegistry()),
+                new PedidoWriteBehindService(null, null, new SimpleMeterRegistry()), Runnable::run, coalescer,
+                new SimpleMeterRegistry());
+
+        carrinho = new ArrayList<>();
+        for (String id : catalogo.keySet()) {
+            carrinho.add(new ProdutoItem(id, 1));
+        }
+
+        requisicoes = modo.equals("virtual")
+                ? Executors.newVirtualThreadPerTaskExecutor()
+                : Executors.newFixedThreadPool(THREADS_TOMCAT);
+        threads.resetPeakThreadCount();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws InterruptedException {
+        requisicoes.shutdown();
+        requisicoes.awaitTermination(10, TimeUnit.SECONDS);
+        coalescer.encerrar();
+        System.out.printf("%n[%s] pico de threads de plataforma: %d, pico de requisições em andamento: %d%n",
+                modo, threads.getPeakThreadCount(), picoEmAndamento.get());
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CLIENTES)
+    public void milClientesSimultaneos() throws InterruptedException {
+        CountDownLatch concluidas = new CountDownLatch(CLIENTES);
+        for (int i = 0; i < CLIENTES; i++) {
+            requisicoes.execute(() -> {
+                picoEmAndamento.accumulateAndGet(emAndamento.incrementAndGet(), Math::max);
+                SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(
+                        "usuario-benchmark", null, AuthorityUtils.createAuthorityList("ROLE_USER")));
+                try {
+                    pedidoService.createBatchPedido(carrinho);
+                } finally {
+                    SecurityContextHolder.clearContext();
+                    emAndamento.decrementAndGet();
+                    concluidas.countDown();
+                }
+            });
+        }
+        concluidas.await();
+    }
+
+    // Bloqueia a thread chamadora em cada chamada, como o cliente Feign esperando a resposta HTTP
+    private static ExternalAClient comLatencia(ExternalAClient cliente, long latenciaMillis) {
+        return (ExternalAClient) Proxy.newProxyInstance(ExternalAClient.class.getClassLoader(),
+                new Class<?>[]{ExternalAClient.class}, (proxy, method, args) -> {
+                    if (method.getDeclaringClass() == Object.class) {
+                        return method.invoke(cliente, args);
+                    }
+                    Thread.sleep(latenciaMillis);
+                    return method.invoke(cliente, args);
+                });
+    }
+}
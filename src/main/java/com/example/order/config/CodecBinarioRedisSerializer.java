@@ -0,0 +1,360 @@
+package com.example.order.config;
+
+import com.example.order.model.Pedido;
+import com.example.order.model.Produto;
+import com.example.order.model.ProdutoComprado;
+import com.example.order.service.EntradaCache;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Codec binário dos valores gravados no Redis. {@link Produto}, {@link Pedido}, listas deles,
+ * {@link EntradaCache} e {@link String} são escritos campo a campo, sem nomes de classe nem de campo;
+ * qualquer outro tipo cai no Smile (JSON binário) com tipagem padrão. Também caem no Smile os valores que
+ * não cabem no formato próprio: textos acima de 64 KB em UTF-8 modificado (limite do {@code writeUTF}) e
+ * decimais cujo valor sem escala passa de 255 bytes.
+ *
+ * <p>Formato: {@code [MAGICO][VERSAO][TIPO][corpo]}. Entradas sem o byte mágico foram gravadas pelo
+ * serializador JSON anterior e são lidas por ele; entradas de uma versão mais nova do codec são tratadas
+ * como ausentes, para que o chamador recarregue o valor da origem.</p>
+ */
+public class CodecBinarioRedisSerializer implements RedisSerializer<Object> {
+
+    private static final Logger logger = LoggerFactory.getLogger(CodecBinarioRedisSerializer.class);
+
+    // Nenhum documento JSON começa com este byte
+    static final byte MAGICO = (byte) 0xB1;
+    static final byte VERSAO = 1;
+
+    private static final byte TIPO_GENERICO = 0;
+    private static final byte TIPO_PRODUTO = 1;
+    private static final byte TIPO_LISTA_PRODUTOS = 2;
+    private static final byte TIPO_PEDIDO = 3;
+    private static final byte TIPO_LISTA_PEDIDOS = 4;
+    private static final byte TIPO_ENTRADA_CACHE = 5;
+    private static final byte TIPO_STRING = 6;
+
+    private static final int MAXIMO_BYTES_TEXTO = 65_535;
+    private static final int MAXIMO_BYTES_DECIMAL = 255;
+
+    private final RedisSerializer<Object> serializadorLegado;
+    private final ObjectMapper smileMapper;
+
+    public CodecBinarioRedisSerializer(RedisSerializer<Object> serializadorLegado) {
+        this.serializadorLegado = serializadorLegado;
+        this.smileMapper = new ObjectMapper(new SmileFactory());
+        smileMapper.registerModule(new JavaTimeModule());
+        smileMapper.activateDefaultTyping(smileMapper.getPolymorphicTypeValidator(), ObjectMapper.DefaultTyping.NON_FINAL);
+    }
+
+    @Override
+    public byte[] serialize(Object valor) throws SerializationException {
+        if (valor == null) {
+            return new byte[0];
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(MAGICO);
+            out.writeByte(VERSAO);
+            escreverValor(out, valor);
+        } catch (IOException e) {
+            throw new SerializationException("Falha ao serializar " + valor.getClass().getName(), e);
+        }
+        return bytes.toByteArray();
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        if (bytes[0] != MAGICO) {
+            return serializadorLegado.deserialize(bytes);
+        }
+        if (bytes.length < 3 || bytes[1] > VERSAO) {
+            logger.warn("Entrada de cache com versão de codec desconhecida ({}), ignorada", bytes.length > 1 ? bytes[1] : -1);
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes, 2, bytes.length - 2))) {
+            return lerValor(in);
+        } catch (IOException e) {
+            throw new SerializationException("Falha ao desserializar entrada de cache", e);
+        }
+    }
+
+    private void escreverValor(DataOutputStream out, Object valor) throws IOException {
+        if (valor instanceof Produto produto && produtoCabe(produto)) {
+            out.writeByte(TIPO_PRODUTO);
+            escreverProduto(out, produto);
+        } else if (valor instanceof Pedido pedido && pedidoCabe(pedido)) {
+            out.writeByte(TIPO_PEDIDO);
+            escreverPedido(out, pedido);
+        } else if (valor instanceof String texto && textoCabe(texto)) {
+            out.writeByte(TIPO_STRING);
+            out.writeUTF(texto);
+        } else if (valor instanceof EntradaCache entrada) {
+            out.writeByte(TIPO_ENTRADA_CACHE);
+            out.writeLong(entrada.getExpiraEm());
+            out.writeLong(entrada.getCustoCarregamentoMillis());
+            out.writeBoolean(entrada.getValor() != null);
+            if (entrada.getValor() != null) {
+                escreverValor(out, entrada.getValor());
+            }
+        } else if (valor instanceof List<?> lista && todosDoTipo(lista, Produto.class)) {
+            out.writeByte(TIPO_LISTA_PRODUTOS);
+            out.writeInt(lista.size());
+            for (Object produto : lista) {
+                escreverProduto(out, (Produto) produto);
+            }
+        } else if (valor instanceof List<?> lista && todosDoTipo(lista, Pedido.class)) {
+            out.writeByte(TIPO_LISTA_PEDIDOS);
+            out.writeInt(lista.size());
+            for (Object pedido : lista) {
+                escreverPedido(out, (Pedido) pedido);
+            }
+        } else {
+            out.writeByte(TIPO_GENERICO);
+            byte[] smile = smileMapper.writeValueAsBytes(new Envelope(valor));
+            out.writeInt(smile.length);
+            out.write(smile);
+        }
+    }
+
+    private Object lerValor(DataInputStream in) throws IOException {
+        byte tipo = in.readByte();
+        switch (tipo) {
+            case TIPO_PRODUTO:
+                return lerProduto(in);
+            case TIPO_PEDIDO:
+                return lerPedido(in);
+            case TIPO_STRING:
+                return in.readUTF();
+            case TIPO_ENTRADA_CACHE: {
+                long expiraEm = in.readLong();
+                long custo = in.readLong();
+                Object valor = in.readBoolean() ? lerValor(in) : null;
+                return new EntradaCache(valor, expiraEm, custo);
+            }
+            case TIPO_LISTA_PRODUTOS: {
+                int tamanho = in.readInt();
+                List<Produto> produtos = new ArrayList<>(tamanho);
+                for (int i = 0; i < tamanho; i++) {
+                    produtos.add(lerProduto(in));
+                }
+                return produtos;
+            }
+            case TIPO_LISTA_PEDIDOS: {
+                int tamanho = in.readInt();
+                List<Pedido> pedidos = new ArrayList<>(tamanho);
+                for (int i = 0; i < tamanho; i++) {
+                    pedidos.add(lerPedido(in));
+                }
+                return pedidos;
+            }
+            case TIPO_GENERICO: {
+                byte[] smile = new byte[in.readInt()];
+                in.readFully(smile);
+                return smileMapper.readValue(smile, Envelope.class).getValor();
+            }
+            default:
+                throw new IOException("Tipo de entrada desconhecido: " + tipo);
+        }
+    }
+
+    private static boolean todosDoTipo(List<?> lista, Class<?> tipo) {
+        if (lista.isEmpty()) {
+            return false;
+        }
+        for (Object item : lista) {
+            if (item == null || item.getClass() != tipo) {
+                return false;
+            }
+            if (item instanceof Produto produto ? !produtoCabe(produto) : !pedidoCabe((Pedido) item)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean produtoCabe(Produto produto) {
+        return textoCabe(produto.getId()) && textoCabe(produto.getNome()) && decimalCabe(produto.getValor());
+    }
+
+    private static boolean pedidoCabe(Pedido pedido) {
+        if (!textoCabe(pedido.getId()) || !textoCabe(pedido.getIdUsuario()) || !textoCabe(pedido.getStatus())
+                || !decimalCabe(pedido.getValorTotal())) {
+            return false;
+        }
+        if (pedido.getProdutosComprado() != null) {
+            for (ProdutoComprado item : pedido.getProdutosComprado()) {
+                if (!textoCabe(item.getIdProduto()) || !textoCabe(item.getNomeProduto())) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    // Mesma conta do writeUTF: até 3 bytes por char, e o '\0' ocupa 2
+    static boolean textoCabe(String texto) {
+        if (texto == null || texto.length() <= MAXIMO_BYTES_TEXTO / 3) {
+            return true;
+        }
+        long bytes = 0;
+        for (int i = 0; i < texto.length(); i++) {
+            char c = texto.charAt(i);
+            bytes += c >= 0x0001 && c <= 0x007F ? 1 : c <= 0x07FF ? 2 : 3;
+        }
+        return bytes <= MAXIMO_BYTES_TEXTO;
+    }
+
+    // O tamanho do valor sem escala é gravado em um byte
+    static boolean decimalCabe(BigDecimal valor) {
+        return valor == null || valor.unscaledValue().bitLength() / 8 + 1 <= MAXIMO_BYTES_DECIMAL;
+    }
+
+    private static void escreverProduto(DataOutputStream out, Produto produto) throws IOException {
+        escreverTexto(out, produto.getId());
+        escreverTexto(out, produto.getNome());
+        escreverDecimal(out, produto.getValor());
+        escreverInteiro(out, produto.getQuantidadeDisponivel());
+    }
+
+    private static Produto lerProduto(DataInputStream in) throws IOException {
+        return new Produto(lerTexto(in), lerTexto(in), lerDecimal(in), lerInteiro(in));
+    }
+
+    private static void escreverPedido(DataOutputStream out, Pedido pedido) throws IOException {
+        escreverTexto(out, pedido.getId());
+        escreverTexto(out, pedido.getIdUsuario());
+        escreverDecimal(out, pedido.getValorTotal());
+        escreverTexto(out, pedido.getStatus());
+        escreverDataHora(out, pedido.getHorarioCriacao());
+        escreverDataHora(out, pedido.getHorarioExpiracao());
+        List<ProdutoComprado> itens = pedido.getProdutosComprado();
+        out.writeInt(itens == null ? -1 : itens.size());
+        if (itens != null) {
+            for (ProdutoComprado item : itens) {
+                escreverTexto(out, item.getIdProduto());
+                escreverInteiro(out, item.getQuantidade());
+                escreverTexto(out, item.getNomeProduto());
+            }
+        }
+    }
+
+    private static Pedido lerPedido(DataInputStream in) throws IOException {
+        Pedido pedido = new Pedido();
+        pedido.setId(lerTexto(in));
+        pedido.setIdUsuario(lerTexto(in));
+        pedido.setValorTotal(lerDecimal(in));
+        pedido.setStatus(lerTexto(in));
+        pedido.setHorarioCriacao(lerDataHora(in));
+        pedido.setHorarioExpiracao(lerDataHora(in));
+        int quantidadeItens = in.readInt();
+        if (quantidadeItens < 0) {
+            pedido.setProdutosComprado(null);
+        } else {
+            List<ProdutoComprado> itens = new ArrayList<>(quantidadeItens);
+            for (int i = 0; i < quantidadeItens; i++) {
+                itens.add(new ProdutoComprado(lerTexto(in), lerInteiro(in), lerTexto(in)));
+            }
+            pedido.setProdutosComprado(itens);
+        }
+        return pedido;
+    }
+
+    private static void escreverTexto(DataOutputStream out, String texto) throws IOException {
+        out.writeBoolean(texto != null);
+        if (texto != null) {
+            out.writeUTF(texto);
+        }
+    }
+
+    private static String lerTexto(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private static void escreverInteiro(DataOutputStream out, Integer valor) throws IOException {
+        out.writeBoolean(valor != null);
+        if (valor != null) {
+            out.writeInt(valor);
+        }
+    }
+
+    private static Integer lerInteiro(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readInt() : null;
+    }
+
+    // BigDecimal como escala + valor sem escala, preservando exatamente o valor e a escala originais
+    private static void escreverDecimal(DataOutputStream out, BigDecimal valor) throws IOException {
+        out.writeBoolean(valor != null);
+        if (valor != null) {
+            byte[] semEscala = valor.unscaledValue().toByteArray();
+            out.writeInt(valor.scale());
+            out.writeByte(semEscala.length);
+            out.write(semEscala);
+        }
+    }
+
+    private static BigDecimal lerDecimal(DataInputStream in) throws IOException {
+        if (!in.readBoolean()) {
+            return null;
+        }
+        int escala = in.readInt();
+        byte[] semEscala = new byte[in.readUnsignedByte()];
+        in.readFully(semEscala);
+        return new BigDecimal(new BigInteger(semEscala), escala);
+    }
+
+    private static void escreverDataHora(DataOutputStream out, LocalDateTime dataHora) throws IOException {
+        out.writeBoolean(dataHora != null);
+        if (dataHora != null) {
+            out.writeLong(dataHora.toEpochSecond(ZoneOffset.UTC));
+            out.writeInt(dataHora.getNano());
+        }
+    }
+
+    private static LocalDateTime lerDataHora(DataInputStream in) throws IOException {
+        if (!in.readBoolean()) {
+            return null;
+        }
+        return LocalDateTime.ofEpochSecond(in.readLong(), in.readInt(), ZoneOffset.UTC);
+    }
+
+    // Envelope para que o Smile registre o tipo do valor mesmo quando ele é uma classe final
+    static class Envelope {
+        private Object valor;
+
+        Envelope() {
+        }
+
+        Envelope(Object valor) {
+            this.valor = valor;
+        }
+
+        public Object getValor() {
+            return valor;
+        }
+
+        public void setValor(Object valor) {
+            this.valor = valor;
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.order.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+@Configuration
+public class ExecutorConfig {
+
+    // Pool compartilhado pelas chamadas paralelas ao External A feitas em createBatchPedido.
+    // O limite de concorrência por requisição é aplicado no PedidoService; aqui só limitamos o total.
+    @Bean("pedidoFanOutExecutor")
+    public ThreadPoolTaskExecutor pedidoFanOutExecutor(
+            @Value("${app.pedido.fan-out.pool-size:32}") int poolSize,
+            @Value("${app.pedido.fan-out.capacidade-fila:256}") int capacidadeFila,
+            @Value("${spring.threads.virtual.enabled:false}") boolean threadsVirtuais) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(capacidadeFila);
+        executor.setThreadNamePrefix("pedido-fan-out-");
+        // Fila e limite continuam valendo; só as threads do pool deixam de ser de plataforma
+        executor.setVirtualThreads(threadsVirtuais);
+        // Com a fila cheia a própria thread da requisição executa a chamada (degrada para sequencial)
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.initialize();
+        return executor;
+    }
+
+    // Chamadas em lote do ExternalACoalescer. Separado do fan-out: com CallerRunsPolicy, um pool cheio faria a
+    // thread da requisição (ou a do agendador do coalescer) executar os lotes seguintes. Com a fila cheia o lote
+    // é recusado e as consultas dele falham com 503
+    @Bean("externalACoalescerExecutor")
+    public ThreadPoolTaskExecutor externalACoalescerExecutor(
+            @Value("${app.feign.external-api.coalescer.pool-size:4}") int poolSize,
+            @Value("${app.feign.external-api.coalescer.capacidade-fila:64}") int capacidadeFila,
+            @Value("${spring.threads.virtual.enabled:false}") boolean threadsVirtuais) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(capacidadeFila);
+        executor.setThreadNamePrefix("externala-coalescer-envio-");
+        executor.setVirtualThreads(threadsVirtuais);
+        executor.initialize();
+        return executor;
+    }
+
+    // Recargas em segundo plano do cache de produtos (stale-while-revalidate)
+    @Bean("cacheRecargaExecutor")
+    public ThreadPoolTaskExecutor cacheRecargaExecutor(
+            @Value("${app.cache.recarga.pool-size:4}") int poolSize,
+            @Value("${spring.threads.virtual.enabled:false}") boolean threadsVirtuais) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(100);
+        // Com a fila cheia a submissão é rejeitada e o ProdutoCacheService continua servindo o valor atual
+        executor.setThreadNamePrefix("cache-recarga-");
+        executor.setVirtualThreads(threadsVirtuais);
+        executor.initialize();
+        return executor;
+    }
+
+    // Tentativas dos GETs ao External A com hedge. Sem fila: com o pool cheio a chamada segue sem hedge
+    @Bean("externalAHedgeExecutor")
+    public ThreadPoolTaskExecutor externalAHedgeExecutor(
+            @Value("${app.feign.external-api.hedge.pool-size:64}") int poolSize,
+            @Value("${spring.threads.virtual.enabled:false}") boolean threadsVirtuais) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(0);
+        executor.setThreadNamePrefix("externala-hedge-");
+        executor.setVirtualThreads(threadsVirtuais);
+        executor.initialize();
+        return executor;
+    }
+
+    // Hash e verificação de senhas (BCrypt). Sempre threads de plataforma: o trabalho é de CPU, e o tamanho do
+    // pool é o que limita quantos núcleos um pico de logins consegue tomar dos pedidos. Com a fila cheia o
+    // login é recusado (503) pelo SenhaService
+    @Bean("bcryptExecutor")
+    public ThreadPoolTaskExecutor bcryptExecutor(
+            @Value("${app.auth.bcrypt.pool-size:2}") int poolSize,
+            @Value("${app.auth.bcrypt.capacidade-fila:32}") int capacidadeFila) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(capacidadeFila);
+        executor.setThreadNamePrefix("bcrypt-");
+        executor.initialize();
+        return executor;
+    }
+}
@@ -1,75 +1,125 @@
 package com.example.order.config;
 
 import com.example.order.feignclient.ExternalAClient;
+import com.example.order.feignclient.ExternalAClientReativo;
+import com.example.order.model.AlteracoesCatalogo;
 import com.example.order.model.Produto;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Profile;
+import reactor.core.publisher.Mono;
 
 import java.math.BigDecimal;
-import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Configuration
 @Profile("mock")
 public class ExternalAMockConfig {
 
+    private static final Logger logger = LoggerFactory.getLogger(ExternalAMockConfig.class);
+
+    // Catálogo fixo do mock, montado uma vez (para carga use o perfil sintetico)
+    private static final List<Produto> CATALOGO = List.of(
+            Produto.builder()
+                    .id("A123")
+                    .nome("Café")
+                    .valor(new BigDecimal("10.0"))
+                    .quantidadeDisponivel(100)
+                    .build(),
+            Produto.builder()
+                    .id("B123")
+                    .nome("Água")
+                    .valor(new BigDecimal("5.0"))
+                    .quantidadeDisponivel(200)
+                    .build());
+    private static final Map<String, Produto> PRODUTOS = CATALOGO.stream()
+            .collect(Collectors.toUnmodifiableMap(Produto::getId, Function.identity()));
+
     @Bean("externalAMockClient")
     public ExternalAClient externalAMockClient() {
         return new ExternalAClient() {
 
+            // Contadores para medir a redução de chamadas ao upstream com o coalescer
+            private final AtomicLong chamadasEmLote = new AtomicLong();
+            private final AtomicLong idsConsultadosEmLote = new AtomicLong();
+
             @Override
             public Double getPrecoProduto(String productId) {
-                System.out.println("Mock: getPrecoProduto called for productId: " + productId);
+                logger.debug("Mock: getPrecoProduto called for productId: {}", productId);
                 return "A123".equals(productId) ? 10.0 : "B123".equals(productId) ? 5.0 : null;
             }
 
             @Override
             public Integer getQuantidadeProduto(String productId) {
-                System.out.println("Mock: getProductQuantity called for productId: " + productId);
+                logger.debug("Mock: getProductQuantity called for productId: {}", productId);
                 return "A123".equals(productId) ? 100 : "B123".equals(productId) ? 200 : 0;
             }
 
             @Override
             public Produto getProduto(String idProduto) {
-                System.out.println("Mock: getProduto called for productId: " + idProduto);
-                Map<String, Produto> produtos = new HashMap<>();
-                produtos.put("A123", Produto.builder()
-                        .id("A123")
-                        .nome("Café")
-                        .valor(new BigDecimal("10.0"))
-                        .quantidadeDisponivel(100)
-                        .build());
-                produtos.put("B123", Produto.builder()
-                        .id("B123")
-                        .nome("Água")
-                        .valor(new BigDecimal("5.0"))
-                        .quantidadeDisponivel(200)
-                        .build());
-
-                return produtos.getOrDefault(idProduto, null);
+                logger.debug("Mock: getProduto called for productId: {}", idProduto);
+                return PRODUTOS.get(idProduto);
             }
 
             @Override
             public List<Produto> getTodosProdutos() {
-                System.out.println("Mock: getTodosProdutos called");
-                return Arrays.asList(
-                        Produto.builder()
-                                .id("A123")
-                                .nome("Café")
-                                .valor(new BigDecimal("10.0"))
-                                .quantidadeDisponivel(100)
-                                .build(),
-                        Produto.builder()
-                                .id("B123")
-                                .nome("Água")
-                                .valor(new BigDecimal("5.0"))
-                                .quantidadeDisponivel(200)
-                                .build()
-                );
+                logger.debug("Mock: getTodosProdutos called");
+                return CATALOGO;
+            }
+
+            // O catálogo do mock não muda: está todo na versão 1
+            @Override
+            public AlteracoesCatalogo getAlteracoesProdutos(long versao) {
+                logger.debug("Mock: getAlteracoesProdutos called since version: {}", versao);
+                return new AlteracoesCatalogo(1L, versao < 1 ? CATALOGO : List.of(), List.of());
+            }
+
+            @Override
+            public Map<String, Produto> getProdutosEmLote(Collection<String> idsProduto) {
+                long chamadas = chamadasEmLote.incrementAndGet();
+                long ids = idsConsultadosEmLote.addAndGet(idsProduto.size());
+                logger.debug("Mock: getProdutosEmLote called for {} productIds (total calls: {}, total ids: {})",
+                        idsProduto.size(), chamadas, ids);
+                Map<String, Produto> encontrados = new HashMap<>();
+                for (String idProduto : idsProduto) {
+                    Produto produto = PRODUTOS.get(idProduto);
+                    if (produto != null) {
+                        encontrados.put(idProduto, produto);
+                    }
+                }
+                return encontrados;
+            }
+        };
+    }
+
+    // A consulta ao mock é em memória, então pode rodar direto no event loop
+    @Bean
+    @Profile("reativo")
+    public ExternalAClientReativo externalAClientReativo(@Qualifier("externalAMockClient") ExternalAClient mock) {
+        return new ExternalAClientReativo() {
+            @Override
+            public Mono<Integer> getQuantidadeProduto(String idProduto) {
+                return Mono.fromSupplier(() -> mock.getQuantidadeProduto(idProduto));
+            }
+
+            @Override
+            public Mono<Produto> getProduto(String idProduto) {
+                return Mono.fromSupplier(() -> mock.getProduto(idProduto));
+            }
+
+            @Override
+            public Mono<List<Produto>> getTodosProdutos() {
+                return Mono.fromSupplier(mock::getTodosProdutos);
             }
         };
     }
-}
\ No newline at end of file
+}
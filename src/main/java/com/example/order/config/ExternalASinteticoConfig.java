@@ -0,0 +1,50 @@
+package com.example.order.config;
+
+import com.example.order.feignclient.ExternalAClientReativo;
+import com.example.order.feignclient.ExternalASintetico;
+import com.example.order.feignclient.LatenciaSintetica;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+/**
+ * External A sintético para testes de carga (perfil {@code sintetico}, no lugar do {@code mock}): catálogo
+ * gerado, latência e taxa de erros configuráveis em {@code application-sintetico.properties}.
+ */
+@Configuration
+@Profile("sintetico")
+public class ExternalASinteticoConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExternalASinteticoConfig.class);
+
+    // Mesmo nome do bean do mock: é o cliente que o ResilienciaConfig protege
+    @Bean("externalAMockClient")
+    public ExternalASintetico externalASintetico(
+            MeterRegistry meterRegistry,
+            @Value("${app.external-a.sintetico.produtos:100000}") int produtos,
+            @Value("${app.external-a.sintetico.semente:42}") long semente,
+            @Value("${app.external-a.sintetico.estoque.minimo:0}") int estoqueMinimo,
+            @Value("${app.external-a.sintetico.estoque.maximo:1000}") int estoqueMaximo,
+            @Value("${app.external-a.sintetico.estoque.fracao-sem-estoque:0.05}") double fracaoSemEstoque,
+            @Value("${app.external-a.sintetico.latencia.distribuicao:lognormal}") String distribuicao,
+            @Value("${app.external-a.sintetico.latencia.mediana-micros:20000}") long medianaMicros,
+            @Value("${app.external-a.sintetico.latencia.p99-micros:150000}") long p99Micros,
+            @Value("${app.external-a.sintetico.taxa-erros:0.0}") double taxaErros) {
+        ExternalASintetico sintetico = new ExternalASintetico(produtos, semente, estoqueMinimo, estoqueMaximo,
+                fracaoSemEstoque, LatenciaSintetica.de(distribuicao, medianaMicros, p99Micros), taxaErros,
+                meterRegistry);
+        logger.info("External A sintético: {} produto(s), latência {} (mediana {} µs, p99 {} µs), taxa de erros {}",
+                produtos, distribuicao, medianaMicros, p99Micros, taxaErros);
+        return sintetico;
+    }
+
+    @Bean
+    @Profile("reativo")
+    public ExternalAClientReativo externalAClientReativo(ExternalASintetico sintetico) {
+        return sintetico.reativo();
+    }
+}
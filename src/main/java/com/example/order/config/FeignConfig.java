@@ -1,9 +1,21 @@
 package com.example.order.config;
 
+import com.example.order.feignclient.ClienteHttpExternalA;
+import feign.Client;
 import feign.RequestInterceptor;
+import feign.hc5.ApacheHttp5Client;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.hc.client5.http.impl.DefaultConnectionKeepAliveStrategy;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.core5.util.TimeValue;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.openfeign.clientconfig.HttpClient5FeignConfiguration;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.util.concurrent.Executor;
+
 @Configuration
 public class FeignConfig {
 
@@ -13,4 +25,33 @@ public class FeignConfig {
             requestTemplate.header("Authorization", "Bearer token");
         };
     }
-}
\ No newline at end of file
+
+    // Usa o keep-alive anunciado pelo servidor, limitado a keep-alive-millis, e fecha conexões ociosas
+    // antes que o upstream (ou um balanceador no caminho) as derrube com a conexão ainda no pool
+    @Bean
+    public HttpClient5FeignConfiguration.HttpClientBuilderCustomizer keepAliveExternalA(
+            @Value("${app.feign.external-api.keep-alive-millis:30000}") long keepAliveMillis) {
+        TimeValue keepAliveMaximo = TimeValue.ofMilliseconds(keepAliveMillis);
+        return builder -> builder
+                .setKeepAliveStrategy((resposta, contexto) -> keepAliveMaximo.min(
+                        DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(resposta, contexto)))
+                .evictIdleConnections(keepAliveMaximo)
+                .evictExpiredConnections();
+    }
+
+    // Substitui o cliente padrão do Feign: mesmo pool do Apache HttpClient 5, com timeouts por método,
+    // latência por método e hedge opcional dos GETs
+    @Bean
+    public Client feignClient(CloseableHttpClient httpClient5,
+                              @Qualifier("externalAHedgeExecutor") Executor executorHedge,
+                              MeterRegistry meterRegistry,
+                              @Value("${app.feign.external-api.timeout-leitura-por-metodo:}") String timeoutsPorMetodo,
+                              @Value("${app.feign.external-api.hedge.habilitado:false}") boolean hedgeHabilitado,
+                              @Value("${app.feign.external-api.hedge.atraso-minimo-millis:5}") long atrasoMinimoMillis,
+                              @Value("${app.feign.external-api.hedge.amostras-minimas:100}") long amostrasMinimas,
+                              @Value("${app.feign.external-api.hedge.maximo-simultaneo:16}") int maximoSimultaneo) {
+        return new ClienteHttpExternalA(new ApacheHttp5Client(httpClient5), executorHedge, meterRegistry,
+                ClienteHttpExternalA.lerTimeoutsPorMetodo(timeoutsPorMetodo), hedgeHabilitado,
+                atrasoMinimoMillis, amostrasMinimas, maximoSimultaneo);
+    }
+}
@@ -1,9 +1,15 @@
 package com.example.order.config;
 
 import com.example.order.exception.MensagemErrorException;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -24,26 +30,85 @@ import org.springframework.web.filter.OncePerRequestFilter;
 
 import javax.crypto.SecretKey;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
 import java.util.Base64;
+import java.util.Date;
+import java.util.HexFormat;
+import java.util.concurrent.TimeUnit;
 
 @Component
 public class JwtAuthenticationFilter extends OncePerRequestFilter implements InitializingBean {
 
     private static final Logger logger = LoggerFactory.getLogger(JwtAuthenticationFilter.class);
-    private static final String[] PUBLIC_ENDPOINTS = {"/api/login", "/api/registro", "/api/pedido/listar-produtos"};
+    private static final String[] PUBLIC_ENDPOINTS = {"/api/login", "/api/registro", "/api/pedido/listar-produtos",
+            "/actuator/health"};
     private final UserDetailsService userDetailsService;
+    // Tempo para validar o token: "cache" (já verificado antes), "valido" (assinatura conferida) ou "invalido"
+    private final Timer verificacaoCache;
+    private final Timer verificacaoValido;
+    private final Timer verificacaoInvalido;
     private SecretKey secretKey;
+    // JwtParser é imutável e thread-safe: construído uma única vez
+    private JwtParser jwtParser;
+    // SHA-256 do token -> usuário, válido até o "exp" do próprio token
+    private Cache<String, TokenVerificado> tokensVerificados;
+    private Cache<String, UserDetails> usuariosCarregados;
 
     @Value("${jwt.secret.key}")
     private String secretKeyBase64;
 
-    public JwtAuthenticationFilter(UserDetailsService userDetailsService) {
+    @Value("${app.jwt.cache.tokens.tamanho-maximo:100000}")
+    private long tamanhoMaximoCacheTokens = 100_000;
+
+    @Value("${app.jwt.cache.usuarios.tamanho-maximo:10000}")
+    private long tamanhoMaximoCacheUsuarios = 10_000;
+
+    @Value("${app.jwt.cache.usuarios.ttl-segundos:30}")
+    private long ttlSegundosCacheUsuarios = 30;
+
+    public JwtAuthenticationFilter(UserDetailsService userDetailsService, MeterRegistry meterRegistry) {
         this.userDetailsService = userDetailsService;
+        this.verificacaoCache = verificacao(meterRegistry, "cache");
+        this.verificacaoValido = verificacao(meterRegistry, "valido");
+        this.verificacaoInvalido = verificacao(meterRegistry, "invalido");
+    }
+
+    private static Timer verificacao(MeterRegistry meterRegistry, String resultado) {
+        return Timer.builder("auth.jwt.verificacao").tag("resultado", resultado).register(meterRegistry);
     }
 
     @Override
     public void afterPropertiesSet() {
         this.secretKey = Keys.hmacShaKeyFor(Base64.getDecoder().decode(secretKeyBase64));
+        this.jwtParser = Jwts.parserBuilder()
+                .setSigningKey(secretKey)
+                .build();
+        this.tokensVerificados = Caffeine.newBuilder()
+                .maximumSize(tamanhoMaximoCacheTokens)
+                .expireAfter(new Expiry<String, TokenVerificado>() {
+                    @Override
+                    public long expireAfterCreate(String key, TokenVerificado token, long currentTime) {
+                        return TimeUnit.MILLISECONDS.toNanos(Math.max(0, token.expiraEm() - System.currentTimeMillis()));
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, TokenVerificado token, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, TokenVerificado token, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+        this.usuariosCarregados = Caffeine.newBuilder()
+                .maximumSize(tamanhoMaximoCacheUsuarios)
+                .expireAfterWrite(Duration.ofSeconds(ttlSegundosCacheUsuarios))
+                .build();
     }
 
     @Override
@@ -53,20 +118,32 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter implements Ini
         logger.debug("Processando requisição para: {}", requestURI);
 
         // Ignorar endpoints públicos (como /api/login e /api/pedido/listar-produtos)
-        for (String publicEndpoint : PUBLIC_ENDPOINTS) {
-            if (requestURI.equals(publicEndpoint)) {
-                logger.debug("Ignorando autenticação JWT para endpoint público: {}", requestURI);
-                filterChain.doFilter(request, response);
-                return;
-            }
+        if (endpointPublico(requestURI)) {
+            logger.debug("Ignorando autenticação JWT para endpoint público: {}", requestURI);
+            filterChain.doFilter(request, response);
+            return;
         }
 
-        final String authorizationHeader = request.getHeader("Authorization");
+        String username = usuarioDoCabecalho(request.getHeader("Authorization"));
 
-        logger.debug("Authorization Header: {}", authorizationHeader);
+        if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
+            UserDetails userDetails = carregarUsuario(username);
+            UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
+                    userDetails, null, userDetails.getAuthorities());
+            authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+            SecurityContextHolder.getContext().setAuthentication(authToken);
+            logger.debug("Usuário autenticado com sucesso: {}", username);
+        }
 
-        String username = null;
-        String jwt = null;
+        filterChain.doFilter(request, response);
+    }
+
+    /**
+     * Usuário do token {@code Bearer} do cabeçalho Authorization, conferido pela assinatura ou pelo cache de tokens
+     * já verificados. Visível no pacote para o filtro da pilha reativa.
+     */
+    String usuarioDoCabecalho(String authorizationHeader) {
+        logger.debug("Authorization Header: {}", authorizationHeader);
 
         if (authorizationHeader == null || !authorizationHeader.startsWith("Bearer ")) {
             logger.warn("Cabeçalho de autorização ausente ou inválido: {}", authorizationHeader);
@@ -74,16 +151,70 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter implements Ini
                     "Token JWT ausente ou inválido (formato 'Bearer <token>' esperado)");
         }
 
-        jwt = authorizationHeader.substring(7);
+        String jwt = authorizationHeader.substring(7);
+        Timer.Sample verificacao = Timer.start();
+        String hashToken = hash(jwt);
+        TokenVerificado verificado = tokensVerificados.getIfPresent(hashToken);
+        if (verificado != null && verificado.expiraEm() > System.currentTimeMillis()) {
+            verificacao.stop(verificacaoCache);
+            logger.debug("Token já verificado anteriormente para o usuário: {}", verificado.username());
+            return verificado.username();
+        }
+        try {
+            String username = verificarToken(jwt, hashToken);
+            verificacao.stop(verificacaoValido);
+            return username;
+        } catch (MensagemErrorException e) {
+            verificacao.stop(verificacaoInvalido);
+            throw e;
+        }
+    }
+
+    // UserDetails já carregados recentemente, ou null se for preciso consultar o Mongo
+    UserDetails usuarioEmCache(String username) {
+        return usuariosCarregados.getIfPresent(username);
+    }
+
+    UserDetails carregarUsuario(String username) {
+        try {
+            // A carga fica fora do cache.get(key, loader): o loader roda com o lock da entrada (synchronized no
+            // ConcurrentHashMap) e a consulta ao Mongo prenderia a thread portadora com threads virtuais
+            UserDetails userDetails = usuariosCarregados.getIfPresent(username);
+            if (userDetails == null) {
+                userDetails = userDetailsService.loadUserByUsername(username);
+                usuariosCarregados.put(username, userDetails);
+            }
+            logger.debug("UserDetails carregados: {}", userDetails);
+            return userDetails;
+        } catch (UsernameNotFoundException e) {
+            logger.error("Usuário não encontrado: {}", username);
+            throw new MensagemErrorException(HttpStatus.FORBIDDEN, "Usuário não encontrado");
+        }
+    }
+
+    // Endpoints que dispensam o token, nas duas pilhas
+    static boolean endpointPublico(String requestURI) {
+        for (String publicEndpoint : PUBLIC_ENDPOINTS) {
+            if (requestURI.equals(publicEndpoint)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private String verificarToken(String jwt, String hashToken) {
         try {
-            Claims claims = Jwts.parserBuilder()
-                    .setSigningKey(secretKey)
-                    .build()
+            Claims claims = jwtParser
                     .parseClaimsJws(jwt)
                     .getBody();
-            username = claims.getSubject();
+            String username = claims.getSubject();
             logger.debug("Claims extraídos do token: {}", claims);
             logger.debug("Usuário extraído do token: {}", username);
+            Date expiracao = claims.getExpiration();
+            if (username != null && expiracao != null) {
+                tokensVerificados.put(hashToken, new TokenVerificado(username, expiracao.getTime()));
+            }
+            return username;
         } catch (io.jsonwebtoken.ExpiredJwtException e) {
             logger.error("Token JWT expirado: {}", e.getMessage());
             throw new MensagemErrorException(HttpStatus.FORBIDDEN, "Token JWT expirado");
@@ -98,22 +229,17 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter implements Ini
             throw new MensagemErrorException(HttpStatus.FORBIDDEN,
                     "Erro ao validar token JWT: " + e.getMessage());
         }
+    }
 
-        if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            try {
-                UserDetails userDetails = userDetailsService.loadUserByUsername(username);
-                logger.debug("UserDetails carregados: {}", userDetails);
-                UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
-                        userDetails, null, userDetails.getAuthorities());
-                authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-                SecurityContextHolder.getContext().setAuthentication(authToken);
-                logger.debug("Usuário autenticado com sucesso: {}", username);
-            } catch (UsernameNotFoundException e) {
-                logger.error("Usuário não encontrado: {}", username);
-                throw new MensagemErrorException(HttpStatus.FORBIDDEN, "Usuário não encontrado");
-            }
+    private static String hash(String jwt) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(jwt.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponível", e);
         }
+    }
 
-        filterChain.doFilter(request, response);
+    private record TokenVerificado(String username, long expiraEm) {
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,53 @@
+package com.example.order.config;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Autenticação JWT da pilha reativa. Reaproveita a verificação e os caches do {@link JwtAuthenticationFilter};
+ * só a carga de um usuário fora do cache, que consulta o Mongo de forma bloqueante, sai do event loop.
+ *
+ * <p>Não é um bean: registrado apenas na cadeia do Spring Security pela {@link SecurityConfigReativa}.</p>
+ */
+public class JwtAuthenticationWebFilter implements WebFilter {
+
+    private final JwtAuthenticationFilter jwtAuthenticationFilter;
+
+    public JwtAuthenticationWebFilter(JwtAuthenticationFilter jwtAuthenticationFilter) {
+        this.jwtAuthenticationFilter = jwtAuthenticationFilter;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        if (JwtAuthenticationFilter.endpointPublico(exchange.getRequest().getPath().value())) {
+            return chain.filter(exchange);
+        }
+
+        String username;
+        try {
+            username = jwtAuthenticationFilter.usuarioDoCabecalho(
+                    exchange.getRequest().getHeaders().getFirst(HttpHeaders.AUTHORIZATION));
+        } catch (RuntimeException e) {
+            return Mono.error(e);
+        }
+        if (username == null) {
+            return chain.filter(exchange);
+        }
+
+        UserDetails emCache = jwtAuthenticationFilter.usuarioEmCache(username);
+        Mono<UserDetails> usuario = emCache != null
+                ? Mono.just(emCache)
+                : Mono.fromCallable(() -> jwtAuthenticationFilter.carregarUsuario(username))
+                        .subscribeOn(Schedulers.boundedElastic());
+        return usuario.flatMap(userDetails -> chain.filter(exchange)
+                .contextWrite(ReactiveSecurityContextHolder.withAuthentication(
+                        new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities()))));
+    }
+}
@@ -1,23 +1,104 @@
 package com.example.order.config;
 
 import com.example.order.model.Pedido;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.mongodb.core.MongoOperations;
 import org.springframework.data.mongodb.core.index.Index;
 import org.springframework.data.mongodb.core.index.IndexOperations;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Cria na inicialização os índices declarados em {@link #indicesDeclarados()} e confere se todos existem
+ * no banco, interrompendo a subida do serviço caso algum esteja ausente.
+ *
+ * <p>A coleção {@code usuarios} não precisa de índices extras: {@code idUsuario} é o {@code _id}.</p>
+ */
 @Configuration
 public class MongoConfig {
 
+    private static final Logger logger = LoggerFactory.getLogger(MongoConfig.class);
+
     public MongoConfig(MongoOperations mongoOperations) {
-        IndexOperations indexOps = mongoOperations.indexOps(Pedido.class);
+        garantirIndices(mongoOperations);
+    }
+
+    static Map<Class<?>, List<Index>> indicesDeclarados() {
+        Map<Class<?>, List<Index>> indices = new LinkedHashMap<>();
+        indices.put(Pedido.class, List.of(
+                // Criar índice TTL no campo expiresAt (expira imediatamente após expiresAt, ou seja, 6 meses)
+                new Index()
+                        .on("horarioExpiracao", Sort.Direction.ASC) // 1 para ASCENDING (ordem crescente)
+                        .expire(0L), // Expira imediatamente após expiresAt
+                // Pedidos do usuário, do mais recente para o mais antigo (meus-pedidos, paginação por cursor)
+                new Index()
+                        .on("idUsuario", Sort.Direction.ASC)
+                        .on("horarioCriacao", Sort.Direction.DESC)
+                        .on("_id", Sort.Direction.DESC)
+                        .named("idUsuario_horarioCriacao_id"),
+                // Pedidos por situação em ordem de criação (ex.: PENDENTE PAGAMENTO mais antigos primeiro)
+                new Index()
+                        .on("status", Sort.Direction.ASC)
+                        .on("horarioCriacao", Sort.Direction.ASC)
+                        .named("status_horarioCriacao")));
+        return indices;
+    }
+
+    static void garantirIndices(MongoOperations mongoOperations) {
+        indicesDeclarados().forEach((entidade, indices) -> {
+            IndexOperations indexOps = mongoOperations.indexOps(entidade);
+            indices.forEach(indexOps::ensureIndex);
+        });
+        verificarIndices(mongoOperations);
+    }
+
+    /**
+     * Compara as chaves dos índices declarados com as existentes em cada coleção. Índices a mais
+     * no banco são ignorados; a falta de qualquer declarado impede a inicialização.
+     */
+    static void verificarIndices(MongoOperations mongoOperations) {
+        List<String> ausentes = new ArrayList<>();
+        indicesDeclarados().forEach((entidade, indices) -> {
+            String colecao = mongoOperations.getCollectionName(entidade);
+            List<List<Chave>> existentes = new ArrayList<>();
+            for (Document indice : mongoOperations.getCollection(colecao).listIndexes()) {
+                existentes.add(chaves(indice.get("key", Document.class)));
+            }
+            for (Index indice : indices) {
+                List<Chave> chaves = chaves(indice.getIndexKeys());
+                if (!existentes.contains(chaves)) {
+                    ausentes.add(colecao + " " + chaves);
+                }
+            }
+        });
+
+        if (!ausentes.isEmpty()) {
+            throw new IllegalStateException("Índices do Mongo ausentes: " + ausentes);
+        }
+        logger.info("Índices do Mongo verificados: {} coleção(ões)", indicesDeclarados().size());
+    }
+
+    // Campos na ordem do índice, com a direção (1 ou -1) independente do tipo numérico devolvido pelo servidor.
+    // Lista e não mapa: {a: 1, b: 1} e {b: 1, a: 1} são índices diferentes
+    private static List<Chave> chaves(Document chaves) {
+        List<Chave> normalizadas = new ArrayList<>(chaves.size());
+        chaves.forEach((campo, direcao) -> normalizadas.add(new Chave(campo,
+                direcao instanceof Number numero ? (int) Math.signum(numero.doubleValue()) : 1)));
+        return normalizadas;
+    }
 
-        // Criar índice TTL no campo expiresAt (expira imediatamente após expiresAt, ou seja, 6 meses)
-        Index ttlIndex = new Index()
-                .on("horarioExpiracao", Sort.Direction.ASC) // 1 para ASCENDING (ordem crescente)
-                .expire(0L); // Expira imediatamente após expiresAt
+    private record Chave(String campo, int direcao) {
 
-        indexOps.ensureIndex(ttlIndex);
+        @Override
+        public String toString() {
+            return campo + ": " + direcao;
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,73 @@
+package com.example.order.config;
+
+import com.example.order.feignclient.ClienteHttpExternalA;
+import com.example.order.feignclient.ExternalAClientReativo;
+import com.example.order.feignclient.ExternalAWebClient;
+import io.netty.channel.ChannelOption;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.redis.connection.ReactiveRedisConnectionFactory;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializationContext;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
+
+@Configuration
+@Profile("reativo")
+public class ReativoConfig {
+
+    // O Tomcat continua no classpath por causa da pilha servlet; sem este bean o Spring Boot o escolheria
+    // também como servidor reativo
+    @Bean
+    public NettyReactiveWebServerFactory nettyReactiveWebServerFactory(@Value("${server.port:8080}") int porta) {
+        return new NettyReactiveWebServerFactory(porta);
+    }
+
+    // Mesmo formato de chaves e valores do genericRedisTemplate: as duas pilhas leem o cache uma da outra
+    @Bean
+    public ReactiveRedisTemplate<String, Object> reactiveGenericRedisTemplate(
+            ReactiveRedisConnectionFactory connectionFactory,
+            @Value("${app.redis.codec:json}") String codec) {
+        RedisSerializationContext<String, Object> contexto = RedisSerializationContext
+                .<String, Object>newSerializationContext(new StringRedisSerializer())
+                .value(RedisConfig.serializadorValores(codec))
+                .hashValue(RedisConfig.serializadorValores(codec))
+                .build();
+        return new ReactiveRedisTemplate<>(connectionFactory, contexto);
+    }
+
+    // Cliente do External A sobre o Reactor Netty, com os limites de pool e timeouts do transporte do Feign.
+    // Com os perfis "mock" e "sintetico" o ExternalAMockConfig e o ExternalASinteticoConfig fornecem a versão em memória
+    @Bean
+    @Profile("!mock & !sintetico")
+    public ExternalAClientReativo externalAClientReativo(
+            WebClient.Builder webClientBuilder,
+            @Value("${app.feign.external-api.url}") String url,
+            @Value("${spring.cloud.openfeign.httpclient.max-connections:200}") int maxConexoes,
+            @Value("${app.feign.external-api.keep-alive-millis:30000}") long keepAliveMillis,
+            @Value("${spring.cloud.openfeign.client.config.default.connect-timeout:500}") int connectTimeoutMillis,
+            @Value("${spring.cloud.openfeign.client.config.default.read-timeout:2000}") long readTimeoutMillis,
+            @Value("${app.feign.external-api.timeout-leitura-por-metodo:}") String timeoutsPorMetodo) {
+        ConnectionProvider pool = ConnectionProvider.builder("externalA")
+                .maxConnections(maxConexoes)
+                .maxIdleTime(Duration.ofMillis(keepAliveMillis))
+                .build();
+        HttpClient httpClient = HttpClient.create(pool)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, connectTimeoutMillis);
+        WebClient webClient = webClientBuilder
+                .baseUrl(url)
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .defaultHeader("Authorization", "Bearer token")
+                .build();
+        return new ExternalAWebClient(webClient, ClienteHttpExternalA.lerTimeoutsPorMetodo(timeoutsPorMetodo),
+                readTimeoutMillis);
+    }
+}
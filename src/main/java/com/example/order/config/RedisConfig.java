@@ -1,30 +1,35 @@
 package com.example.order.config;
 
+import com.example.order.service.ProdutoCacheService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
 @Configuration
 public class RedisConfig {
 
+    // "json" mantém o formato anterior; "binario" grava no formato compacto (ambos leem entradas em JSON)
+    @Value("${app.redis.codec:json}")
+    private String codec;
+
     @Bean
     public RedisTemplate<String, Object> genericRedisTemplate(RedisConnectionFactory connectionFactory) {
         RedisTemplate<String, Object> template = new RedisTemplate<>();
         template.setConnectionFactory(connectionFactory);
 
-        ObjectMapper objectMapper = new ObjectMapper();
-        objectMapper.registerModule(new JavaTimeModule());
-        objectMapper.activateDefaultTyping(objectMapper.getPolymorphicTypeValidator(), ObjectMapper.DefaultTyping.NON_FINAL); // Preserva tipos genéricos
-
         // Serializador para chaves (String)
         template.setKeySerializer(new StringRedisSerializer());
-        // Serializador para valores (Object, usando GenericJackson2JsonRedisSerializer com ObjectMapper personalizado)
-        GenericJackson2JsonRedisSerializer valueSerializer = new GenericJackson2JsonRedisSerializer(objectMapper);
+        // Serializador para valores (Object), escolhido por app.redis.codec
+        RedisSerializer<Object> valueSerializer = serializadorValores(codec);
         template.setValueSerializer(valueSerializer);
         template.setHashValueSerializer(valueSerializer);
 
@@ -35,4 +40,29 @@ public class RedisConfig {
 
         return template;
     }
+
+    static RedisSerializer<Object> serializadorValores(String codec) {
+        return switch (codec) {
+            case "binario" -> new CodecBinarioRedisSerializer(serializadorJson());
+            case "json" -> serializadorJson();
+            default -> throw new IllegalArgumentException("Codec de cache desconhecido: " + codec);
+        };
+    }
+
+    static GenericJackson2JsonRedisSerializer serializadorJson() {
+        ObjectMapper objectMapper = new ObjectMapper();
+        objectMapper.registerModule(new JavaTimeModule());
+        objectMapper.activateDefaultTyping(objectMapper.getPolymorphicTypeValidator(), ObjectMapper.DefaultTyping.NON_FINAL); // Preserva tipos genéricos
+        return new GenericJackson2JsonRedisSerializer(objectMapper);
+    }
+
+    // Recebe as invalidações publicadas pelas outras instâncias para o cache local de produtos
+    @Bean
+    public RedisMessageListenerContainer redisMessageListenerContainer(RedisConnectionFactory connectionFactory,
+                                                                       ProdutoCacheService produtoCacheService) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(produtoCacheService, new ChannelTopic(ProdutoCacheService.CANAL_INVALIDACAO));
+        return container;
+    }
 }
\ No newline at end of file
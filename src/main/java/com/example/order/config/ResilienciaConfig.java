@@ -0,0 +1,52 @@
+package com.example.order.config;
+
+import com.example.order.feignclient.ExternalAClient;
+import com.example.order.feignclient.ExternalAClientProtegido;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+public class ResilienciaConfig {
+
+    // Cliente do External A usado pelos serviços: com circuit breaker e bulkhead, ou o próprio cliente se desabilitado
+    @Bean("externalAClientProtegido")
+    public ExternalAClient externalAClientProtegido(
+            @Qualifier("externalAMockClient") ExternalAClient externalAClient,
+            MeterRegistry meterRegistry,
+            @Value("${app.feign.external-api.resiliencia.habilitada:false}") boolean habilitada,
+            @Value("${app.feign.external-api.resiliencia.janela-chamadas:50}") int janelaChamadas,
+            @Value("${app.feign.external-api.resiliencia.minimo-chamadas:20}") int minimoChamadas,
+            @Value("${app.feign.external-api.resiliencia.taxa-falhas-percentual:50}") float taxaFalhas,
+            @Value("${app.feign.external-api.resiliencia.chamada-lenta-millis:1000}") long chamadaLentaMillis,
+            @Value("${app.feign.external-api.resiliencia.taxa-lentas-percentual:80}") float taxaLentas,
+            @Value("${app.feign.external-api.resiliencia.aberto-millis:10000}") long abertoMillis,
+            @Value("${app.feign.external-api.resiliencia.chamadas-meio-aberto:5}") int chamadasMeioAberto,
+            @Value("${app.feign.external-api.resiliencia.bulkhead.max-concorrencia:64}") int maxConcorrencia,
+            @Value("${app.feign.external-api.resiliencia.bulkhead.espera-millis:10}") long esperaBulkheadMillis) {
+        if (!habilitada) {
+            return externalAClient;
+        }
+        CircuitBreakerConfig circuito = CircuitBreakerConfig.custom()
+                .slidingWindowType(CircuitBreakerConfig.SlidingWindowType.COUNT_BASED)
+                .slidingWindowSize(janelaChamadas)
+                .minimumNumberOfCalls(minimoChamadas)
+                .failureRateThreshold(taxaFalhas)
+                .slowCallDurationThreshold(Duration.ofMillis(chamadaLentaMillis))
+                .slowCallRateThreshold(taxaLentas)
+                .waitDurationInOpenState(Duration.ofMillis(abertoMillis))
+                .permittedNumberOfCallsInHalfOpenState(chamadasMeioAberto)
+                .build();
+        BulkheadConfig bulkhead = BulkheadConfig.custom()
+                .maxConcurrentCalls(maxConcorrencia)
+                .maxWaitDuration(Duration.ofMillis(esperaBulkheadMillis))
+                .build();
+        return new ExternalAClientProtegido(externalAClient, circuito, bulkhead, meterRegistry);
+    }
+}
@@ -1,7 +1,9 @@
 package com.example.order.config;
 
+import jakarta.servlet.DispatcherType;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
@@ -10,6 +12,7 @@ import org.springframework.security.web.authentication.UsernamePasswordAuthentic
 
 @Configuration
 @EnableWebSecurity
+@Profile("!reativo")
 public class SecurityConfig {
 
     private final JwtAuthenticationFilter jwtAuthenticationFilter;
@@ -23,10 +26,13 @@ public class SecurityConfig {
         http
                 .csrf().disable() // Desativa CSRF para APIs REST (pode ser reativado se necessário)
                 .authorizeHttpRequests(authorize -> authorize
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll() // Continuação de respostas em streaming já autorizadas na requisição original
                         .requestMatchers("/api/login").permitAll() // Permite acesso público ao login, sem autenticação
                         .requestMatchers("/api/registro").permitAll() // Permite acesso público ao registro, sem autenticação
                         .requestMatchers("/api/pedido/listar-produtos").permitAll() // Permite acesso público ao listar-produtos, sem autenticação
                         .requestMatchers("/api/pedido/**").authenticated() // Requer autenticação para outros endpoints de pedido
+                        .requestMatchers("/actuator/health").permitAll() // Health check aberto para o balanceador
+                        .requestMatchers("/actuator/**").authenticated() // Métricas e demais endpoints do actuator exigem token
                         .anyRequest().permitAll()
                 )
                 .sessionManagement(session -> session
@@ -0,0 +1,40 @@
+package com.example.order.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.security.config.annotation.web.reactive.EnableWebFluxSecurity;
+import org.springframework.security.config.web.server.SecurityWebFiltersOrder;
+import org.springframework.security.config.web.server.ServerHttpSecurity;
+import org.springframework.security.web.server.SecurityWebFilterChain;
+import org.springframework.security.web.server.context.NoOpServerSecurityContextRepository;
+
+// Mesmas regras da SecurityConfig, na cadeia de filtros do WebFlux
+@Configuration
+@EnableWebFluxSecurity
+@Profile("reativo")
+public class SecurityConfigReativa {
+
+    @Bean
+    public SecurityWebFilterChain securityWebFilterChain(ServerHttpSecurity http,
+                                                         JwtAuthenticationFilter jwtAuthenticationFilter) {
+        return http
+                .csrf(ServerHttpSecurity.CsrfSpec::disable)
+                .httpBasic(ServerHttpSecurity.HttpBasicSpec::disable)
+                .formLogin(ServerHttpSecurity.FormLoginSpec::disable)
+                .authorizeExchange(authorize -> authorize
+                        .pathMatchers("/api/login").permitAll()
+                        .pathMatchers("/api/registro").permitAll()
+                        .pathMatchers("/api/pedido/listar-produtos").permitAll()
+                        .pathMatchers("/api/pedido/**").authenticated()
+                        .pathMatchers("/actuator/health").permitAll()
+                        .pathMatchers("/actuator/**").authenticated()
+                        .anyExchange().permitAll()
+                )
+                // Sem sessão: a autenticação vem do token em cada requisição
+                .securityContextRepository(NoOpServerSecurityContextRepository.getInstance())
+                .addFilterAt(new JwtAuthenticationWebFilter(jwtAuthenticationFilter),
+                        SecurityWebFiltersOrder.AUTHENTICATION)
+                .build();
+    }
+}
@@ -1,36 +1,100 @@
 package com.example.order.controller;
 
+import com.example.order.service.dto.PaginaPedidosResponse;
 import com.example.order.service.dto.PedidoResponse;
+import com.example.order.service.CatalogoRespostaService;
+import com.example.order.service.IdempotenciaPedidoService;
 import com.example.order.service.PedidoService;
-import com.example.order.model.Produto;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.util.Iterator;
 import java.util.List;
+import java.util.stream.Stream;
 
+// Pilha servlet; com o perfil "reativo" os mesmos endpoints são atendidos pelo PedidoControllerReativo
 @RestController
 @RequestMapping("/api/pedido")
+@Profile("!reativo")
 public class PedidoController {
 
+    // Resposta montada com dados vencidos porque o External A estava indisponível
+    private static final String AVISO_DESATUALIZADO = "110 - \"Response is Stale\"";
+
+    static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+    // Marca a resposta devolvida de uma requisição anterior com a mesma Idempotency-Key
+    static final String IDEMPOTENT_REPLAYED = "Idempotent-Replayed";
+
     private final PedidoService pedidoService;
+    private final IdempotenciaPedidoService idempotenciaPedidoService;
+    private final CatalogoRespostaService catalogoRespostaService;
+    private final ObjectWriter pedidoWriter;
 
 
-    public PedidoController(PedidoService pedidoService) {
+    public PedidoController(PedidoService pedidoService, IdempotenciaPedidoService idempotenciaPedidoService,
+                            CatalogoRespostaService catalogoRespostaService, ObjectMapper objectMapper) {
         this.pedidoService = pedidoService;
+        this.idempotenciaPedidoService = idempotenciaPedidoService;
+        this.catalogoRespostaService = catalogoRespostaService;
+        this.pedidoWriter = objectMapper.writerFor(PedidoResponse.class);
     }
 
+    // Corpo pré-codificado (JSON ou gzip, cada um com seu ETag) escrito direto; 304 quando o cliente já tem a versão atual
     @GetMapping("/listar-produtos")
-    public ResponseEntity<List<Produto>> getAllProducts() {
-        List<Produto> produtos = pedidoService.buscaTodosProdutos();
-        return ResponseEntity.ok(produtos);
+    public ResponseEntity<byte[]> getAllProducts(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        CatalogoRespostaService.RespostaCatalogo catalogo = catalogoRespostaService.obter();
+        boolean gzip = aceitaGzip(acceptEncoding);
+        // O cliente pode ter guardado qualquer uma das duas representações do mesmo conteúdo
+        boolean naoModificado = etagConfere(ifNoneMatch, catalogo.etag(), catalogo.etagGzip());
+        ResponseEntity.BodyBuilder resposta = ResponseEntity.status(naoModificado ? HttpStatus.NOT_MODIFIED : HttpStatus.OK)
+                .eTag(gzip ? catalogo.etagGzip() : catalogo.etag())
+                .cacheControl(CacheControl.noCache())
+                .varyBy(HttpHeaders.ACCEPT_ENCODING);
+        if (catalogo.desatualizado()) {
+            resposta.header(HttpHeaders.WARNING, AVISO_DESATUALIZADO);
+        }
+        if (naoModificado) {
+            return resposta.build();
+        }
+        resposta.contentType(MediaType.APPLICATION_JSON);
+        if (gzip) {
+            return resposta.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(catalogo.gzip());
+        }
+        return resposta.body(catalogo.json());
     }
 
     @PostMapping("/fazer-pedido")
     public ResponseEntity<PedidoResponse> createBatchPedido(
-            @RequestBody BatchPedidoRequest batchRequest) {
+            @RequestBody BatchPedidoRequest batchRequest,
+            @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String chaveIdempotencia) {
 
-        PedidoResponse response = pedidoService.createBatchPedido(batchRequest.getProdutoItems());
-        return ResponseEntity.ok(response);
+        List<ProdutoItem> itens = batchRequest.getProdutoItems();
+        ResponseEntity.BodyBuilder resposta = ResponseEntity.ok();
+        PedidoResponse response;
+        if (chaveIdempotencia == null) {
+            response = pedidoService.createBatchPedido(itens);
+        } else {
+            IdempotenciaPedidoService.Resultado resultado = idempotenciaPedidoService.executar(chaveIdempotencia,
+                    itens, () -> pedidoService.createBatchPedido(itens));
+            response = resultado.resposta();
+            if (resultado.repetido()) {
+                resposta.header(IDEMPOTENT_REPLAYED, "true");
+            }
+        }
+        if (Boolean.TRUE.equals(response.getDadosDesatualizados())) {
+            resposta.header(HttpHeaders.WARNING, AVISO_DESATUALIZADO);
+        }
+        return resposta.body(response);
     }
 
     @GetMapping("/meus-pedidos")
@@ -42,4 +106,72 @@ public class PedidoController {
         return ResponseEntity.ok(pedidos);
     }
 
-}
\ No newline at end of file
+    @GetMapping("/meus-pedidos/paginado")
+    public ResponseEntity<PaginaPedidosResponse> listarPedidosPorUsuarioPaginado(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer tamanho) {
+        return ResponseEntity.ok(pedidoService.listarPedidosPorUsuarioPaginado(cursor, tamanho));
+    }
+
+    // Um pedido por linha (NDJSON), escrito à medida que sai do cursor do Mongo
+    @GetMapping("/meus-pedidos/stream")
+    public ResponseEntity<StreamingResponseBody> streamPedidosPorUsuario() {
+        Stream<PedidoResponse> pedidos = pedidoService.streamPedidosPorUsuario();
+        StreamingResponseBody corpo = saida -> {
+            try (pedidos) {
+                Iterator<PedidoResponse> iterator = pedidos.iterator();
+                while (iterator.hasNext()) {
+                    saida.write(pedidoWriter.writeValueAsBytes(iterator.next()));
+                    saida.write('\n');
+                }
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(corpo);
+    }
+
+    // If-None-Match com um ou mais ETags (fracos ou fortes) ou "*"; a comparação é a fraca, como pede o RFC 9110
+    static boolean etagConfere(String ifNoneMatch, String... etagsAtuais) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidato : ifNoneMatch.split(",")) {
+            String valor = candidato.trim();
+            if (valor.startsWith("W/")) {
+                valor = valor.substring(2);
+            }
+            if (valor.equals("*")) {
+                return true;
+            }
+            for (String etag : etagsAtuais) {
+                if (valor.equals(etag)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    static boolean aceitaGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String codificacao : acceptEncoding.split(",")) {
+            String[] partes = codificacao.trim().split(";");
+            if (partes[0].trim().equalsIgnoreCase("gzip")) {
+                for (int i = 1; i < partes.length; i++) {
+                    String parametro = partes[i].trim();
+                    if (parametro.startsWith("q=")) {
+                        try {
+                            return Double.parseDouble(parametro.substring(2)) > 0;
+                        } catch (NumberFormatException e) {
+                            return false;
+                        }
+                    }
+                }
+                return true;
+            }
+        }
+        return false;
+    }
+
+}
@@ -0,0 +1,78 @@
+package com.example.order.controller;
+
+import com.example.order.model.Produto;
+import com.example.order.service.IdempotenciaPedidoServiceReativo;
+import com.example.order.service.PedidoServiceReativo;
+import com.example.order.service.dto.PaginaPedidosResponse;
+import com.example.order.service.dto.PedidoResponse;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+// Mesmo contrato do PedidoController, atendido pela pilha WebFlux quando o perfil "reativo" está ativo
+@RestController
+@RequestMapping("/api/pedido")
+@Profile("reativo")
+public class PedidoControllerReativo {
+
+    private final PedidoServiceReativo pedidoService;
+    private final IdempotenciaPedidoServiceReativo idempotenciaPedidoService;
+
+    public PedidoControllerReativo(PedidoServiceReativo pedidoService,
+                                   IdempotenciaPedidoServiceReativo idempotenciaPedidoService) {
+        this.pedidoService = pedidoService;
+        this.idempotenciaPedidoService = idempotenciaPedidoService;
+    }
+
+    @GetMapping("/listar-produtos")
+    public Mono<ResponseEntity<List<Produto>>> getAllProducts() {
+        return pedidoService.buscaTodosProdutos().map(ResponseEntity::ok);
+    }
+
+    @PostMapping("/fazer-pedido")
+    public Mono<ResponseEntity<PedidoResponse>> createBatchPedido(
+            @RequestBody BatchPedidoRequest batchRequest,
+            @RequestHeader(value = PedidoController.IDEMPOTENCY_KEY, required = false) String chaveIdempotencia) {
+
+        List<ProdutoItem> itens = batchRequest.getProdutoItems();
+        if (chaveIdempotencia == null) {
+            return pedidoService.createBatchPedido(itens).map(ResponseEntity::ok);
+        }
+        return idempotenciaPedidoService.executar(chaveIdempotencia, itens, () -> pedidoService.createBatchPedido(itens))
+                .map(resultado -> {
+                    ResponseEntity.BodyBuilder resposta = ResponseEntity.ok();
+                    if (resultado.repetido()) {
+                        resposta.header(PedidoController.IDEMPOTENT_REPLAYED, "true");
+                    }
+                    return resposta.body(resultado.resposta());
+                });
+    }
+
+    @GetMapping("/meus-pedidos")
+    public Mono<ResponseEntity<List<PedidoResponse>>> listarPedidosPorUsuario() {
+        return pedidoService.listarPedidosPorUsuario()
+                .collectList()
+                .map(pedidos -> pedidos.isEmpty()
+                        ? ResponseEntity.noContent().<List<PedidoResponse>>build()
+                        : ResponseEntity.ok(pedidos));
+    }
+
+    @GetMapping("/meus-pedidos/paginado")
+    public Mono<ResponseEntity<PaginaPedidosResponse>> listarPedidosPorUsuarioPaginado(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer tamanho) {
+        return pedidoService.listarPedidosPorUsuarioPaginado(cursor, tamanho).map(ResponseEntity::ok);
+    }
+
+    // Um pedido por linha (NDJSON), com a contrapressão do cliente chegando até o cursor do Mongo
+    @GetMapping(value = "/meus-pedidos/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<PedidoResponse> streamPedidosPorUsuario() {
+        return pedidoService.listarPedidosPorUsuario();
+    }
+
+}
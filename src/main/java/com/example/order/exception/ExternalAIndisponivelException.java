@@ -0,0 +1,14 @@
+package com.example.order.exception;
+
+import org.springframework.http.HttpStatus;
+
+/**
+ * O External A não foi chamado: o circuito do método está aberto ou não há vaga no bulkhead.
+ * Quem tem um valor anterior em cache pode servi-lo no lugar; os demais respondem 503 na hora.
+ */
+public class ExternalAIndisponivelException extends MensagemErrorException {
+
+    public ExternalAIndisponivelException(String message) {
+        super(HttpStatus.SERVICE_UNAVAILABLE, message);
+    }
+}
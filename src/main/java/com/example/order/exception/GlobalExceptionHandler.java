@@ -1,6 +1,7 @@
 package com.example.order.exception;
 
 import lombok.Data;
+import org.springframework.context.annotation.Profile;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -10,6 +11,7 @@ import java.time.LocalDateTime;
 
 @Data
 @ControllerAdvice
+@Profile("!reativo")
 public class GlobalExceptionHandler {
 
     @ExceptionHandler(MensagemErrorException.class)
@@ -0,0 +1,58 @@
+package com.example.order.exception;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebExceptionHandler;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+
+/**
+ * Equivalente reativo do {@link GlobalExceptionHandler}: converte {@link MensagemErrorException} no mesmo
+ * {@link ErrorResponse}. Como é um {@link WebExceptionHandler}, vale também para os erros dos filtros
+ * (ex.: token JWT inválido), e não só para os dos controllers. Os demais erros seguem para o tratamento padrão.
+ */
+@Component
+@Order(-2)
+@Profile("reativo")
+public class ManipuladorErrosReativo implements WebExceptionHandler {
+
+    private final ObjectMapper objectMapper;
+
+    public ManipuladorErrosReativo(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public Mono<Void> handle(ServerWebExchange exchange, Throwable ex) {
+        if (!(ex instanceof MensagemErrorException erro)) {
+            return Mono.error(ex);
+        }
+        ServerHttpResponse response = exchange.getResponse();
+        if (response.isCommitted()) {
+            return Mono.error(ex);
+        }
+        ErrorResponse errorResponse = new ErrorResponse(
+                LocalDateTime.now(),
+                erro.getStatus().value(),
+                erro.getStatus().getReasonPhrase(),
+                erro.getMessage(),
+                "uri=" + exchange.getRequest().getPath().value()
+        );
+        byte[] corpo;
+        try {
+            corpo = objectMapper.writeValueAsBytes(errorResponse);
+        } catch (JsonProcessingException e) {
+            return Mono.error(e);
+        }
+        response.setStatusCode(erro.getStatus());
+        response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(corpo)));
+    }
+}
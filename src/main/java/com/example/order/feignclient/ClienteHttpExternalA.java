@@ -0,0 +1,272 @@
+package com.example.order.feignclient;
+
+import feign.Client;
+import feign.Request;
+import feign.Response;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Transporte do {@link ExternalAClient} sobre o cliente HTTP com pool (Apache HttpClient 5). Aplica o timeout de
+ * leitura configurado para cada método do cliente, registra a latência de cada chamada por método e, se habilitado,
+ * faz hedge dos GETs: quando a resposta demora mais que o p95 recente do método, uma segunda requisição idêntica
+ * é disparada e vale a que responder primeiro.
+ *
+ * <p>O hedge só começa depois de {@code amostrasMinimasHedge} chamadas do método e fica limitado a
+ * {@code maximoHedgesSimultaneos} em andamento, para que um upstream lento por inteiro não receba o dobro da carga.</p>
+ */
+public class ClienteHttpExternalA implements Client {
+
+    private static final Logger logger = LoggerFactory.getLogger(ClienteHttpExternalA.class);
+
+    static final String METODO_DESCONHECIDO = "desconhecido";
+    private static final double PERCENTIL_HEDGE = 0.95;
+
+    private final Client delegate;
+    private final Executor executorHedge;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Long> timeoutLeituraPorMetodo;
+    private final boolean hedgeHabilitado;
+    private final long atrasoMinimoHedgeMillis;
+    private final long amostrasMinimasHedge;
+    private final Semaphore hedgesEmAndamento;
+
+    private final Map<String, Timer> latencias = new ConcurrentHashMap<>();
+    private final Map<String, Counter> hedgesDisparados = new ConcurrentHashMap<>();
+    private final Map<String, Counter> hedgesVencedores = new ConcurrentHashMap<>();
+
+    public ClienteHttpExternalA(Client delegate,
+                                Executor executorHedge,
+                                MeterRegistry meterRegistry,
+                                Map<String, Long> timeoutLeituraPorMetodo,
+                                boolean hedgeHabilitado,
+                                long atrasoMinimoHedgeMillis,
+                                long amostrasMinimasHedge,
+                                int maximoHedgesSimultaneos) {
+        this.delegate = delegate;
+        this.executorHedge = executorHedge;
+        this.meterRegistry = meterRegistry;
+        this.timeoutLeituraPorMetodo = Map.copyOf(timeoutLeituraPorMetodo);
+        this.hedgeHabilitado = hedgeHabilitado;
+        this.atrasoMinimoHedgeMillis = atrasoMinimoHedgeMillis;
+        this.amostrasMinimasHedge = amostrasMinimasHedge;
+        this.hedgesEmAndamento = new Semaphore(maximoHedgesSimultaneos);
+    }
+
+    /**
+     * Converte a lista {@code metodo:millis,metodo:millis} da configuração no mapa de timeouts de leitura.
+     */
+    public static Map<String, Long> lerTimeoutsPorMetodo(String configuracao) {
+        Map<String, Long> timeouts = new HashMap<>();
+        if (configuracao == null || configuracao.isBlank()) {
+            return timeouts;
+        }
+        for (String item : configuracao.split(",")) {
+            String[] partes = item.trim().split(":");
+            if (partes.length != 2) {
+                throw new IllegalArgumentException("Timeout por método inválido: '" + item.trim() + "' (esperado metodo:millis)");
+            }
+            timeouts.put(partes[0].trim(), Long.parseLong(partes[1].trim()));
+        }
+        return timeouts;
+    }
+
+    @Override
+    public Response execute(Request request, Request.Options options) throws IOException {
+        String metodo = metodo(request);
+        Request.Options opcoes = opcoes(metodo, options);
+        Timer latencia = latencia(metodo);
+
+        Long atraso = hedgeHabilitado && request.httpMethod() == Request.HttpMethod.GET
+                ? atrasoHedge(latencia, opcoes) : null;
+        if (atraso == null) {
+            return executarMedindo(request, opcoes, latencia);
+        }
+        return executarComHedge(request, opcoes, metodo, latencia, atraso);
+    }
+
+    private Response executarComHedge(Request request, Request.Options opcoes, String metodo,
+                                      Timer latencia, long atrasoMillis) throws IOException {
+        CompletableFuture<Response> primaria;
+        try {
+            primaria = disparar(request, opcoes, latencia);
+        } catch (RejectedExecutionException e) {
+            return executarMedindo(request, opcoes, latencia);
+        }
+
+        try {
+            return primaria.get(atrasoMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            // Passou do p95: segue para o hedge
+        } catch (ExecutionException e) {
+            throw causa(e);
+        } catch (InterruptedException e) {
+            throw interrompido(primaria);
+        }
+
+        if (!hedgesEmAndamento.tryAcquire()) {
+            return aguardar(primaria);
+        }
+        CompletableFuture<Response> hedge;
+        try {
+            hedge = disparar(request, opcoes, latencia);
+        } catch (RejectedExecutionException e) {
+            hedgesEmAndamento.release();
+            return aguardar(primaria);
+        }
+        hedge.whenComplete((resposta, erro) -> hedgesEmAndamento.release());
+        contador(hedgesDisparados, metodo, "disparado").increment();
+
+        Response resposta = aguardar(primeiraComSucesso(primaria, hedge));
+        if (hedge.isDone() && !hedge.isCompletedExceptionally() && hedge.join() == resposta) {
+            contador(hedgesVencedores, metodo, "venceu").increment();
+        }
+        return resposta;
+    }
+
+    // Conclui com a primeira resposta; só falha se as duas falharem. A resposta que chegar depois é fechada
+    private static CompletableFuture<Response> primeiraComSucesso(CompletableFuture<Response> primaria,
+                                                                  CompletableFuture<Response> hedge) {
+        CompletableFuture<Response> resultado = new CompletableFuture<>();
+        AtomicInteger falhas = new AtomicInteger();
+        for (CompletableFuture<Response> tentativa : List.of(primaria, hedge)) {
+            tentativa.whenComplete((resposta, erro) -> {
+                if (erro == null) {
+                    if (!resultado.complete(resposta)) {
+                        fechar(resposta);
+                    }
+                } else if (falhas.incrementAndGet() == 2) {
+                    resultado.completeExceptionally(erro);
+                }
+            });
+        }
+        return resultado;
+    }
+
+    private CompletableFuture<Response> disparar(Request request, Request.Options opcoes, Timer latencia) {
+        CompletableFuture<Response> tentativa = new CompletableFuture<>();
+        executorHedge.execute(() -> {
+            try {
+                tentativa.complete(executarMedindo(request, opcoes, latencia));
+            } catch (Throwable e) {
+                tentativa.completeExceptionally(e);
+            }
+        });
+        return tentativa;
+    }
+
+    // A latência de cada tentativa (e não a vista pelo chamador) é a que alimenta o p95 do hedge
+    private Response executarMedindo(Request request, Request.Options opcoes, Timer latencia) throws IOException {
+        long inicio = System.nanoTime();
+        try {
+            return delegate.execute(request, opcoes);
+        } finally {
+            latencia.record(System.nanoTime() - inicio, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    // Atraso do hedge: o p95 recente do método, ou null se ainda não há amostras ou se ele já encosta no timeout
+    private Long atrasoHedge(Timer latencia, Request.Options opcoes) {
+        if (latencia.count() < amostrasMinimasHedge) {
+            return null;
+        }
+        for (ValueAtPercentile percentil : latencia.takeSnapshot().percentileValues()) {
+            if (percentil.percentile() == PERCENTIL_HEDGE) {
+                long atraso = Math.max(atrasoMinimoHedgeMillis, (long) percentil.value(TimeUnit.MILLISECONDS));
+                return atraso < opcoes.readTimeoutUnit().toMillis(opcoes.readTimeout()) ? atraso : null;
+            }
+        }
+        return null;
+    }
+
+    private Request.Options opcoes(String metodo, Request.Options options) {
+        Long timeoutLeitura = timeoutLeituraPorMetodo.get(metodo);
+        if (timeoutLeitura == null) {
+            return options;
+        }
+        return new Request.Options(options.connectTimeout(), options.connectTimeoutUnit(),
+                timeoutLeitura, TimeUnit.MILLISECONDS, options.isFollowRedirects());
+    }
+
+    private Timer latencia(String metodo) {
+        return latencias.computeIfAbsent(metodo, m -> Timer.builder("externala.cliente.latencia")
+                .description("Latência de cada requisição HTTP ao External A")
+                .tag("metodo", m)
+                .publishPercentiles(0.5, PERCENTIL_HEDGE, 0.99)
+                .register(meterRegistry));
+    }
+
+    private Counter contador(Map<String, Counter> contadores, String metodo, String resultado) {
+        return contadores.computeIfAbsent(metodo, m -> Counter.builder("externala.cliente.hedge")
+                .description("Requisições de hedge ao External A")
+                .tag("metodo", m)
+                .tag("resultado", resultado)
+                .register(meterRegistry));
+    }
+
+    private static String metodo(Request request) {
+        if (request.requestTemplate() == null || request.requestTemplate().methodMetadata() == null
+                || request.requestTemplate().methodMetadata().method() == null) {
+            return METODO_DESCONHECIDO;
+        }
+        return request.requestTemplate().methodMetadata().method().getName();
+    }
+
+    private static Response aguardar(CompletableFuture<Response> tentativa) throws IOException {
+        try {
+            return tentativa.get();
+        } catch (ExecutionException e) {
+            throw causa(e);
+        } catch (InterruptedException e) {
+            throw interrompido(tentativa);
+        }
+    }
+
+    private static InterruptedIOException interrompido(CompletableFuture<Response> tentativa) {
+        Thread.currentThread().interrupt();
+        tentativa.thenAccept(ClienteHttpExternalA::fechar);
+        return new InterruptedIOException("Chamada ao External A interrompida");
+    }
+
+    private static IOException causa(ExecutionException e) {
+        Throwable causa = e.getCause();
+        if (causa instanceof IOException io) {
+            return io;
+        }
+        if (causa instanceof RuntimeException runtime) {
+            throw runtime;
+        }
+        if (causa instanceof Error error) {
+            throw error;
+        }
+        return new IOException(causa);
+    }
+
+    // Libera a conexão da resposta descartada de volta ao pool
+    private static void fechar(Response resposta) {
+        try {
+            resposta.close();
+        } catch (Exception e) {
+            logger.debug("Erro ao fechar resposta descartada do External A: {}", e.getMessage());
+        }
+    }
+}
@@ -1,12 +1,18 @@
 package com.example.order.feignclient;
 
 import com.example.order.config.FeignConfig;
+import com.example.order.model.AlteracoesCatalogo;
 import com.example.order.model.Produto;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 @FeignClient(name = "${app.feign.external-api.nome}", url = "${app.feign.external-api.url}", configuration = FeignConfig.class)
 public interface ExternalAClient {
@@ -20,6 +26,14 @@ public interface ExternalAClient {
     @GetMapping("/api/produto/listar-todos")
     List<Produto> getTodosProdutos();
 
+    // Produtos alterados ou removidos depois da versão informada (0 devolve o catálogo inteiro como alterado)
+    @GetMapping("/api/produto/alteracoes")
+    AlteracoesCatalogo getAlteracoesProdutos(@RequestParam("desde") long versao);
+
     @GetMapping("/api/produtos/{idProduto}")
     Produto getProduto(String idProduto);
-}
\ No newline at end of file
+
+    // Busca vários produtos (com quantidadeDisponivel) em uma única chamada; ids desconhecidos ficam fora do mapa
+    @PostMapping("/api/produto/lote")
+    Map<String, Produto> getProdutosEmLote(@RequestBody Collection<String> idsProduto);
+}
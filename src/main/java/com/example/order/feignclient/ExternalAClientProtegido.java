@@ -0,0 +1,118 @@
+package com.example.order.feignclient;
+
+import com.example.order.exception.ExternalAIndisponivelException;
+import com.example.order.exception.MensagemErrorException;
+import com.example.order.model.AlteracoesCatalogo;
+import com.example.order.model.Produto;
+import feign.FeignException;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.micrometer.tagged.TaggedBulkheadMetrics;
+import io.github.resilience4j.micrometer.tagged.TaggedCircuitBreakerMetrics;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * {@link ExternalAClient} com um circuit breaker por método e um bulkhead de concorrência compartilhado.
+ * Com o upstream lento ou falhando, o circuito do método abre e as chamadas seguintes falham na hora com
+ * {@link ExternalAIndisponivelException}, em vez de prender uma thread da requisição esperando o timeout;
+ * o bulkhead limita quantas threads podem estar presas no upstream ao mesmo tempo.
+ *
+ * <p>Respostas 4xx (ex.: produto inexistente) e erros de negócio não contam como falha do upstream.</p>
+ */
+public class ExternalAClientProtegido implements ExternalAClient {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExternalAClientProtegido.class);
+
+    static final String BULKHEAD = "externalA";
+
+    private final ExternalAClient delegate;
+    private final CircuitBreakerRegistry circuitos;
+    private final Bulkhead bulkhead;
+
+    public ExternalAClientProtegido(ExternalAClient delegate,
+                                    CircuitBreakerConfig configuracaoCircuito,
+                                    BulkheadConfig configuracaoBulkhead,
+                                    MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.circuitos = CircuitBreakerRegistry.of(CircuitBreakerConfig.from(configuracaoCircuito)
+                .recordException(ExternalAClientProtegido::contaComoFalha)
+                .build());
+        BulkheadRegistry bulkheads = BulkheadRegistry.of(configuracaoBulkhead);
+        this.bulkhead = bulkheads.bulkhead(BULKHEAD);
+        TaggedCircuitBreakerMetrics.ofCircuitBreakerRegistry(circuitos).bindTo(meterRegistry);
+        TaggedBulkheadMetrics.ofBulkheadRegistry(bulkheads).bindTo(meterRegistry);
+    }
+
+    @Override
+    public Integer getQuantidadeProduto(String idProduto) {
+        return proteger("getQuantidadeProduto", () -> delegate.getQuantidadeProduto(idProduto));
+    }
+
+    @Override
+    public Double getPrecoProduto(String idProduto) {
+        return proteger("getPrecoProduto", () -> delegate.getPrecoProduto(idProduto));
+    }
+
+    @Override
+    public List<Produto> getTodosProdutos() {
+        return proteger("getTodosProdutos", delegate::getTodosProdutos);
+    }
+
+    @Override
+    public AlteracoesCatalogo getAlteracoesProdutos(long versao) {
+        return proteger("getAlteracoesProdutos", () -> delegate.getAlteracoesProdutos(versao));
+    }
+
+    @Override
+    public Produto getProduto(String idProduto) {
+        return proteger("getProduto", () -> delegate.getProduto(idProduto));
+    }
+
+    @Override
+    public Map<String, Produto> getProdutosEmLote(Collection<String> idsProduto) {
+        return proteger("getProdutosEmLote", () -> delegate.getProdutosEmLote(idsProduto));
+    }
+
+    // Visível no pacote para os testes
+    CircuitBreaker circuito(String metodo) {
+        return circuitos.circuitBreaker(metodo);
+    }
+
+    Bulkhead getBulkhead() {
+        return bulkhead;
+    }
+
+    // O circuito fica por fora do bulkhead: uma chamada recusada por falta de vaga não conta como falha
+    private <T> T proteger(String metodo, Supplier<T> chamada) {
+        CircuitBreaker circuito = circuitos.circuitBreaker(metodo);
+        try {
+            return circuito.executeSupplier(Bulkhead.decorateSupplier(bulkhead, chamada));
+        } catch (CallNotPermittedException e) {
+            logger.debug("Chamada {} ao External A recusada: circuito aberto", metodo);
+            throw new ExternalAIndisponivelException("External A indisponível: circuito de " + metodo + " aberto");
+        } catch (BulkheadFullException e) {
+            logger.debug("Chamada {} ao External A recusada: bulkhead cheio", metodo);
+            throw new ExternalAIndisponivelException(
+                    "External A sobrecarregado: limite de chamadas simultâneas atingido em " + metodo);
+        }
+    }
+
+    static boolean contaComoFalha(Throwable erro) {
+        return !(erro instanceof FeignException.FeignClientException)
+                && !(erro instanceof MensagemErrorException)
+                && !(erro instanceof BulkheadFullException);
+    }
+}
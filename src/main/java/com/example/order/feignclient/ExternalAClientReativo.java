@@ -0,0 +1,19 @@
+package com.example.order.feignclient;
+
+import com.example.order.model.Produto;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * Versão não bloqueante do {@link ExternalAClient}, com as consultas usadas pela pilha reativa.
+ * Produto inexistente resulta em um {@link Mono} vazio.
+ */
+public interface ExternalAClientReativo {
+
+    Mono<Integer> getQuantidadeProduto(String idProduto);
+
+    Mono<Produto> getProduto(String idProduto);
+
+    Mono<List<Produto>> getTodosProdutos();
+}
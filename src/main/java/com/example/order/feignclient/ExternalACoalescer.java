@@ -0,0 +1,158 @@
+package com.example.order.feignclient;
+
+import com.example.order.exception.ExternalAIndisponivelException;
+import com.example.order.model.Produto;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Agrupa consultas de produto (com estoque) feitas por requisições concorrentes em uma única chamada
+ * {@link ExternalAClient#getProdutosEmLote}. Um lote é enviado quando atinge {@code tamanhoMaximoLote},
+ * quando a janela expira ou, se não houver nenhum lote em andamento, imediatamente: com pouca carga não
+ * há espera e, sob carga, as consultas se acumulam enquanto o lote anterior está no upstream.
+ */
+@Component
+public class ExternalACoalescer {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExternalACoalescer.class);
+
+    private final ExternalAClient externalAClient;
+    private final Executor executorEnvio;
+    private final long janelaMicros;
+    private final int tamanhoMaximoLote;
+    private final ScheduledExecutorService agendador = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "externala-coalescer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private Map<String, CompletableFuture<Produto>> pendentes = new LinkedHashMap<>();
+    private ScheduledFuture<?> envioAgendado;
+    private final AtomicInteger lotesEmAndamento = new AtomicInteger();
+
+    private final AtomicLong totalSolicitacoes = new AtomicLong();
+    private final AtomicLong totalChamadasEmLote = new AtomicLong();
+
+    public ExternalACoalescer(@Qualifier("externalAClientProtegido") ExternalAClient externalAClient,
+                              @Qualifier("externalACoalescerExecutor") Executor executorEnvio,
+                              @Value("${app.feign.external-api.coalescer.janela-micros:2000}") long janelaMicros,
+                              @Value("${app.feign.external-api.coalescer.tamanho-maximo-lote:100}") int tamanhoMaximoLote) {
+        this.externalAClient = externalAClient;
+        this.executorEnvio = executorEnvio;
+        this.janelaMicros = janelaMicros;
+        this.tamanhoMaximoLote = tamanhoMaximoLote;
+    }
+
+    /**
+     * Retorna o produto (com quantidadeDisponivel) ou {@code null} se o upstream não o conhecer.
+     * Consultas ao mesmo id dentro do mesmo lote compartilham o resultado.
+     */
+    public CompletableFuture<Produto> buscarProduto(String idProduto) {
+        totalSolicitacoes.incrementAndGet();
+        Map<String, CompletableFuture<Produto>> loteParaEnviar = null;
+        CompletableFuture<Produto> resultado;
+
+        lock.lock();
+        try {
+            resultado = pendentes.computeIfAbsent(idProduto, id -> new CompletableFuture<>());
+            if (pendentes.size() >= tamanhoMaximoLote || lotesEmAndamento.get() == 0) {
+                loteParaEnviar = retirarPendentes();
+            } else if (envioAgendado == null) {
+                envioAgendado = agendador.schedule(this::enviarPorJanela, janelaMicros, TimeUnit.MICROSECONDS);
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        if (loteParaEnviar != null) {
+            despachar(loteParaEnviar);
+        }
+        return resultado;
+    }
+
+    public long getTotalSolicitacoes() {
+        return totalSolicitacoes.get();
+    }
+
+    public long getTotalChamadasEmLote() {
+        return totalChamadasEmLote.get();
+    }
+
+    @PreDestroy
+    public void encerrar() {
+        agendador.shutdownNow();
+    }
+
+    private void enviarPorJanela() {
+        Map<String, CompletableFuture<Produto>> lote;
+        lock.lock();
+        try {
+            envioAgendado = null;
+            lote = pendentes.isEmpty() ? null : retirarPendentes();
+        } finally {
+            lock.unlock();
+        }
+        if (lote != null) {
+            despachar(lote);
+        }
+    }
+
+    // Deve ser chamado com o lock adquirido
+    private Map<String, CompletableFuture<Produto>> retirarPendentes() {
+        Map<String, CompletableFuture<Produto>> lote = pendentes;
+        pendentes = new LinkedHashMap<>();
+        if (envioAgendado != null) {
+            envioAgendado.cancel(false);
+            envioAgendado = null;
+        }
+        lotesEmAndamento.incrementAndGet();
+        return lote;
+    }
+
+    private void despachar(Map<String, CompletableFuture<Produto>> lote) {
+        try {
+            executorEnvio.execute(() -> enviar(lote));
+        } catch (RejectedExecutionException e) {
+            // Pool de envio saturado: o lote não vai ao upstream e não é executado por quem o despachou
+            lotesEmAndamento.decrementAndGet();
+            logger.warn("Lote de {} produtos recusado: pool de envio do coalescer cheio", lote.size());
+            ExternalAIndisponivelException indisponivel =
+                    new ExternalAIndisponivelException("Consulta em lote ao External A sem vaga no momento");
+            lote.values().forEach(future -> future.completeExceptionally(indisponivel));
+        }
+    }
+
+    private void enviar(Map<String, CompletableFuture<Produto>> lote) {
+        try {
+            totalChamadasEmLote.incrementAndGet();
+            logger.debug("Enviando lote de {} produtos ao External A", lote.size());
+            Map<String, Produto> encontrados = externalAClient.getProdutosEmLote(lote.keySet());
+            lote.forEach((id, future) -> future.complete(encontrados != null ? encontrados.get(id) : null));
+        } catch (RuntimeException e) {
+            logger.error("Erro ao consultar lote de produtos no External A: {}", e.getMessage());
+            lote.values().forEach(future -> future.completeExceptionally(e));
+        } finally {
+            lotesEmAndamento.decrementAndGet();
+            // Consultas que chegaram enquanto este lote estava no upstream não precisam esperar a janela
+            enviarPorJanela();
+        }
+    }
+}
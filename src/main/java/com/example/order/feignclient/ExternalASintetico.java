@@ -0,0 +1,219 @@
+package com.example.order.feignclient;
+
+import com.example.order.model.AlteracoesCatalogo;
+import com.example.order.model.Produto;
+import feign.FeignException;
+import feign.Request;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * External A sintético para testes de carga: um catálogo gerado de N produtos (ids {@code P0000001} em diante),
+ * determinístico pela semente, respondendo com a {@link LatenciaSintetica} configurada e uma fração de erros 503.
+ * O produto é achado pelo próprio id, sem mapa, então o catálogo pode ter centenas de milhares de itens.
+ *
+ * <p>Os erros são {@link FeignException.ServiceUnavailable}, como os do cliente real, para exercitar o circuit
+ * breaker e os fallbacks do cache. Os produtos são compartilhados entre as chamadas e não devem ser alterados.</p>
+ */
+public class ExternalASintetico implements ExternalAClient {
+
+    private static final String PREFIXO_ID = "P";
+    private static final int DIGITOS_ID = 7;
+
+    private final Produto[] produtos;
+    private final List<Produto> todos;
+    private final LatenciaSintetica latencia;
+    private final double taxaErros;
+    private final MeterRegistry meterRegistry;
+    private final Counter erros;
+    private final DistributionSummary idsPorLote;
+
+    public ExternalASintetico(int quantidadeProdutos, long semente, int estoqueMinimo, int estoqueMaximo,
+                              double fracaoSemEstoque, LatenciaSintetica latencia, double taxaErros,
+                              MeterRegistry meterRegistry) {
+        if (quantidadeProdutos <= 0 || quantidadeProdutos >= Math.pow(10, DIGITOS_ID)) {
+            throw new IllegalArgumentException("Quantidade de produtos fora de 1 a 9999999: " + quantidadeProdutos);
+        }
+        if (estoqueMinimo < 0 || estoqueMaximo < estoqueMinimo) {
+            throw new IllegalArgumentException("Faixa de estoque inválida: " + estoqueMinimo + " a " + estoqueMaximo);
+        }
+        this.produtos = gerarCatalogo(quantidadeProdutos, semente, estoqueMinimo, estoqueMaximo, fracaoSemEstoque);
+        this.todos = List.of(produtos);
+        this.latencia = latencia;
+        this.taxaErros = taxaErros;
+        this.meterRegistry = meterRegistry;
+        this.erros = Counter.builder("externala.sintetico.erros")
+                .description("Respostas 503 sorteadas pelo External A sintético")
+                .register(meterRegistry);
+        this.idsPorLote = DistributionSummary.builder("externala.sintetico.lote.ids")
+                .description("Ids por chamada de getProdutosEmLote, para medir o agrupamento do coalescer")
+                .register(meterRegistry);
+    }
+
+    public static String idProduto(int indice) {
+        return PREFIXO_ID + String.format("%0" + DIGITOS_ID + "d", indice + 1);
+    }
+
+    @Override
+    public Integer getQuantidadeProduto(String idProduto) {
+        return responder("getQuantidadeProduto", () -> {
+            // Como o mock: produto desconhecido tem estoque zero
+            Produto produto = buscar(idProduto);
+            return produto == null ? 0 : produto.getQuantidadeDisponivel();
+        });
+    }
+
+    @Override
+    public Double getPrecoProduto(String idProduto) {
+        return responder("getPrecoProduto", () -> {
+            Produto produto = buscar(idProduto);
+            return produto == null ? null : produto.getValor().doubleValue();
+        });
+    }
+
+    @Override
+    public List<Produto> getTodosProdutos() {
+        return responder("getTodosProdutos", () -> todos);
+    }
+
+    // O catálogo sintético não muda: está todo na versão 1
+    @Override
+    public AlteracoesCatalogo getAlteracoesProdutos(long versao) {
+        return responder("getAlteracoesProdutos",
+                () -> new AlteracoesCatalogo(1L, versao < 1 ? todos : List.of(), List.of()));
+    }
+
+    @Override
+    public Produto getProduto(String idProduto) {
+        return responder("getProduto", () -> buscar(idProduto));
+    }
+
+    @Override
+    public Map<String, Produto> getProdutosEmLote(Collection<String> idsProduto) {
+        idsPorLote.record(idsProduto.size());
+        return responder("getProdutosEmLote", () -> {
+            Map<String, Produto> encontrados = new HashMap<>();
+            for (String idProduto : idsProduto) {
+                Produto produto = buscar(idProduto);
+                if (produto != null) {
+                    encontrados.put(idProduto, produto);
+                }
+            }
+            return encontrados;
+        });
+    }
+
+    /**
+     * Versão não bloqueante para a pilha reativa: a latência é um {@link Mono#delay}, sem prender o event loop.
+     */
+    public ExternalAClientReativo reativo() {
+        return new ExternalAClientReativo() {
+            @Override
+            public Mono<Integer> getQuantidadeProduto(String idProduto) {
+                return responderReativo("getQuantidadeProduto", () -> {
+                    Produto produto = buscar(idProduto);
+                    return produto == null ? 0 : produto.getQuantidadeDisponivel();
+                });
+            }
+
+            @Override
+            public Mono<Produto> getProduto(String idProduto) {
+                return responderReativo("getProduto", () -> buscar(idProduto));
+            }
+
+            @Override
+            public Mono<List<Produto>> getTodosProdutos() {
+                return responderReativo("getTodosProdutos", () -> todos);
+            }
+        };
+    }
+
+    Produto buscar(String idProduto) {
+        if (idProduto == null || idProduto.length() != PREFIXO_ID.length() + DIGITOS_ID
+                || !idProduto.startsWith(PREFIXO_ID)) {
+            return null;
+        }
+        int numero = 0;
+        for (int i = PREFIXO_ID.length(); i < idProduto.length(); i++) {
+            char c = idProduto.charAt(i);
+            if (c < '0' || c > '9') {
+                return null;
+            }
+            numero = numero * 10 + (c - '0');
+        }
+        return numero >= 1 && numero <= produtos.length ? produtos[numero - 1] : null;
+    }
+
+    private <T> T responder(String metodo, Supplier<T> resposta) {
+        contar(metodo);
+        long nanos = latencia.sortearNanos();
+        if (nanos > 0) {
+            try {
+                Thread.sleep(Duration.ofNanos(nanos));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (sortearErro()) {
+            throw indisponivel(metodo);
+        }
+        return resposta.get();
+    }
+
+    private <T> Mono<T> responderReativo(String metodo, Supplier<T> resposta) {
+        return Mono.defer(() -> {
+            contar(metodo);
+            Mono<T> resultado = sortearErro()
+                    ? Mono.error(indisponivel(metodo))
+                    : Mono.justOrEmpty(resposta.get());
+            long nanos = latencia.sortearNanos();
+            return nanos > 0 ? Mono.delay(Duration.ofNanos(nanos)).then(resultado) : resultado;
+        });
+    }
+
+    private void contar(String metodo) {
+        meterRegistry.counter("externala.sintetico.chamadas", "metodo", metodo).increment();
+    }
+
+    private boolean sortearErro() {
+        return taxaErros > 0 && ThreadLocalRandom.current().nextDouble() < taxaErros;
+    }
+
+    private FeignException indisponivel(String metodo) {
+        erros.increment();
+        Request request = Request.create(Request.HttpMethod.GET, "http://external-a-sintetico/" + metodo, Map.of(),
+                null, StandardCharsets.UTF_8, null);
+        return new FeignException.ServiceUnavailable("External A sintético: erro sorteado em " + metodo, request,
+                null, Map.of());
+    }
+
+    private static Produto[] gerarCatalogo(int quantidade, long semente, int estoqueMinimo, int estoqueMaximo,
+                                           double fracaoSemEstoque) {
+        SplittableRandom random = new SplittableRandom(semente);
+        Produto[] catalogo = new Produto[quantidade];
+        for (int i = 0; i < quantidade; i++) {
+            int estoque = random.nextDouble() < fracaoSemEstoque ? 0 : random.nextInt(estoqueMinimo, estoqueMaximo + 1);
+            catalogo[i] = Produto.builder()
+                    .id(idProduto(i))
+                    .nome("Produto sintético " + (i + 1))
+                    // De R$ 1,00 a R$ 1.000,00, sempre com duas casas como os preços do External A
+                    .valor(BigDecimal.valueOf(random.nextLong(100, 100_001), 2))
+                    .quantidadeDisponivel(estoque)
+                    .build();
+        }
+        return catalogo;
+    }
+}
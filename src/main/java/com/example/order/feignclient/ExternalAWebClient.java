@@ -0,0 +1,64 @@
+package com.example.order.feignclient;
+
+import com.example.order.model.Produto;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@link ExternalAClientReativo} sobre o {@link WebClient}: mesmas rotas do {@link ExternalAClient} e o mesmo
+ * timeout de leitura por método do transporte do Feign ({@code app.feign.external-api.timeout-leitura-por-metodo}).
+ */
+public class ExternalAWebClient implements ExternalAClientReativo {
+
+    private static final ParameterizedTypeReference<List<Produto>> LISTA_PRODUTOS = new ParameterizedTypeReference<>() {
+    };
+
+    private final WebClient webClient;
+    private final Map<String, Long> timeoutLeituraPorMetodo;
+    private final long timeoutLeituraPadraoMillis;
+
+    public ExternalAWebClient(WebClient webClient, Map<String, Long> timeoutLeituraPorMetodo,
+                              long timeoutLeituraPadraoMillis) {
+        this.webClient = webClient;
+        this.timeoutLeituraPorMetodo = Map.copyOf(timeoutLeituraPorMetodo);
+        this.timeoutLeituraPadraoMillis = timeoutLeituraPadraoMillis;
+    }
+
+    @Override
+    public Mono<Integer> getQuantidadeProduto(String idProduto) {
+        return webClient.get()
+                .uri("/api/produto/{idProduto}/quantidade", idProduto)
+                .retrieve()
+                .bodyToMono(Integer.class)
+                .timeout(timeout("getQuantidadeProduto"));
+    }
+
+    @Override
+    public Mono<Produto> getProduto(String idProduto) {
+        return webClient.get()
+                .uri("/api/produtos/{idProduto}", idProduto)
+                .retrieve()
+                .bodyToMono(Produto.class)
+                .onErrorResume(WebClientResponseException.NotFound.class, e -> Mono.empty())
+                .timeout(timeout("getProduto"));
+    }
+
+    @Override
+    public Mono<List<Produto>> getTodosProdutos() {
+        return webClient.get()
+                .uri("/api/produto/listar-todos")
+                .retrieve()
+                .bodyToMono(LISTA_PRODUTOS)
+                .timeout(timeout("getTodosProdutos"));
+    }
+
+    private Duration timeout(String metodo) {
+        return Duration.ofMillis(timeoutLeituraPorMetodo.getOrDefault(metodo, timeoutLeituraPadraoMillis));
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.order.feignclient;
+
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Distribuição de latência do External A sintético, definida pela mediana e, na lognormal, pelo p99:
+ * <ul>
+ *     <li>{@code nenhuma}: responde na hora;</li>
+ *     <li>{@code fixa}: sempre a mediana;</li>
+ *     <li>{@code exponencial}: sem memória, com a mediana informada (média = mediana / ln 2);</li>
+ *     <li>{@code lognormal}: cauda longa, com a mediana e o p99 informados, como costuma ser a de um serviço HTTP.</li>
+ * </ul>
+ */
+public final class LatenciaSintetica {
+
+    // Quantil 0,99 da normal padrão
+    private static final double Z_P99 = 2.3263478740408408;
+
+    public enum Distribuicao { NENHUMA, FIXA, EXPONENCIAL, LOGNORMAL }
+
+    private final Distribuicao distribuicao;
+    private final long medianaNanos;
+    private final double mu;
+    private final double sigma;
+
+    private LatenciaSintetica(Distribuicao distribuicao, long medianaNanos, long p99Nanos) {
+        this.distribuicao = distribuicao;
+        this.medianaNanos = medianaNanos;
+        this.mu = Math.log(Math.max(medianaNanos, 1));
+        this.sigma = p99Nanos > medianaNanos ? Math.log((double) p99Nanos / medianaNanos) / Z_P99 : 0;
+    }
+
+    public static LatenciaSintetica de(String distribuicao, long medianaMicros, long p99Micros) {
+        Distribuicao tipo = Distribuicao.valueOf(distribuicao.trim().toUpperCase(Locale.ROOT));
+        if (tipo != Distribuicao.NENHUMA && medianaMicros <= 0) {
+            throw new IllegalArgumentException("Mediana de latência deve ser positiva: " + medianaMicros);
+        }
+        if (tipo == Distribuicao.LOGNORMAL && p99Micros < medianaMicros) {
+            throw new IllegalArgumentException("p99 de latência menor que a mediana: " + p99Micros + " < " + medianaMicros);
+        }
+        return new LatenciaSintetica(tipo, TimeUnit.MICROSECONDS.toNanos(medianaMicros),
+                TimeUnit.MICROSECONDS.toNanos(p99Micros));
+    }
+
+    public static LatenciaSintetica nenhuma() {
+        return new LatenciaSintetica(Distribuicao.NENHUMA, 0, 0);
+    }
+
+    public Distribuicao distribuicao() {
+        return distribuicao;
+    }
+
+    public long sortearNanos() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return switch (distribuicao) {
+            case NENHUMA -> 0;
+            case FIXA -> medianaNanos;
+            case EXPONENCIAL -> (long) (-Math.log(1 - random.nextDouble()) * medianaNanos / Math.log(2));
+            case LOGNORMAL -> (long) Math.exp(mu + sigma * random.nextGaussian());
+        };
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.order.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+// Produtos alterados e removidos no External A depois de uma versão; versao é o cursor da próxima consulta
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class AlteracoesCatalogo {
+    private Long versao;
+    private List<Produto> alterados;
+    private List<String> removidos;
+}
@@ -5,7 +5,7 @@ import org.springframework.data.mongodb.repository.MongoRepository;
 
 import java.util.List;
 
-public interface PedidoRepository extends MongoRepository<Pedido, String> {
+public interface PedidoRepository extends MongoRepository<Pedido, String>, PedidoRepositoryCustom {
 
     List<Pedido> findByIdUsuario(String idUsuario);
 
@@ -0,0 +1,42 @@
+package com.example.order.repository;
+
+import com.example.order.model.Pedido;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Consultas de pedidos por usuário ordenadas do mais recente para o mais antigo por
+ * ({@code horarioCriacao}, {@code id}), sem carregar a lista inteira em memória.
+ */
+public interface PedidoRepositoryCustom {
+
+    /**
+     * Retorna até {@code limite} pedidos do usuário criados antes da posição informada.
+     * Com {@code aposHorario} nulo a consulta começa do pedido mais recente.
+     */
+    List<Pedido> buscarPaginaPorUsuario(String idUsuario, LocalDateTime aposHorario, String aposId, int limite);
+
+    /**
+     * Percorre os pedidos do usuário diretamente do cursor do Mongo. O stream deve ser fechado pelo chamador.
+     */
+    Stream<Pedido> streamPorUsuario(String idUsuario);
+
+    /**
+     * Troca a situação dos pedidos informados que ainda estiverem em {@code statusAtual}; retorna quantos mudaram.
+     */
+    long atualizarStatus(Collection<String> idsPedido, String statusAtual, String novoStatus);
+
+    /**
+     * Percorre os pedidos em {@code status} criados antes de {@code criadosAntes} (todos, se nulo), do mais antigo
+     * para o mais recente, trazendo só id, usuário e horário de criação. O stream deve ser fechado pelo chamador.
+     */
+    Stream<Pedido> streamPorStatus(String status, LocalDateTime criadosAntes);
+
+    /**
+     * Dos pedidos informados, os que ainda estão em {@code status}, trazendo só id e usuário.
+     */
+    List<Pedido> buscarPorIdsEStatus(Collection<String> idsPedido, String status);
+}
@@ -0,0 +1,94 @@
+package com.example.order.repository;
+
+import com.example.order.model.Pedido;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+public class PedidoRepositoryImpl implements PedidoRepositoryCustom {
+
+    private static final Sort MAIS_RECENTES_PRIMEIRO = Sort.by(Sort.Direction.DESC, "horarioCriacao")
+            .and(Sort.by(Sort.Direction.DESC, "id"));
+
+    // Lido de ponta a ponta na subida (todos os pendentes), então em lotes maiores que o streaming por usuário
+    private static final int LOTE_CURSOR_POR_STATUS = 1000;
+
+    private final MongoTemplate mongoTemplate;
+
+    // Documentos trazidos do Mongo a cada ida ao servidor durante o streaming
+    @Value("${app.pedido.stream.tamanho-lote-cursor:100}")
+    private int tamanhoLoteCursor;
+
+    public PedidoRepositoryImpl(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public List<Pedido> buscarPaginaPorUsuario(String idUsuario, LocalDateTime aposHorario, String aposId, int limite) {
+        return mongoTemplate.find(consultaPagina(idUsuario, aposHorario, aposId, limite), Pedido.class);
+    }
+
+    @Override
+    public Stream<Pedido> streamPorUsuario(String idUsuario) {
+        return mongoTemplate.stream(consultaPorUsuario(idUsuario).cursorBatchSize(tamanhoLoteCursor), Pedido.class);
+    }
+
+    @Override
+    public long atualizarStatus(Collection<String> idsPedido, String statusAtual, String novoStatus) {
+        Query query = new Query(Criteria.where("id").in(idsPedido).and("status").is(statusAtual));
+        return mongoTemplate.updateMulti(query, Update.update("status", novoStatus), Pedido.class).getModifiedCount();
+    }
+
+    @Override
+    public Stream<Pedido> streamPorStatus(String status, LocalDateTime criadosAntes) {
+        return mongoTemplate.stream(consultaPorStatus(status, criadosAntes).cursorBatchSize(LOTE_CURSOR_POR_STATUS),
+                Pedido.class);
+    }
+
+    @Override
+    public List<Pedido> buscarPorIdsEStatus(Collection<String> idsPedido, String status) {
+        Query query = new Query(Criteria.where("id").in(idsPedido).and("status").is(status));
+        query.fields().include("idUsuario");
+        return mongoTemplate.find(query, Pedido.class);
+    }
+
+    // Consultas visíveis no pacote para os testes de cobertura pelos índices declarados
+    static Query consultaPagina(String idUsuario, LocalDateTime aposHorario, String aposId, int limite) {
+        Criteria criteria = Criteria.where("idUsuario").is(idUsuario);
+        if (aposHorario != null) {
+            // Keyset: pedidos mais antigos que o último da página anterior, desempatando pelo id
+            criteria = criteria.orOperator(
+                    Criteria.where("horarioCriacao").lt(aposHorario),
+                    new Criteria().andOperator(
+                            Criteria.where("horarioCriacao").is(aposHorario),
+                            Criteria.where("id").lt(aposId)));
+        }
+
+        return new Query(criteria)
+                .with(MAIS_RECENTES_PRIMEIRO)
+                .limit(limite);
+    }
+
+    static Query consultaPorStatus(String status, LocalDateTime criadosAntes) {
+        Criteria criteria = Criteria.where("status").is(status);
+        if (criadosAntes != null) {
+            criteria = criteria.and("horarioCriacao").lt(criadosAntes);
+        }
+        Query query = new Query(criteria).with(Sort.by(Sort.Direction.ASC, "horarioCriacao"));
+        query.fields().include("idUsuario", "horarioCriacao");
+        return query;
+    }
+
+    static Query consultaPorUsuario(String idUsuario) {
+        return new Query(Criteria.where("idUsuario").is(idUsuario))
+                .with(MAIS_RECENTES_PRIMEIRO);
+    }
+}
@@ -0,0 +1,10 @@
+package com.example.order.repository;
+
+import com.example.order.model.Pedido;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+
+// Repositório de pedidos da pilha reativa; a mesma coleção e os mesmos índices do PedidoRepository
+@Profile("reativo")
+public interface PedidoRepositoryReativo extends ReactiveMongoRepository<Pedido, String>, PedidoRepositoryReativoCustom {
+}
@@ -0,0 +1,24 @@
+package com.example.order.repository;
+
+import com.example.order.model.Pedido;
+import reactor.core.publisher.Flux;
+
+import java.time.LocalDateTime;
+
+/**
+ * Versão reativa das consultas do {@link PedidoRepositoryCustom}, com a mesma ordenação
+ * ({@code horarioCriacao}, {@code id}) do mais recente para o mais antigo.
+ */
+public interface PedidoRepositoryReativoCustom {
+
+    /**
+     * Até {@code limite} pedidos do usuário criados antes da posição informada; com {@code aposHorario} nulo
+     * a consulta começa do pedido mais recente.
+     */
+    Flux<Pedido> buscarPaginaPorUsuario(String idUsuario, LocalDateTime aposHorario, String aposId, int limite);
+
+    /**
+     * Todos os pedidos do usuário, emitidos à medida que chegam do cursor do Mongo.
+     */
+    Flux<Pedido> buscarPorUsuario(String idUsuario);
+}
@@ -0,0 +1,34 @@
+package com.example.order.repository;
+
+import com.example.order.model.Pedido;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import reactor.core.publisher.Flux;
+
+import java.time.LocalDateTime;
+
+// Usa as mesmas consultas do PedidoRepositoryImpl, cobertas pelo índice idUsuario_horarioCriacao_id
+public class PedidoRepositoryReativoImpl implements PedidoRepositoryReativoCustom {
+
+    private final ReactiveMongoTemplate mongoTemplate;
+
+    // Documentos trazidos do Mongo a cada ida ao servidor ao emitir todos os pedidos do usuário
+    @Value("${app.pedido.stream.tamanho-lote-cursor:100}")
+    private int tamanhoLoteCursor;
+
+    public PedidoRepositoryReativoImpl(ReactiveMongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public Flux<Pedido> buscarPaginaPorUsuario(String idUsuario, LocalDateTime aposHorario, String aposId, int limite) {
+        return mongoTemplate.find(PedidoRepositoryImpl.consultaPagina(idUsuario, aposHorario, aposId, limite),
+                Pedido.class);
+    }
+
+    @Override
+    public Flux<Pedido> buscarPorUsuario(String idUsuario) {
+        return mongoTemplate.find(PedidoRepositoryImpl.consultaPorUsuario(idUsuario).cursorBatchSize(tamanhoLoteCursor),
+                Pedido.class);
+    }
+}
@@ -3,6 +3,6 @@ package com.example.order.repository;
 import com.example.order.model.Usuario;
 import org.springframework.data.mongodb.repository.MongoRepository;
 
-public interface UsuarioRepository extends MongoRepository<Usuario, String> {
+public interface UsuarioRepository extends MongoRepository<Usuario, String>, UsuarioRepositoryCustom {
     boolean existsByIdUsuario(String idUsuario);
 }
\ No newline at end of file
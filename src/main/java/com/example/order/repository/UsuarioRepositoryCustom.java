@@ -0,0 +1,10 @@
+package com.example.order.repository;
+
+public interface UsuarioRepositoryCustom {
+
+    /**
+     * Troca o hash da senha numa única operação no Mongo, só se o hash gravado ainda for {@code hashAnterior};
+     * retorna se houve troca.
+     */
+    boolean atualizarSenhaSeInalterada(String idUsuario, String hashAnterior, String novoHash);
+}
@@ -0,0 +1,23 @@
+package com.example.order.repository;
+
+import com.example.order.model.Usuario;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+public class UsuarioRepositoryImpl implements UsuarioRepositoryCustom {
+
+    private final MongoTemplate mongoTemplate;
+
+    public UsuarioRepositoryImpl(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public boolean atualizarSenhaSeInalterada(String idUsuario, String hashAnterior, String novoHash) {
+        Query query = new Query(Criteria.where("idUsuario").is(idUsuario).and("password").is(hashAnterior));
+        return mongoTemplate.updateFirst(query, Update.update("password", novoHash), Usuario.class)
+                .getModifiedCount() > 0;
+    }
+}
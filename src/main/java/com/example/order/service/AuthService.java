@@ -1,6 +1,7 @@
 package com.example.order.service;
 
 import com.example.order.exception.MensagemErrorException;
+import com.example.order.model.Usuario;
 import com.example.order.service.dto.LoginRequest;
 import com.example.order.service.dto.LoginResponse;
 import com.example.order.service.dto.RegistroRequest;
@@ -11,9 +12,6 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
-import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.UserDetailsService;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.stereotype.Service;
 
 import javax.crypto.SecretKey;
@@ -25,32 +23,35 @@ public class AuthService {
 
     private static final Logger logger = LoggerFactory.getLogger(AuthService.class);
 
-    private final UserDetailsService userDetailsService;
+    private final UserService userService;
+    private final SenhaService senhaService;
 
     @Value("${jwt.secret.key}")
     private String secretKey;
 
-    public AuthService(UserDetailsService userDetailsService) {
-        this.userDetailsService = userDetailsService;
+    public AuthService(UserService userService, SenhaService senhaService) {
+        this.userService = userService;
+        this.senhaService = senhaService;
     }
 
     public LoginResponse authenticate(LoginRequest loginRequest) {
         logger.debug("Tentando autenticar usuário: {}", loginRequest.getIdUsuario());
 
-        UserDetails userDetails = userDetailsService.loadUserByUsername(loginRequest.getIdUsuario());
-        if (userDetails == null) {
-            logger.warn("Usuário não encontrado: {}", loginRequest.getIdUsuario());
-            throw new MensagemErrorException(HttpStatus.UNAUTHORIZED,
-                    "Credenciais inválidas");
-        }
-
-        if (new BCryptPasswordEncoder().matches(loginRequest.getPassword(), userDetails.getPassword())) {
+        // Usuário inexistente também passa pelo BCrypt (com um hash fictício) e recebe o mesmo 401
+        Usuario usuario = userService.buscarUsuario(loginRequest.getIdUsuario()).orElse(null);
+        String hash = usuario != null ? usuario.getPassword() : null;
+        if (senhaService.confere(loginRequest.getIdUsuario(), loginRequest.getPassword(), hash)) {
+            if (senhaService.precisaAtualizar(hash)) {
+                // Custo do BCrypt aumentado desde que o hash foi gravado: regrava com o atual sem atrasar o login
+                senhaService.atualizarEmSegundoPlano(loginRequest.getPassword(),
+                        novoHash -> userService.atualizarHashSenha(usuario.getIdUsuario(), hash, novoHash));
+            }
             logger.debug("Usuário autenticado com sucesso, gerando token para: {}", loginRequest.getIdUsuario());
-            String token = generateToken(userDetails.getUsername());
+            String token = generateToken(usuario.getIdUsuario());
             logger.debug("Token gerado: {}", token);
             return LoginResponse.builder().token(token).build();
         }
-        logger.warn("Senha inválida para usuário: {}", loginRequest.getIdUsuario());
+        logger.warn("Credenciais inválidas para usuário: {}", loginRequest.getIdUsuario());
         throw new MensagemErrorException(HttpStatus.UNAUTHORIZED,
                 "Credenciais inválidas");
     }
@@ -68,7 +69,6 @@ public class AuthService {
     public RegistroResponse registrar(RegistroRequest registroRequest) {
         logger.debug("Tentando registrar usuário: {}", registroRequest.getIdUsuario());
 
-        UserService userService = (UserService) userDetailsService;
         userService.registrarUsuario(registroRequest.getIdUsuario(), registroRequest.getPassword());
 
         logger.debug("Usuário registrado com sucesso: {}", registroRequest.getIdUsuario());
@@ -0,0 +1,207 @@
+package com.example.order.service;
+
+import com.example.order.feignclient.ExternalAClient;
+import com.example.order.model.AlteracoesCatalogo;
+import com.example.order.model.Produto;
+import feign.FeignException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Catálogo inteiro do External A em memória, como um snapshot imutável e versionado (id → produto) trocado
+ * atomicamente. Uma tarefa agendada o atualiza em segundo plano: por completo com {@code getTodosProdutos} ou,
+ * no modo delta, só com o que mudou desde a última versão recebida do upstream, com uma carga completa a cada
+ * {@code completa-a-cada} atualizações para corrigir qualquer divergência. No modo delta a carga completa pede as
+ * alterações desde a versão 0, que trazem o catálogo inteiro e a versão dele, e o cursor passa a ser essa versão.
+ *
+ * <p>A listagem e a precificação dos pedidos leem o snapshot sem I/O. Com o recurso desligado, ou antes da
+ * primeira carga, {@link #snapshotAtual()} devolve null e continua valendo o caminho pelo cache de produtos.</p>
+ */
+@Service
+public class CatalogoEmMemoriaService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CatalogoEmMemoriaService.class);
+
+    private final ExternalAClient externalAClient;
+    private final AtomicReference<SnapshotCatalogo> snapshot = new AtomicReference<>();
+    private final Timer atualizacaoCompleta;
+    private final Timer atualizacaoDelta;
+    private final Counter falhas;
+
+    @Value("${app.catalogo.snapshot.habilitado:false}")
+    private boolean habilitado;
+
+    @Value("${app.catalogo.snapshot.delta.habilitado:false}")
+    private boolean deltaHabilitado;
+
+    @Value("${app.catalogo.snapshot.delta.completa-a-cada:20}")
+    private int completaACada = 20;
+
+    // Sem atualizar há mais tempo que isso (External A fora), o catálogo é servido marcado como desatualizado
+    @Value("${app.catalogo.snapshot.desatualizado-apos-segundos:300}")
+    private long desatualizadoAposSegundos = 300;
+
+    // Cursor do modo delta (0 = catálogo inteiro) e quantas atualizações delta houve desde a última completa
+    private long versaoUpstream;
+    private int deltasDesdeCompleta;
+
+    public CatalogoEmMemoriaService(@Qualifier("externalAClientProtegido") ExternalAClient externalAClient,
+                                    MeterRegistry meterRegistry) {
+        this.externalAClient = externalAClient;
+        this.atualizacaoCompleta = Timer.builder("catalogo.snapshot.atualizacao").tag("modo", "completa")
+                .register(meterRegistry);
+        this.atualizacaoDelta = Timer.builder("catalogo.snapshot.atualizacao").tag("modo", "delta")
+                .register(meterRegistry);
+        this.falhas = Counter.builder("catalogo.snapshot.falhas")
+                .description("Atualizações do snapshot do catálogo que falharam; o snapshot anterior continua valendo")
+                .register(meterRegistry);
+        Gauge.builder("catalogo.snapshot.versao", snapshot, ref -> ref.get() == null ? 0 : ref.get().versao())
+                .register(meterRegistry);
+        Gauge.builder("catalogo.snapshot.produtos", snapshot, ref -> ref.get() == null ? 0 : ref.get().lista().size())
+                .register(meterRegistry);
+    }
+
+    public boolean isHabilitado() {
+        return habilitado;
+    }
+
+    // Snapshot vigente, ou null com o recurso desligado ou antes da primeira carga
+    public SnapshotCatalogo snapshotAtual() {
+        return habilitado ? snapshot.get() : null;
+    }
+
+    public boolean isDesatualizado(SnapshotCatalogo catalogo) {
+        return System.currentTimeMillis() - catalogo.atualizadoEmMillis()
+                > TimeUnit.SECONDS.toMillis(desatualizadoAposSegundos);
+    }
+
+    @Scheduled(fixedDelayString = "${app.catalogo.snapshot.intervalo-millis:30000}",
+            initialDelayString = "${app.catalogo.snapshot.atraso-inicial-millis:0}")
+    public void atualizarAgendado() {
+        if (!habilitado) {
+            return;
+        }
+        try {
+            atualizar();
+        } catch (Exception e) {
+            falhas.increment();
+            logger.warn("Falha ao atualizar o snapshot do catálogo: {}", e.getMessage());
+        }
+    }
+
+    synchronized void atualizar() {
+        if (deltaHabilitado && deltasDesdeCompleta < completaACada) {
+            try {
+                atualizacaoDelta.record(this::atualizarDelta);
+                deltasDesdeCompleta++;
+                return;
+            } catch (FeignException.FeignClientException e) {
+                // Cursor recusado pelo upstream (ex.: versão antiga demais): recomeça pelo catálogo inteiro
+                logger.info("Delta do catálogo recusado pelo External A ({}), fazendo carga completa", e.status());
+                versaoUpstream = 0;
+            }
+        }
+        atualizacaoCompleta.record(this::atualizarCompleto);
+        deltasDesdeCompleta = 0;
+    }
+
+    private void atualizarCompleto() {
+        if (deltaHabilitado) {
+            try {
+                // Lista e cursor vêm da mesma resposta: o próximo delta parte exatamente deste catálogo
+                AlteracoesCatalogo alteracoes = alteracoesDesde(0);
+                publicar(porId(alteracoes.getAlterados()));
+                versaoUpstream = alteracoes.getVersao();
+                return;
+            } catch (FeignException.FeignClientException e) {
+                logger.info("Catálogo desde a versão 0 recusado pelo External A ({}), usando a lista completa", e.status());
+                versaoUpstream = 0;
+            }
+        }
+        publicar(porId(externalAClient.getTodosProdutos()));
+    }
+
+    private void atualizarDelta() {
+        SnapshotCatalogo atual = snapshot.get();
+        AlteracoesCatalogo alteracoes = alteracoesDesde(atual == null ? 0 : versaoUpstream);
+        Map<String, Produto> produtos = new LinkedHashMap<>();
+        if (atual != null) {
+            for (Produto produto : atual.lista()) {
+                produtos.put(produto.getId(), produto);
+            }
+        }
+        if (alteracoes.getAlterados() != null) {
+            for (Produto produto : alteracoes.getAlterados()) {
+                if (produto != null && produto.getId() != null) {
+                    produtos.put(produto.getId(), produto);
+                }
+            }
+        }
+        if (alteracoes.getRemovidos() != null) {
+            alteracoes.getRemovidos().forEach(produtos::remove);
+        }
+        publicar(produtos);
+        versaoUpstream = alteracoes.getVersao();
+    }
+
+    private AlteracoesCatalogo alteracoesDesde(long versao) {
+        AlteracoesCatalogo alteracoes = externalAClient.getAlteracoesProdutos(versao);
+        if (alteracoes == null || alteracoes.getVersao() == null) {
+            throw new IllegalStateException("External A devolveu alterações do catálogo sem versão");
+        }
+        return alteracoes;
+    }
+
+    private static Map<String, Produto> porId(List<Produto> todos) {
+        if (todos == null || todos.isEmpty()) {
+            // Catálogo vazio é tratado como falha do upstream, como no cache de todosProdutos
+            throw new IllegalStateException("External A devolveu um catálogo vazio");
+        }
+        Map<String, Produto> produtos = new LinkedHashMap<>();
+        for (Produto produto : todos) {
+            if (produto != null && produto.getId() != null) {
+                produtos.put(produto.getId(), produto);
+            }
+        }
+        return produtos;
+    }
+
+    // Sem mudança de conteúdo a versão e a lista são mantidas (quem compara a lista por identidade não recodifica)
+    private void publicar(Map<String, Produto> produtos) {
+        SnapshotCatalogo atual = snapshot.get();
+        long agora = System.currentTimeMillis();
+        if (atual != null && atual.produtos().equals(produtos)) {
+            snapshot.set(new SnapshotCatalogo(atual.versao(), atual.produtos(), atual.lista(), agora));
+            return;
+        }
+        long versao = atual == null ? 1 : atual.versao() + 1;
+        snapshot.set(new SnapshotCatalogo(versao, Map.copyOf(produtos), List.copyOf(produtos.values()), agora));
+        logger.debug("Snapshot do catálogo na versão {}: {} produto(s)", versao, produtos.size());
+    }
+
+    /**
+     * Versão do catálogo em memória: mapa id → produto para as consultas e a lista na ordem do External A para a
+     * listagem. Os produtos são compartilhados entre as requisições e não devem ser alterados.
+     */
+    public record SnapshotCatalogo(long versao, Map<String, Produto> produtos, List<Produto> lista,
+                                   long atualizadoEmMillis) {
+
+        public Produto produto(String idProduto) {
+            return produtos.get(idProduto);
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.order.service;
+
+import com.example.order.model.Produto;
+import com.example.order.service.dto.CatalogoProdutos;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Corpo de {@code GET /api/pedido/listar-produtos} já codificado: o JSON do catálogo, uma cópia em gzip e um
+ * ETag com o hash do conteúdo. Enquanto o {@link ProdutoCacheService} devolver a mesma lista (acerto no L1), a
+ * resposta é reaproveitada sem serializar nada; quando a lista é recarregada, ela é serializada uma vez e, se o
+ * conteúdo não mudou, os bytes e o ETag anteriores continuam valendo (o gzip não é refeito).
+ */
+@Service
+public class CatalogoRespostaService {
+
+    private final PedidoService pedidoService;
+    private final ObjectWriter catalogoWriter;
+    private final AtomicReference<Codificado> ultimo = new AtomicReference<>();
+    private final Counter serializacoes;
+    private final Counter compressoes;
+
+    public CatalogoRespostaService(PedidoService pedidoService, ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this.pedidoService = pedidoService;
+        this.catalogoWriter = objectMapper.writerFor(new TypeReference<List<Produto>>() {
+        });
+        this.serializacoes = Counter.builder("produtos.listagem.codificacao").tag("etapa", "serializacao")
+                .description("Vezes em que o catálogo foi serializado para a resposta de listar-produtos")
+                .register(meterRegistry);
+        this.compressoes = Counter.builder("produtos.listagem.codificacao").tag("etapa", "gzip")
+                .description("Vezes em que o catálogo foi comprimido para a resposta de listar-produtos")
+                .register(meterRegistry);
+    }
+
+    public RespostaCatalogo obter() {
+        CatalogoProdutos catalogo = pedidoService.buscaCatalogoProdutos();
+        List<Produto> produtos = catalogo.getProdutos();
+        Codificado atual = ultimo.get();
+        if (atual != null && atual.produtos() == produtos) {
+            return atual.resposta().comDesatualizado(catalogo.isDesatualizado());
+        }
+
+        byte[] json;
+        try {
+            json = catalogoWriter.writeValueAsBytes(produtos);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Falha ao serializar o catálogo de produtos", e);
+        }
+        serializacoes.increment();
+        String etag = etag(json);
+        RespostaCatalogo resposta;
+        if (atual != null && atual.resposta().etag().equals(etag) && Arrays.equals(atual.resposta().json(), json)) {
+            // Lista recarregada com o mesmo conteúdo
+            resposta = atual.resposta();
+        } else {
+            resposta = new RespostaCatalogo(json, gzip(json), etag, false);
+            compressoes.increment();
+        }
+        ultimo.set(new Codificado(produtos, resposta));
+        return resposta.comDesatualizado(catalogo.isDesatualizado());
+    }
+
+    // ETag forte do corpo JSON: os mesmos bytes para o mesmo ETag. O gzip é outra representação (Content-Encoding
+    // é codificação de conteúdo, não de transporte) e tem o próprio ETag, veja RespostaCatalogo#etagGzip
+    static String etag(byte[] json) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(json);
+            return "\"" + Base64.getUrlEncoder().withoutPadding().encodeToString(Arrays.copyOf(hash, 16)) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponível", e);
+        }
+    }
+
+    private static byte[] gzip(byte[] json) {
+        ByteArrayOutputStream saida = new ByteArrayOutputStream(json.length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(saida)) {
+            gzip.write(json);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return saida.toByteArray();
+    }
+
+    // A lista é comparada por identidade: é o mesmo objeto enquanto vier do L1
+    private record Codificado(List<Produto> produtos, RespostaCatalogo resposta) {
+    }
+
+    /**
+     * Corpo JSON, o mesmo corpo em gzip, o ETag do JSON (já entre aspas) e se o catálogo é o último conhecido servido
+     * com o External A indisponível. Os arrays são compartilhados entre as requisições e não devem ser alterados.
+     */
+    public record RespostaCatalogo(byte[] json, byte[] gzip, String etag, boolean desatualizado) {
+
+        private static final String SUFIXO_GZIP = "-gz";
+
+        // Mesmo ETag com o sufixo dentro das aspas, para o corpo em gzip
+        public String etagGzip() {
+            return etag.substring(0, etag.length() - 1) + SUFIXO_GZIP + "\"";
+        }
+
+        RespostaCatalogo comDesatualizado(boolean valor) {
+            return valor == desatualizado ? this : new RespostaCatalogo(json, gzip, etag, valor);
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.order.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Envelope gravado pelo {@link ProdutoCacheService#obterOuCarregar}: além do valor, guarda quando ele deixa
+ * de ser considerado atual e quanto custou carregá-lo, usado na atualização antecipada probabilística.
+ * A chave no Redis vive além de {@code expiraEm} para que o valor antigo possa ser servido durante a recarga.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EntradaCache {
+    private Object valor;
+    private long expiraEm;
+    private long custoCarregamentoMillis;
+
+    public boolean expiradaEm(long agoraMillis) {
+        return agoraMillis >= expiraEm;
+    }
+}
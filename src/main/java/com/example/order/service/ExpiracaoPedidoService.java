@@ -0,0 +1,267 @@
+package com.example.order.service;
+
+import com.example.order.model.Pedido;
+import com.example.order.repository.PedidoRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Expiração dos pedidos PENDENTE PAGAMENTO que passam da janela de pagamento. Cada pedido criado entra numa
+ * {@link RodaExpiracao} em memória, com o prazo {@code horarioCriacao + janela-pagamento-minutos}, em vez de
+ * uma tarefa agendada por pedido; uma thread dedicada avança a roda a cada tick e passa os vencidos a EXPIRADO
+ * com um update em lote por {@code tamanho-lote} pedidos, devolvendo a reserva de estoque quando ela existe. É o
+ * único lugar que expira pedidos.
+ *
+ * <p>A roda é reconstruída do Mongo na subida (índice {@code status_horarioCriacao}). Pedidos pagos ou
+ * cancelados antes do prazo não saem da roda: o update só pega quem ainda está PENDENTE PAGAMENTO. Uma
+ * reconciliação periódica reagenda os pendentes já vencidos que nenhuma roda tratou, como os criados por uma
+ * instância que caiu ou pela pilha reativa. Com várias instâncias o mesmo pedido pode vencer em mais de uma;
+ * só a primeira o altera.</p>
+ */
+@Service
+public class ExpiracaoPedidoService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExpiracaoPedidoService.class);
+
+    static final String STATUS_PENDENTE = "PENDENTE PAGAMENTO";
+    // Lote que falhou ao gravar volta para a roda com este atraso
+    static final long ATRASO_NOVA_TENTATIVA_MILLIS = 5_000;
+
+    private final PedidoRepository pedidoRepository;
+    private final ReservaEstoqueService reservaEstoqueService;
+    private final PedidosUsuarioCacheService pedidosUsuarioCacheService;
+    private final Timer duracaoGravacao;
+    private final Counter pedidosExpirados;
+    private final Counter falhas;
+
+    @Value("${app.pedido.expiracao.habilitada:false}")
+    private boolean habilitada;
+
+    @Value("${app.pedido.expiracao.janela-pagamento-minutos:30}")
+    private long janelaPagamentoMinutos = 30;
+
+    @Value("${app.pedido.expiracao.tick-millis:1000}")
+    private long tickMillis = 1000;
+
+    // Potência de 2; com a janela padrão e tick de 1s, 4096 baldes cobrem a janela inteira numa volta
+    @Value("${app.pedido.expiracao.baldes:4096}")
+    private int baldes = 4096;
+
+    @Value("${app.pedido.expiracao.tamanho-lote:1000}")
+    private int tamanhoLote = 1000;
+
+    private volatile RodaExpiracao roda;
+    private ExecutorService relogio;
+    private volatile boolean ativo;
+
+    public ExpiracaoPedidoService(PedidoRepository pedidoRepository,
+                                  ReservaEstoqueService reservaEstoqueService,
+                                  PedidosUsuarioCacheService pedidosUsuarioCacheService,
+                                  MeterRegistry meterRegistry) {
+        this.pedidoRepository = pedidoRepository;
+        this.reservaEstoqueService = reservaEstoqueService;
+        this.pedidosUsuarioCacheService = pedidosUsuarioCacheService;
+        this.duracaoGravacao = Timer.builder("pedidos.expiracao.gravacao")
+                .description("Tempo de cada lote de pedidos passado a EXPIRADO")
+                .register(meterRegistry);
+        this.pedidosExpirados = Counter.builder("pedidos.expiracao.expirados")
+                .description("Pedidos PENDENTE PAGAMENTO passados a EXPIRADO pela roda de expiração")
+                .register(meterRegistry);
+        this.falhas = Counter.builder("pedidos.expiracao.falhas")
+                .description("Lotes de expiração que falharam e voltaram para a roda")
+                .register(meterRegistry);
+        Gauge.builder("pedidos.expiracao.pendentes", this, servico -> servico.roda == null ? 0 : servico.roda.pendentes())
+                .description("Pedidos aguardando o prazo de pagamento na roda de expiração")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void iniciar() {
+        if (!habilitada) {
+            return;
+        }
+        prepararRoda(System.currentTimeMillis());
+        ativo = true;
+        relogio = Executors.newSingleThreadExecutor(tarefa -> {
+            Thread thread = new Thread(tarefa, "expiracao-pedidos");
+            thread.setDaemon(true);
+            return thread;
+        });
+        relogio.execute(this::executar);
+    }
+
+    @PreDestroy
+    public void encerrar() throws InterruptedException {
+        ativo = false;
+        if (relogio != null) {
+            relogio.shutdown();
+            if (!relogio.awaitTermination(10, TimeUnit.SECONDS)) {
+                relogio.shutdownNow();
+            }
+        }
+    }
+
+    // Criada antes da reconstrução para que os pedidos feitos durante a subida já entrem na roda
+    void prepararRoda(long agoraMillis) {
+        roda = new RodaExpiracao(tickMillis, baldes, agoraMillis);
+    }
+
+    /**
+     * Agenda a expiração de um pedido recém-criado. Custo constante, sem I/O.
+     */
+    public void agendar(Pedido pedido) {
+        RodaExpiracao atual = roda;
+        if (atual == null || pedido.getId() == null || pedido.getHorarioCriacao() == null
+                || !ObjectId.isValid(pedido.getId())) {
+            return;
+        }
+        atual.agendar(new ObjectId(pedido.getId()), prazoMillis(pedido.getHorarioCriacao()));
+    }
+
+    // Reagenda os pendentes que já deveriam ter expirado; vencem no próximo tick
+    @Scheduled(fixedDelayString = "${app.pedido.expiracao.reconciliacao-millis:600000}",
+            initialDelayString = "${app.pedido.expiracao.reconciliacao-millis:600000}")
+    public void reconciliar() {
+        if (roda == null) {
+            return;
+        }
+        try {
+            long reagendados = carregar(LocalDateTime.now().minusMinutes(janelaPagamentoMinutos));
+            if (reagendados > 0) {
+                logger.info("Reconciliação da expiração: {} pedido(s) pendente(s) vencido(s) reagendado(s)", reagendados);
+            }
+        } catch (Exception e) {
+            logger.warn("Falha na reconciliação da expiração de pedidos: {}", e.getMessage());
+        }
+    }
+
+    private void executar() {
+        reconstruir();
+        while (ativo) {
+            try {
+                processar(System.currentTimeMillis());
+            } catch (Exception e) {
+                logger.error("Erro na expiração de pedidos: {}", e.getMessage());
+            }
+            pausar();
+        }
+    }
+
+    void reconstruir() {
+        long inicio = System.currentTimeMillis();
+        try {
+            long carregados = carregar(null);
+            logger.info("Roda de expiração reconstruída com {} pedido(s) pendente(s) em {} ms", carregados,
+                    System.currentTimeMillis() - inicio);
+        } catch (Exception e) {
+            // Os vencidos que ficarem de fora entram na próxima reconciliação
+            logger.error("Falha ao reconstruir a roda de expiração: {}", e.getMessage());
+        }
+    }
+
+    private long carregar(LocalDateTime criadosAntes) {
+        long carregados = 0;
+        try (Stream<Pedido> pendentes = pedidoRepository.streamPorStatus(STATUS_PENDENTE, criadosAntes)) {
+            for (Pedido pedido : (Iterable<Pedido>) pendentes::iterator) {
+                agendar(pedido);
+                carregados++;
+            }
+        }
+        return carregados;
+    }
+
+    /**
+     * Avança a roda até {@code agoraMillis} e expira os pedidos vencidos em lotes. Retorna quantos pedidos
+     * passaram a EXPIRADO.
+     */
+    long processar(long agoraMillis) {
+        List<ObjectId> vencidos = roda.avancar(agoraMillis);
+        long expirados = 0;
+        for (int inicio = 0; inicio < vencidos.size(); inicio += tamanhoLote) {
+            List<ObjectId> lote = vencidos.subList(inicio, Math.min(inicio + tamanhoLote, vencidos.size()));
+            Timer.Sample gravacao = Timer.start();
+            try {
+                expirados += expirarLote(lote);
+            } catch (Exception e) {
+                falhas.increment();
+                logger.warn("Falha ao expirar lote de {} pedido(s), nova tentativa em {} ms: {}", lote.size(),
+                        ATRASO_NOVA_TENTATIVA_MILLIS, e.getMessage());
+                for (ObjectId idPedido : lote) {
+                    roda.agendar(idPedido, agoraMillis + ATRASO_NOVA_TENTATIVA_MILLIS);
+                }
+            } finally {
+                gravacao.stop(duracaoGravacao);
+            }
+        }
+        return expirados;
+    }
+
+    private long expirarLote(List<ObjectId> lote) {
+        List<String> ids = new ArrayList<>(lote.size());
+        for (ObjectId idPedido : lote) {
+            ids.add(idPedido.toHexString());
+        }
+        // Só quem ainda está pendente; o usuário é necessário para descartar a lista de meus-pedidos em cache
+        List<Pedido> pendentes = pedidoRepository.buscarPorIdsEStatus(ids, STATUS_PENDENTE);
+        if (pendentes.isEmpty()) {
+            return 0;
+        }
+        List<String> idsPendentes = new ArrayList<>(pendentes.size());
+        Set<String> usuarios = new LinkedHashSet<>();
+        for (Pedido pedido : pendentes) {
+            idsPendentes.add(pedido.getId());
+            usuarios.add(pedido.getIdUsuario());
+        }
+
+        long atualizados = pedidoRepository.atualizarStatus(idsPendentes, STATUS_PENDENTE,
+                ReservaEstoqueService.STATUS_EXPIRADO);
+        if (reservaEstoqueService.isHabilitada() && atualizados > 0) {
+            // Entre a consulta e o update o pedido pode ter sido pago: só devolve o estoque dos que viraram EXPIRADO.
+            // Se outra instância expirou o mesmo pedido, o segundo liberar não encontra a reserva e não faz nada
+            List<String> expirados = atualizados == idsPendentes.size() ? idsPendentes
+                    : pedidoRepository.buscarPorIdsEStatus(idsPendentes, ReservaEstoqueService.STATUS_EXPIRADO)
+                            .stream().map(Pedido::getId).toList();
+            expirados.forEach(reservaEstoqueService::liberar);
+        }
+        usuarios.forEach(pedidosUsuarioCacheService::evict);
+        pedidosExpirados.increment(atualizados);
+        logger.debug("Pedidos expirados: {} de {} vencido(s) no lote", atualizados, lote.size());
+        return atualizados;
+    }
+
+    private long prazoMillis(LocalDateTime horarioCriacao) {
+        // horarioCriacao é gravado no fuso da JVM (LocalDateTime.now())
+        return horarioCriacao.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli()
+                + TimeUnit.MINUTES.toMillis(janelaPagamentoMinutos);
+    }
+
+    private void pausar() {
+        try {
+            Thread.sleep(tickMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            ativo = false;
+        }
+    }
+}
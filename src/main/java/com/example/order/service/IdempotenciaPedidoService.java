@@ -0,0 +1,182 @@
+package com.example.order.service;
+
+import com.example.order.controller.ProdutoItem;
+import com.example.order.exception.MensagemErrorException;
+import com.example.order.service.dto.PedidoResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Garante que um pedido enviado com o cabeçalho {@code Idempotency-Key} seja criado uma única vez, mesmo com
+ * o cliente repetindo a requisição. A primeira requisição reserva a chave no Redis (SET NX com um token) e,
+ * ao terminar, troca a reserva pela resposta. Repetições concorrentes esperam essa resposta aparecer; as
+ * posteriores a recebem direto, sem consultar o External A nem gravar outro pedido.
+ *
+ * <p>As chaves são separadas por usuário. Se a criação falhar, a reserva é liberada e a próxima repetição
+ * executa de novo. A mesma chave com outro carrinho é recusada com 422.</p>
+ */
+@Service
+public class IdempotenciaPedidoService {
+
+    private static final Logger logger = LoggerFactory.getLogger(IdempotenciaPedidoService.class);
+
+    private static final String PREFIXO = "idempotencia:";
+    private static final int TAMANHO_MAXIMO_CHAVE = 255;
+    private static final long INTERVALO_ESPERA_MILLIS = 50;
+
+    private final RedisCacheService redisCacheService;
+    private final Counter pedidosNovos;
+    private final Counter pedidosRepetidos;
+
+    // Por quanto tempo a resposta fica guardada para as repetições
+    @Value("${app.pedido.idempotencia.ttl-horas:24}")
+    private long ttlHoras = 24;
+
+    // Validade da reserva da chave enquanto o pedido é criado; se a instância cair, a chave volta a ficar livre
+    @Value("${app.pedido.idempotencia.reserva-millis:30000}")
+    private long reservaMillis = 30_000;
+
+    // Quanto uma repetição concorrente espera a primeira terminar antes de responder 409
+    @Value("${app.pedido.idempotencia.espera-millis:10000}")
+    private long esperaMillis = 10_000;
+
+    public IdempotenciaPedidoService(RedisCacheService redisCacheService, MeterRegistry meterRegistry) {
+        this.redisCacheService = redisCacheService;
+        this.pedidosNovos = contador(meterRegistry, "novo");
+        this.pedidosRepetidos = contador(meterRegistry, "repetido");
+    }
+
+    private static Counter contador(MeterRegistry meterRegistry, String resultado) {
+        return Counter.builder("pedido.idempotencia")
+                .description("Pedidos com Idempotency-Key, criados ou devolvidos de uma requisição anterior")
+                .tag("resultado", resultado)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Executa {@code criacao} se a chave ainda não foi usada pelo usuário autenticado; caso contrário, devolve a
+     * resposta do pedido já criado com ela (esperando-o terminar, se ainda estiver em andamento).
+     */
+    public Resultado executar(String chaveIdempotencia, List<ProdutoItem> itens, Supplier<PedidoResponse> criacao) {
+        if (chaveIdempotencia.isBlank() || chaveIdempotencia.length() > TAMANHO_MAXIMO_CHAVE) {
+            throw new MensagemErrorException(HttpStatus.BAD_REQUEST,
+                    "Idempotency-Key deve ter entre 1 e " + TAMANHO_MAXIMO_CHAVE + " caracteres");
+        }
+        String idUsuario = SecurityContextHolder.getContext().getAuthentication().getName();
+        String key = PREFIXO + idUsuario + ":" + chaveIdempotencia;
+        String impressao = impressaoCarrinho(itens);
+
+        long limite = System.currentTimeMillis() + esperaMillis;
+        while (true) {
+            String token = UUID.randomUUID().toString();
+            boolean reservada;
+            try {
+                reservada = redisCacheService.tentarBloquear(key, token, Duration.ofMillis(reservaMillis));
+            } catch (RuntimeException e) {
+                // Sem Redis não há como deduplicar; o pedido segue como se viesse sem a chave
+                logger.warn("Falha ao reservar a Idempotency-Key {}, criando o pedido sem ela: {}", key, e.getMessage());
+                pedidosNovos.increment();
+                return new Resultado(criacao.get(), false);
+            }
+            if (reservada) {
+                pedidosNovos.increment();
+                return new Resultado(criar(key, token, impressao, criacao), false);
+            }
+
+            Object existente = redisCacheService.getCachedOrder(key, Object.class);
+            if (existente instanceof PedidoIdempotente anterior) {
+                if (!anterior.getImpressaoCarrinho().equals(impressao)) {
+                    throw new MensagemErrorException(HttpStatus.UNPROCESSABLE_ENTITY,
+                            "Idempotency-Key já usada em um pedido com outros produtos");
+                }
+                pedidosRepetidos.increment();
+                return new Resultado(anterior.getResposta(), true);
+            }
+            if (existente == null) {
+                // A reserva foi liberada (criação falhou) entre o SET NX e a leitura: tenta reservar de novo
+                continue;
+            }
+            // Reserva de outra requisição ainda em andamento
+            if (System.currentTimeMillis() >= limite) {
+                throw new MensagemErrorException(HttpStatus.CONFLICT,
+                        "Pedido com esta Idempotency-Key ainda em processamento");
+            }
+            aguardar();
+        }
+    }
+
+    private PedidoResponse criar(String key, String token, String impressao, Supplier<PedidoResponse> criacao) {
+        PedidoResponse resposta;
+        try {
+            resposta = criacao.get();
+        } catch (RuntimeException e) {
+            // A criação falhou: libera a chave para que a próxima repetição tente de novo
+            try {
+                redisCacheService.liberarBloqueio(key, token);
+            } catch (RuntimeException erroLiberacao) {
+                logger.warn("Falha ao liberar a Idempotency-Key {}: {}", key, erroLiberacao.getMessage());
+            }
+            throw e;
+        }
+
+        try {
+            if (!redisCacheService.concluirBloqueio(key, token, new PedidoIdempotente(impressao, resposta),
+                    ttlHoras, TimeUnit.HOURS)) {
+                logger.warn("Reserva da Idempotency-Key {} expirou antes do pedido {} terminar",
+                        key, resposta.getCodigoPedido());
+            }
+        } catch (RuntimeException e) {
+            // O pedido já foi criado; só as repetições deixam de encontrá-lo
+            logger.warn("Falha ao gravar a resposta da Idempotency-Key {}: {}", key, e.getMessage());
+        }
+        return resposta;
+    }
+
+    // Ids e quantidades na ordem enviada: repetições legítimas mandam o mesmo corpo
+    static String impressaoCarrinho(List<ProdutoItem> itens) {
+        StringBuilder carrinho = new StringBuilder();
+        if (itens != null) {
+            for (ProdutoItem item : itens) {
+                carrinho.append(item.getId()).append('=').append(item.getQuantidade()).append(';');
+            }
+        }
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(carrinho.toString().getBytes(StandardCharsets.UTF_8));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponível", e);
+        }
+    }
+
+    private static void aguardar() {
+        try {
+            Thread.sleep(INTERVALO_ESPERA_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MensagemErrorException(HttpStatus.SERVICE_UNAVAILABLE,
+                    "Espera pelo pedido com esta Idempotency-Key interrompida");
+        }
+    }
+
+    /**
+     * Resposta do pedido e se ela veio de uma requisição anterior com a mesma chave.
+     */
+    public record Resultado(PedidoResponse resposta, boolean repetido) {
+    }
+}
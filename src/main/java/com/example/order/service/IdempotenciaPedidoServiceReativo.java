@@ -0,0 +1,156 @@
+package com.example.order.service;
+
+import com.example.order.controller.ProdutoItem;
+import com.example.order.exception.MensagemErrorException;
+import com.example.order.service.dto.PedidoResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * Versão não bloqueante do {@link IdempotenciaPedidoService}, com as mesmas chaves e o mesmo valor guardado no
+ * Redis: uma repetição pode chegar a qualquer das pilhas. A espera por uma requisição concorrente usa
+ * {@link Mono#delay} em vez de dormir na thread.
+ */
+@Service
+@Profile("reativo")
+public class IdempotenciaPedidoServiceReativo {
+
+    private static final Logger logger = LoggerFactory.getLogger(IdempotenciaPedidoServiceReativo.class);
+
+    private static final String PREFIXO = "idempotencia:";
+    private static final int TAMANHO_MAXIMO_CHAVE = 255;
+    private static final Duration INTERVALO_ESPERA = Duration.ofMillis(50);
+
+    private final RedisCacheServiceReativo redisCacheService;
+    private final Counter pedidosNovos;
+    private final Counter pedidosRepetidos;
+
+    @Value("${app.pedido.idempotencia.ttl-horas:24}")
+    private long ttlHoras = 24;
+
+    @Value("${app.pedido.idempotencia.reserva-millis:30000}")
+    private long reservaMillis = 30_000;
+
+    @Value("${app.pedido.idempotencia.espera-millis:10000}")
+    private long esperaMillis = 10_000;
+
+    public IdempotenciaPedidoServiceReativo(RedisCacheServiceReativo redisCacheService, MeterRegistry meterRegistry) {
+        this.redisCacheService = redisCacheService;
+        this.pedidosNovos = contador(meterRegistry, "novo");
+        this.pedidosRepetidos = contador(meterRegistry, "repetido");
+    }
+
+    private static Counter contador(MeterRegistry meterRegistry, String resultado) {
+        return Counter.builder("pedido.idempotencia")
+                .description("Pedidos com Idempotency-Key, criados ou devolvidos de uma requisição anterior")
+                .tag("resultado", resultado)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Assina {@code criacao} se a chave ainda não foi usada pelo usuário autenticado; caso contrário, devolve a
+     * resposta do pedido já criado com ela.
+     */
+    public Mono<IdempotenciaPedidoService.Resultado> executar(String chaveIdempotencia, List<ProdutoItem> itens,
+                                                             Supplier<Mono<PedidoResponse>> criacao) {
+        if (chaveIdempotencia.isBlank() || chaveIdempotencia.length() > TAMANHO_MAXIMO_CHAVE) {
+            return Mono.error(new MensagemErrorException(HttpStatus.BAD_REQUEST,
+                    "Idempotency-Key deve ter entre 1 e " + TAMANHO_MAXIMO_CHAVE + " caracteres"));
+        }
+        String impressao = IdempotenciaPedidoService.impressaoCarrinho(itens);
+        return PedidoServiceReativo.usuarioAutenticado().flatMap(idUsuario -> {
+            String key = PREFIXO + idUsuario + ":" + chaveIdempotencia;
+            return tentar(key, impressao, criacao, System.currentTimeMillis() + esperaMillis);
+        });
+    }
+
+    private Mono<IdempotenciaPedidoService.Resultado> tentar(String key, String impressao,
+                                                            Supplier<Mono<PedidoResponse>> criacao, long limite) {
+        String token = UUID.randomUUID().toString();
+        return redisCacheService.reservar(key, token, Duration.ofMillis(reservaMillis))
+                .map(reservada -> reservada ? Reserva.OBTIDA : Reserva.OCUPADA)
+                .onErrorResume(e -> {
+                    // Sem Redis não há como deduplicar; o pedido segue como se viesse sem a chave
+                    logger.warn("Falha ao reservar a Idempotency-Key {}, criando o pedido sem ela: {}", key, e.getMessage());
+                    return Mono.just(Reserva.SEM_REDIS);
+                })
+                .flatMap(reserva -> switch (reserva) {
+                    case SEM_REDIS -> {
+                        pedidosNovos.increment();
+                        yield Mono.defer(criacao).map(resposta -> new IdempotenciaPedidoService.Resultado(resposta, false));
+                    }
+                    case OBTIDA -> {
+                        pedidosNovos.increment();
+                        yield criar(key, token, impressao, criacao)
+                                .map(resposta -> new IdempotenciaPedidoService.Resultado(resposta, false));
+                    }
+                    case OCUPADA -> redisCacheService.buscar(key)
+                            .map(Optional::of)
+                            .defaultIfEmpty(Optional.empty())
+                            .flatMap(existente -> anteriorOuEspera(key, impressao, criacao, limite, existente.orElse(null)));
+                });
+    }
+
+    private Mono<IdempotenciaPedidoService.Resultado> anteriorOuEspera(String key, String impressao,
+                                                                      Supplier<Mono<PedidoResponse>> criacao,
+                                                                      long limite, Object existente) {
+        if (existente instanceof PedidoIdempotente anterior) {
+            if (!anterior.getImpressaoCarrinho().equals(impressao)) {
+                return Mono.error(new MensagemErrorException(HttpStatus.UNPROCESSABLE_ENTITY,
+                        "Idempotency-Key já usada em um pedido com outros produtos"));
+            }
+            pedidosRepetidos.increment();
+            return Mono.just(new IdempotenciaPedidoService.Resultado(anterior.getResposta(), true));
+        }
+        if (existente == null) {
+            // A reserva foi liberada (criação falhou) entre o SET NX e a leitura: tenta reservar de novo
+            return tentar(key, impressao, criacao, limite);
+        }
+        if (System.currentTimeMillis() >= limite) {
+            return Mono.error(new MensagemErrorException(HttpStatus.CONFLICT,
+                    "Pedido com esta Idempotency-Key ainda em processamento"));
+        }
+        return Mono.delay(INTERVALO_ESPERA).then(Mono.defer(() -> tentar(key, impressao, criacao, limite)));
+    }
+
+    private Mono<PedidoResponse> criar(String key, String token, String impressao,
+                                       Supplier<Mono<PedidoResponse>> criacao) {
+        return Mono.defer(criacao)
+                .onErrorResume(e -> redisCacheService.liberarReserva(key, token)
+                        .onErrorResume(erroLiberacao -> {
+                            logger.warn("Falha ao liberar a Idempotency-Key {}: {}", key, erroLiberacao.getMessage());
+                            return Mono.empty();
+                        })
+                        .then(Mono.error(e)))
+                .flatMap(resposta -> redisCacheService.concluirReserva(key, token,
+                                new PedidoIdempotente(impressao, resposta), Duration.ofHours(ttlHoras))
+                        .doOnNext(concluida -> {
+                            if (!concluida) {
+                                logger.warn("Reserva da Idempotency-Key {} expirou antes do pedido {} terminar",
+                                        key, resposta.getCodigoPedido());
+                            }
+                        })
+                        .onErrorResume(e -> {
+                            logger.warn("Falha ao gravar a resposta da Idempotency-Key {}: {}", key, e.getMessage());
+                            return Mono.empty();
+                        })
+                        .thenReturn(resposta));
+    }
+
+    private enum Reserva {
+        OBTIDA, OCUPADA, SEM_REDIS
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.order.service;
+
+import com.example.order.service.dto.PedidoResponse;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Resultado gravado pelo {@link IdempotenciaPedidoService} na chave de idempotência: a resposta do pedido
+ * criado e a impressão do carrinho que o criou, para recusar a mesma chave reutilizada com outro carrinho.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PedidoIdempotente {
+    private String impressaoCarrinho;
+    private PedidoResponse resposta;
+}
@@ -1,14 +1,23 @@
 package com.example.order.service;
 
+import com.example.order.exception.ExternalAIndisponivelException;
 import com.example.order.exception.MensagemErrorException;
 import com.example.order.model.ProdutoComprado;
+import com.example.order.service.dto.CatalogoProdutos;
+import com.example.order.service.dto.PaginaPedidosResponse;
 import com.example.order.service.dto.PedidoResponse;
 import com.example.order.model.Pedido;
 import com.example.order.repository.PedidoRepository;
 import com.example.order.model.Produto;
 import com.example.order.feignclient.ExternalAClient;
+import com.example.order.feignclient.ExternalACoalescer;
 import com.example.order.controller.ProdutoItem;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.bson.types.ObjectId;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -16,44 +25,156 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 public class PedidoService {
     private final PedidoRepository pedidoRepository;
     private final ExternalAClient externalAClient;
     private final RedisCacheService redisCacheService;
+    private final ProdutoCacheService produtoCacheService;
+    private final CatalogoEmMemoriaService catalogoEmMemoriaService;
+    private final PedidosUsuarioCacheService pedidosUsuarioCacheService;
+    private final ReservaEstoqueService reservaEstoqueService;
+    private final ExpiracaoPedidoService expiracaoPedidoService;
+    private final PedidoWriteBehindService pedidoWriteBehindService;
+    private final Executor pedidoFanOutExecutor;
+    private final ExternalACoalescer externalACoalescer;
 
+    // Tempo de cada etapa de createBatchPedido (tag "etapa"), para ver onde o tempo da criação é gasto
+    private final Timer etapaEstoque;
+    private final Timer etapaCacheProduto;
+    private final Timer etapaUpstream;
+    private final Timer etapaPrecificacao;
+    private final Timer etapaGravacao;
+    private final Timer etapaCacheEscrita;
+    private final Timer listagemProdutos;
+    private final Timer listagemPedidosCache;
+    private final Timer listagemPedidosMongo;
+    private final Counter acertosPedidosUsuario;
+    private final Counter falhasPedidosUsuario;
+
+    static final String CHAVE_PRODUTO = "produto:";
+    static final String CHAVE_TODOS_PRODUTOS = "todosProdutos";
     private static final DateTimeFormatter BR_FORMATTER = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm:ss");
 
+    // Quando habilitado, as consultas de estoque e produto de todos os itens são disparadas em paralelo
+    @Value("${app.pedido.fan-out.habilitado:false}")
+    private boolean fanOutHabilitado;
+
+    // Máximo de chamadas simultâneas ao External A por pedido
+    @Value("${app.pedido.fan-out.max-concorrencia:8}")
+    private int maxConcorrenciaFanOut;
+
+    // Quando habilitado, produto e estoque vêm de chamadas em lote agrupadas entre requisições concorrentes
+    @Value("${app.feign.external-api.coalescer.habilitado:false}")
+    private boolean coalescerHabilitado;
+
+    // Tamanho de página de meus-pedidos quando o cliente não informa, e o maior aceito
+    @Value("${app.pedido.paginacao.tamanho-padrao:20}")
+    private int tamanhoPaginaPadrao;
+
+    @Value("${app.pedido.paginacao.tamanho-maximo:100}")
+    private int tamanhoPaginaMaximo;
+
     public PedidoService(PedidoRepository pedidoRepository,
-                         @Qualifier("externalAMockClient") ExternalAClient externalAClient,
-                         RedisCacheService redisCacheService) {
+                         @Qualifier("externalAClientProtegido") ExternalAClient externalAClient,
+                         RedisCacheService redisCacheService,
+                         ProdutoCacheService produtoCacheService,
+                         CatalogoEmMemoriaService catalogoEmMemoriaService,
+                         PedidosUsuarioCacheService pedidosUsuarioCacheService,
+                         ReservaEstoqueService reservaEstoqueService,
+                         ExpiracaoPedidoService expiracaoPedidoService,
+                         PedidoWriteBehindService pedidoWriteBehindService,
+                         @Qualifier("pedidoFanOutExecutor") Executor pedidoFanOutExecutor,
+                         ExternalACoalescer externalACoalescer,
+                         MeterRegistry meterRegistry) {
         this.pedidoRepository = pedidoRepository;
         this.externalAClient = externalAClient;
         this.redisCacheService = redisCacheService;
+        this.produtoCacheService = produtoCacheService;
+        this.catalogoEmMemoriaService = catalogoEmMemoriaService;
+        this.pedidosUsuarioCacheService = pedidosUsuarioCacheService;
+        this.reservaEstoqueService = reservaEstoqueService;
+        this.expiracaoPedidoService = expiracaoPedidoService;
+        this.pedidoWriteBehindService = pedidoWriteBehindService;
+        this.pedidoFanOutExecutor = pedidoFanOutExecutor;
+        this.externalACoalescer = externalACoalescer;
+        this.etapaEstoque = etapa(meterRegistry, "estoque");
+        this.etapaCacheProduto = etapa(meterRegistry, "cache-produto");
+        this.etapaUpstream = etapa(meterRegistry, "upstream");
+        this.etapaPrecificacao = etapa(meterRegistry, "precificacao");
+        this.etapaGravacao = etapa(meterRegistry, "gravacao");
+        this.etapaCacheEscrita = etapa(meterRegistry, "cache-escrita");
+        this.listagemProdutos = Timer.builder("produtos.listagem").register(meterRegistry);
+        this.listagemPedidosCache = Timer.builder("pedidos.listagem").tag("origem", "cache").register(meterRegistry);
+        this.listagemPedidosMongo = Timer.builder("pedidos.listagem").tag("origem", "mongo").register(meterRegistry);
+        this.acertosPedidosUsuario = ProdutoCacheService.contadorAcessos(meterRegistry, "pedidos-usuario:", true);
+        this.falhasPedidosUsuario = ProdutoCacheService.contadorAcessos(meterRegistry, "pedidos-usuario:", false);
     }
 
-    public List<Produto> buscaTodosProdutos() {
-        String cacheKey = "todosProdutos";
-        @SuppressWarnings("unchecked")
-        List<Produto> cachedProducts = (List<Produto>) redisCacheService.getCachedOrder(cacheKey, List.class);
+    private static Timer etapa(MeterRegistry meterRegistry, String etapa) {
+        return Timer.builder("pedido.criacao.etapa").tag("etapa", etapa).register(meterRegistry);
+    }
 
-        if (cachedProducts != null) {
-            return cachedProducts;
-        }
+    public List<Produto> buscaTodosProdutos() {
+        return buscaCatalogoProdutos().getProdutos();
+    }
 
-        List<Produto> produtos = externalAClient.getTodosProdutos();
-        if (produtos == null || produtos.isEmpty()) {
-            return List.of();
+    /**
+     * Catálogo de produtos. Com o snapshot em memória carregado, vem dele sem I/O. Caso contrário, com o
+     * External A indisponível (circuito aberto ou bulkhead cheio) e nada utilizável em cache, devolve o último
+     * catálogo conhecido marcado como desatualizado.
+     */
+    public CatalogoProdutos buscaCatalogoProdutos() {
+        Timer.Sample listagem = Timer.start();
+        try {
+            CatalogoEmMemoriaService.SnapshotCatalogo snapshot = catalogoEmMemoriaService.snapshotAtual();
+            if (snapshot != null) {
+                return new CatalogoProdutos(snapshot.lista(), catalogoEmMemoriaService.isDesatualizado(snapshot));
+            }
+            // Cacheia os produtos com um TTL de 5 minutos para refletir mudanças no External A;
+            // apenas um chamador recarrega a lista quando ela vence, os demais recebem o valor anterior
+            List<Produto> produtos = produtoCacheService.obterOuCarregar(CHAVE_TODOS_PRODUTOS, () -> {
+                List<Produto> carregados = externalAClient.getTodosProdutos();
+                return carregados == null || carregados.isEmpty() ? null : carregados;
+            }, 5, TimeUnit.MINUTES);
+            return new CatalogoProdutos(produtos != null ? produtos : List.of(), false);
+        } catch (ExternalAIndisponivelException e) {
+            List<Produto> ultimoCatalogo = produtoCacheService.ultimoConhecido(CHAVE_TODOS_PRODUTOS);
+            if (ultimoCatalogo == null) {
+                throw e;
+            }
+            return new CatalogoProdutos(ultimoCatalogo, true);
+        } finally {
+            listagem.stop(listagemProdutos);
         }
-
-        // Cacheia os produtos com um TTL de 5 minutos para refletir mudanças no External A
-        redisCacheService.cacheOrder(cacheKey, produtos, 5, TimeUnit.MINUTES);
-        return produtos;
     }
 
     @Transactional
@@ -66,47 +187,311 @@ public class PedidoService {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         String idUsuario = authentication.getName();
 
-        BigDecimal valorTotal = BigDecimal.ZERO;
         Pedido pedido = new Pedido(idUsuario);
         pedido.setStatus("PENDENTE PAGAMENTO");
 
+        // Com o livro de reservas o estoque do carrinho inteiro é reservado de uma vez, antes de buscar os produtos;
+        // o id do pedido é gerado aqui para identificar a reserva
+        boolean reservou = false;
+        if (reservaEstoqueService.isHabilitada()) {
+            pedido.setId(new ObjectId().toHexString());
+            etapaEstoque.record(() -> reservaEstoqueService.reservar(pedido.getId(), idUsuario, products));
+            reservou = true;
+        }
+
+        Pedido pedidoSalvo;
+        // Produtos servidos pelo último valor conhecido porque o External A estava indisponível
+        Set<String> desatualizados = ConcurrentHashMap.newKeySet();
+        try {
+            List<Produto> produtosResolvidos;
+            if (reservou) {
+                produtosResolvidos = buscarProdutos(products, desatualizados);
+            } else if (coalescerHabilitado) {
+                produtosResolvidos = resolverProdutosEmLote(products, desatualizados);
+            } else if (fanOutHabilitado) {
+                produtosResolvidos = resolverProdutosEmParalelo(products, desatualizados);
+            } else {
+                produtosResolvidos = resolverProdutosSequencialmente(products, desatualizados);
+            }
+
+            Timer.Sample precificacao = Timer.start();
+            pedido.setValorTotal(precificar(pedido, products, produtosResolvidos::get));
+            precificacao.stop(etapaPrecificacao);
+
+            // Em write-behind o pedido vai para o journal e é gravado no Mongo em lote logo depois
+            pedidoSalvo = etapaGravacao.record(() -> pedidoWriteBehindService.isHabilitado()
+                    ? pedidoWriteBehindService.enfileirar(pedido)
+                    : pedidoRepository.save(pedido));
+        } catch (RuntimeException e) {
+            if (reservou) {
+                reservaEstoqueService.liberar(pedido.getId());
+            }
+            throw e;
+        }
+        // Prazo de pagamento na roda de expiração, sem I/O
+        expiracaoPedidoService.agendar(pedidoSalvo);
+
+        Timer.Sample cacheEscrita = Timer.start();
+        String pedidoCacheKey = idUsuario + ":batch";
+        redisCacheService.cacheOrder(pedidoCacheKey, pedidoSalvo);
+        // Mantém a lista de meus-pedidos em dia sem descartá-la
+        pedidosUsuarioCacheService.acrescentar(pedidoSalvo);
+        cacheEscrita.stop(etapaCacheEscrita);
+
+        PedidoResponse resposta = mapToResponse(pedidoSalvo);
+        if (!desatualizados.isEmpty()) {
+            resposta.setDadosDesatualizados(true);
+        }
+        return resposta;
+    }
+
+    /**
+     * Dados dos produtos do carrinho: todos são lidos do cache de uma vez, só os ausentes vão ao External A
+     * e voltam ao cache em um único pipeline. A disponibilidade é verificada à parte (ou garantida pela reserva).
+     */
+    private List<Produto> buscarProdutos(List<ProdutoItem> products, Set<String> desatualizados) {
+        Map<String, Produto> produtos = buscarNoCache(products, desatualizados);
+        Map<String, Produto> buscados = new LinkedHashMap<>();
         for (ProdutoItem item : products) {
             String idProduto = item.getId();
-            Integer quantidadeSolicitada = item.getQuantidade();
+            if (!produtos.containsKey(idProduto)) {
+                Produto produto = buscarNoUpstream(idProduto, desatualizados);
+                produtos.put(idProduto, produto);
+                if (!desatualizados.contains(idProduto)) {
+                    buscados.put(idProduto, produto);
+                }
+            }
+        }
+        gravarNoCache(buscados);
+        return ordenarPorItem(products, produtos);
+    }
+
+    private List<Produto> resolverProdutosSequencialmente(List<ProdutoItem> products, Set<String> desatualizados) {
+        for (ProdutoItem item : products) {
+            verificarDisponibilidade(item);
+        }
+        return buscarProdutos(products, desatualizados);
+    }
+
+    /**
+     * Dispara as verificações de estoque e as buscas de produto de todos os itens ao mesmo tempo,
+     * com no máximo {@code maxConcorrenciaFanOut} chamadas em andamento por pedido. A primeira falha
+     * (ex.: produto indisponível) cancela as tarefas restantes e é propagada imediatamente.
+     */
+    private List<Produto> resolverProdutosEmParalelo(List<ProdutoItem> products, Set<String> desatualizados) {
+        // O cache é lido de uma vez antes do fan-out; só os produtos ausentes viram chamadas ao External A
+        Map<String, Produto> emCache = buscarNoCache(products, desatualizados);
+        Map<String, Produto> buscados = new ConcurrentHashMap<>();
+        Map<String, Produto> ultimosConhecidos = new ConcurrentHashMap<>();
+
+        List<Callable<Void>> tarefas = new ArrayList<>(products.size() * 2);
+        Set<String> aBuscar = new HashSet<>();
+        for (ProdutoItem item : products) {
+            tarefas.add(() -> {
+                verificarDisponibilidade(item);
+                return null;
+            });
+            String idProduto = item.getId();
+            if (!emCache.containsKey(idProduto) && aBuscar.add(idProduto)) {
+                tarefas.add(() -> {
+                    Produto produto = buscarNoUpstream(idProduto, desatualizados);
+                    if (desatualizados.contains(idProduto)) {
+                        ultimosConhecidos.put(idProduto, produto);
+                    } else {
+                        buscados.put(idProduto, produto);
+                    }
+                    return null;
+                });
+            }
+        }
+
+        CompletionService<Void> completionService = new ExecutorCompletionService<>(pedidoFanOutExecutor);
+        List<Future<Void>> emAndamento = new ArrayList<>(tarefas.size());
+        int proxima = 0;
+        int limite = Math.max(1, maxConcorrenciaFanOut);
+        try {
+            while (proxima < tarefas.size() && proxima < limite) {
+                emAndamento.add(completionService.submit(tarefas.get(proxima++)));
+            }
+            for (int concluidas = 0; concluidas < tarefas.size(); concluidas++) {
+                completionService.take().get();
+                if (proxima < tarefas.size()) {
+                    emAndamento.add(completionService.submit(tarefas.get(proxima++)));
+                }
+            }
+        } catch (ExecutionException e) {
+            emAndamento.forEach(future -> future.cancel(true));
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new MensagemErrorException(HttpStatus.INTERNAL_SERVER_ERROR,
+                    "Erro ao consultar produtos: " + e.getCause().getMessage());
+        } catch (InterruptedException e) {
+            emAndamento.forEach(future -> future.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new MensagemErrorException(HttpStatus.INTERNAL_SERVER_ERROR, "Consulta de produtos interrompida");
+        }
+
+        gravarNoCache(buscados);
+        emCache.putAll(buscados);
+        emCache.putAll(ultimosConhecidos);
+        return ordenarPorItem(products, emCache);
+    }
+
+    /**
+     * Estoque de todos os itens pelo coalescer, que agrupa as consultas de requisições concorrentes numa chamada em
+     * lote. Os dados do produto seguem o caminho dos demais modos: snapshot do catálogo ou cache primeiro, lidos
+     * enquanto o lote está no upstream; só os ausentes usam o produto que voltou no lote, e vão para o cache.
+     */
+    private List<Produto> resolverProdutosEmLote(List<ProdutoItem> products, Set<String> desatualizados) {
+        Map<String, CompletableFuture<Produto>> consultas = new LinkedHashMap<>();
+        for (ProdutoItem item : products) {
+            consultas.computeIfAbsent(item.getId(), externalACoalescer::buscarProduto);
+        }
+        Map<String, Produto> produtos = buscarNoCache(products, desatualizados);
+
+        Map<String, Produto> buscados = new LinkedHashMap<>();
+        Timer.Sample estoque = Timer.start();
+        try {
+            for (ProdutoItem item : products) {
+                String idProduto = item.getId();
+                Produto noUpstream = aguardar(consultas.get(idProduto));
+                Integer quantidadeDisponivel = noUpstream != null ? noUpstream.getQuantidadeDisponivel() : null;
+                if (quantidadeDisponivel == null || quantidadeDisponivel <= item.getQuantidade()) {
+                    throw new MensagemErrorException(HttpStatus.BAD_REQUEST,
+                            "Produto " + idProduto + " não está disponível");
+                }
+                if (!produtos.containsKey(idProduto)) {
+                    produtos.put(idProduto, noUpstream);
+                    buscados.put(idProduto, noUpstream);
+                }
+            }
+        } finally {
+            estoque.stop(etapaEstoque);
+        }
+        gravarNoCache(buscados);
+        return ordenarPorItem(products, produtos);
+    }
+
+    private static Produto aguardar(CompletableFuture<Produto> consulta) {
+        try {
+            return consulta.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw e;
+        }
+    }
 
-            boolean isDisponivel = externalAClient.getQuantidadeProduto(idProduto) > quantidadeSolicitada;
-            if (!isDisponivel) {
+    /**
+     * Soma o pedido em centavos ({@link PrecificacaoPedido}) e registra os produtos comprados; o total só vira
+     * {@link BigDecimal} no fim. Compartilhado com o PedidoServiceReativo.
+     */
+    static BigDecimal precificar(Pedido pedido, List<ProdutoItem> products, IntFunction<Produto> produtoDoItem) {
+        PrecificacaoPedido precificacao = new PrecificacaoPedido();
+        for (int i = 0; i < products.size(); i++) {
+            ProdutoItem item = products.get(i);
+            Produto produto = produtoDoItem.apply(i);
+            Integer quantidadeSolicitada = item.getQuantidade();
+            try {
+                precificacao.adicionarLinha(produto.getValor(), quantidadeSolicitada);
+            } catch (IllegalArgumentException e) {
                 throw new MensagemErrorException(HttpStatus.BAD_REQUEST,
-                        "Produto " + idProduto + " não está disponível");
+                        "Item " + item.getId() + " inválido: " + e.getMessage());
+            } catch (ArithmeticException e) {
+                throw new MensagemErrorException(HttpStatus.BAD_REQUEST, "Valor do pedido excede o limite suportado");
             }
+            pedido.getProdutosComprado().add(new ProdutoComprado(item.getId(), quantidadeSolicitada, produto.getNome()));
+        }
+        return precificacao.total();
+    }
 
-            // Busca o produto no cache ou no External A
-            String cacheKey = "produto:" + idProduto;
-            Produto produto = redisCacheService.getCachedOrder(cacheKey, Produto.class);
+    private void verificarDisponibilidade(ProdutoItem item) {
+        String idProduto = item.getId();
+        Timer.Sample estoque = Timer.start();
+        boolean isDisponivel;
+        try {
+            isDisponivel = externalAClient.getQuantidadeProduto(idProduto) > item.getQuantidade();
+        } finally {
+            estoque.stop(etapaEstoque);
+        }
+        if (!isDisponivel) {
+            throw new MensagemErrorException(HttpStatus.BAD_REQUEST,
+                    "Produto " + idProduto + " não está disponível");
+        }
+    }
 
+    // Id do produto -> produto, para os itens encontrados no snapshot do catálogo ou no cache (L1 ou um único
+    // MGET no Redis). Produtos de um snapshot que não se atualiza há muito tempo contam como desatualizados
+    private Map<String, Produto> buscarNoCache(List<ProdutoItem> products, Set<String> desatualizados) {
+        Map<String, Produto> produtos = new HashMap<>();
+        CatalogoEmMemoriaService.SnapshotCatalogo snapshot = catalogoEmMemoriaService.snapshotAtual();
+        boolean snapshotDesatualizado = snapshot != null && catalogoEmMemoriaService.isDesatualizado(snapshot);
+        Set<String> chaves = new LinkedHashSet<>();
+        for (ProdutoItem item : products) {
+            Produto produto = snapshot != null ? snapshot.produto(item.getId()) : null;
             if (produto == null) {
-                produto = externalAClient.getProduto(idProduto);
-                // Cacheia o produto com TTL de 5 minutos
-                redisCacheService.cacheOrder(cacheKey, produto, 5, TimeUnit.MINUTES);
+                chaves.add(CHAVE_PRODUTO + item.getId());
+            } else {
+                produtos.put(item.getId(), produto);
+                if (snapshotDesatualizado) {
+                    desatualizados.add(item.getId());
+                }
             }
+        }
+        if (chaves.isEmpty()) {
+            return produtos;
+        }
+        Map<String, Produto> emCache = etapaCacheProduto.record(
+                () -> produtoCacheService.getCachedEmLote(chaves, Produto.class));
+        emCache.forEach((chave, produto) -> produtos.put(chave.substring(CHAVE_PRODUTO.length()), produto));
+        return produtos;
+    }
 
-            // Calcula o valor total para este item
-            BigDecimal itemTotal = produto.getValor().multiply(BigDecimal.valueOf(quantidadeSolicitada));
-            valorTotal = valorTotal.add(itemTotal);
+    // Com o External A indisponível vale o último produto conhecido, que não volta ao cache
+    private Produto buscarNoUpstream(String idProduto, Set<String> desatualizados) {
+        Produto produto;
+        try {
+            produto = etapaUpstream.record(() -> externalAClient.getProduto(idProduto));
+        } catch (ExternalAIndisponivelException e) {
+            produto = produtoCacheService.ultimoConhecido(CHAVE_PRODUTO + idProduto);
+            if (produto == null) {
+                throw e;
+            }
+            desatualizados.add(idProduto);
+        }
+        if (produto == null) {
+            throw new MensagemErrorException(HttpStatus.BAD_REQUEST, "Produto " + idProduto + " não está disponível");
+        }
+        return produto;
+    }
 
-            // Adicione lógica para armazenar os produtos comprados
-            pedido.getProdutosComprado().add(new ProdutoComprado(idProduto, quantidadeSolicitada, produto.getNome()));
+    // Cacheia com TTL de 5 minutos os produtos buscados no External A, em um único pipeline
+    private void gravarNoCache(Map<String, Produto> buscados) {
+        if (buscados.isEmpty()) {
+            return;
         }
+        Map<String, Produto> valores = new LinkedHashMap<>();
+        buscados.forEach((idProduto, produto) -> valores.put(CHAVE_PRODUTO + idProduto, produto));
+        etapaCacheEscrita.record(() -> produtoCacheService.cacheEmLote(valores, 5, TimeUnit.MINUTES));
+    }
 
-        pedido.setValorTotal(valorTotal);
-        Pedido pedidoSalvo = pedidoRepository.save(pedido);
-        String pedidoCacheKey = idUsuario + ":batch";
-        redisCacheService.cacheOrder(pedidoCacheKey, pedidoSalvo);
+    private static List<Produto> ordenarPorItem(List<ProdutoItem> products, Map<String, Produto> produtos) {
+        List<Produto> ordenados = new ArrayList<>(products.size());
+        for (ProdutoItem item : products) {
+            ordenados.add(produtos.get(item.getId()));
+        }
+        return ordenados;
+    }
 
-        return mapToResponse(pedidoSalvo);
+    // Visível no pacote para os benchmarks JMH
+    PedidoResponse mapToResponse(Pedido pedido) {
+        return respostaDe(pedido);
     }
 
-    private PedidoResponse mapToResponse(Pedido pedido) {
+    // Compartilhado com o PedidoServiceReativo
+    static PedidoResponse respostaDe(Pedido pedido) {
         return PedidoResponse.builder()
                 .codigoPedido(pedido.getId())
                 .usuario(pedido.getIdUsuario())
@@ -121,24 +506,101 @@ public class PedidoService {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         String idUsuario = authentication.getName();
 
-        String cacheKey = "pedidos:" + idUsuario;
-        @SuppressWarnings("unchecked")
-        List<Pedido> cachedPedidos = (List<Pedido>) redisCacheService.getCachedOrder(cacheKey, List.class);
-
+        Timer.Sample listagem = Timer.start();
+        List<Pedido> cachedPedidos = pedidosUsuarioCacheService.listar(idUsuario);
         if (cachedPedidos != null) {
-            return cachedPedidos.stream()
+            acertosPedidosUsuario.increment();
+            List<PedidoResponse> resposta = cachedPedidos.stream()
                     .map(this::mapToResponse)
                     .collect(Collectors.toList());
+            listagem.stop(listagemPedidosCache);
+            return resposta;
         }
+        falhasPedidosUsuario.increment();
 
-        List<Pedido> pedidos = pedidoRepository.findByIdUsuario(idUsuario);
+        List<Pedido> pedidos = new ArrayList<>(pedidoRepository.findByIdUsuario(idUsuario));
+        // Também guarda a lista vazia, para que usuários sem pedidos não consultem o Mongo a cada chamada
+        pedidosUsuarioCacheService.popular(idUsuario, pedidos);
         if (pedidos.isEmpty()) {
+            listagem.stop(listagemPedidosMongo);
             return List.of();
         }
 
-        redisCacheService.cacheOrder(cacheKey, pedidos, 1, TimeUnit.MINUTES);
-        return pedidos.stream()
+        // Mesma ordem servida pelo cache: do mais recente para o mais antigo
+        pedidos.sort(Comparator.comparing(Pedido::getHorarioCriacao).thenComparing(Pedido::getId).reversed());
+        List<PedidoResponse> resposta = pedidos.stream()
                 .map(this::mapToResponse)
                 .collect(Collectors.toList());
+        listagem.stop(listagemPedidosMongo);
+        return resposta;
+    }
+
+    /**
+     * Página de pedidos do usuário, do mais recente para o mais antigo. O cursor é opaco para o cliente:
+     * codifica o ({@code horarioCriacao}, {@code id}) do último pedido entregue e só deve ser repassado
+     * de volta para obter a página seguinte.
+     */
+    public PaginaPedidosResponse listarPedidosPorUsuarioPaginado(String cursor, Integer tamanho) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        String idUsuario = authentication.getName();
+
+        int tamanhoPagina = tamanho == null ? tamanhoPaginaPadrao : tamanho;
+        if (tamanhoPagina < 1) {
+            throw new MensagemErrorException(HttpStatus.BAD_REQUEST, "Tamanho de página inválido: " + tamanho);
+        }
+        tamanhoPagina = Math.min(tamanhoPagina, tamanhoPaginaMaximo);
+
+        LocalDateTime aposHorario = null;
+        String aposId = null;
+        if (cursor != null && !cursor.isBlank()) {
+            PosicaoCursor posicao = decodificarCursor(cursor);
+            aposHorario = posicao.horarioCriacao();
+            aposId = posicao.id();
+        }
+
+        // Busca um pedido a mais só para saber se existe próxima página
+        List<Pedido> pedidos = pedidoRepository.buscarPaginaPorUsuario(idUsuario, aposHorario, aposId, tamanhoPagina + 1);
+        String proximoCursor = null;
+        if (pedidos.size() > tamanhoPagina) {
+            pedidos = pedidos.subList(0, tamanhoPagina);
+            proximoCursor = codificarCursor(pedidos.get(tamanhoPagina - 1));
+        }
+
+        List<PedidoResponse> pagina = new ArrayList<>(pedidos.size());
+        for (Pedido pedido : pedidos) {
+            pagina.add(mapToResponse(pedido));
+        }
+        return new PaginaPedidosResponse(pagina, proximoCursor);
+    }
+
+    /**
+     * Pedidos do usuário lidos sob demanda do cursor do Mongo. O usuário é resolvido na chamada,
+     * então o stream pode ser consumido fora da thread da requisição; quem consome deve fechá-lo.
+     */
+    public Stream<PedidoResponse> streamPedidosPorUsuario() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        String idUsuario = authentication.getName();
+
+        return pedidoRepository.streamPorUsuario(idUsuario).map(this::mapToResponse);
+    }
+
+    static String codificarCursor(Pedido pedido) {
+        String posicao = pedido.getHorarioCriacao() + "|" + pedido.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(posicao.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static PosicaoCursor decodificarCursor(String cursor) {
+        try {
+            String[] posicao = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|", 2);
+            if (posicao.length == 2 && !posicao[1].isEmpty()) {
+                return new PosicaoCursor(LocalDateTime.parse(posicao[0]), posicao[1]);
+            }
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            // Tratado abaixo como cursor inválido
+        }
+        throw new MensagemErrorException(HttpStatus.BAD_REQUEST, "Cursor de paginação inválido");
+    }
+
+    record PosicaoCursor(LocalDateTime horarioCriacao, String id) {
     }
-}
\ No newline at end of file
+}
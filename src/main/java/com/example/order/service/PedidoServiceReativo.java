@@ -0,0 +1,284 @@
+package com.example.order.service;
+
+import com.example.order.controller.ProdutoItem;
+import com.example.order.exception.MensagemErrorException;
+import com.example.order.feignclient.ExternalAClientReativo;
+import com.example.order.model.Pedido;
+import com.example.order.model.Produto;
+import com.example.order.repository.PedidoRepositoryReativo;
+import com.example.order.service.dto.PaginaPedidosResponse;
+import com.example.order.service.dto.PedidoResponse;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Implementação não bloqueante do {@link PedidoService} para o perfil {@code reativo}, com o mesmo contrato:
+ * mesmas chaves e formato no Redis, mesma coleção no Mongo, mesmas respostas e os mesmos erros
+ * ({@link MensagemErrorException}).
+ *
+ * <p>As consultas de estoque e de produto de um pedido saem em paralelo (até {@code maxConcorrencia} por pedido),
+ * sem ocupar uma thread enquanto o External A responde. Reserva de estoque, coalescer, write-behind, circuit
+ * breaker e o cache local (L1) continuam exclusivos da pilha servlet.</p>
+ */
+@Service
+@Profile("reativo")
+public class PedidoServiceReativo {
+
+    private static final Logger logger = LoggerFactory.getLogger(PedidoServiceReativo.class);
+
+    private static final Duration TTL_PRODUTO = Duration.ofMinutes(5);
+    private static final Duration TTL_PEDIDO = Duration.ofHours(24);
+
+    private final PedidoRepositoryReativo pedidoRepository;
+    private final ExternalAClientReativo externalAClient;
+    private final RedisCacheServiceReativo redisCacheService;
+    private final Timer criacaoPedido;
+    private final Timer listagemProdutos;
+    // Evita que várias requisições recarreguem o catálogo vencido ao mesmo tempo nesta instância
+    private final AtomicBoolean recarregandoCatalogo = new AtomicBoolean();
+
+    // Mesma janela de valor vencido do ProdutoCacheService, para o catálogo gravado por qualquer das pilhas
+    @Value("${app.cache.stale-segundos:300}")
+    private long staleSegundos = 300;
+
+    // Máximo de chamadas simultâneas ao External A por pedido
+    @Value("${app.pedido.fan-out.max-concorrencia:8}")
+    private int maxConcorrencia = 8;
+
+    @Value("${app.pedido.paginacao.tamanho-padrao:20}")
+    private int tamanhoPaginaPadrao = 20;
+
+    @Value("${app.pedido.paginacao.tamanho-maximo:100}")
+    private int tamanhoPaginaMaximo = 100;
+
+    public PedidoServiceReativo(PedidoRepositoryReativo pedidoRepository,
+                                ExternalAClientReativo externalAClient,
+                                RedisCacheServiceReativo redisCacheService,
+                                MeterRegistry meterRegistry) {
+        this.pedidoRepository = pedidoRepository;
+        this.externalAClient = externalAClient;
+        this.redisCacheService = redisCacheService;
+        this.criacaoPedido = Timer.builder("pedido.criacao.reativo").register(meterRegistry);
+        this.listagemProdutos = Timer.builder("produtos.listagem").tag("pilha", "reativa").register(meterRegistry);
+    }
+
+    /**
+     * Catálogo do cache (envelope {@link EntradaCache} gravado por qualquer das pilhas). Vencido, ainda é servido
+     * enquanto uma recarga roda em segundo plano; ausente, é carregado do External A e gravado.
+     */
+    @SuppressWarnings("unchecked")
+    public Mono<List<Produto>> buscaTodosProdutos() {
+        long inicio = System.nanoTime();
+        return redisCacheService.buscar(PedidoService.CHAVE_TODOS_PRODUTOS)
+                .filter(EntradaCache.class::isInstance)
+                .map(EntradaCache.class::cast)
+                .map(entrada -> {
+                    if (entrada.expiradaEm(System.currentTimeMillis())) {
+                        recarregarCatalogoEmSegundoPlano();
+                    }
+                    return (List<Produto>) entrada.getValor();
+                })
+                .switchIfEmpty(Mono.defer(this::carregarCatalogo))
+                .doOnTerminate(() -> listagemProdutos.record(System.nanoTime() - inicio, TimeUnit.NANOSECONDS));
+    }
+
+    private Mono<List<Produto>> carregarCatalogo() {
+        long inicio = System.currentTimeMillis();
+        return externalAClient.getTodosProdutos()
+                .filter(produtos -> !produtos.isEmpty())
+                .flatMap(produtos -> {
+                    long agora = System.currentTimeMillis();
+                    EntradaCache entrada = new EntradaCache(produtos, agora + TTL_PRODUTO.toMillis(), agora - inicio);
+                    return redisCacheService.gravar(PedidoService.CHAVE_TODOS_PRODUTOS, entrada,
+                                    TTL_PRODUTO.plusSeconds(staleSegundos))
+                            .onErrorResume(e -> {
+                                logger.warn("Falha ao gravar o catálogo no cache: {}", e.getMessage());
+                                return Mono.empty();
+                            })
+                            .thenReturn(produtos);
+                })
+                .defaultIfEmpty(List.of());
+    }
+
+    private void recarregarCatalogoEmSegundoPlano() {
+        if (!recarregandoCatalogo.compareAndSet(false, true)) {
+            return;
+        }
+        carregarCatalogo()
+                .doFinally(sinal -> recarregandoCatalogo.set(false))
+                .subscribe(produtos -> {
+                }, e -> logger.warn("Falha ao recarregar o catálogo em segundo plano: {}", e.getMessage()));
+    }
+
+    public Mono<PedidoResponse> createBatchPedido(List<ProdutoItem> products) {
+        if (products == null || products.isEmpty()) {
+            return Mono.error(new MensagemErrorException(HttpStatus.BAD_REQUEST, "Nenhum produto foi informado"));
+        }
+        long inicio = System.nanoTime();
+        return usuarioAutenticado()
+                .flatMap(idUsuario -> {
+                    // Estoque e dados dos produtos em paralelo; a primeira falha cancela o restante
+                    Mono<Boolean> estoque = Flux.fromIterable(products)
+                            .flatMap(this::verificarDisponibilidade, maxConcorrencia)
+                            .then(Mono.just(true));
+                    return Mono.zip(estoque, buscarProdutos(products), (disponivel, produtos) -> produtos)
+                            .map(produtos -> montarPedido(idUsuario, products, produtos))
+                            .flatMap(pedidoRepository::save)
+                            .flatMap(pedidoSalvo -> atualizarCaches(idUsuario, pedidoSalvo).thenReturn(pedidoSalvo));
+                })
+                .map(PedidoService::respostaDe)
+                .doOnTerminate(() -> criacaoPedido.record(System.nanoTime() - inicio, TimeUnit.NANOSECONDS));
+    }
+
+    private Mono<Void> verificarDisponibilidade(ProdutoItem item) {
+        return externalAClient.getQuantidadeProduto(item.getId())
+                .defaultIfEmpty(0)
+                .flatMap(quantidade -> quantidade > item.getQuantidade()
+                        ? Mono.empty()
+                        : Mono.error(indisponivel(item.getId())));
+    }
+
+    // Id do produto -> produto: um MGET para o carrinho inteiro e o External A só para os ausentes
+    private Mono<Map<String, Produto>> buscarProdutos(List<ProdutoItem> products) {
+        Set<String> ids = new LinkedHashSet<>();
+        for (ProdutoItem item : products) {
+            ids.add(item.getId());
+        }
+        List<String> chaves = new ArrayList<>(ids.size());
+        ids.forEach(id -> chaves.add(PedidoService.CHAVE_PRODUTO + id));
+
+        return redisCacheService.buscarEmLote(chaves).flatMap(emCache -> {
+            Map<String, Produto> produtos = new HashMap<>();
+            List<String> ausentes = new ArrayList<>();
+            for (String id : ids) {
+                if (emCache.get(PedidoService.CHAVE_PRODUTO + id) instanceof Produto produto) {
+                    produtos.put(id, produto);
+                } else {
+                    ausentes.add(id);
+                }
+            }
+            if (ausentes.isEmpty()) {
+                return Mono.just(produtos);
+            }
+            return Flux.fromIterable(ausentes)
+                    .flatMap(id -> externalAClient.getProduto(id)
+                            .switchIfEmpty(Mono.error(indisponivel(id))), maxConcorrencia)
+                    .collectMap(Produto::getId)
+                    .flatMap(buscados -> gravarNoCache(buscados).thenReturn(buscados))
+                    .map(buscados -> {
+                        produtos.putAll(buscados);
+                        return produtos;
+                    });
+        });
+    }
+
+    private Mono<Void> gravarNoCache(Map<String, Produto> buscados) {
+        Map<String, Produto> valores = new LinkedHashMap<>();
+        buscados.forEach((id, produto) -> valores.put(PedidoService.CHAVE_PRODUTO + id, produto));
+        return redisCacheService.gravarEmLote(valores, TTL_PRODUTO)
+                .onErrorResume(e -> {
+                    logger.warn("Falha ao gravar produtos no cache: {}", e.getMessage());
+                    return Mono.empty();
+                });
+    }
+
+    private static Pedido montarPedido(String idUsuario, List<ProdutoItem> products, Map<String, Produto> produtos) {
+        Pedido pedido = new Pedido(idUsuario);
+        pedido.setStatus("PENDENTE PAGAMENTO");
+        pedido.setValorTotal(PedidoService.precificar(pedido, products, i -> produtos.get(products.get(i).getId())));
+        return pedido;
+    }
+
+    // Último pedido do usuário em cache, como na pilha servlet; a lista de meus-pedidos é descartada para que
+    // instâncias servlet no mesmo Redis não a sirvam sem o pedido novo
+    private Mono<Void> atualizarCaches(String idUsuario, Pedido pedidoSalvo) {
+        return Mono.when(
+                        redisCacheService.gravar(idUsuario + ":batch", pedidoSalvo, TTL_PEDIDO),
+                        redisCacheService.remover(PedidosUsuarioCacheService.chaves(idUsuario)))
+                .onErrorResume(e -> {
+                    logger.warn("Falha ao atualizar o cache do pedido {}: {}", pedidoSalvo.getId(), e.getMessage());
+                    return Mono.empty();
+                });
+    }
+
+    /**
+     * Pedidos do usuário do mais recente para o mais antigo, emitidos à medida que chegam do Mongo.
+     */
+    public Flux<PedidoResponse> listarPedidosPorUsuario() {
+        return usuarioAutenticado()
+                .flatMapMany(pedidoRepository::buscarPorUsuario)
+                .map(PedidoService::respostaDe);
+    }
+
+    // Mesmo cursor opaco da pilha servlet: um cursor obtido em uma vale na outra
+    public Mono<PaginaPedidosResponse> listarPedidosPorUsuarioPaginado(String cursor, Integer tamanho) {
+        int tamanhoPagina = tamanho == null ? tamanhoPaginaPadrao : tamanho;
+        if (tamanhoPagina < 1) {
+            return Mono.error(new MensagemErrorException(HttpStatus.BAD_REQUEST, "Tamanho de página inválido: " + tamanho));
+        }
+        int limite = Math.min(tamanhoPagina, tamanhoPaginaMaximo);
+
+        LocalDateTime aposHorario = null;
+        String aposId = null;
+        if (cursor != null && !cursor.isBlank()) {
+            PedidoService.PosicaoCursor posicao;
+            try {
+                posicao = PedidoService.decodificarCursor(cursor);
+            } catch (MensagemErrorException e) {
+                return Mono.error(e);
+            }
+            aposHorario = posicao.horarioCriacao();
+            aposId = posicao.id();
+        }
+
+        LocalDateTime horario = aposHorario;
+        String id = aposId;
+        // Busca um pedido a mais só para saber se existe próxima página
+        return usuarioAutenticado()
+                .flatMap(idUsuario -> pedidoRepository.buscarPaginaPorUsuario(idUsuario, horario, id, limite + 1)
+                        .collectList())
+                .map(pedidos -> {
+                    String proximoCursor = null;
+                    if (pedidos.size() > limite) {
+                        pedidos = pedidos.subList(0, limite);
+                        proximoCursor = PedidoService.codificarCursor(pedidos.get(limite - 1));
+                    }
+                    List<PedidoResponse> pagina = new ArrayList<>(pedidos.size());
+                    for (Pedido pedido : pedidos) {
+                        pagina.add(PedidoService.respostaDe(pedido));
+                    }
+                    return new PaginaPedidosResponse(pagina, proximoCursor);
+                });
+    }
+
+    static Mono<String> usuarioAutenticado() {
+        return ReactiveSecurityContextHolder.getContext()
+                .mapNotNull(contexto -> contexto.getAuthentication() != null ? contexto.getAuthentication().getName() : null)
+                .switchIfEmpty(Mono.error(new MensagemErrorException(HttpStatus.FORBIDDEN, "Usuário não autenticado")));
+    }
+
+    private static MensagemErrorException indisponivel(String idProduto) {
+        return new MensagemErrorException(HttpStatus.BAD_REQUEST, "Produto " + idProduto + " não está disponível");
+    }
+}
@@ -0,0 +1,407 @@
+package com.example.order.service;
+
+import com.example.order.model.Pedido;
+import com.mongodb.MongoBulkWriteException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.data.domain.Range;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.redis.RedisSystemException;
+import org.springframework.data.redis.connection.stream.Consumer;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.connection.stream.PendingMessage;
+import org.springframework.data.redis.connection.stream.PendingMessages;
+import org.springframework.data.redis.connection.stream.ReadOffset;
+import org.springframework.data.redis.connection.stream.RecordId;
+import org.springframework.data.redis.connection.stream.StreamOffset;
+import org.springframework.data.redis.connection.stream.StreamReadOptions;
+import org.springframework.data.redis.connection.stream.StreamRecords;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StreamOperations;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Gravação assíncrona (write-behind) dos pedidos. O pedido é anexado ao stream {@code pedidos:journal}
+ * no Redis e o cliente recebe a resposta com o id já atribuído; uma thread em segundo plano lê o stream
+ * em lotes por um consumer group e grava no Mongo com inserts em lote não ordenados.
+ *
+ * <p>Só depois do insert a entrada é confirmada (XACK) e removida do stream. Entradas lidas e não
+ * confirmadas ficam pendentes para o consumidor e não voltam numa leitura de novas entradas: as deste
+ * consumidor são relidas na subida, depois de cada lote que falhou e a cada {@code tempo-reivindicacao-millis};
+ * as de instâncias paradas há mais desse tempo são assumidas pelas demais. Como o id vem do journal,
+ * regravar um pedido já inserido só gera duplicidade de chave, que é ignorada.</p>
+ *
+ * <p>Se o lote falha por algo que não é indisponibilidade do Mongo, os pedidos são regravados um a um e
+ * só os que falharem continuam pendentes. A releitura do histórico conta como nova entrega no XPENDING;
+ * a entrada que chegar a {@code max-tentativas} entregas sem gravar é movida para {@code pedidos:journal:falhas}
+ * e confirmada, para não travar o journal.</p>
+ */
+@Service
+public class PedidoWriteBehindService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PedidoWriteBehindService.class);
+
+    static final String CHAVE_JOURNAL = "pedidos:journal";
+    static final String CHAVE_FALHAS = "pedidos:journal:falhas";
+    static final String GRUPO = "gravador-pedidos";
+    private static final String CAMPO_PEDIDO = "pedido";
+    private static final String CAMPO_ERRO = "erro";
+    private static final int CHAVE_DUPLICADA = 11000;
+
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final MongoTemplate mongoTemplate;
+    private final Timer duracaoGravacao;
+    private final Counter pedidosGravados;
+    private final Counter pedidosComFalha;
+    private final AtomicLong profundidadeFila = new AtomicLong();
+
+    @Value("${app.pedido.write-behind.habilitado:false}")
+    private boolean habilitado;
+
+    @Value("${app.pedido.write-behind.consumidor:${HOSTNAME:local}}")
+    private String consumidor = "local";
+
+    @Value("${app.pedido.write-behind.tamanho-lote:500}")
+    private int tamanhoLote = 500;
+
+    // Espera máxima por novos pedidos em cada leitura do stream
+    @Value("${app.pedido.write-behind.espera-millis:50}")
+    private long esperaMillis = 50;
+
+    @Value("${app.pedido.write-behind.tempo-reivindicacao-millis:60000}")
+    private long tempoReivindicacaoMillis = 60_000;
+
+    // Entregas de uma mesma entrada sem conseguir gravar antes de ela ir para o stream de falhas
+    @Value("${app.pedido.write-behind.max-tentativas:5}")
+    private long maxTentativas = 5;
+
+    private ExecutorService gravador;
+    private volatile boolean ativo;
+
+    // Estado do laço de gravação, só acessado pela thread do gravador
+    private boolean releituraPendente;
+    private long ultimaVerificacaoPendentes = System.currentTimeMillis();
+
+    public PedidoWriteBehindService(RedisTemplate<String, Object> redisTemplate,
+                                    MongoTemplate mongoTemplate,
+                                    MeterRegistry meterRegistry) {
+        this.redisTemplate = redisTemplate;
+        this.mongoTemplate = mongoTemplate;
+        this.duracaoGravacao = Timer.builder("pedidos.write-behind.gravacao")
+                .description("Tempo de cada insert em lote de pedidos no Mongo")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+        this.pedidosGravados = Counter.builder("pedidos.write-behind.gravados")
+                .description("Pedidos gravados no Mongo a partir do journal")
+                .register(meterRegistry);
+        this.pedidosComFalha = Counter.builder("pedidos.write-behind.falhas")
+                .description("Pedidos movidos para o stream de falhas depois de esgotar as tentativas de gravação")
+                .register(meterRegistry);
+        Gauge.builder("pedidos.write-behind.fila", profundidadeFila, AtomicLong::get)
+                .description("Pedidos no journal aguardando gravação no Mongo")
+                .register(meterRegistry);
+    }
+
+    public boolean isHabilitado() {
+        return habilitado;
+    }
+
+    @PostConstruct
+    public void iniciar() {
+        if (!habilitado) {
+            return;
+        }
+        criarGrupo();
+        ativo = true;
+        gravador = Executors.newSingleThreadExecutor(tarefa -> {
+            Thread thread = new Thread(tarefa, "pedido-write-behind");
+            thread.setDaemon(true);
+            return thread;
+        });
+        gravador.execute(this::executar);
+    }
+
+    // Termina o lote em andamento; o que sobrar no journal é gravado na próxima subida
+    @PreDestroy
+    public void encerrar() throws InterruptedException {
+        ativo = false;
+        if (gravador != null) {
+            gravador.shutdown();
+            if (!gravador.awaitTermination(10, TimeUnit.SECONDS)) {
+                gravador.shutdownNow();
+            }
+        }
+    }
+
+    /**
+     * Anexa o pedido ao journal e o devolve com o id definitivo, antes de ele chegar ao Mongo.
+     */
+    public Pedido enfileirar(Pedido pedido) {
+        if (pedido.getId() == null) {
+            pedido.setId(new ObjectId().toHexString());
+        }
+        redisTemplate.opsForStream().add(StreamRecords.newRecord()
+                .in(CHAVE_JOURNAL)
+                .ofMap(Map.of(CAMPO_PEDIDO, (Object) pedido)));
+        return pedido;
+    }
+
+    private void executar() {
+        // Primeiro o que esta instância leu e não confirmou antes de cair
+        releituraPendente = true;
+        while (ativo) {
+            if (!executarCiclo()) {
+                pausar();
+            }
+        }
+    }
+
+    /**
+     * Uma volta do laço de gravação. Retorna {@code false} se algum lote falhou: ele continua pendente para
+     * este consumidor e é relido a partir do início do stream na volta seguinte.
+     */
+    boolean executarCiclo() {
+        try {
+            if (releituraPendente) {
+                recuperarPendentes(ReadOffset.from("0"));
+                releituraPendente = false;
+            }
+            processarLote(ReadOffset.lastConsumed());
+            if (System.currentTimeMillis() - ultimaVerificacaoPendentes > tempoReivindicacaoMillis) {
+                recuperarPendentes(ReadOffset.from("0"));
+                reivindicarPendentesDeOutrasInstancias();
+                ultimaVerificacaoPendentes = System.currentTimeMillis();
+            }
+            return true;
+        } catch (Exception e) {
+            logger.error("Erro no write-behind de pedidos: {}", e.getMessage());
+            releituraPendente = true;
+            return false;
+        }
+    }
+
+    void recuperarPendentes(ReadOffset inicio) {
+        int recuperados;
+        do {
+            recuperados = processarLote(inicio);
+        } while (recuperados > 0 && ativo);
+    }
+
+    /**
+     * Lê um lote do journal, grava no Mongo e confirma as entradas gravadas ou movidas para o stream de falhas.
+     * Retorna quantas entradas leu; se alguma ainda ficou pendente, relança o erro dela depois de confirmar as demais.
+     */
+    int processarLote(ReadOffset offset) {
+        StreamOperations<String, Object, Object> stream = redisTemplate.opsForStream();
+        StreamReadOptions opcoes = StreamReadOptions.empty().count(tamanhoLote);
+        if (offset.equals(ReadOffset.lastConsumed())) {
+            opcoes = opcoes.block(Duration.ofMillis(esperaMillis));
+        }
+        List<MapRecord<String, Object, Object>> registros = ler(stream, opcoes, StreamOffset.create(CHAVE_JOURNAL, offset));
+        Long tamanho = stream.size(CHAVE_JOURNAL);
+        profundidadeFila.set(tamanho != null ? tamanho : 0);
+        if (registros == null || registros.isEmpty()) {
+            return 0;
+        }
+
+        Map<RecordId, Pedido> pedidos = new LinkedHashMap<>();
+        List<RecordId> confirmados = new ArrayList<>(registros.size());
+        for (MapRecord<String, Object, Object> registro : registros) {
+            Object pedido = registro.getValue().get(CAMPO_PEDIDO);
+            if (pedido instanceof Pedido) {
+                pedidos.put(registro.getId(), (Pedido) pedido);
+            } else {
+                logger.warn("Entrada {} do journal sem pedido legível, descartada", registro.getId());
+                confirmados.add(registro.getId());
+            }
+        }
+
+        Map<RecordId, RuntimeException> falhas = Map.of();
+        try {
+            gravar(new ArrayList<>(pedidos.values()));
+            confirmados.addAll(pedidos.keySet());
+        } catch (RuntimeException e) {
+            if (transitoria(e)) {
+                throw e;
+            }
+            logger.warn("Lote do journal falhou ({}), regravando pedido a pedido", e.getMessage());
+            falhas = gravarUmAUm(pedidos, confirmados);
+        }
+        List<RecordId> retidos = desviarEsgotados(stream, falhas, pedidos, confirmados);
+
+        if (!confirmados.isEmpty()) {
+            RecordId[] ids = confirmados.toArray(new RecordId[0]);
+            stream.acknowledge(CHAVE_JOURNAL, GRUPO, ids);
+            stream.delete(CHAVE_JOURNAL, ids);
+            profundidadeFila.addAndGet(-ids.length);
+        }
+        if (!retidos.isEmpty()) {
+            // Os retidos continuam pendentes e voltam na releitura do início do stream
+            throw falhas.get(retidos.get(0));
+        }
+        return registros.size();
+    }
+
+    // O read é varargs de um tipo genérico; com um único stream o array criado é seguro
+    @SuppressWarnings("unchecked")
+    private List<MapRecord<String, Object, Object>> ler(StreamOperations<String, Object, Object> stream,
+                                                        StreamReadOptions opcoes, StreamOffset<String> offset) {
+        return stream.read(Consumer.from(GRUPO, consumidor), opcoes, offset);
+    }
+
+    // Insert em lote não ordenado: uma falha não impede os demais; duplicidade de chave significa "já gravado"
+    private void gravar(List<Pedido> pedidos) {
+        if (pedidos.isEmpty()) {
+            return;
+        }
+        long inicio = System.nanoTime();
+        try {
+            mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Pedido.class).insert(pedidos).execute();
+            pedidosGravados.increment(pedidos.size());
+        } catch (BulkOperationException e) {
+            // Mesmo com erro, o lote não ordenado gravou os demais
+            pedidosGravados.increment(pedidos.size() - e.getErrors().size());
+            if (!e.getErrors().stream().allMatch(erro -> erro.getCode() == CHAVE_DUPLICADA)) {
+                throw e;
+            }
+        } catch (DataAccessException e) {
+            if (!(e.getCause() instanceof MongoBulkWriteException bulk)) {
+                throw e;
+            }
+            pedidosGravados.increment(pedidos.size() - bulk.getWriteErrors().size());
+            if (!bulk.getWriteErrors().stream().allMatch(erro -> erro.getCode() == CHAVE_DUPLICADA)) {
+                throw e;
+            }
+        } finally {
+            duracaoGravacao.record(System.nanoTime() - inicio, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    // Regrava depois de uma falha do lote; devolve as entradas que ainda falharam, com o erro de cada uma
+    private Map<RecordId, RuntimeException> gravarUmAUm(Map<RecordId, Pedido> pedidos, List<RecordId> confirmados) {
+        Map<RecordId, RuntimeException> falhas = new LinkedHashMap<>();
+        for (Map.Entry<RecordId, Pedido> entrada : pedidos.entrySet()) {
+            try {
+                mongoTemplate.insert(entrada.getValue());
+                pedidosGravados.increment();
+                confirmados.add(entrada.getKey());
+            } catch (DuplicateKeyException e) {
+                confirmados.add(entrada.getKey());
+            } catch (RuntimeException e) {
+                if (transitoria(e)) {
+                    throw e;
+                }
+                logger.warn("Pedido {} da entrada {} não gravou: {}",
+                        entrada.getValue().getId(), entrada.getKey(), e.getMessage());
+                falhas.put(entrada.getKey(), e);
+            }
+        }
+        return falhas;
+    }
+
+    /**
+     * Move para o stream de falhas as entradas que já foram entregues {@code maxTentativas} vezes e as inclui
+     * nas confirmadas. Devolve as que ainda têm tentativas.
+     */
+    private List<RecordId> desviarEsgotados(StreamOperations<String, Object, Object> stream,
+                                            Map<RecordId, RuntimeException> falhas,
+                                            Map<RecordId, Pedido> pedidos, List<RecordId> confirmados) {
+        List<RecordId> retidos = new ArrayList<>();
+        for (Map.Entry<RecordId, RuntimeException> falha : falhas.entrySet()) {
+            RecordId id = falha.getKey();
+            if (entregas(stream, id) < maxTentativas) {
+                retidos.add(id);
+                continue;
+            }
+            Pedido pedido = pedidos.get(id);
+            stream.add(StreamRecords.newRecord()
+                    .in(CHAVE_FALHAS)
+                    .ofMap(Map.of(CAMPO_PEDIDO, (Object) pedido, CAMPO_ERRO, String.valueOf(falha.getValue().getMessage()))));
+            pedidosComFalha.increment();
+            confirmados.add(id);
+            logger.error("Pedido {} movido para {} após {} tentativas: {}",
+                    pedido.getId(), CHAVE_FALHAS, maxTentativas, falha.getValue().getMessage());
+        }
+        return retidos;
+    }
+
+    // Quantas vezes a entrada já foi entregue ao grupo, segundo o XPENDING
+    private long entregas(StreamOperations<String, Object, Object> stream, RecordId id) {
+        PendingMessages pendente = stream.pending(CHAVE_JOURNAL, GRUPO, Range.closed(id.getValue(), id.getValue()), 1L);
+        return pendente == null || pendente.isEmpty() ? 0 : pendente.get(0).getTotalDeliveryCount();
+    }
+
+    // Mongo fora do ar ou instável: nenhuma entrada é culpada, o lote inteiro espera a próxima volta
+    private static boolean transitoria(RuntimeException e) {
+        return e instanceof DataAccessResourceFailureException
+                || e instanceof TransientDataAccessException
+                || e instanceof RecoverableDataAccessException;
+    }
+
+    // Assume as entradas lidas por instâncias que pararam sem confirmar
+    private void reivindicarPendentesDeOutrasInstancias() {
+        StreamOperations<String, Object, Object> stream = redisTemplate.opsForStream();
+        PendingMessages pendentes = stream.pending(CHAVE_JOURNAL, GRUPO, Range.unbounded(), tamanhoLote);
+        List<RecordId> abandonados = new ArrayList<>();
+        for (PendingMessage pendente : pendentes) {
+            if (!pendente.getConsumerName().equals(consumidor)
+                    && pendente.getElapsedTimeSinceLastDelivery().toMillis() > tempoReivindicacaoMillis) {
+                abandonados.add(pendente.getId());
+            }
+        }
+        if (!abandonados.isEmpty()) {
+            stream.claim(CHAVE_JOURNAL, GRUPO, consumidor, Duration.ofMillis(tempoReivindicacaoMillis),
+                    abandonados.toArray(new RecordId[0]));
+            logger.info("Assumidas {} entrada(s) do journal de outras instâncias", abandonados.size());
+            recuperarPendentes(ReadOffset.from("0"));
+        }
+    }
+
+    // Cria o stream e o consumer group se ainda não existirem
+    private void criarGrupo() {
+        try {
+            redisTemplate.execute((RedisCallback<String>) connection -> connection.streamCommands().xGroupCreate(
+                    CHAVE_JOURNAL.getBytes(StandardCharsets.UTF_8), GRUPO, ReadOffset.from("0"), true));
+        } catch (RedisSystemException e) {
+            if (e.getMessage() == null || !e.getMessage().contains("BUSYGROUP")) {
+                throw e;
+            }
+        }
+    }
+
+    private void pausar() {
+        try {
+            Thread.sleep(1_000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            ativo = false;
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.example.order.service;
+
+import com.example.order.model.Pedido;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.GenericToStringSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lista de pedidos de cada usuário mantida no Redis de forma incremental: um sorted set
+ * {@code pedidos-usuario:<id>} com os ids pontuados pelo horário de criação e um hash
+ * {@code pedidos-usuario:<id>:dados} com os pedidos. Cada pedido salvo é acrescentado na hora,
+ * sem descartar a lista.
+ *
+ * <p>A lista só é servida depois de carregada por completo do Mongo (campo {@code _completo} no hash).
+ * Pedidos acrescentados antes disso ficam guardados e são mesclados na carga, então um pedido salvo
+ * durante a leitura do Mongo não se perde.</p>
+ */
+@Service
+public class PedidosUsuarioCacheService {
+
+    private static final String CAMPO_COMPLETO = "_completo";
+
+    // Devolve os pedidos do mais recente para o mais antigo, ou nil se a lista nunca foi carregada por completo
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> LISTAR = new DefaultRedisScript<>("""
+            if redis.call('HEXISTS', KEYS[2], '%s') == 0 then return false end
+            local ids = redis.call('ZREVRANGE', KEYS[1], 0, -1)
+            local pedidos = {}
+            for i = 1, #ids, 500 do
+                local lote = redis.call('HMGET', KEYS[2], unpack(ids, i, math.min(i + 499, #ids)))
+                for _, pedido in ipairs(lote) do
+                    table.insert(pedidos, pedido)
+                end
+            end
+            return pedidos
+            """.formatted(CAMPO_COMPLETO), List.class);
+
+    // ARGV: ttl em millis, marcar como completa (1/0) e triplas (id, pontuação, pedido serializado)
+    private static final RedisScript<Long> ACRESCENTAR = new DefaultRedisScript<>("""
+            for i = 3, #ARGV, 3 do
+                redis.call('ZADD', KEYS[1], ARGV[i + 1], ARGV[i])
+                redis.call('HSET', KEYS[2], ARGV[i], ARGV[i + 2])
+            end
+            if ARGV[2] == '1' then
+                redis.call('HSET', KEYS[2], '%s', '1')
+            end
+            redis.call('PEXPIRE', KEYS[1], ARGV[1])
+            redis.call('PEXPIRE', KEYS[2], ARGV[1])
+            return 1
+            """.formatted(CAMPO_COMPLETO), Long.class);
+
+    private final RedisTemplate<String, Object> redisTemplate;
+
+    // Como a lista é atualizada a cada pedido salvo, pode viver bem mais que o antigo cache de 1 minuto
+    @Value("${app.cache.pedidos-usuario.ttl-minutos:60}")
+    private long ttlMinutos = 60;
+
+    public PedidosUsuarioCacheService(RedisTemplate<String, Object> redisTemplate) {
+        this.redisTemplate = redisTemplate;
+    }
+
+    /**
+     * Pedidos do usuário do mais recente para o mais antigo, ou {@code null} se a lista não estiver
+     * em cache (ou estiver incompleta) e precisar ser carregada do Mongo.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public List<Pedido> listar(String idUsuario) {
+        List<Object> pedidos = redisTemplate.execute(LISTAR, RedisSerializer.byteArray(),
+                (RedisSerializer<List>) (RedisSerializer) redisTemplate.getValueSerializer(), chaves(idUsuario));
+        if (pedidos == null) {
+            return null;
+        }
+
+        List<Pedido> resultado = new ArrayList<>(pedidos.size());
+        for (Object pedido : pedidos) {
+            if (!(pedido instanceof Pedido)) {
+                // Sorted set e hash fora de sincronia: melhor recarregar do que devolver a lista furada
+                return null;
+            }
+            resultado.add((Pedido) pedido);
+        }
+        return resultado;
+    }
+
+    // Acrescenta um pedido recém-salvo à lista do usuário
+    public void acrescentar(Pedido pedido) {
+        executar(pedido.getIdUsuario(), List.of(pedido), false);
+    }
+
+    // Grava a lista completa carregada do Mongo, mesclando com o que já foi acrescentado
+    public void popular(String idUsuario, Collection<Pedido> pedidos) {
+        executar(idUsuario, pedidos, true);
+    }
+
+    public void evict(String idUsuario) {
+        redisTemplate.delete(chaves(idUsuario));
+    }
+
+    @SuppressWarnings("unchecked")
+    private void executar(String idUsuario, Collection<Pedido> pedidos, boolean completa) {
+        RedisSerializer<Object> serializador = (RedisSerializer<Object>) redisTemplate.getValueSerializer();
+        List<byte[]> argumentos = new ArrayList<>(2 + pedidos.size() * 3);
+        argumentos.add(texto(String.valueOf(TimeUnit.MINUTES.toMillis(ttlMinutos))));
+        argumentos.add(texto(completa ? "1" : "0"));
+        for (Pedido pedido : pedidos) {
+            argumentos.add(texto(pedido.getId()));
+            argumentos.add(texto(String.valueOf(pedido.getHorarioCriacao().toInstant(ZoneOffset.UTC).toEpochMilli())));
+            argumentos.add(serializador.serialize(pedido));
+        }
+        redisTemplate.execute(ACRESCENTAR, RedisSerializer.byteArray(), new GenericToStringSerializer<>(Long.class),
+                chaves(idUsuario), argumentos.toArray());
+    }
+
+    // Visível no pacote: a pilha reativa descarta a lista quando cria um pedido
+    static List<String> chaves(String idUsuario) {
+        String chave = "pedidos-usuario:" + idUsuario;
+        return List.of(chave, chave + ":dados");
+    }
+
+    private static byte[] texto(String valor) {
+        return valor.getBytes(StandardCharsets.UTF_8);
+    }
+}
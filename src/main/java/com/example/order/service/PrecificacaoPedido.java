@@ -0,0 +1,129 @@
+package com.example.order.service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Precificação de um pedido em centavos ({@code long}), sem criar um {@link BigDecimal} por linha. Regras:
+ * <ol>
+ *     <li>preços exatos em centavos (até duas casas, como os do External A; zeros além da segunda casa são
+ *     aceitos) são somados em centavos;</li>
+ *     <li>uma linha com preço em fração de centavo (ex.: 0.333) não é arredondada por unidade nem recusada: o
+ *     bruto dela é somado exato em {@link BigDecimal} à parte, e essa parte é arredondada para o centavo com
+ *     HALF_EVEN uma única vez, no subtotal do pedido. Assim 3 × 0.333 dá 1.00, e não 0.99;</li>
+ *     <li>o bruto da linha é preço × quantidade, exato;</li>
+ *     <li>o desconto da linha, em pontos-base (1/100 de ponto percentual, 10000 = 100%), incide sobre o bruto
+ *     e é arredondado para o centavo com HALF_EVEN, linha a linha. Só existe para preços em centavos;</li>
+ *     <li>subtotal, desconto e total do pedido são somas exatas das linhas, fora o arredondamento único da
+ *     regra 2.</li>
+ * </ol>
+ * Um valor que não cabe em {@code long} lança {@link ArithmeticException} em vez de dar a volta. A conversão
+ * para {@link BigDecimal} (escala 2) acontece só na borda, em {@link #total()}. Não é thread-safe: uma instância
+ * por pedido.
+ */
+public final class PrecificacaoPedido {
+
+    public static final int ESCALA = 2;
+    public static final int DESCONTO_INTEGRAL = 10_000;
+
+    private long subtotalCentavos;
+    private long descontoCentavos;
+    // Soma exata das linhas com preço em fração de centavo; nulo enquanto não houver nenhuma
+    private BigDecimal subtotalFracionado;
+
+    public PrecificacaoPedido adicionarLinha(BigDecimal precoUnitario, int quantidade) {
+        if (!fracaoDeCentavo(precoUnitario)) {
+            return adicionarLinha(centavos(precoUnitario), quantidade, 0);
+        }
+        if (quantidade < 0) {
+            throw new IllegalArgumentException("Quantidade negativa: " + quantidade);
+        }
+        BigDecimal bruto = precoUnitario.multiply(BigDecimal.valueOf(quantidade));
+        subtotalFracionado = subtotalFracionado == null ? bruto : subtotalFracionado.add(bruto);
+        return this;
+    }
+
+    public PrecificacaoPedido adicionarLinha(long precoUnitarioCentavos, int quantidade, int descontoPontosBase) {
+        long bruto = brutoLinha(precoUnitarioCentavos, quantidade);
+        long desconto = descontoLinha(bruto, descontoPontosBase);
+        subtotalCentavos = Math.addExact(subtotalCentavos, bruto);
+        descontoCentavos = Math.addExact(descontoCentavos, desconto);
+        return this;
+    }
+
+    public long subtotalCentavos() {
+        if (subtotalFracionado == null) {
+            return subtotalCentavos;
+        }
+        return Math.addExact(subtotalCentavos,
+                subtotalFracionado.setScale(ESCALA, RoundingMode.HALF_EVEN).unscaledValue().longValueExact());
+    }
+
+    public long descontoCentavos() {
+        return descontoCentavos;
+    }
+
+    public long totalCentavos() {
+        return subtotalCentavos() - descontoCentavos;
+    }
+
+    public BigDecimal total() {
+        return valor(totalCentavos());
+    }
+
+    public static long centavos(BigDecimal valor) {
+        if (valor.signum() < 0) {
+            throw new IllegalArgumentException("Preço negativo: " + valor);
+        }
+        BigDecimal emCentavos;
+        try {
+            emCentavos = valor.setScale(ESCALA, RoundingMode.UNNECESSARY);
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Preço com fração de centavo: " + valor.toPlainString());
+        }
+        return emCentavos.unscaledValue().longValueExact();
+    }
+
+    // Negativos seguem para centavos(), que os recusa
+    private static boolean fracaoDeCentavo(BigDecimal valor) {
+        return valor.signum() > 0 && valor.scale() > ESCALA && valor.stripTrailingZeros().scale() > ESCALA;
+    }
+
+    public static BigDecimal valor(long centavos) {
+        return BigDecimal.valueOf(centavos, ESCALA);
+    }
+
+    public static long totalLinha(long precoUnitarioCentavos, int quantidade, int descontoPontosBase) {
+        long bruto = brutoLinha(precoUnitarioCentavos, quantidade);
+        return bruto - descontoLinha(bruto, descontoPontosBase);
+    }
+
+    private static long brutoLinha(long precoUnitarioCentavos, int quantidade) {
+        if (precoUnitarioCentavos < 0) {
+            throw new IllegalArgumentException("Preço negativo: " + precoUnitarioCentavos + " centavos");
+        }
+        if (quantidade < 0) {
+            throw new IllegalArgumentException("Quantidade negativa: " + quantidade);
+        }
+        return Math.multiplyExact(precoUnitarioCentavos, quantidade);
+    }
+
+    static long descontoLinha(long brutoCentavos, int descontoPontosBase) {
+        if (descontoPontosBase < 0 || descontoPontosBase > DESCONTO_INTEGRAL) {
+            throw new IllegalArgumentException("Desconto fora de 0 a " + DESCONTO_INTEGRAL + " pontos-base: "
+                    + descontoPontosBase);
+        }
+        if (descontoPontosBase == 0) {
+            return 0;
+        }
+        // bruto × pontos-base / 10000 sem estourar: a parte do bruto múltipla de 10000 é dividida antes de
+        // multiplicar (o resultado não passa do bruto) e só o resto da divisão é arredondado
+        long parcial = brutoCentavos % DESCONTO_INTEGRAL * descontoPontosBase;
+        long quociente = brutoCentavos / DESCONTO_INTEGRAL * descontoPontosBase + parcial / DESCONTO_INTEGRAL;
+        long dobroResto = parcial % DESCONTO_INTEGRAL * 2;
+        if (dobroResto > DESCONTO_INTEGRAL || (dobroResto == DESCONTO_INTEGRAL && (quociente & 1) == 1)) {
+            quociente++;
+        }
+        return quociente;
+    }
+}
@@ -0,0 +1,475 @@
+package com.example.order.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Cache de produtos em duas camadas: um L1 em memória (limitado por tamanho e TTL) na frente do
+ * {@link RedisCacheService}, que continua sendo o L2 compartilhado entre as instâncias.
+ * Toda escrita publica a chave no canal {@link #CANAL_INVALIDACAO} para que as outras instâncias
+ * descartem sua cópia local e voltem a ler do Redis.
+ *
+ * <p>{@link #obterOuCarregar} protege as chaves quentes contra avalanches de recarga: apenas um chamador por
+ * chave e JVM executa o carregador, um bloqueio no Redis estende isso às outras instâncias, e valores
+ * vencidos continuam sendo servidos (stale-while-revalidate) enquanto a recarga acontece em segundo plano.</p>
+ *
+ * <p>Os objetos do L1 são compartilhados entre threads e não devem ser alterados por quem os lê.</p>
+ */
+@Service
+public class ProdutoCacheService implements MessageListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProdutoCacheService.class);
+
+    public static final String CANAL_INVALIDACAO = "cache:invalidacao";
+    private static final String SEPARADOR = "|";
+    private static final String PREFIXO_BLOQUEIO = "lock:";
+    private static final long INTERVALO_ESPERA_BLOQUEIO_MILLIS = 50;
+    // Resultado da recarga em segundo plano que desistiu porque outra instância segurava o bloqueio
+    private static final Object SEM_RESULTADO = new Object();
+
+    private final RedisCacheService redisCacheService;
+    private final Cache<String, EntradaLocal> cacheLocal;
+    // Último valor visto de cada chave, mantido além do TTL para quando o External A estiver indisponível
+    private final Cache<String, UltimoConhecido> ultimosConhecidos;
+    private final String idInstancia = UUID.randomUUID().toString();
+    private final Executor cacheRecargaExecutor;
+    private final ConcurrentHashMap<String, CompletableFuture<Object>> carregamentosEmAndamento =
+            new ConcurrentHashMap<>();
+
+    // Por quanto tempo, além do TTL, o valor vencido ainda pode ser servido enquanto é recarregado
+    @Value("${app.cache.stale-segundos:300}")
+    private long staleSegundos = 300;
+
+    // Peso da atualização antecipada probabilística (XFetch); 0 desliga
+    @Value("${app.cache.beta-atualizacao-antecipada:1.0}")
+    private double betaAtualizacaoAntecipada = 1.0;
+
+    // Idade máxima de um último valor conhecido para ainda ser servido com o External A indisponível
+    @Value("${app.cache.ultimo-conhecido-horas:24}")
+    private long ultimoConhecidoHoras = 24;
+
+    @Value("${app.cache.bloqueio.duracao-millis:10000}")
+    private long duracaoBloqueioMillis = 10_000;
+
+    // Quanto um chamador espera outra instância terminar a carga antes de carregar por conta própria
+    @Value("${app.cache.bloqueio.espera-millis:2000}")
+    private long esperaBloqueioMillis = 2_000;
+
+    private final Counter acertosL2;
+    private final Counter falhasL2;
+    private final Counter invalidacoesRecebidas;
+    private final Counter carregamentosSincronos;
+    private final Counter recargasEmSegundoPlano;
+    private final Counter ultimosConhecidosServidos;
+    private final MeterRegistry meterRegistry;
+    // Prefixo da chave -> {acertos, falhas}, somando L1 e L2
+    private final ConcurrentHashMap<String, Counter[]> acessosPorPrefixo = new ConcurrentHashMap<>();
+
+    public ProdutoCacheService(RedisCacheService redisCacheService,
+                               MeterRegistry meterRegistry,
+                               @Qualifier("cacheRecargaExecutor") Executor cacheRecargaExecutor,
+                               @Value("${app.cache.local.tamanho-maximo:10000}") long tamanhoMaximo,
+                               @Value("${app.cache.local.ttl-segundos:30}") long ttlSegundos) {
+        this.redisCacheService = redisCacheService;
+        this.cacheRecargaExecutor = cacheRecargaExecutor;
+        long ttlMaximoNanos = TimeUnit.SECONDS.toNanos(ttlSegundos);
+        this.cacheLocal = Caffeine.newBuilder()
+                .maximumSize(tamanhoMaximo)
+                .expireAfter(new Expiry<String, EntradaLocal>() {
+                    // O L1 nunca guarda uma entrada por mais tempo do que o TTL dela no Redis
+                    @Override
+                    public long expireAfterCreate(String key, EntradaLocal entrada, long currentTime) {
+                        return Math.min(ttlMaximoNanos, entrada.ttlNanos());
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, EntradaLocal entrada, long currentTime, long currentDuration) {
+                        return Math.min(ttlMaximoNanos, entrada.ttlNanos());
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, EntradaLocal entrada, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+        this.ultimosConhecidos = Caffeine.newBuilder().maximumSize(tamanhoMaximo).build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, cacheLocal, "produtos-l1");
+        this.acertosL2 = Counter.builder("cache.gets").tag("cache", "produtos-l2").tag("result", "hit")
+                .register(meterRegistry);
+        this.falhasL2 = Counter.builder("cache.gets").tag("cache", "produtos-l2").tag("result", "miss")
+                .register(meterRegistry);
+        this.invalidacoesRecebidas = Counter.builder("cache.invalidacoes").tag("cache", "produtos-l1")
+                .register(meterRegistry);
+        this.carregamentosSincronos = Counter.builder("cache.carregamentos").tag("tipo", "sincrono")
+                .register(meterRegistry);
+        this.recargasEmSegundoPlano = Counter.builder("cache.carregamentos").tag("tipo", "segundo-plano")
+                .register(meterRegistry);
+        this.ultimosConhecidosServidos = Counter.builder("cache.ultimo-conhecido")
+                .description("Valores vencidos servidos porque o External A estava indisponível")
+                .register(meterRegistry);
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Acessos ao cache por prefixo de chave ({@code produto:}, {@code todosProdutos}, ...), para a taxa de acerto
+     * de cada tipo de dado: {@code cache.acessos{resultado="acerto"} / cache.acessos}.
+     */
+    static Counter contadorAcessos(MeterRegistry meterRegistry, String prefixo, boolean acerto) {
+        return Counter.builder("cache.acessos")
+                .tag("prefixo", prefixo)
+                .tag("resultado", acerto ? "acerto" : "falha")
+                .register(meterRegistry);
+    }
+
+    // "produto:123" -> "produto:"; chaves sem ":" são o próprio prefixo
+    static String prefixo(String key) {
+        int separador = key.indexOf(':');
+        return separador < 0 ? key : key.substring(0, separador + 1);
+    }
+
+    private void registrarAcesso(String key, boolean acerto) {
+        Counter[] contadores = acessosPorPrefixo.computeIfAbsent(prefixo(key), prefixo -> new Counter[]{
+                contadorAcessos(meterRegistry, prefixo, true), contadorAcessos(meterRegistry, prefixo, false)});
+        contadores[acerto ? 0 : 1].increment();
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> T getCached(String key, Class<T> type) {
+        EntradaLocal local = cacheLocal.getIfPresent(key);
+        if (local != null) {
+            registrarAcesso(key, true);
+            return (T) local.valor();
+        }
+
+        T cached = redisCacheService.getCachedOrder(key, type);
+        registrarAcesso(key, cached != null);
+        if (cached == null) {
+            falhasL2.increment();
+            return null;
+        }
+        acertosL2.increment();
+        // Sem o TTL restante do Redis em mãos, a cópia local vive no máximo o TTL configurado do L1
+        guardarLocal(key, cached, Long.MAX_VALUE);
+        return cached;
+    }
+
+    /**
+     * Versão em lote de {@link #getCached}: o que não estiver no L1 é lido do Redis em um único MGET.
+     * Devolve só as chaves encontradas.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> Map<String, T> getCachedEmLote(Collection<String> keys, Class<T> type) {
+        Map<String, T> encontrados = new LinkedHashMap<>();
+        Set<String> ausentes = new LinkedHashSet<>();
+        for (String key : keys) {
+            EntradaLocal local = cacheLocal.getIfPresent(key);
+            if (local != null) {
+                registrarAcesso(key, true);
+                encontrados.put(key, (T) local.valor());
+            } else {
+                ausentes.add(key);
+            }
+        }
+        List<String> ausentesNoL1 = new ArrayList<>(ausentes);
+        if (ausentesNoL1.isEmpty()) {
+            return encontrados;
+        }
+
+        List<Object> valores = redisCacheService.buscarEmLote(ausentesNoL1);
+        for (int i = 0; i < ausentesNoL1.size(); i++) {
+            String key = ausentesNoL1.get(i);
+            Object cached = i < valores.size() ? valores.get(i) : null;
+            registrarAcesso(key, cached != null);
+            if (cached == null) {
+                falhasL2.increment();
+                continue;
+            }
+            acertosL2.increment();
+            guardarLocal(key, cached, Long.MAX_VALUE);
+            encontrados.put(key, (T) cached);
+        }
+        return encontrados;
+    }
+
+    // Versão em lote de cache(): gravação e invalidações saem no mesmo pipeline
+    public void cacheEmLote(Map<String, ?> valores, long timeout, TimeUnit unit) {
+        if (valores.isEmpty()) {
+            return;
+        }
+        List<String> invalidacoes = new ArrayList<>(valores.size());
+        valores.forEach((key, valor) -> invalidacoes.add(idInstancia + SEPARADOR + key));
+        redisCacheService.gravarEmLote(valores, timeout, unit, CANAL_INVALIDACAO, invalidacoes);
+        valores.forEach((key, valor) -> guardarLocal(key, valor, unit.toNanos(timeout)));
+    }
+
+    /**
+     * Último valor visto para a chave, mesmo já vencido no L1 e no Redis, ou {@code null} se não houver um visto
+     * nas últimas {@code ultimo-conhecido-horas}. Só deve ser usado quando o External A estiver indisponível, e o
+     * valor deve chegar ao cliente sinalizado como desatualizado.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T ultimoConhecido(String key) {
+        UltimoConhecido ultimo = ultimosConhecidos.getIfPresent(key);
+        if (ultimo == null || System.currentTimeMillis() - ultimo.vistoEm() > TimeUnit.HOURS.toMillis(ultimoConhecidoHoras)) {
+            return null;
+        }
+        ultimosConhecidosServidos.increment();
+        return (T) ultimo.valor();
+    }
+
+    public void cache(String key, Object value, long timeout, TimeUnit unit) {
+        redisCacheService.cacheOrder(key, value, timeout, unit);
+        guardarLocal(key, value, unit.toNanos(timeout));
+        publicarInvalidacao(key);
+    }
+
+    public void invalidar(String key) {
+        redisCacheService.evict(key);
+        cacheLocal.invalidate(key);
+        ultimosConhecidos.invalidate(key);
+        publicarInvalidacao(key);
+    }
+
+    /**
+     * Retorna o valor da chave carregando-o com {@code carregador} apenas se não houver nada utilizável em cache.
+     * Um valor vencido (ou sorteado para atualização antecipada) é devolvido imediatamente e recarregado em
+     * segundo plano. Se o carregador retornar {@code null}, nada é gravado e {@code null} é devolvido.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T obterOuCarregar(String key, Supplier<T> carregador, long timeout, TimeUnit unit) {
+        EntradaCache entrada = lerEntrada(key);
+        registrarAcesso(key, entrada != null);
+        if (entrada != null) {
+            long agora = System.currentTimeMillis();
+            if (entrada.expiradaEm(agora) || deveAtualizarAntecipadamente(entrada, agora)) {
+                recarregarEmSegundoPlano(key, carregador, timeout, unit);
+            }
+            return (T) entrada.getValor();
+        }
+
+        CompletableFuture<Object> carregamento = new CompletableFuture<>();
+        CompletableFuture<Object> existente = carregamentosEmAndamento.putIfAbsent(key, carregamento);
+        if (existente != null) {
+            Object valor = aguardar(existente);
+            // Uma recarga em segundo plano que encontrou outra instância carregando não traz valor; já um
+            // null da carga em andamento é a resposta da chave e vale para todos que esperavam por ela
+            if (valor == SEM_RESULTADO) {
+                return (T) carregarComBloqueio(key, carregador, timeout, unit, true);
+            }
+            return (T) valor;
+        }
+        carregamentosSincronos.increment();
+        try {
+            // Outra thread pode ter terminado a carga entre a leitura acima e o registro deste carregamento
+            EntradaLocal recemCarregada = cacheLocal.getIfPresent(key);
+            carregamento.complete(recemCarregada != null && recemCarregada.valor() instanceof EntradaCache atual
+                    ? atual.getValor()
+                    : carregarComBloqueio(key, carregador, timeout, unit, true));
+        } catch (RuntimeException e) {
+            carregamento.completeExceptionally(e);
+        } finally {
+            carregamentosEmAndamento.remove(key, carregamento);
+        }
+        return (T) aguardar(carregamento);
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String conteudo = new String(message.getBody(), StandardCharsets.UTF_8);
+        int separador = conteudo.indexOf(SEPARADOR);
+        if (separador < 0) {
+            logger.warn("Mensagem de invalidação inválida: {}", conteudo);
+            return;
+        }
+        // Ignora as mensagens publicadas por esta própria instância
+        if (conteudo.substring(0, separador).equals(idInstancia)) {
+            return;
+        }
+        String key = conteudo.substring(separador + 1);
+        cacheLocal.invalidate(key);
+        invalidacoesRecebidas.increment();
+        logger.debug("Entrada local invalidada por outra instância: {}", key);
+    }
+
+    private EntradaCache lerEntrada(String key) {
+        EntradaLocal local = cacheLocal.getIfPresent(key);
+        if (local != null && local.valor() instanceof EntradaCache entrada) {
+            return entrada;
+        }
+        // Valores gravados fora do envelope (ex.: por uma versão anterior) são tratados como ausentes
+        Object cached = redisCacheService.getCachedOrder(key, Object.class);
+        if (cached instanceof EntradaCache entrada) {
+            acertosL2.increment();
+            guardarLocal(key, entrada, Long.MAX_VALUE);
+            return entrada;
+        }
+        falhasL2.increment();
+        return null;
+    }
+
+    // XFetch: quanto mais cara a carga e mais perto do vencimento, maior a chance de recarregar antes da hora
+    private boolean deveAtualizarAntecipadamente(EntradaCache entrada, long agora) {
+        if (betaAtualizacaoAntecipada <= 0) {
+            return false;
+        }
+        double sorteio = -Math.log(ThreadLocalRandom.current().nextDouble());
+        return agora + entrada.getCustoCarregamentoMillis() * betaAtualizacaoAntecipada * sorteio >= entrada.getExpiraEm();
+    }
+
+    private void recarregarEmSegundoPlano(String key, Supplier<?> carregador, long timeout, TimeUnit unit) {
+        CompletableFuture<Object> recarga = new CompletableFuture<>();
+        if (carregamentosEmAndamento.putIfAbsent(key, recarga) != null) {
+            return;
+        }
+        try {
+            cacheRecargaExecutor.execute(() -> {
+                recargasEmSegundoPlano.increment();
+                try {
+                    recarga.complete(carregarComBloqueio(key, carregador, timeout, unit, false));
+                } catch (RuntimeException e) {
+                    logger.warn("Falha ao recarregar a chave {} em segundo plano: {}", key, e.getMessage());
+                    recarga.completeExceptionally(e);
+                } finally {
+                    carregamentosEmAndamento.remove(key, recarga);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            carregamentosEmAndamento.remove(key, recarga);
+            recarga.complete(SEM_RESULTADO);
+            logger.debug("Recarga da chave {} descartada: executor sem capacidade", key);
+        }
+    }
+
+    /**
+     * Carrega o valor segurando o bloqueio distribuído da chave. Se outra instância já estiver carregando,
+     * a recarga em segundo plano desiste, e a carga síncrona espera o valor aparecer no Redis por até
+     * {@code esperaBloqueioMillis} antes de carregar por conta própria.
+     */
+    private Object carregarComBloqueio(String key, Supplier<?> carregador, long timeout, TimeUnit unit,
+                                       boolean aguardarOutraInstancia) {
+        String chaveBloqueio = PREFIXO_BLOQUEIO + key;
+        String token = idInstancia + SEPARADOR + UUID.randomUUID();
+        boolean bloqueado;
+        try {
+            bloqueado = redisCacheService.tentarBloquear(chaveBloqueio, token, Duration.ofMillis(duracaoBloqueioMillis));
+        } catch (RuntimeException e) {
+            logger.warn("Falha ao adquirir bloqueio da chave {}, carregando sem bloqueio: {}", key, e.getMessage());
+            return carregarEGravar(key, carregador, timeout, unit);
+        }
+
+        if (bloqueado) {
+            try {
+                return carregarEGravar(key, carregador, timeout, unit);
+            } finally {
+                try {
+                    redisCacheService.liberarBloqueio(chaveBloqueio, token);
+                } catch (RuntimeException e) {
+                    logger.warn("Falha ao liberar bloqueio da chave {}: {}", key, e.getMessage());
+                }
+            }
+        }
+
+        if (!aguardarOutraInstancia) {
+            return SEM_RESULTADO;
+        }
+        long limite = System.currentTimeMillis() + esperaBloqueioMillis;
+        while (System.currentTimeMillis() < limite) {
+            try {
+                Thread.sleep(INTERVALO_ESPERA_BLOQUEIO_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            Object cached = redisCacheService.getCachedOrder(key, Object.class);
+            if (cached instanceof EntradaCache entrada) {
+                guardarLocal(key, entrada, Long.MAX_VALUE);
+                return entrada.getValor();
+            }
+        }
+        logger.debug("Tempo de espera pelo bloqueio da chave {} esgotado, carregando localmente", key);
+        return carregarEGravar(key, carregador, timeout, unit);
+    }
+
+    private Object carregarEGravar(String key, Supplier<?> carregador, long timeout, TimeUnit unit) {
+        long inicio = System.nanoTime();
+        Object valor = carregador.get();
+        long custoMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio);
+        if (valor == null) {
+            return null;
+        }
+
+        long ttlMillis = unit.toMillis(timeout);
+        EntradaCache entrada = new EntradaCache(valor, System.currentTimeMillis() + ttlMillis, custoMillis);
+        long ttlFisicoMillis = ttlMillis + TimeUnit.SECONDS.toMillis(staleSegundos);
+        redisCacheService.cacheOrder(key, entrada, ttlFisicoMillis, TimeUnit.MILLISECONDS);
+        guardarLocal(key, entrada, TimeUnit.MILLISECONDS.toNanos(ttlFisicoMillis));
+        publicarInvalidacao(key);
+        return valor;
+    }
+
+    private static Object aguardar(CompletableFuture<Object> carregamento) {
+        try {
+            return carregamento.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw e;
+        }
+    }
+
+    private void publicarInvalidacao(String key) {
+        try {
+            redisCacheService.publicar(CANAL_INVALIDACAO, idInstancia + SEPARADOR + key);
+        } catch (RuntimeException e) {
+            // As outras instâncias ficam, no máximo, com a cópia local até o TTL do L1 expirar
+            logger.warn("Falha ao publicar invalidação da chave {}: {}", key, e.getMessage());
+        }
+    }
+
+    // Toda entrada que passa pelo L1 também vira o último valor conhecido da chave
+    private void guardarLocal(String key, Object valor, long ttlNanos) {
+        cacheLocal.put(key, new EntradaLocal(valor, ttlNanos));
+        Object atual = valor instanceof EntradaCache entrada ? entrada.getValor() : valor;
+        ultimosConhecidos.put(key, new UltimoConhecido(atual, System.currentTimeMillis()));
+    }
+
+    private record EntradaLocal(Object valor, long ttlNanos) {
+    }
+
+    private record UltimoConhecido(Object valor, long vistoEm) {
+    }
+}
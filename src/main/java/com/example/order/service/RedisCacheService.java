@@ -1,12 +1,36 @@
 package com.example.order.service;
 
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.data.redis.serializer.GenericToStringSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
 @Service
 public class RedisCacheService {
+    // Só remove o bloqueio se ele ainda pertencer a quem o adquiriu
+    private static final RedisScript<Long> LIBERAR_BLOQUEIO = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) end return 0",
+            Long.class);
+
+    // Troca o bloqueio pelo valor final só se ele ainda pertencer a quem o adquiriu. ARGV: token, valor, ttl em millis
+    private static final RedisScript<Long> CONCLUIR_BLOQUEIO = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then redis.call('set', KEYS[1], ARGV[2], 'PX', ARGV[3]) return 1 end return 0",
+            Long.class);
+
     private final RedisTemplate<String, Object> redisTemplate;
 
     public RedisCacheService(RedisTemplate<String, Object> redisTemplate) {
@@ -27,6 +51,48 @@ public class RedisCacheService {
         return cached != null ? (T) cached : null;
     }
 
+    /**
+     * Lê várias chaves em um único MGET. A lista devolvida segue a ordem de {@code keys}, com {@code null}
+     * nas chaves ausentes.
+     */
+    public List<Object> buscarEmLote(List<String> keys) {
+        if (keys.isEmpty()) {
+            return List.of();
+        }
+        List<Object> valores = redisTemplate.opsForValue().multiGet(keys);
+        if (valores == null) {
+            valores = new ArrayList<>(keys.size());
+            for (int i = 0; i < keys.size(); i++) {
+                valores.add(null);
+            }
+        }
+        return valores;
+    }
+
+    /**
+     * Grava várias chaves, cada uma com o próprio TTL (SET com expiração; MSET não aceita TTL), e publica as
+     * mensagens no canal, tudo em um único pipeline: uma ida ao Redis em vez de uma por chave.
+     */
+    @SuppressWarnings("unchecked")
+    public void gravarEmLote(Map<String, ?> valores, long timeout, TimeUnit unit,
+                             String canal, Collection<String> mensagens) {
+        if (valores.isEmpty() && mensagens.isEmpty()) {
+            return;
+        }
+        RedisSerializer<String> serializadorChaves = (RedisSerializer<String>) redisTemplate.getKeySerializer();
+        RedisSerializer<Object> serializadorValores = (RedisSerializer<Object>) redisTemplate.getValueSerializer();
+        Expiration expiracao = Expiration.from(timeout, unit);
+        byte[] canalSerializado = canal != null ? canal.getBytes(StandardCharsets.UTF_8) : null;
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            valores.forEach((key, valor) -> connection.stringCommands().set(serializadorChaves.serialize(key),
+                    serializadorValores.serialize(valor), expiracao, RedisStringCommands.SetOption.upsert()));
+            for (String mensagem : mensagens) {
+                connection.publish(canalSerializado, mensagem.getBytes(StandardCharsets.UTF_8));
+            }
+            return null;
+        });
+    }
+
     public void cacheProductInfo(String key, Object productInfo) {
         redisTemplate.opsForValue().set(key, productInfo, 5, TimeUnit.MINUTES); // TTL de 5 minutos
     }
@@ -36,4 +102,37 @@ public class RedisCacheService {
         Object cached = redisTemplate.opsForValue().get(key);
         return cached != null ? (T) cached : null;
     }
-}
\ No newline at end of file
+
+    public void evict(String key) {
+        redisTemplate.delete(key);
+    }
+
+    // Publica a mensagem como texto puro, sem passar pelo serializador de valores do template
+    public void publicar(String canal, String mensagem) {
+        redisTemplate.execute((RedisCallback<Long>) (RedisConnection connection) -> connection.publish(
+                canal.getBytes(StandardCharsets.UTF_8), mensagem.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    public boolean tentarBloquear(String key, String token, Duration duracao) {
+        return Boolean.TRUE.equals(redisTemplate.opsForValue().setIfAbsent(key, token, duracao));
+    }
+
+    public void liberarBloqueio(String key, String token) {
+        redisTemplate.execute(LIBERAR_BLOQUEIO, List.of(key), token);
+    }
+
+    /**
+     * Substitui o bloqueio da chave por {@code valor}, com o TTL informado, se ele ainda for de {@code token}.
+     * Retorna {@code false} se o bloqueio expirou ou passou para outro dono; nesse caso nada é gravado.
+     */
+    @SuppressWarnings("unchecked")
+    public boolean concluirBloqueio(String key, String token, Object valor, long timeout, TimeUnit unit) {
+        RedisSerializer<Object> serializadorValores = (RedisSerializer<Object>) redisTemplate.getValueSerializer();
+        // O TTL vai como texto para o Lua; token e valor no mesmo formato em que o SET NX gravou o bloqueio
+        Long concluido = redisTemplate.execute(CONCLUIR_BLOQUEIO, RedisSerializer.byteArray(),
+                new GenericToStringSerializer<>(Long.class), List.of(key),
+                serializadorValores.serialize(token), serializadorValores.serialize(valor),
+                String.valueOf(unit.toMillis(timeout)).getBytes(StandardCharsets.UTF_8));
+        return Long.valueOf(1).equals(concluido);
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.order.service;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.GenericToStringSerializer;
+import org.springframework.data.redis.serializer.RedisElementReader;
+import org.springframework.data.redis.serializer.RedisElementWriter;
+import org.springframework.data.redis.serializer.RedisSerializationContext;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Operações do Redis usadas pela pilha reativa, sobre o {@link ReactiveRedisTemplate} com o mesmo codec
+ * de valores do {@link RedisCacheService}.
+ */
+@Service
+@Profile("reativo")
+public class RedisCacheServiceReativo {
+
+    // Só remove a reserva se ela ainda pertencer a quem a fez
+    private static final RedisScript<Long> LIBERAR_RESERVA = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) end return 0",
+            Long.class);
+
+    // Troca a reserva pelo valor final só se ela ainda pertencer a quem a fez. ARGV: token, valor, ttl em millis
+    private static final RedisScript<Long> CONCLUIR_RESERVA = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then redis.call('set', KEYS[1], ARGV[2], 'PX', ARGV[3]) return 1 end return 0",
+            Long.class);
+
+    private final ReactiveRedisTemplate<String, Object> redisTemplate;
+
+    public RedisCacheServiceReativo(ReactiveRedisTemplate<String, Object> redisTemplate) {
+        this.redisTemplate = redisTemplate;
+    }
+
+    public Mono<Object> buscar(String key) {
+        return redisTemplate.opsForValue().get(key);
+    }
+
+    /**
+     * Lê várias chaves em um único MGET, na ordem de {@code keys}. Chaves ausentes ficam fora do mapa.
+     */
+    public Mono<Map<String, Object>> buscarEmLote(List<String> keys) {
+        if (keys.isEmpty()) {
+            return Mono.just(Map.of());
+        }
+        return redisTemplate.opsForValue().multiGet(keys)
+                .flatMapMany(valores -> Flux.range(0, Math.min(keys.size(), valores.size()))
+                        .filter(i -> valores.get(i) != null)
+                        .map(i -> Map.entry(keys.get(i), valores.get(i))))
+                .collectMap(Map.Entry::getKey, Map.Entry::getValue);
+    }
+
+    public Mono<Boolean> gravar(String key, Object valor, Duration ttl) {
+        return redisTemplate.opsForValue().set(key, valor, ttl);
+    }
+
+    // As gravações saem juntas pela mesma conexão, sem esperar a resposta de uma para enviar a próxima
+    public Mono<Void> gravarEmLote(Map<String, ?> valores, Duration ttl) {
+        return Flux.fromIterable(valores.entrySet())
+                .flatMap(entrada -> redisTemplate.opsForValue().set(entrada.getKey(), entrada.getValue(), ttl))
+                .then();
+    }
+
+    public Mono<Long> remover(Collection<String> keys) {
+        return redisTemplate.delete(keys.toArray(String[]::new));
+    }
+
+    public Mono<Boolean> reservar(String key, String token, Duration duracao) {
+        return redisTemplate.opsForValue().setIfAbsent(key, token, duracao);
+    }
+
+    public Mono<Void> liberarReserva(String key, String token) {
+        return redisTemplate.execute(LIBERAR_RESERVA, List.of(key), List.of(token)).then();
+    }
+
+    /**
+     * Substitui a reserva da chave por {@code valor} se ela ainda for de {@code token}; {@code false} se a
+     * reserva expirou ou passou para outro dono.
+     */
+    public Mono<Boolean> concluirReserva(String key, String token, Object valor, Duration ttl) {
+        RedisSerializationContext.SerializationPair<Object> valores = redisTemplate.getSerializationContext()
+                .getValueSerializationPair();
+        // O TTL vai como texto para o Lua; token e valor no mesmo formato em que o SET NX gravou a reserva
+        List<ByteBuffer> argumentos = List.of(valores.write(token), valores.write(valor),
+                ByteBuffer.wrap(String.valueOf(ttl.toMillis()).getBytes(StandardCharsets.UTF_8)));
+        RedisElementWriter<ByteBuffer> semConversao = buffer -> buffer;
+        return redisTemplate.execute(CONCLUIR_RESERVA, List.of(key), argumentos, semConversao,
+                        RedisElementReader.from(new GenericToStringSerializer<>(Long.class)))
+                .next()
+                .map(resultado -> Long.valueOf(1).equals(resultado))
+                .defaultIfEmpty(false);
+    }
+}
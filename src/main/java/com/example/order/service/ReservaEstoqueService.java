@@ -0,0 +1,295 @@
+package com.example.order.service;
+
+import com.example.order.controller.ProdutoItem;
+import com.example.order.exception.MensagemErrorException;
+import com.example.order.feignclient.ExternalAClient;
+import com.example.order.model.Pedido;
+import com.example.order.model.Produto;
+import com.example.order.repository.PedidoRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.GenericToStringSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.example.order.model.Pedido;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Livro de reservas de estoque no Redis. O disponível de cada produto fica em {@code estoque:disponivel}
+ * (quantidade do External A menos o reservado) e o carrinho inteiro é reservado por um único script,
+ * tudo ou nada, no lugar de uma consulta de quantidade por item.
+ *
+ * <p>A reserva vive enquanto o pedido está PENDENTE PAGAMENTO, com o mesmo prazo da janela de pagamento. Quem
+ * passa o pedido a EXPIRADO e devolve o estoque é a {@link ExpiracaoPedidoService}; a varredura daqui só encerra
+ * reservas vencidas de pedidos que já não estão pendentes. As quantidades são ressincronizadas do External A em
+ * segundo plano.</p>
+ */
+@Service
+public class ReservaEstoqueService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReservaEstoqueService.class);
+
+    static final String CHAVE_DISPONIVEL = "estoque:disponivel";
+    static final String CHAVE_RESERVADO = "estoque:reservado";
+    static final String CHAVE_EXPIRACAO = "reservas:expiracao";
+    static final String STATUS_PENDENTE = "PENDENTE PAGAMENTO";
+    static final String STATUS_EXPIRADO = "EXPIRADO";
+
+    // Retorno {1} reservou; {0, id} sem estoque suficiente; {-1, id} produto ainda não sincronizado
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> RESERVAR = new DefaultRedisScript<>("""
+            for i = 4, #ARGV, 2 do
+                local disponivel = redis.call('HGET', KEYS[1], ARGV[i])
+                if not disponivel then
+                    return {-1, ARGV[i]}
+                end
+                if tonumber(disponivel) < tonumber(ARGV[i + 1]) then
+                    return {0, ARGV[i]}
+                end
+            end
+            for i = 4, #ARGV, 2 do
+                redis.call('HINCRBY', KEYS[1], ARGV[i], -ARGV[i + 1])
+                redis.call('HINCRBY', KEYS[2], ARGV[i], ARGV[i + 1])
+                redis.call('HSET', KEYS[3], ARGV[i], ARGV[i + 1])
+            end
+            redis.call('HSET', KEYS[3], '_usuario', ARGV[3])
+            redis.call('ZADD', KEYS[4], ARGV[2], ARGV[1])
+            return {1}
+            """, List.class);
+
+    // Encerra a reserva devolvendo (ARGV[2] = 1) ou não o estoque; devolve o usuário dono, ou nil se já encerrada
+    private static final RedisScript<String> ENCERRAR = new DefaultRedisScript<>("""
+            local itens = redis.call('HGETALL', KEYS[3])
+            redis.call('ZREM', KEYS[4], ARGV[1])
+            if #itens == 0 then
+                return false
+            end
+            local usuario = false
+            for i = 1, #itens, 2 do
+                if itens[i] == '_usuario' then
+                    usuario = itens[i + 1]
+                else
+                    if ARGV[2] == '1' then
+                        redis.call('HINCRBY', KEYS[1], itens[i], itens[i + 1])
+                    end
+                    redis.call('HINCRBY', KEYS[2], itens[i], -itens[i + 1])
+                end
+            end
+            redis.call('DEL', KEYS[3])
+            return usuario
+            """, String.class);
+
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> VENCIDAS = new DefaultRedisScript<>(
+            "return redis.call('ZRANGEBYSCORE', KEYS[1], 0, ARGV[1], 'LIMIT', 0, ARGV[2])", List.class);
+
+    // Empurra o vencimento das reservas ainda presentes (XX) para ARGV[1]
+    private static final RedisScript<Long> ADIAR = new DefaultRedisScript<>("""
+            for i = 2, #ARGV do
+                redis.call('ZADD', KEYS[1], 'XX', ARGV[1], ARGV[i])
+            end
+            return #ARGV - 1
+            """, Long.class);
+
+    // Disponível = quantidade no External A menos o que está reservado por pedidos pendentes
+    private static final RedisScript<Long> SINCRONIZAR = new DefaultRedisScript<>("""
+            for i = 1, #ARGV, 2 do
+                local reservado = tonumber(redis.call('HGET', KEYS[2], ARGV[i]) or '0')
+                redis.call('HSET', KEYS[1], ARGV[i], tonumber(ARGV[i + 1]) - reservado)
+            end
+            return #ARGV / 2
+            """, Long.class);
+
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final ExternalAClient externalAClient;
+    private final PedidoRepository pedidoRepository;
+
+    @Value("${app.estoque.reserva.habilitada:false}")
+    private boolean habilitada;
+
+    // A reserva vence junto com o prazo de pagamento do pedido
+    @Value("${app.pedido.expiracao.janela-pagamento-minutos:30}")
+    private long validadeMinutos = 30;
+
+    @Value("${app.estoque.reserva.varredura-millis:5000}")
+    private long varreduraMillis = 5000;
+
+    @Value("${app.estoque.reserva.tamanho-lote-expiracao:100}")
+    private int tamanhoLoteExpiracao = 100;
+
+    public ReservaEstoqueService(RedisTemplate<String, Object> redisTemplate,
+                                 @Qualifier("externalAClientProtegido") ExternalAClient externalAClient,
+                                 PedidoRepository pedidoRepository) {
+        this.redisTemplate = redisTemplate;
+        this.externalAClient = externalAClient;
+        this.pedidoRepository = pedidoRepository;
+    }
+
+    public boolean isHabilitada() {
+        return habilitada;
+    }
+
+    /**
+     * Reserva todos os itens do carrinho para o pedido, ou nenhum. Produtos que ainda não estão no
+     * livro são sincronizados do External A na hora e a reserva é refeita.
+     */
+    public void reservar(String idPedido, String idUsuario, List<ProdutoItem> itens) {
+        Map<String, Integer> quantidades = new LinkedHashMap<>();
+        for (ProdutoItem item : itens) {
+            quantidades.merge(item.getId(), item.getQuantidade(), Integer::sum);
+        }
+
+        List<String> argumentos = new ArrayList<>(3 + quantidades.size() * 2);
+        argumentos.add(idPedido);
+        argumentos.add(String.valueOf(System.currentTimeMillis() + TimeUnit.MINUTES.toMillis(validadeMinutos)));
+        argumentos.add(idUsuario);
+        quantidades.forEach((idProduto, quantidade) -> {
+            argumentos.add(idProduto);
+            argumentos.add(String.valueOf(quantidade));
+        });
+
+        // Cada nova tentativa só acontece depois de sincronizar um produto a mais
+        for (int tentativa = 0; tentativa <= quantidades.size(); tentativa++) {
+            List<Object> resultado = executar(RESERVAR, chaves(idPedido), argumentos);
+            long codigo = ((Number) resultado.get(0)).longValue();
+            if (codigo == 1) {
+                return;
+            }
+            String idProduto = (String) resultado.get(1);
+            if (codigo == 0) {
+                throw new MensagemErrorException(HttpStatus.BAD_REQUEST, "Produto " + idProduto + " não está disponível");
+            }
+            Integer quantidade = externalAClient.getQuantidadeProduto(idProduto);
+            if (quantidade == null) {
+                throw new MensagemErrorException(HttpStatus.BAD_REQUEST, "Produto " + idProduto + " não está disponível");
+            }
+            sincronizar(Map.of(idProduto, quantidade));
+        }
+        throw new MensagemErrorException(HttpStatus.SERVICE_UNAVAILABLE, "Não foi possível reservar o estoque do pedido");
+    }
+
+    // Pagamento confirmado: a reserva vira baixa definitiva e não volta ao disponível
+    public void confirmar(String idPedido) {
+        encerrar(idPedido, false);
+    }
+
+    // Devolve o estoque reservado; retorna o usuário dono da reserva ou null se ela já estava encerrada
+    public String liberar(String idPedido) {
+        return encerrar(idPedido, true);
+    }
+
+    /**
+     * Encerra as reservas vencidas cujo pedido já saiu de PENDENTE PAGAMENTO (ou nem chegou ao Mongo), devolvendo
+     * o estoque. Não altera o pedido: os ainda pendentes são da roda de expiração, e a verificação deles é adiada
+     * para a próxima varredura.
+     */
+    @Scheduled(fixedDelayString = "${app.estoque.reserva.varredura-millis:5000}")
+    public void liberarReservasVencidas() {
+        if (!habilitada) {
+            return;
+        }
+        List<Object> vencidas;
+        do {
+            long agora = System.currentTimeMillis();
+            vencidas = executar(VENCIDAS, List.of(CHAVE_EXPIRACAO),
+                    List.of(String.valueOf(agora), String.valueOf(tamanhoLoteExpiracao)));
+            if (vencidas == null || vencidas.isEmpty()) {
+                return;
+            }
+            List<String> ids = vencidas.stream().map(String.class::cast).toList();
+            Set<String> pendentes = new HashSet<>();
+            for (Pedido pedido : pedidoRepository.buscarPorIdsEStatus(ids, STATUS_PENDENTE)) {
+                pendentes.add(pedido.getId());
+            }
+            int liberadas = 0;
+            for (String idPedido : ids) {
+                if (!pendentes.contains(idPedido) && liberar(idPedido) != null) {
+                    liberadas++;
+                }
+            }
+            if (!pendentes.isEmpty()) {
+                adiar(pendentes, agora + varreduraMillis);
+            }
+            if (liberadas > 0) {
+                logger.info("Reservas vencidas de pedidos já encerrados liberadas: {}", liberadas);
+            }
+        } while (vencidas.size() == tamanhoLoteExpiracao);
+    }
+
+    // Atualiza o disponível de todos os produtos a partir do External A
+    @Scheduled(fixedDelayString = "${app.estoque.sincronizacao.intervalo-millis:30000}",
+            initialDelayString = "${app.estoque.sincronizacao.atraso-inicial-millis:0}")
+    public void sincronizarComExternalA() {
+        if (!habilitada) {
+            return;
+        }
+        try {
+            List<Produto> produtos = externalAClient.getTodosProdutos();
+            if (produtos == null || produtos.isEmpty()) {
+                return;
+            }
+            Map<String, Integer> quantidades = new LinkedHashMap<>();
+            for (Produto produto : produtos) {
+                if (produto.getQuantidadeDisponivel() != null) {
+                    quantidades.put(produto.getId(), produto.getQuantidadeDisponivel());
+                }
+            }
+            sincronizar(quantidades);
+            logger.debug("Estoque sincronizado com o External A: {} produto(s)", quantidades.size());
+        } catch (Exception e) {
+            logger.warn("Falha ao sincronizar estoque com o External A: {}", e.getMessage());
+        }
+    }
+
+    void sincronizar(Map<String, Integer> quantidades) {
+        if (quantidades.isEmpty()) {
+            return;
+        }
+        List<String> argumentos = new ArrayList<>(quantidades.size() * 2);
+        quantidades.forEach((idProduto, quantidade) -> {
+            argumentos.add(idProduto);
+            argumentos.add(String.valueOf(quantidade));
+        });
+        redisTemplate.execute(SINCRONIZAR, StringRedisSerializer.UTF_8, new GenericToStringSerializer<>(Long.class),
+                List.of(CHAVE_DISPONIVEL, CHAVE_RESERVADO), argumentos.toArray());
+    }
+
+    private void adiar(Set<String> idsPedido, long vencimentoMillis) {
+        List<String> argumentos = new ArrayList<>(1 + idsPedido.size());
+        argumentos.add(String.valueOf(vencimentoMillis));
+        argumentos.addAll(idsPedido);
+        redisTemplate.execute(ADIAR, StringRedisSerializer.UTF_8, new GenericToStringSerializer<>(Long.class),
+                List.of(CHAVE_EXPIRACAO), argumentos.toArray());
+    }
+
+    private String encerrar(String idPedido, boolean devolverEstoque) {
+        return redisTemplate.execute(ENCERRAR, StringRedisSerializer.UTF_8, StringRedisSerializer.UTF_8,
+                chaves(idPedido), idPedido, devolverEstoque ? "1" : "0");
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private List<Object> executar(RedisScript<List> script, List<String> chaves, List<String> argumentos) {
+        return redisTemplate.execute(script, StringRedisSerializer.UTF_8, (RedisSerializer<List>) (RedisSerializer) StringRedisSerializer.UTF_8,
+                chaves, argumentos.toArray());
+    }
+
+    private static List<String> chaves(String idPedido) {
+        return List.of(CHAVE_DISPONIVEL, CHAVE_RESERVADO, "reserva:" + idPedido, CHAVE_EXPIRACAO);
+    }
+}
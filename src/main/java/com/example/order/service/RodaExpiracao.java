@@ -0,0 +1,170 @@
+package com.example.order.service;
+
+import org.bson.types.ObjectId;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Roda de temporização com hash (hashed timer wheel) para prazos de pedidos. O tempo é dividido em ticks de
+ * {@code tickMillis}; o prazo de cada pedido cai no balde {@code tick % baldes}, então agendar é O(1) e cada
+ * avanço da roda olha só o balde do tick corrente, deixando para as próximas voltas as entradas com prazo mais
+ * distante.
+ *
+ * <p>Cada balde guarda suas entradas em arrays paralelos de primitivos (tick do prazo e os 12 bytes do
+ * {@link ObjectId}), cerca de 20 bytes por pedido, sem um objeto ou tarefa agendada por pedido. Os baldes têm
+ * lock próprio, então agendamentos concorrentes só disputam quando caem no mesmo balde.</p>
+ *
+ * <p>Não há cancelamento: quem consome os prazos vencidos deve tolerar pedidos que já mudaram de situação.</p>
+ */
+final class RodaExpiracao {
+
+    private static final int CAPACIDADE_INICIAL = 8;
+
+    private final long tickMillis;
+    private final int mascara;
+    private final Balde[] baldes;
+    private final AtomicLong pendentes = new AtomicLong();
+
+    // Próximo tick a processar: prazos anteriores a ele já teriam passado e vão para este tick
+    private volatile long proximoTick;
+
+    RodaExpiracao(long tickMillis, int quantidadeBaldes, long agoraMillis) {
+        if (tickMillis <= 0) {
+            throw new IllegalArgumentException("Tick deve ser positivo: " + tickMillis);
+        }
+        if (quantidadeBaldes <= 0 || Integer.bitCount(quantidadeBaldes) != 1) {
+            throw new IllegalArgumentException("Quantidade de baldes deve ser potência de 2: " + quantidadeBaldes);
+        }
+        this.tickMillis = tickMillis;
+        this.mascara = quantidadeBaldes - 1;
+        this.baldes = new Balde[quantidadeBaldes];
+        for (int i = 0; i < quantidadeBaldes; i++) {
+            baldes[i] = new Balde();
+        }
+        this.proximoTick = agoraMillis / tickMillis;
+    }
+
+    /**
+     * Agenda o pedido para vencer no primeiro tick que não seja anterior a {@code prazoMillis}: nunca vence
+     * antes do prazo e vence no máximo um tick depois. Prazos já passados vencem no próximo avanço.
+     */
+    void agendar(ObjectId idPedido, long prazoMillis) {
+        long tickPrazo = Math.floorDiv(prazoMillis, tickMillis) + (Math.floorMod(prazoMillis, tickMillis) == 0 ? 0 : 1);
+        byte[] bytes = idPedido.toByteArray();
+        long alto = idAlto(bytes);
+        int baixo = idBaixo(bytes);
+        while (true) {
+            long alvo = Math.max(tickPrazo, proximoTick);
+            Balde balde = baldes[(int) (alvo & mascara)];
+            synchronized (balde) {
+                // O avanço publica proximoTick com o lock do balde do tick processado: revalidar aqui garante
+                // que a entrada não caia num tick que acabou de ser varrido
+                if (alvo >= proximoTick) {
+                    balde.adicionar(tickPrazo, alto, baixo);
+                    pendentes.incrementAndGet();
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Processa todos os ticks até {@code agoraMillis} e devolve os pedidos vencidos, na ordem dos ticks.
+     * Deve ser chamado por uma única thread.
+     */
+    List<ObjectId> avancar(long agoraMillis) {
+        List<ObjectId> vencidos = new ArrayList<>();
+        long ultimoTick = Math.floorDiv(agoraMillis, tickMillis);
+        for (long tick = proximoTick; tick <= ultimoTick; tick++) {
+            Balde balde = baldes[(int) (tick & mascara)];
+            synchronized (balde) {
+                int removidos = balde.removerVencidos(tick, vencidos);
+                pendentes.addAndGet(-removidos);
+                proximoTick = tick + 1;
+            }
+        }
+        return vencidos;
+    }
+
+    long pendentes() {
+        return pendentes.get();
+    }
+
+    long tickMillis() {
+        return tickMillis;
+    }
+
+    private static long idAlto(byte[] bytes) {
+        long valor = 0;
+        for (int i = 0; i < 8; i++) {
+            valor = (valor << 8) | (bytes[i] & 0xFF);
+        }
+        return valor;
+    }
+
+    private static int idBaixo(byte[] bytes) {
+        return (bytes[8] & 0xFF) << 24 | (bytes[9] & 0xFF) << 16 | (bytes[10] & 0xFF) << 8 | (bytes[11] & 0xFF);
+    }
+
+    private static ObjectId id(long alto, int baixo) {
+        byte[] bytes = new byte[12];
+        for (int i = 7; i >= 0; i--) {
+            bytes[i] = (byte) alto;
+            alto >>>= 8;
+        }
+        bytes[8] = (byte) (baixo >>> 24);
+        bytes[9] = (byte) (baixo >>> 16);
+        bytes[10] = (byte) (baixo >>> 8);
+        bytes[11] = (byte) baixo;
+        return new ObjectId(bytes);
+    }
+
+    private static final class Balde {
+
+        private long[] ticks = new long[CAPACIDADE_INICIAL];
+        private long[] altos = new long[CAPACIDADE_INICIAL];
+        private int[] baixos = new int[CAPACIDADE_INICIAL];
+        private int tamanho;
+
+        void adicionar(long tick, long alto, int baixo) {
+            if (tamanho == ticks.length) {
+                redimensionar(tamanho * 2);
+            }
+            ticks[tamanho] = tick;
+            altos[tamanho] = alto;
+            baixos[tamanho] = baixo;
+            tamanho++;
+        }
+
+        // Compacta no lugar as entradas que continuam (prazo em voltas futuras da roda)
+        int removerVencidos(long tick, List<ObjectId> vencidos) {
+            int mantidos = 0;
+            for (int i = 0; i < tamanho; i++) {
+                if (ticks[i] <= tick) {
+                    vencidos.add(id(altos[i], baixos[i]));
+                } else {
+                    ticks[mantidos] = ticks[i];
+                    altos[mantidos] = altos[i];
+                    baixos[mantidos] = baixos[i];
+                    mantidos++;
+                }
+            }
+            int removidos = tamanho - mantidos;
+            tamanho = mantidos;
+            // Devolve a memória de baldes que esvaziaram depois de um pico
+            if (ticks.length > CAPACIDADE_INICIAL && tamanho < ticks.length / 4) {
+                redimensionar(Math.max(CAPACIDADE_INICIAL, ticks.length / 2));
+            }
+            return removidos;
+        }
+
+        private void redimensionar(int capacidade) {
+            ticks = Arrays.copyOf(ticks, capacidade);
+            altos = Arrays.copyOf(altos, capacidade);
+            baixos = Arrays.copyOf(baixos, capacidade);
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package com.example.order.service;
+
+import com.example.order.exception.MensagemErrorException;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Hash e verificação de senhas com BCrypt fora da thread da requisição, no pool limitado {@code bcryptExecutor}.
+ * Com o pool e a fila cheios o login é recusado na hora com 503, em vez de ocupar as threads do Tomcat que
+ * atendem os pedidos.
+ *
+ * <p>Verificações bem-sucedidas ficam guardadas por alguns minutos, indexadas por um HMAC (com chave aleatória
+ * da instância) de usuário, hash gravado e senha: um novo login com a mesma senha não paga o BCrypt de novo, e
+ * uma troca do hash (ex.: rehash com outro custo) invalida a entrada sozinha.</p>
+ */
+@Service
+public class SenhaService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SenhaService.class);
+
+    private final Executor bcryptExecutor;
+    private final BCryptPasswordEncoder passwordEncoder;
+    // Comparado quando o usuário não existe, para que a resposta leve o mesmo tempo de uma senha errada
+    private final String hashFicticio;
+    private final long esperaMillis;
+    private final Cache<String, Boolean> verificacoesRecentes;
+    // Chave nova a cada instância: o cache nunca guarda nada que permita testar senhas fora do processo
+    private final SecretKeySpec chaveHmac;
+    private final Timer geracaoHash;
+    private final Timer verificacao;
+    private final Counter acertosCache;
+    private final Counter recusadas;
+
+    public SenhaService(@Qualifier("bcryptExecutor") Executor bcryptExecutor,
+                        MeterRegistry meterRegistry,
+                        @Value("${app.auth.bcrypt.custo:10}") int custo,
+                        @Value("${app.auth.bcrypt.espera-millis:2000}") long esperaMillis,
+                        @Value("${app.auth.cache-verificacao.ttl-segundos:120}") long ttlSegundosCache,
+                        @Value("${app.auth.cache-verificacao.tamanho-maximo:10000}") long tamanhoMaximoCache) {
+        this.bcryptExecutor = bcryptExecutor;
+        this.passwordEncoder = new BCryptPasswordEncoder(custo);
+        this.hashFicticio = passwordEncoder.encode("senha-ficticia");
+        this.esperaMillis = esperaMillis;
+        this.verificacoesRecentes = ttlSegundosCache > 0
+                ? Caffeine.newBuilder()
+                .maximumSize(tamanhoMaximoCache)
+                .expireAfterWrite(Duration.ofSeconds(ttlSegundosCache))
+                .build()
+                : null;
+        byte[] chave = new byte[32];
+        new SecureRandom().nextBytes(chave);
+        this.chaveHmac = new SecretKeySpec(chave, "HmacSHA256");
+        this.geracaoHash = Timer.builder("auth.bcrypt").tag("operacao", "hash").register(meterRegistry);
+        this.verificacao = Timer.builder("auth.bcrypt").tag("operacao", "verificacao").register(meterRegistry);
+        this.acertosCache = Counter.builder("auth.bcrypt.cache")
+                .description("Logins cuja senha já tinha sido verificada recentemente")
+                .register(meterRegistry);
+        this.recusadas = Counter.builder("auth.bcrypt.recusadas")
+                .description("Hashes recusados com o pool de BCrypt saturado")
+                .register(meterRegistry);
+    }
+
+    public String gerarHash(String senha) {
+        return executar(() -> geracaoHash.record(() -> passwordEncoder.encode(senha)));
+    }
+
+    /**
+     * Confere a senha com o hash gravado do usuário. Com {@code hash} nulo (usuário inexistente) compara com um
+     * hash fictício e devolve {@code false}, sem revelar pelo tempo de resposta que o usuário não existe.
+     */
+    public boolean confere(String idUsuario, String senha, String hash) {
+        if (hash == null) {
+            executar(() -> verificacao.record(() -> passwordEncoder.matches(senha, hashFicticio)));
+            return false;
+        }
+        String chave = verificacoesRecentes != null ? chaveVerificacao(idUsuario, hash, senha) : null;
+        if (chave != null && verificacoesRecentes.getIfPresent(chave) != null) {
+            acertosCache.increment();
+            return true;
+        }
+        boolean confere = Boolean.TRUE.equals(executar(() -> verificacao.record(() -> passwordEncoder.matches(senha, hash))));
+        if (confere && chave != null) {
+            verificacoesRecentes.put(chave, Boolean.TRUE);
+        }
+        return confere;
+    }
+
+    /**
+     * Indica se o hash foi gerado com um custo menor que o configurado em {@code app.auth.bcrypt.custo}.
+     */
+    public boolean precisaAtualizar(String hash) {
+        try {
+            return passwordEncoder.upgradeEncoding(hash);
+        } catch (IllegalArgumentException e) {
+            logger.warn("Hash de senha em formato desconhecido: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Gera o hash com o custo atual no pool de BCrypt, sem esperar, e entrega o resultado a {@code gravacao}.
+     * Com o pool cheio o rehash fica para o próximo login.
+     */
+    public void atualizarEmSegundoPlano(String senha, Consumer<String> gravacao) {
+        try {
+            bcryptExecutor.execute(() -> {
+                try {
+                    gravacao.accept(geracaoHash.record(() -> passwordEncoder.encode(senha)));
+                } catch (RuntimeException e) {
+                    logger.warn("Falha ao atualizar o hash da senha: {}", e.getMessage());
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            logger.debug("Pool de BCrypt cheio, rehash adiado para o próximo login");
+        }
+    }
+
+    private <T> T executar(Supplier<T> tarefa) {
+        CompletableFuture<T> resultado;
+        try {
+            resultado = CompletableFuture.supplyAsync(tarefa, bcryptExecutor);
+        } catch (RejectedExecutionException e) {
+            recusadas.increment();
+            throw saturado();
+        }
+        try {
+            return resultado.get(esperaMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            recusadas.increment();
+            resultado.cancel(false);
+            throw saturado();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw saturado();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException causa) {
+                throw causa;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private static MensagemErrorException saturado() {
+        return new MensagemErrorException(HttpStatus.SERVICE_UNAVAILABLE,
+                "Muitas autenticações simultâneas, tente novamente em instantes");
+    }
+
+    private String chaveVerificacao(String idUsuario, String hash, String senha) {
+        try {
+            Mac hmac = Mac.getInstance("HmacSHA256");
+            hmac.init(chaveHmac);
+            hmac.update(idUsuario.getBytes(StandardCharsets.UTF_8));
+            hmac.update((byte) 0);
+            hmac.update(hash.getBytes(StandardCharsets.UTF_8));
+            hmac.update((byte) 0);
+            return Base64.getEncoder().encodeToString(hmac.doFinal(senha.getBytes(StandardCharsets.UTF_8)));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 indisponível", e);
+        }
+    }
+}
@@ -10,19 +10,20 @@ import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.stereotype.Service;
 
 import java.util.Collections;
+import java.util.Optional;
 
 @Service
 public class UserService implements UserDetailsService {
 
     private final UsuarioRepository usuarioRepository;
-    private final BCryptPasswordEncoder passwordEncoder = new BCryptPasswordEncoder();
+    private final SenhaService senhaService;
 
-    public UserService(UsuarioRepository usuarioRepository) {
+    public UserService(UsuarioRepository usuarioRepository, SenhaService senhaService) {
         this.usuarioRepository = usuarioRepository;
+        this.senhaService = senhaService;
     }
 
     @Override
@@ -37,6 +38,11 @@ public class UserService implements UserDetailsService {
                 .build();
     }
 
+    // Usado no login, que responde 401 tanto para usuário inexistente quanto para senha errada
+    public Optional<Usuario> buscarUsuario(String idUsuario) {
+        return usuarioRepository.findById(idUsuario);
+    }
+
     public void registrarUsuario(String idUsuario, String password) {
         if (usuarioRepository.existsByIdUsuario(idUsuario)) {
             throw new MensagemErrorException(HttpStatus.CONFLICT,"Usuário já existe: " + idUsuario);
@@ -44,7 +50,16 @@ public class UserService implements UserDetailsService {
 
         Usuario usuario = new Usuario();
         usuario.setIdUsuario(idUsuario);
-        usuario.setPassword(passwordEncoder.encode(password));
+        usuario.setPassword(senhaService.gerarHash(password));
         usuarioRepository.save(usuario);
     }
-}
\ No newline at end of file
+
+    /**
+     * Troca o hash da senha só se ele ainda for {@code hashAnterior}, o que foi conferido no login que disparou o
+     * rehash. A comparação e a troca são um único update condicional, então uma troca de senha feita no meio do
+     * caminho não é sobrescrita.
+     */
+    public void atualizarHashSenha(String idUsuario, String hashAnterior, String novoHash) {
+        usuarioRepository.atualizarSenhaSeInalterada(idUsuario, hashAnterior, novoHash);
+    }
+}
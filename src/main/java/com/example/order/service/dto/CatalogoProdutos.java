@@ -0,0 +1,17 @@
+package com.example.order.service.dto;
+
+import com.example.order.model.Produto;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class CatalogoProdutos {
+    private List<Produto> produtos;
+    // Último catálogo conhecido, servido com o External A indisponível
+    private boolean desatualizado;
+}
@@ -0,0 +1,16 @@
+package com.example.order.service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class PaginaPedidosResponse {
+    private List<PedidoResponse> pedidos;
+    // Nulo quando não há mais páginas
+    private String proximoCursor;
+}
@@ -1,14 +1,19 @@
 package com.example.order.service.dto;
 
 import com.example.order.model.ProdutoComprado;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
 import java.math.BigDecimal;
 import java.util.List;
 
 @Data
 @Builder
+@NoArgsConstructor
+@AllArgsConstructor
 public class PedidoResponse {
     private String codigoPedido;
     private String usuario;
@@ -16,4 +21,7 @@ public class PedidoResponse {
     private BigDecimal valorTotal;
     private String situacao;
     private String horarioPedido;
+    // Preenchido só quando algum produto veio do último valor conhecido, com o External A indisponível
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Boolean dadosDesatualizados;
 }
\ No newline at end of file
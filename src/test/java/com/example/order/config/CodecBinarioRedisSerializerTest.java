@@ -0,0 +1,164 @@
+package com.example.order.config;
+
+import com.example.order.model.Pedido;
+import com.example.order.model.Produto;
+import com.example.order.model.ProdutoComprado;
+import com.example.order.service.EntradaCache;
+import com.example.order.service.PedidoIdempotente;
+import com.example.order.service.dto.PedidoResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CodecBinarioRedisSerializerTest {
+
+    private final RedisSerializer<Object> json = RedisConfig.serializadorJson();
+    private final CodecBinarioRedisSerializer codec = new CodecBinarioRedisSerializer(json);
+
+    @Test
+    void deserialize_deveReconstruirPedido_quandoSerializadoPeloCodec() {
+        // Arrange
+        Pedido pedido = pedido();
+
+        // Act
+        Object lido = codec.deserialize(codec.serialize(pedido));
+
+        // Assert
+        assertEquals(pedido, lido);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void deserialize_deveReconstruirEntradaComListaDeProdutos() {
+        // Arrange
+        List<Produto> produtos = List.of(
+                new Produto("1", "Produto1", new BigDecimal("10.50"), 10),
+                new Produto("2", null, null, null));
+        EntradaCache entrada = new EntradaCache(produtos, 1_700_000_000_000L, 42);
+
+        // Act
+        Object lido = codec.deserialize(codec.serialize(entrada));
+
+        // Assert
+        assertEquals(entrada, lido);
+        assertEquals(new BigDecimal("10.50"), ((List<Produto>) ((EntradaCache) lido).getValor()).get(0).getValor());
+    }
+
+    @Test
+    void deserialize_deveUsarSmile_paraTiposSemFormatoProprio() {
+        // Arrange
+        Map<String, Object> valor = Map.of("chave", "valor", "numero", 7);
+
+        // Act
+        Object lido = codec.deserialize(codec.serialize(valor));
+
+        // Assert
+        assertEquals(valor, lido);
+    }
+
+    @Test
+    void deserialize_deveReconstruirRespostaGuardadaPelaIdempotencia() {
+        // Arrange
+        PedidoIdempotente guardado = new PedidoIdempotente("impressao", PedidoResponse.builder()
+                .codigoPedido("pedido1")
+                .produtosComprado(List.of(new ProdutoComprado("1", 2, "Produto1")))
+                .valorTotal(new BigDecimal("21.00"))
+                .situacao("PENDENTE PAGAMENTO")
+                .build());
+
+        // Act
+        Object lido = codec.deserialize(codec.serialize(guardado));
+
+        // Assert
+        assertEquals(guardado, lido);
+    }
+
+    @Test
+    void deserialize_deveLerEntradaGravadaPeloSerializadorJson() {
+        // Arrange
+        Pedido pedido = pedido();
+        byte[] legado = json.serialize(pedido);
+
+        // Act
+        Object lido = codec.deserialize(legado);
+
+        // Assert
+        assertEquals(pedido, lido);
+    }
+
+    @Test
+    void deserialize_deveTratarComoAusente_quandoVersaoDoCodecForDesconhecida() {
+        // Arrange
+        byte[] bytes = codec.serialize(pedido());
+        bytes[1] = (byte) (CodecBinarioRedisSerializer.VERSAO + 1);
+
+        // Act & Assert
+        assertNull(codec.deserialize(bytes));
+    }
+
+    @Test
+    void deserialize_deveReconstruirTextoMaiorQue64KB_pelaViaGenerica() {
+        // Arrange
+        String texto = "ç".repeat(40_000);
+        EntradaCache entrada = new EntradaCache(texto, 1_700_000_000_000L, 1);
+
+        // Act
+        Object lido = codec.deserialize(codec.serialize(entrada));
+
+        // Assert
+        assertFalse(CodecBinarioRedisSerializer.textoCabe(texto));
+        assertEquals(entrada, lido);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void deserialize_deveReconstruirProdutosEPedido_comCamposForaDoFormatoProprio() {
+        // Arrange
+        BigDecimal enorme = new BigDecimal(new BigInteger("9".repeat(700)), 2);
+        List<Produto> produtos = List.of(
+                new Produto("1", "Produto1", new BigDecimal("10.50"), 10),
+                new Produto("2", "x".repeat(70_000), enorme, 1));
+        Pedido pedido = pedido();
+        pedido.setValorTotal(enorme);
+
+        // Act
+        Object lido = codec.deserialize(codec.serialize(produtos));
+        Object pedidoLido = codec.deserialize(codec.serialize(pedido));
+
+        // Assert
+        assertFalse(CodecBinarioRedisSerializer.decimalCabe(enorme));
+        assertEquals(produtos, lido);
+        assertEquals(enorme, ((List<Produto>) lido).get(1).getValor());
+        assertEquals(pedido, pedidoLido);
+    }
+
+    @Test
+    void serialize_deveGerarEntradasMenoresQueOJson() {
+        // Arrange
+        Pedido pedido = pedido();
+
+        // Act
+        int binario = codec.serialize(pedido).length;
+        int legado = json.serialize(pedido).length;
+
+        // Assert
+        assertTrue(binario * 2 < legado, "binário=" + binario + " json=" + legado);
+    }
+
+    private static Pedido pedido() {
+        Pedido pedido = new Pedido("usuario1");
+        pedido.setId("65f0c0ffee0000000000beef");
+        pedido.setStatus("PENDENTE PAGAMENTO");
+        pedido.setValorTotal(new BigDecimal("123.45"));
+        for (int i = 0; i < 3; i++) {
+            pedido.getProdutosComprado().add(new ProdutoComprado("P" + i, i + 1, "Produto " + i));
+        }
+        return pedido;
+    }
+}
@@ -0,0 +1,162 @@
+package com.example.order.config;
+
+import com.example.order.exception.MensagemErrorException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReference;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class JwtAuthenticationFilterTest {
+
+    private static final byte[] CHAVE = new byte[32];
+
+    @Mock
+    private UserDetailsService userDetailsService;
+
+    private JwtAuthenticationFilter filter;
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        filter = new JwtAuthenticationFilter(userDetailsService, meterRegistry);
+        ReflectionTestUtils.setField(filter, "secretKeyBase64", Base64.getEncoder().encodeToString(CHAVE));
+        filter.afterPropertiesSet();
+        when(userDetailsService.loadUserByUsername("user123")).thenReturn(User.withUsername("user123")
+                .password("hash")
+                .roles("USER")
+                .build());
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void doFilter_deveAutenticarSemRecarregarUsuario_quandoMesmoTokenForReutilizado() throws Exception {
+        // Arrange
+        String token = gerarToken("user123", System.currentTimeMillis() + 60_000);
+
+        // Act
+        filtrar(token);
+        assertEquals("user123", SecurityContextHolder.getContext().getAuthentication().getName());
+        SecurityContextHolder.clearContext();
+        filtrar(token);
+
+        // Assert
+        assertEquals("user123", SecurityContextHolder.getContext().getAuthentication().getName());
+        verify(userDetailsService, times(1)).loadUserByUsername("user123");
+        assertEquals(1, meterRegistry.get("auth.jwt.verificacao").tag("resultado", "valido").timer().count());
+        assertEquals(1, meterRegistry.get("auth.jwt.verificacao").tag("resultado", "cache").timer().count());
+    }
+
+    @Test
+    void endpointPublico_deveLiberarSoOHealth_entreOsEndpointsDoActuator() {
+        assertTrue(JwtAuthenticationFilter.endpointPublico("/actuator/health"));
+        assertFalse(JwtAuthenticationFilter.endpointPublico("/actuator/prometheus"));
+        assertFalse(JwtAuthenticationFilter.endpointPublico("/actuator/metrics"));
+    }
+
+    @Test
+    void doFilter_deveRejeitarToken_quandoAssinaturaForInvalida() {
+        // Arrange
+        String tokenComOutraChave = Jwts.builder()
+                .setSubject("user123")
+                .setExpiration(new Date(System.currentTimeMillis() + 60_000))
+                .signWith(Keys.hmacShaKeyFor(new byte[]{1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16,
+                        17, 18, 19, 20, 21, 22, 23, 24, 25, 26, 27, 28, 29, 30, 31, 32}))
+                .compact();
+
+        // Act & Assert
+        MensagemErrorException exception = assertThrows(MensagemErrorException.class, () -> filtrar(tokenComOutraChave));
+        assertEquals(HttpStatus.FORBIDDEN, exception.getStatus());
+        verifyNoInteractions(userDetailsService);
+    }
+
+    @Test
+    void doFilter_deveRejeitarToken_quandoExpirado() {
+        // Arrange
+        String tokenExpirado = gerarToken("user123", System.currentTimeMillis() - 1_000);
+
+        // Act & Assert
+        MensagemErrorException exception = assertThrows(MensagemErrorException.class, () -> filtrar(tokenExpirado));
+        assertEquals("Token JWT expirado", exception.getMessage());
+    }
+
+    @Test
+    void doFilter_naoDevePrenderThreadPortadora_quandoCarregarUsuarioEmThreadVirtual() throws Exception {
+        // Arrange: carga do usuário lenta, como uma consulta ao Mongo
+        when(userDetailsService.loadUserByUsername("user123")).thenAnswer(invocation -> {
+            Thread.sleep(50);
+            return User.withUsername("user123").password("hash").roles("USER").build();
+        });
+        String token = gerarToken("user123", System.currentTimeMillis() + 60_000);
+        List<RecordedEvent> fixacoes = new CopyOnWriteArrayList<>();
+        AtomicReference<Throwable> erro = new AtomicReference<>();
+
+        // Act
+        try (RecordingStream jfr = new RecordingStream()) {
+            jfr.enable("jdk.VirtualThreadPinned").withThreshold(Duration.ofMillis(10));
+            jfr.onEvent("jdk.VirtualThreadPinned", fixacoes::add);
+            jfr.startAsync();
+            Thread.ofVirtual().start(() -> {
+                try {
+                    filtrar(token);
+                } catch (Throwable e) {
+                    erro.set(e);
+                }
+            }).join();
+            jfr.stop();
+        }
+
+        // Assert
+        assertNull(erro.get());
+        assertTrue(fixacoes.isEmpty(), "Thread virtual presa à portadora: " + fixacoes);
+        verify(userDetailsService).loadUserByUsername("user123");
+    }
+
+    private void filtrar(String token) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/pedido/meus-pedidos");
+        request.addHeader("Authorization", "Bearer " + token);
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+    }
+
+    private static String gerarToken(String usuario, long expiraEm) {
+        return Jwts.builder()
+                .setSubject(usuario)
+                .setIssuedAt(new Date())
+                .setExpiration(new Date(expiraEm))
+                .signWith(Keys.hmacShaKeyFor(CHAVE))
+                .compact();
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.order.config;
+
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.mongodb.client.model.IndexOptions;
+import de.bwaldvogel.mongo.MongoServer;
+import de.bwaldvogel.mongo.backend.memory.MemoryBackend;
+import org.bson.Document;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MongoConfigTest {
+
+    private MongoServer servidor;
+    private MongoClient cliente;
+    private MongoTemplate mongoTemplate;
+
+    @BeforeEach
+    void setUp() {
+        servidor = new MongoServer(new MemoryBackend());
+        cliente = MongoClients.create(servidor.bindAndGetConnectionString());
+        mongoTemplate = new MongoTemplate(cliente, "orderdb");
+    }
+
+    @AfterEach
+    void tearDown() {
+        cliente.close();
+        servidor.shutdownNow();
+    }
+
+    @Test
+    void construtor_deveCriarIndicesDeclarados_quandoColecaoForNova() {
+        // Act
+        new MongoConfig(mongoTemplate);
+
+        // Assert
+        List<String> nomes = new ArrayList<>();
+        for (Document indice : mongoTemplate.getCollection("pedidos").listIndexes()) {
+            nomes.add(indice.getString("name"));
+        }
+        assertTrue(nomes.containsAll(List.of("horarioExpiracao_1", "idUsuario_horarioCriacao_id", "status_horarioCriacao")),
+                "Índices encontrados: " + nomes);
+    }
+
+    @Test
+    void construtor_deveSerIdempotente_quandoIndicesJaExistirem() {
+        // Arrange
+        new MongoConfig(mongoTemplate);
+
+        // Act & Assert
+        assertDoesNotThrow(() -> new MongoConfig(mongoTemplate));
+    }
+
+    @Test
+    void verificarIndices_deveLancarExcecao_quandoIndiceDeclaradoEstiverAusente() {
+        // Arrange
+        new MongoConfig(mongoTemplate);
+        mongoTemplate.getCollection("pedidos").dropIndex("status_horarioCriacao");
+
+        // Act & Assert
+        IllegalStateException exception = assertThrows(IllegalStateException.class,
+                () -> MongoConfig.verificarIndices(mongoTemplate));
+        assertTrue(exception.getMessage().contains("status"));
+    }
+
+    @Test
+    void verificarIndices_deveLancarExcecao_quandoIndiceExistirComCamposEmOutraOrdem() {
+        // Arrange: mesmos campos e direções do declarado, mas horarioCriacao antes de status
+        new MongoConfig(mongoTemplate);
+        mongoTemplate.getCollection("pedidos").dropIndex("status_horarioCriacao");
+        mongoTemplate.getCollection("pedidos").createIndex(new Document("horarioCriacao", 1).append("status", 1),
+                new IndexOptions().name("horarioCriacao_status"));
+
+        // Act & Assert
+        IllegalStateException exception = assertThrows(IllegalStateException.class,
+                () -> MongoConfig.verificarIndices(mongoTemplate));
+        assertTrue(exception.getMessage().contains("[status: 1, horarioCriacao: 1]"), exception.getMessage());
+    }
+}
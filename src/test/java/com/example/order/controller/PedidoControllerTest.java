@@ -0,0 +1,132 @@
+package com.example.order.controller;
+
+import com.example.order.service.CatalogoRespostaService;
+import com.example.order.service.IdempotenciaPedidoService;
+import com.example.order.service.PedidoService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class PedidoControllerTest {
+
+    private static final byte[] JSON = "[{\"id\":\"1\"}]".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] GZIP = {31, -117, 8};
+    private static final String ETAG = "\"abc\"";
+
+    @Mock
+    private PedidoService pedidoService;
+
+    @Mock
+    private IdempotenciaPedidoService idempotenciaPedidoService;
+
+    @Mock
+    private CatalogoRespostaService catalogoRespostaService;
+
+    private PedidoController pedidoController;
+
+    @BeforeEach
+    void setUp() {
+        pedidoController = new PedidoController(pedidoService, idempotenciaPedidoService, catalogoRespostaService,
+                new ObjectMapper());
+        when(catalogoRespostaService.obter()).thenReturn(new CatalogoRespostaService.RespostaCatalogo(JSON, GZIP, ETAG, false));
+    }
+
+    @Test
+    void getAllProducts_deveEscreverJsonPreCodificadoComEtag() {
+        // Act
+        ResponseEntity<byte[]> resposta = pedidoController.getAllProducts(null, null);
+
+        // Assert
+        assertEquals(HttpStatus.OK, resposta.getStatusCode());
+        assertSame(JSON, resposta.getBody());
+        assertEquals(ETAG, resposta.getHeaders().getETag());
+        assertNull(resposta.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        assertTrue(resposta.getHeaders().getVary().contains(HttpHeaders.ACCEPT_ENCODING));
+    }
+
+    @Test
+    void getAllProducts_deveEscreverGzip_quandoClienteAceitar() {
+        // Act
+        ResponseEntity<byte[]> resposta = pedidoController.getAllProducts(null, "br, gzip;q=0.8");
+
+        // Assert
+        assertSame(GZIP, resposta.getBody());
+        assertEquals("gzip", resposta.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        assertEquals("\"abc-gz\"", resposta.getHeaders().getETag());
+    }
+
+    @Test
+    void getAllProducts_deveResponder304ComEtagDaRepresentacaoPedida_quandoClienteTiverQualquerUmaDasDuas() {
+        // Act
+        ResponseEntity<byte[]> gzipRevalidadoSemGzip = pedidoController.getAllProducts("\"abc-gz\"", null);
+        ResponseEntity<byte[]> jsonRevalidadoComGzip = pedidoController.getAllProducts(ETAG, "gzip");
+        ResponseEntity<byte[]> etagDeOutroConteudo = pedidoController.getAllProducts("\"xyz-gz\"", "gzip");
+
+        // Assert
+        assertEquals(HttpStatus.NOT_MODIFIED, gzipRevalidadoSemGzip.getStatusCode());
+        assertEquals(ETAG, gzipRevalidadoSemGzip.getHeaders().getETag());
+        assertEquals(HttpStatus.NOT_MODIFIED, jsonRevalidadoComGzip.getStatusCode());
+        assertEquals("\"abc-gz\"", jsonRevalidadoComGzip.getHeaders().getETag());
+        assertEquals(HttpStatus.OK, etagDeOutroConteudo.getStatusCode());
+        assertSame(GZIP, etagDeOutroConteudo.getBody());
+    }
+
+    @Test
+    void getAllProducts_deveResponder304SemCorpo_quandoEtagDoClienteForOAtual() {
+        // Act
+        ResponseEntity<byte[]> resposta = pedidoController.getAllProducts("W/\"outro\", " + ETAG, "gzip");
+
+        // Assert
+        assertEquals(HttpStatus.NOT_MODIFIED, resposta.getStatusCode());
+        assertNull(resposta.getBody());
+        assertEquals("\"abc-gz\"", resposta.getHeaders().getETag());
+    }
+
+    @Test
+    void getAllProducts_deveAvisarDesatualizado_quandoCatalogoForOUltimoConhecido() {
+        // Arrange
+        when(catalogoRespostaService.obter()).thenReturn(new CatalogoRespostaService.RespostaCatalogo(JSON, GZIP, ETAG, true));
+
+        // Act
+        ResponseEntity<byte[]> resposta = pedidoController.getAllProducts(null, null);
+
+        // Assert
+        assertEquals(HttpStatus.OK, resposta.getStatusCode());
+        assertNotNull(resposta.getHeaders().getFirst(HttpHeaders.WARNING));
+    }
+
+    @Test
+    void etagConfere_deveAceitarListaEtagFracoECuringa() {
+        assertTrue(PedidoController.etagConfere(ETAG, ETAG));
+        assertTrue(PedidoController.etagConfere("W/" + ETAG, ETAG));
+        assertTrue(PedidoController.etagConfere("\"x\" , " + ETAG, ETAG));
+        assertTrue(PedidoController.etagConfere("*", ETAG));
+        assertFalse(PedidoController.etagConfere("\"x\"", ETAG));
+        assertFalse(PedidoController.etagConfere(null, ETAG));
+        assertTrue(PedidoController.etagConfere("W/\"abc-gz\"", ETAG, "\"abc-gz\""));
+    }
+
+    @Test
+    void aceitaGzip_deveRespeitarQZero() {
+        assertTrue(PedidoController.aceitaGzip("gzip, deflate"));
+        assertTrue(PedidoController.aceitaGzip("GZIP;q=0.5"));
+        assertFalse(PedidoController.aceitaGzip("gzip;q=0"));
+        assertFalse(PedidoController.aceitaGzip("deflate, br"));
+        assertFalse(PedidoController.aceitaGzip(null));
+    }
+}
@@ -0,0 +1,183 @@
+package com.example.order.feignclient;
+
+import feign.Client;
+import feign.Feign;
+import feign.Request;
+import feign.Response;
+import feign.Util;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.openfeign.support.SpringMvcContract;
+
+import java.io.ByteArrayInputStream;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * O {@link ExternalAClient} é montado pelo Feign com o contrato do Spring MVC, como na aplicação; só o
+ * transporte HTTP por baixo do {@link ClienteHttpExternalA} é simulado.
+ */
+class ClienteHttpExternalATest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private ExecutorService executor;
+    private final List<Request.Options> opcoesRecebidas = new CopyOnWriteArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        executor = Executors.newCachedThreadPool();
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void execute_deveAplicarTimeoutDeLeituraDoMetodo_eRegistrarLatenciaPorMetodo() {
+        // Arrange
+        Client transporte = (request, options) -> {
+            opcoesRecebidas.add(options);
+            return resposta(request, "7");
+        };
+        ExternalAClient cliente = cliente(transporte, Map.of("getQuantidadeProduto", 300L), false, 100);
+
+        // Act
+        Integer quantidade = cliente.getQuantidadeProduto("A123");
+        Double preco = cliente.getPrecoProduto("A123");
+
+        // Assert
+        assertEquals(7, quantidade);
+        assertEquals(7.0, preco);
+        assertEquals(300, opcoesRecebidas.get(0).readTimeoutMillis());
+        assertEquals(500, opcoesRecebidas.get(0).connectTimeoutMillis());
+        assertEquals(2000, opcoesRecebidas.get(1).readTimeoutMillis());
+        assertEquals(1, meterRegistry.get("externala.cliente.latencia").tag("metodo", "getQuantidadeProduto")
+                .timer().count());
+        assertEquals(1, meterRegistry.get("externala.cliente.latencia").tag("metodo", "getPrecoProduto")
+                .timer().count());
+    }
+
+    @Test
+    void execute_deveDispararHedgeEFecharRespostaPerdedora_quandoPrimeiraTentativaPassarDoP95() throws Exception {
+        // Arrange: 10 chamadas rápidas formam o p95; a 11ª fica presa no upstream e a 12ª (hedge) responde
+        AtomicInteger chamadas = new AtomicInteger();
+        CountDownLatch liberarLenta = new CountDownLatch(1);
+        CountDownLatch respostaLentaFechada = new CountDownLatch(1);
+        Client transporte = (request, options) -> {
+            int chamada = chamadas.incrementAndGet();
+            if (chamada == 11) {
+                aguardar(liberarLenta);
+                return resposta(request, "1", respostaLentaFechada);
+            }
+            return resposta(request, chamada == 12 ? "9" : "7");
+        };
+        ExternalAClient cliente = cliente(transporte, Map.of(), true, 10);
+        for (int i = 0; i < 10; i++) {
+            cliente.getQuantidadeProduto("A123");
+        }
+
+        // Act
+        Integer quantidade = cliente.getQuantidadeProduto("A123");
+        liberarLenta.countDown();
+
+        // Assert
+        assertEquals(9, quantidade);
+        assertEquals(12, chamadas.get());
+        assertTrue(respostaLentaFechada.await(5, TimeUnit.SECONDS));
+        assertEquals(1.0, meterRegistry.get("externala.cliente.hedge").tag("metodo", "getQuantidadeProduto")
+                .tag("resultado", "disparado").counter().count());
+        assertEquals(1.0, meterRegistry.get("externala.cliente.hedge").tag("metodo", "getQuantidadeProduto")
+                .tag("resultado", "venceu").counter().count());
+    }
+
+    @Test
+    void execute_naoDeveFazerHedge_antesDeTerAmostrasSuficientes() {
+        // Arrange
+        AtomicInteger chamadas = new AtomicInteger();
+        Client transporte = (request, options) -> {
+            chamadas.incrementAndGet();
+            aguardar(new CountDownLatch(1), 50);
+            return resposta(request, "7");
+        };
+        ExternalAClient cliente = cliente(transporte, Map.of(), true, 100);
+
+        // Act
+        Integer quantidade = cliente.getQuantidadeProduto("A123");
+
+        // Assert
+        assertEquals(7, quantidade);
+        assertEquals(1, chamadas.get());
+        assertTrue(meterRegistry.find("externala.cliente.hedge").counters().isEmpty());
+    }
+
+    @Test
+    void lerTimeoutsPorMetodo_deveLerListaERejeitarItemMalFormado() {
+        // Act & Assert
+        assertEquals(Map.of("getTodosProdutos", 5000L, "getProduto", 800L),
+                ClienteHttpExternalA.lerTimeoutsPorMetodo("getTodosProdutos:5000, getProduto:800"));
+        assertTrue(ClienteHttpExternalA.lerTimeoutsPorMetodo("").isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> ClienteHttpExternalA.lerTimeoutsPorMetodo("getProduto=800"));
+    }
+
+    private ExternalAClient cliente(Client transporte, Map<String, Long> timeouts, boolean hedge, long amostrasMinimas) {
+        ClienteHttpExternalA cliente = new ClienteHttpExternalA(transporte, executor, meterRegistry, timeouts,
+                hedge, 5, amostrasMinimas, 16);
+        return Feign.builder()
+                .contract(new SpringMvcContract())
+                .client(cliente)
+                .options(new Request.Options(500, TimeUnit.MILLISECONDS, 2000, TimeUnit.MILLISECONDS, true))
+                .decoder((response, type) -> {
+                    String corpo = Util.toString(response.body().asReader(StandardCharsets.UTF_8));
+                    if (type == Double.class) {
+                        return Double.valueOf(corpo);
+                    }
+                    return Integer.valueOf(corpo);
+                })
+                .target(ExternalAClient.class, "http://external-a");
+    }
+
+    private static void aguardar(CountDownLatch latch) throws InterruptedIOException {
+        assertTrue(aguardar(latch, 5_000));
+    }
+
+    private static boolean aguardar(CountDownLatch latch, long millis) throws InterruptedIOException {
+        try {
+            return latch.await(millis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            throw new InterruptedIOException();
+        }
+    }
+
+    private static Response resposta(Request request, String corpo) {
+        return resposta(request, corpo, new CountDownLatch(1));
+    }
+
+    private static Response resposta(Request request, String corpo, CountDownLatch fechada) {
+        byte[] bytes = corpo.getBytes(StandardCharsets.UTF_8);
+        return Response.builder()
+                .status(200)
+                .request(request)
+                .headers(Map.of())
+                .body(new ByteArrayInputStream(bytes) {
+                    @Override
+                    public void close() {
+                        fechada.countDown();
+                    }
+                }, bytes.length)
+                .build();
+    }
+}
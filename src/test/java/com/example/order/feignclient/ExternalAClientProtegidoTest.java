@@ -0,0 +1,215 @@
+package com.example.order.feignclient;
+
+import com.example.order.config.ExternalAMockConfig;
+import com.example.order.exception.ExternalAIndisponivelException;
+import feign.FeignException;
+import feign.Request;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExternalAClientProtegidoTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        executor = Executors.newCachedThreadPool();
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void getProduto_deveAbrirCircuitoEFalharNaHora_quandoUpstreamFalharAcimaDaTaxa() {
+        // Arrange
+        AtomicInteger chamadas = new AtomicInteger();
+        ExternalAClient upstream = upstream(0, 1.0, chamadas);
+        ExternalAClientProtegido cliente = protegido(upstream, 10);
+
+        // Act
+        for (int i = 0; i < 4; i++) {
+            assertThrows(RuntimeException.class, () -> cliente.getProduto("A123"));
+        }
+        ExternalAIndisponivelException exception = assertThrows(ExternalAIndisponivelException.class,
+                () -> cliente.getProduto("A123"));
+
+        // Assert
+        assertEquals(4, chamadas.get());
+        assertEquals(CircuitBreaker.State.OPEN, cliente.circuito("getProduto").getState());
+        assertEquals(CircuitBreaker.State.CLOSED, cliente.circuito("getQuantidadeProduto").getState());
+        assertTrue(exception.getMessage().contains("getProduto"));
+        assertEquals(1.0, meterRegistry.get("resilience4j.circuitbreaker.state").tag("name", "getProduto")
+                .tag("state", "open").gauge().value());
+    }
+
+    @Test
+    void getProduto_naoDeveAbrirCircuito_quandoUpstreamResponder4xx() {
+        // Arrange
+        ExternalAClient upstream = (ExternalAClient) Proxy.newProxyInstance(ExternalAClient.class.getClassLoader(),
+                new Class<?>[]{ExternalAClient.class}, (proxy, method, args) -> {
+                    throw naoEncontrado();
+                });
+        ExternalAClientProtegido cliente = protegido(upstream, 10);
+
+        // Act
+        for (int i = 0; i < 10; i++) {
+            assertThrows(FeignException.NotFound.class, () -> cliente.getProduto("inexistente"));
+        }
+
+        // Assert
+        assertEquals(CircuitBreaker.State.CLOSED, cliente.circuito("getProduto").getState());
+    }
+
+    @Test
+    void getQuantidadeProduto_deveRecusarNaHora_quandoBulkheadCheio() throws Exception {
+        // Arrange: a única vaga do bulkhead fica presa no upstream
+        CountDownLatch dentroDoUpstream = new CountDownLatch(1);
+        CountDownLatch liberar = new CountDownLatch(1);
+        ExternalAClient upstream = (ExternalAClient) Proxy.newProxyInstance(ExternalAClient.class.getClassLoader(),
+                new Class<?>[]{ExternalAClient.class}, (proxy, method, args) -> {
+                    dentroDoUpstream.countDown();
+                    liberar.await(5, TimeUnit.SECONDS);
+                    return 7;
+                });
+        ExternalAClientProtegido cliente = protegido(upstream, 1);
+        Future<Integer> presa = executor.submit(() -> cliente.getQuantidadeProduto("A123"));
+        assertTrue(dentroDoUpstream.await(5, TimeUnit.SECONDS));
+
+        // Act & Assert
+        assertThrows(ExternalAIndisponivelException.class, () -> cliente.getQuantidadeProduto("A123"));
+        liberar.countDown();
+        assertEquals(7, presa.get(5, TimeUnit.SECONDS));
+        assertEquals(CircuitBreaker.State.CLOSED, cliente.circuito("getQuantidadeProduto").getState());
+        assertEquals(0, cliente.circuito("getQuantidadeProduto").getMetrics().getNumberOfFailedCalls());
+    }
+
+    /**
+     * Harness: 32 clientes martelam o mock do External A com 20 ms de latência e 60% de erros durante 1 s.
+     * Com o bulkhead em 4 e o circuito abrindo, o upstream nunca vê mais de 4 chamadas simultâneas e as
+     * recusas voltam na hora, então a vazão do serviço fica limitada pelo que foi recusado, e não pelo timeout.
+     */
+    @Test
+    void harness_deveLimitarConcorrenciaNoUpstreamERecusarRapido_quandoUpstreamLentoEFalhando() throws Exception {
+        // Arrange
+        AtomicInteger chamadasUpstream = new AtomicInteger();
+        AtomicInteger emAndamento = new AtomicInteger();
+        AtomicInteger picoEmAndamento = new AtomicInteger();
+        ExternalAClient mock = new ExternalAMockConfig().externalAMockClient();
+        ExternalAClient upstream = (ExternalAClient) Proxy.newProxyInstance(ExternalAClient.class.getClassLoader(),
+                new Class<?>[]{ExternalAClient.class}, (proxy, method, args) -> {
+                    if (method.getDeclaringClass() == Object.class) {
+                        return method.invoke(mock, args);
+                    }
+                    chamadasUpstream.incrementAndGet();
+                    picoEmAndamento.accumulateAndGet(emAndamento.incrementAndGet(), Math::max);
+                    try {
+                        Thread.sleep(20);
+                        if (ThreadLocalRandom.current().nextDouble() < 0.6) {
+                            throw new IllegalStateException("falha injetada");
+                        }
+                        return method.invoke(mock, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    } finally {
+                        emAndamento.decrementAndGet();
+                    }
+                });
+        ExternalAClientProtegido cliente = protegido(upstream, 4);
+
+        AtomicInteger recusadas = new AtomicInteger();
+        AtomicLong nanosRecusadas = new AtomicLong();
+        long fim = System.nanoTime() + TimeUnit.SECONDS.toNanos(1);
+
+        // Act
+        List<Future<?>> clientes = new ArrayList<>();
+        for (int i = 0; i < 32; i++) {
+            clientes.add(executor.submit(() -> {
+                while (System.nanoTime() < fim) {
+                    long inicio = System.nanoTime();
+                    try {
+                        cliente.getProduto("A123");
+                    } catch (ExternalAIndisponivelException e) {
+                        recusadas.incrementAndGet();
+                        nanosRecusadas.addAndGet(System.nanoTime() - inicio);
+                    } catch (IllegalStateException e) {
+                        // Falha injetada que chegou ao upstream
+                    }
+                }
+            }));
+        }
+        for (Future<?> c : clientes) {
+            c.get(10, TimeUnit.SECONDS);
+        }
+
+        // Assert
+        assertTrue(picoEmAndamento.get() <= 4, "pico no upstream: " + picoEmAndamento.get());
+        assertTrue(recusadas.get() > chamadasUpstream.get(),
+                "recusadas: " + recusadas.get() + ", chamadas ao upstream: " + chamadasUpstream.get());
+        // 32 clientes × 1 s / 20 ms = 1600 chamadas se nada fosse recusado; 4 vagas dão no máximo ~200
+        assertTrue(chamadasUpstream.get() <= 250, "chamadas ao upstream: " + chamadasUpstream.get());
+        long mediaRecusaMicros = TimeUnit.NANOSECONDS.toMicros(nanosRecusadas.get() / recusadas.get());
+        assertTrue(mediaRecusaMicros < 5_000, "tempo médio de recusa (µs): " + mediaRecusaMicros);
+    }
+
+    private ExternalAClientProtegido protegido(ExternalAClient upstream, int maxConcorrencia) {
+        CircuitBreakerConfig circuito = CircuitBreakerConfig.custom()
+                .slidingWindowType(CircuitBreakerConfig.SlidingWindowType.COUNT_BASED)
+                .slidingWindowSize(10)
+                .minimumNumberOfCalls(4)
+                .failureRateThreshold(50)
+                .waitDurationInOpenState(Duration.ofMillis(200))
+                .permittedNumberOfCallsInHalfOpenState(2)
+                .build();
+        BulkheadConfig bulkhead = BulkheadConfig.custom()
+                .maxConcurrentCalls(maxConcorrencia)
+                .maxWaitDuration(Duration.ZERO)
+                .build();
+        return new ExternalAClientProtegido(upstream, circuito, bulkhead, meterRegistry);
+    }
+
+    private static ExternalAClient upstream(long latenciaMillis, double taxaErros, AtomicInteger chamadas) {
+        ExternalAClient mock = new ExternalAMockConfig().externalAMockClient();
+        return (ExternalAClient) Proxy.newProxyInstance(ExternalAClient.class.getClassLoader(),
+                new Class<?>[]{ExternalAClient.class}, (proxy, method, args) -> {
+                    chamadas.incrementAndGet();
+                    Thread.sleep(latenciaMillis);
+                    if (ThreadLocalRandom.current().nextDouble() < taxaErros) {
+                        throw new IllegalStateException("falha injetada");
+                    }
+                    return method.invoke(mock, args);
+                });
+    }
+
+    private static FeignException naoEncontrado() {
+        Request request = Request.create(Request.HttpMethod.GET, "http://external-a/produtos/inexistente",
+                Map.of(), new byte[0], StandardCharsets.UTF_8, null);
+        return new FeignException.NotFound("não encontrado", request, null, Map.of());
+    }
+}
@@ -0,0 +1,165 @@
+package com.example.order.feignclient;
+
+import com.example.order.exception.ExternalAIndisponivelException;
+import com.example.order.model.Produto;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class ExternalACoalescerTest {
+
+    @Mock
+    private ExternalAClient externalAClient;
+
+    private ExecutorService executor;
+
+    private final CountDownLatch liberarPrimeiroLote = new CountDownLatch(1);
+    private final CountDownLatch primeiroLoteNoUpstream = new CountDownLatch(1);
+
+    @BeforeEach
+    void setUp() {
+        executor = Executors.newCachedThreadPool();
+        // O primeiro lote fica preso no upstream até o teste liberar; os demais respondem na hora
+        when(externalAClient.getProdutosEmLote(anyCollection())).thenAnswer(invocation -> {
+            Collection<String> ids = invocation.getArgument(0);
+            if (primeiroLoteNoUpstream.getCount() > 0) {
+                primeiroLoteNoUpstream.countDown();
+                assertTrue(liberarPrimeiroLote.await(5, TimeUnit.SECONDS));
+            }
+            Map<String, Produto> encontrados = new HashMap<>();
+            ids.forEach(id -> encontrados.put(id, new Produto(id, "Produto" + id, BigDecimal.TEN, 10)));
+            return encontrados;
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void buscarProduto_deveEnviarImediatamente_quandoNaoHouverLoteEmAndamento() throws Exception {
+        // Arrange
+        ExternalACoalescer coalescer = new ExternalACoalescer(externalAClient, executor, 10_000_000L, 100);
+        liberarPrimeiroLote.countDown();
+
+        // Act
+        Produto produto = coalescer.buscarProduto("A").get(5, TimeUnit.SECONDS);
+
+        // Assert
+        assertEquals("A", produto.getId());
+        verify(externalAClient).getProdutosEmLote(anyCollection());
+        assertEquals(1, coalescer.getTotalChamadasEmLote());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void buscarProduto_deveAgruparConsultasConcorrentes_enquantoLoteAnteriorEstaNoUpstream() throws Exception {
+        // Arrange
+        ExternalACoalescer coalescer = new ExternalACoalescer(externalAClient, executor, 10_000_000L, 100);
+        CompletableFuture<Produto> primeira = coalescer.buscarProduto("A");
+        assertTrue(primeiroLoteNoUpstream.await(5, TimeUnit.SECONDS));
+
+        // Act
+        CompletableFuture<Produto> segunda = coalescer.buscarProduto("A");
+        CompletableFuture<Produto> terceira = coalescer.buscarProduto("B");
+        CompletableFuture<Produto> quarta = coalescer.buscarProduto("A");
+        liberarPrimeiroLote.countDown();
+
+        // Assert
+        assertEquals("A", primeira.get(5, TimeUnit.SECONDS).getId());
+        assertEquals("A", segunda.get(5, TimeUnit.SECONDS).getId());
+        assertEquals("B", terceira.get(5, TimeUnit.SECONDS).getId());
+        assertSame(segunda.get(), quarta.get());
+
+        ArgumentCaptor<Collection<String>> lotes = ArgumentCaptor.forClass(Collection.class);
+        verify(externalAClient, times(2)).getProdutosEmLote(lotes.capture());
+        assertEquals(Set.of("A", "B"), Set.copyOf(lotes.getAllValues().get(1)));
+        assertEquals(4, coalescer.getTotalSolicitacoes());
+        assertEquals(2, coalescer.getTotalChamadasEmLote());
+    }
+
+    @Test
+    void buscarProduto_deveEnviarLote_quandoAtingirTamanhoMaximo() throws Exception {
+        // Arrange
+        ExternalACoalescer coalescer = new ExternalACoalescer(externalAClient, executor, 10_000_000L, 2);
+        coalescer.buscarProduto("A");
+        assertTrue(primeiroLoteNoUpstream.await(5, TimeUnit.SECONDS));
+
+        // Act
+        CompletableFuture<Produto> b = coalescer.buscarProduto("B");
+        CompletableFuture<Produto> c = coalescer.buscarProduto("C");
+
+        // Assert: o lote cheio segue sem esperar o primeiro voltar nem a janela expirar
+        assertEquals(List.of("B", "C"), List.of(b.get(5, TimeUnit.SECONDS).getId(), c.get(5, TimeUnit.SECONDS).getId()));
+        liberarPrimeiroLote.countDown();
+    }
+
+    @Test
+    void buscarProduto_devePropagarErro_paraTodasAsConsultasDoLote() {
+        // Arrange
+        reset(externalAClient);
+        when(externalAClient.getProdutosEmLote(anyCollection())).thenThrow(new IllegalStateException("upstream fora"));
+        ExternalACoalescer coalescer = new ExternalACoalescer(externalAClient, executor, 1_000L, 100);
+
+        // Act
+        CompletableFuture<Produto> consulta = coalescer.buscarProduto("A");
+
+        // Assert
+        Exception exception = assertThrows(Exception.class, () -> consulta.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(IllegalStateException.class, exception.getCause());
+    }
+
+    @Test
+    void buscarProduto_deveFalharComIndisponivel_semExecutarNaThreadChamadora_quandoPoolDeEnvioRecusarLote()
+            throws Exception {
+        // Arrange: o primeiro lote é recusado pelo pool, os seguintes vão para o executor normal
+        AtomicBoolean recusar = new AtomicBoolean(true);
+        Executor poolCheio = tarefa -> {
+            if (recusar.getAndSet(false)) {
+                throw new RejectedExecutionException("fila cheia");
+            }
+            executor.execute(tarefa);
+        };
+        ExternalACoalescer coalescer = new ExternalACoalescer(externalAClient, poolCheio, 10_000_000L, 100);
+        liberarPrimeiroLote.countDown();
+
+        // Act
+        CompletableFuture<Produto> recusada = coalescer.buscarProduto("A");
+        CompletableFuture<Produto> seguinte = coalescer.buscarProduto("B");
+
+        // Assert
+        ExecutionException exception = assertThrows(ExecutionException.class, () -> recusada.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(ExternalAIndisponivelException.class, exception.getCause());
+        assertEquals("B", seguinte.get(5, TimeUnit.SECONDS).getId());
+        verify(externalAClient).getProdutosEmLote(Set.of("B"));
+    }
+}
@@ -0,0 +1,130 @@
+package com.example.order.feignclient;
+
+import com.example.order.model.Produto;
+import feign.FeignException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import reactor.test.StepVerifier;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExternalASinteticoTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void construtor_deveGerarCatalogoDeterministico_pelaSemente() {
+        // Act
+        List<Produto> primeiro = sintetico(1_000, LatenciaSintetica.nenhuma(), 0).getTodosProdutos();
+        List<Produto> segundo = sintetico(1_000, LatenciaSintetica.nenhuma(), 0).getTodosProdutos();
+
+        // Assert
+        assertEquals(1_000, primeiro.size());
+        assertEquals(primeiro, segundo);
+        assertEquals("P0000001", primeiro.get(0).getId());
+        assertEquals("P0001000", primeiro.get(999).getId());
+        for (Produto produto : primeiro) {
+            assertEquals(2, produto.getValor().scale());
+            assertTrue(produto.getValor().compareTo(BigDecimal.ONE) >= 0);
+            assertTrue(produto.getQuantidadeDisponivel() >= 0 && produto.getQuantidadeDisponivel() <= 50);
+        }
+        assertTrue(primeiro.stream().anyMatch(produto -> produto.getQuantidadeDisponivel() == 0));
+    }
+
+    @Test
+    void getProduto_deveAcharPeloIdSemMapa_eIgnorarIdsForaDoCatalogo() {
+        // Arrange
+        ExternalASintetico sintetico = sintetico(100_000, LatenciaSintetica.nenhuma(), 0);
+
+        // Act & Assert
+        assertEquals("P0054321", sintetico.getProduto("P0054321").getId());
+        assertEquals(sintetico.getTodosProdutos().get(99_999), sintetico.getProduto(ExternalASintetico.idProduto(99_999)));
+        assertNull(sintetico.getProduto("P0100001"));
+        assertNull(sintetico.getProduto("P0000000"));
+        assertNull(sintetico.getProduto("A123"));
+        assertNull(sintetico.getProduto("P00000x1"));
+        assertEquals(0, sintetico.getQuantidadeProduto("desconhecido"));
+        assertEquals(Map.of("P0000002", sintetico.getProduto("P0000002")),
+                sintetico.getProdutosEmLote(List.of("P0000002", "X")));
+    }
+
+    @Test
+    void getProduto_deveLancarServiceUnavailable_quandoTaxaDeErrosTotal() {
+        // Arrange
+        ExternalASintetico sintetico = sintetico(10, LatenciaSintetica.nenhuma(), 1.0);
+
+        // Act & Assert
+        assertThrows(FeignException.ServiceUnavailable.class, () -> sintetico.getProduto("P0000001"));
+        assertEquals(1.0, meterRegistry.get("externala.sintetico.erros").counter().count());
+        assertEquals(1.0, meterRegistry.get("externala.sintetico.chamadas").tag("metodo", "getProduto").counter().count());
+    }
+
+    @Test
+    void getProduto_deveEsperarALatenciaSorteada() {
+        // Arrange
+        ExternalASintetico sintetico = sintetico(10, LatenciaSintetica.de("fixa", 20_000, 0), 0);
+
+        // Act
+        long inicio = System.nanoTime();
+        sintetico.getProduto("P0000001");
+        long decorrido = System.nanoTime() - inicio;
+
+        // Assert
+        assertTrue(decorrido >= TimeUnit.MILLISECONDS.toNanos(20), "Respondeu em " + decorrido + " ns");
+    }
+
+    @Test
+    void reativo_deveAtrasarSemBloquear_eEmitirErroSorteado() {
+        // Arrange
+        ExternalAClientReativo reativo = sintetico(10, LatenciaSintetica.de("fixa", 50_000, 0), 0).reativo();
+        ExternalAClientReativo comErros = sintetico(10, LatenciaSintetica.nenhuma(), 1.0).reativo();
+
+        // Act & Assert
+        StepVerifier.withVirtualTime(() -> reativo.getQuantidadeProduto("P0000001"))
+                .expectSubscription()
+                .expectNoEvent(Duration.ofMillis(49))
+                .thenAwait(Duration.ofMillis(1))
+                .expectNextCount(1)
+                .verifyComplete();
+        StepVerifier.create(reativo.getProduto("inexistente").timeout(Duration.ofSeconds(1)))
+                .verifyComplete();
+        StepVerifier.create(comErros.getTodosProdutos())
+                .verifyError(FeignException.ServiceUnavailable.class);
+    }
+
+    @Test
+    void sortearNanos_deveRespeitarMedianaEP99_quandoLognormal() {
+        // Arrange
+        LatenciaSintetica latencia = LatenciaSintetica.de("lognormal", 20_000, 150_000);
+        long[] amostras = new long[200_000];
+
+        // Act
+        for (int i = 0; i < amostras.length; i++) {
+            amostras[i] = latencia.sortearNanos();
+        }
+        Arrays.sort(amostras);
+
+        // Assert: tolerância de 5% sobre os quantis teóricos
+        assertEquals(20_000_000, amostras[amostras.length / 2], 1_000_000);
+        assertEquals(150_000_000, amostras[(int) (amostras.length * 0.99)], 7_500_000);
+    }
+
+    @Test
+    void de_deveRecusarConfiguracaoInvalida() {
+        assertThrows(IllegalArgumentException.class, () -> LatenciaSintetica.de("gaussiana", 1_000, 2_000));
+        assertThrows(IllegalArgumentException.class, () -> LatenciaSintetica.de("lognormal", 2_000, 1_000));
+        assertThrows(IllegalArgumentException.class, () -> LatenciaSintetica.de("fixa", 0, 0));
+        assertEquals(0, LatenciaSintetica.de("nenhuma", 0, 0).sortearNanos());
+    }
+
+    private ExternalASintetico sintetico(int produtos, LatenciaSintetica latencia, double taxaErros) {
+        return new ExternalASintetico(produtos, 42, 0, 50, 0.1, latencia, taxaErros, meterRegistry);
+    }
+}
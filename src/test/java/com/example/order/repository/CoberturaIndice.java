@@ -0,0 +1,110 @@
+package com.example.order.repository;
+
+import org.bson.Document;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Confere se algum dos índices declarados cobre a forma de uma consulta: o primeiro campo do índice precisa
+ * ter predicado no filtro (ou o índice precisa entregar a ordenação pedida), e a ordenação só sai do índice
+ * quando os campos seguintes ao prefixo de igualdade a acompanham. Predicados dentro de {@code $or} não contam.
+ *
+ * <p>Isto não é o plano de execução: o servidor em memória dos testes não implementa {@code explain} e
+ * ignora índices secundários ao executar. A regra só garante que os índices criados por
+ * {@link com.example.order.config.MongoConfig} batem com as consultas; o plano real se confere com
+ * {@code explain} contra um mongod em {@link PedidoRepositoryExplainTest}.</p>
+ */
+final class CoberturaIndice {
+
+    // indice nulo quando nenhum índice declarado cobre a consulta
+    record Cobertura(String indice, boolean ordenacaoEmMemoria) {
+
+        boolean coberta() {
+            return indice != null;
+        }
+    }
+
+    private CoberturaIndice() {
+    }
+
+    static Cobertura avaliar(Document filtro, Document ordenacao, List<Document> indices) {
+        Set<String> igualdades = new HashSet<>();
+        Set<String> intervalos = new HashSet<>();
+        coletarPredicados(filtro, igualdades, intervalos);
+
+        Cobertura melhor = null;
+        int melhorPrefixo = -1;
+        for (Document indice : indices) {
+            Document chave = indice.get("key", Document.class);
+            List<String> campos = new ArrayList<>(chave.keySet());
+
+            int prefixoIgualdade = 0;
+            while (prefixoIgualdade < campos.size() && igualdades.contains(campos.get(prefixoIgualdade))) {
+                prefixoIgualdade++;
+            }
+            boolean usaFiltro = igualdades.contains(campos.get(0)) || intervalos.contains(campos.get(0));
+            boolean entregaOrdenacao = entregaOrdenacao(chave, campos, prefixoIgualdade, ordenacao);
+            if (!usaFiltro && (ordenacao.isEmpty() || !entregaOrdenacao)) {
+                continue;
+            }
+
+            Cobertura cobertura = new Cobertura(indice.getString("name"), !entregaOrdenacao);
+            boolean preferivel = melhor == null
+                    || (melhor.ordenacaoEmMemoria() && !cobertura.ordenacaoEmMemoria())
+                    || (melhor.ordenacaoEmMemoria() == cobertura.ordenacaoEmMemoria() && prefixoIgualdade > melhorPrefixo);
+            if (preferivel) {
+                melhor = cobertura;
+                melhorPrefixo = prefixoIgualdade;
+            }
+        }
+        return melhor != null ? melhor : new Cobertura(null, !ordenacao.isEmpty());
+    }
+
+    private static void coletarPredicados(Document filtro, Set<String> igualdades, Set<String> intervalos) {
+        for (Map.Entry<String, Object> predicado : filtro.entrySet()) {
+            String campo = predicado.getKey();
+            if (campo.equals("$and")) {
+                for (Object condicao : (List<?>) predicado.getValue()) {
+                    coletarPredicados((Document) condicao, igualdades, intervalos);
+                }
+            } else if (!campo.startsWith("$")) {
+                if (predicado.getValue() instanceof Document operadores
+                        && operadores.keySet().stream().anyMatch(operador -> operador.startsWith("$"))
+                        && !operadores.containsKey("$eq")) {
+                    intervalos.add(campo);
+                } else {
+                    igualdades.add(campo);
+                }
+            }
+        }
+    }
+
+    // Os campos logo após o prefixo de igualdade precisam seguir a ordenação, todos no mesmo sentido ou todos invertidos
+    private static boolean entregaOrdenacao(Document chave, List<String> campos, int prefixoIgualdade, Document ordenacao) {
+        if (ordenacao.isEmpty()) {
+            return true;
+        }
+        Integer sentido = null;
+        int posicao = prefixoIgualdade;
+        for (Map.Entry<String, Object> campoOrdenacao : ordenacao.entrySet()) {
+            if (posicao >= campos.size() || !campos.get(posicao).equals(campoOrdenacao.getKey())) {
+                return false;
+            }
+            int relacao = direcao(chave.get(campos.get(posicao))) * direcao(campoOrdenacao.getValue());
+            if (sentido != null && sentido != relacao) {
+                return false;
+            }
+            sentido = relacao;
+            posicao++;
+        }
+        return true;
+    }
+
+    private static int direcao(Object valor) {
+        return valor instanceof Number numero && numero.doubleValue() < 0 ? -1 : 1;
+    }
+}
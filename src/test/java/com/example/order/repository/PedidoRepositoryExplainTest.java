@@ -0,0 +1,157 @@
+package com.example.order.repository;
+
+import com.example.order.config.MongoConfig;
+import com.example.order.model.Pedido;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.QueryMapper;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Plano de execução real das consultas de pedidos, com {@code explain} num mongod em contêiner e os índices
+ * criados por {@link MongoConfig}. Complementa a verificação de {@link CoberturaIndice}, que roda sem Docker;
+ * sem Docker disponível estes testes são pulados.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class PedidoRepositoryExplainTest {
+
+    @Container
+    private static final MongoDBContainer MONGO = new MongoDBContainer("mongo:7.0");
+
+    private static MongoClient cliente;
+
+    private MongoTemplate mongoTemplate;
+
+    @BeforeAll
+    static void conectar() {
+        cliente = MongoClients.create(MONGO.getConnectionString());
+    }
+
+    @AfterAll
+    static void desconectar() {
+        cliente.close();
+    }
+
+    @BeforeEach
+    void setUp() {
+        mongoTemplate = new MongoTemplate(cliente, "orderdb");
+        mongoTemplate.dropCollection(Pedido.class);
+        new MongoConfig(mongoTemplate);
+        LocalDateTime base = LocalDateTime.of(2025, 3, 1, 10, 0);
+        for (int i = 0; i < 20; i++) {
+            salvar("user" + (i % 4), base.plusMinutes(i), i % 3 == 0 ? "PAGO" : "PENDENTE PAGAMENTO");
+        }
+    }
+
+    @Test
+    void consultasDePedidosPorUsuario_deveUsarIndiceDoUsuario_semColecaoInteiraNemOrdenacaoEmMemoria() {
+        // Arrange
+        LocalDateTime horario = LocalDateTime.of(2025, 3, 1, 10, 5);
+        List<Query> consultas = List.of(
+                new Query(Criteria.where("idUsuario").is("user1")),
+                PedidoRepositoryImpl.consultaPorUsuario("user1"),
+                PedidoRepositoryImpl.consultaPagina("user1", null, null, 21),
+                PedidoRepositoryImpl.consultaPagina("user1", horario, new ObjectId().toHexString(), 21));
+
+        for (Query consulta : consultas) {
+            // Act
+            List<Document> estagios = estagiosDoPlano(consulta);
+
+            // Assert
+            assertUsaSoOIndice(estagios, "idUsuario_horarioCriacao_id", consulta);
+        }
+    }
+
+    @Test
+    void consultasPorSituacao_deveUsarIndiceDeStatus_semColecaoInteiraNemOrdenacaoEmMemoria() {
+        // Arrange
+        List<Query> consultas = List.of(
+                new Query(Criteria.where("status").is("PENDENTE PAGAMENTO"))
+                        .with(Sort.by(Sort.Direction.ASC, "horarioCriacao")),
+                PedidoRepositoryImpl.consultaPorStatus("PENDENTE PAGAMENTO", null),
+                PedidoRepositoryImpl.consultaPorStatus("PENDENTE PAGAMENTO", LocalDateTime.of(2025, 3, 1, 10, 10)));
+
+        for (Query consulta : consultas) {
+            // Act
+            List<Document> estagios = estagiosDoPlano(consulta);
+
+            // Assert
+            assertUsaSoOIndice(estagios, "status_horarioCriacao", consulta);
+        }
+    }
+
+    private static void assertUsaSoOIndice(List<Document> estagios, String indice, Query consulta) {
+        List<String> nomes = estagios.stream().map(estagio -> estagio.getString("stage")).toList();
+        assertFalse(nomes.contains("COLLSCAN"), "Varredura da coleção em " + consulta + ": " + nomes);
+        assertFalse(nomes.contains("SORT"), "Ordenação em memória em " + consulta + ": " + nomes);
+        List<String> indices = estagios.stream()
+                .filter(estagio -> "IXSCAN".equals(estagio.getString("stage")))
+                .map(estagio -> estagio.getString("indexName"))
+                .toList();
+        assertFalse(indices.isEmpty(), "Sem IXSCAN em " + consulta + ": " + nomes);
+        indices.forEach(nome -> assertEquals(indice, nome, "Índice usado em " + consulta));
+    }
+
+    // Estágios do plano vencedor, da raiz às folhas
+    private List<Document> estagiosDoPlano(Query consulta) {
+        QueryMapper mapper = new QueryMapper(mongoTemplate.getConverter());
+        MongoPersistentEntity<?> entidade = mongoTemplate.getConverter().getMappingContext()
+                .getRequiredPersistentEntity(Pedido.class);
+        Document filtro = mapper.getMappedObject(consulta.getQueryObject(), entidade);
+        Document ordenacao = mapper.getMappedSort(consulta.getSortObject(), entidade);
+        Document explain = mongoTemplate.getCollection("pedidos")
+                .find(filtro)
+                .sort(ordenacao)
+                .limit(consulta.isLimited() ? consulta.getLimit() : 0)
+                .explain();
+        Document plano = explain.get("queryPlanner", Document.class).get("winningPlan", Document.class);
+        // No mecanismo de execução SBE o plano clássico vem dentro de queryPlan
+        if (plano.containsKey("queryPlan")) {
+            plano = plano.get("queryPlan", Document.class);
+        }
+        List<Document> estagios = new ArrayList<>();
+        coletar(plano, estagios);
+        return estagios;
+    }
+
+    private static void coletar(Document estagio, List<Document> estagios) {
+        estagios.add(estagio);
+        Document entrada = estagio.get("inputStage", Document.class);
+        if (entrada != null) {
+            coletar(entrada, estagios);
+        }
+        List<Document> entradas = estagio.getList("inputStages", Document.class);
+        if (entradas != null) {
+            entradas.forEach(filho -> coletar(filho, estagios));
+        }
+    }
+
+    private void salvar(String idUsuario, LocalDateTime horarioCriacao, String status) {
+        Pedido pedido = new Pedido(idUsuario);
+        pedido.setId(new ObjectId().toHexString());
+        pedido.setHorarioCriacao(horarioCriacao);
+        pedido.setValorTotal(BigDecimal.TEN);
+        pedido.setStatus(status);
+        mongoTemplate.insert(pedido);
+    }
+}
@@ -0,0 +1,224 @@
+package com.example.order.repository;
+
+import com.example.order.config.MongoConfig;
+import com.example.order.model.Pedido;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import de.bwaldvogel.mongo.MongoServer;
+import de.bwaldvogel.mongo.backend.memory.MemoryBackend;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.QueryMapper;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Roda contra um servidor em memória compatível com o protocolo do Mongo, com os índices criados por
+ * {@link MongoConfig}. O servidor ignora índices secundários ao executar, então os testes de cobertura só
+ * conferem que as consultas de pedidos batem com os índices declarados (veja {@link CoberturaIndice}).
+ */
+class PedidoRepositoryImplTest {
+
+    private static MongoServer servidor;
+    private static MongoClient cliente;
+
+    private MongoTemplate mongoTemplate;
+    private PedidoRepositoryImpl pedidoRepository;
+
+    @BeforeAll
+    static void iniciarServidor() {
+        servidor = new MongoServer(new MemoryBackend());
+        cliente = MongoClients.create(servidor.bindAndGetConnectionString());
+    }
+
+    @AfterAll
+    static void pararServidor() {
+        cliente.close();
+        servidor.shutdownNow();
+    }
+
+    @BeforeEach
+    void setUp() {
+        mongoTemplate = new MongoTemplate(cliente, "orderdb");
+        mongoTemplate.dropCollection(Pedido.class);
+        new MongoConfig(mongoTemplate);
+        pedidoRepository = new PedidoRepositoryImpl(mongoTemplate);
+    }
+
+    @Test
+    void buscarPaginaPorUsuario_devePercorrerTodosOsPedidos_semRepetirNemPular() {
+        // Arrange: três pedidos empatados no horário de criação, desempatados pelo id
+        LocalDateTime base = LocalDateTime.of(2025, 3, 1, 10, 0);
+        List<String> esperados = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            esperados.add(0, salvar("user123", i < 3 ? base : base.plusMinutes(i)).getId());
+        }
+        salvar("outroUsuario", base.plusHours(1));
+
+        // Act
+        List<String> lidos = new ArrayList<>();
+        Pedido ultimo = null;
+        do {
+            List<Pedido> pagina = pedidoRepository.buscarPaginaPorUsuario("user123",
+                    ultimo == null ? null : ultimo.getHorarioCriacao(), ultimo == null ? null : ultimo.getId(), 2);
+            pagina.forEach(pedido -> lidos.add(pedido.getId()));
+            ultimo = pagina.size() == 2 ? pagina.get(1) : null;
+        } while (ultimo != null);
+
+        // Assert
+        assertEquals(esperados, lidos);
+    }
+
+    @Test
+    void streamPorUsuario_deveRetornarPedidosDoMaisRecenteParaOMaisAntigo() {
+        // Arrange
+        LocalDateTime base = LocalDateTime.of(2025, 3, 1, 10, 0);
+        String antigo = salvar("user123", base).getId();
+        String recente = salvar("user123", base.plusDays(1)).getId();
+
+        // Act
+        List<String> lidos;
+        try (Stream<Pedido> pedidos = pedidoRepository.streamPorUsuario("user123")) {
+            lidos = pedidos.map(Pedido::getId).collect(Collectors.toList());
+        }
+
+        // Assert
+        assertEquals(List.of(recente, antigo), lidos);
+    }
+
+    @Test
+    void consultasDePedidosPorUsuario_devemSerCobertasPeloIndiceDeclarado_semOrdenacaoEmMemoria() {
+        // Arrange
+        LocalDateTime horario = LocalDateTime.of(2025, 3, 1, 10, 0);
+        List<Query> consultas = List.of(
+                // PedidoRepository.findByIdUsuario
+                new Query(Criteria.where("idUsuario").is("user123")),
+                PedidoRepositoryImpl.consultaPorUsuario("user123"),
+                PedidoRepositoryImpl.consultaPagina("user123", null, null, 21),
+                PedidoRepositoryImpl.consultaPagina("user123", horario, new ObjectId().toHexString(), 21));
+
+        for (Query consulta : consultas) {
+            // Act
+            CoberturaIndice.Cobertura cobertura = coberturaDe(consulta);
+
+            // Assert
+            assertTrue(cobertura.coberta(), "Consulta sem índice declarado: " + consulta);
+            assertEquals("idUsuario_horarioCriacao_id", cobertura.indice());
+            assertFalse(cobertura.ordenacaoEmMemoria(), "Ordenação em memória: " + consulta);
+        }
+    }
+
+    @Test
+    void consultaPorSituacao_deveSerCobertaPeloIndiceDeStatus() {
+        // Arrange
+        Query consulta = new Query(Criteria.where("status").is("PENDENTE PAGAMENTO"))
+                .with(Sort.by(Sort.Direction.ASC, "horarioCriacao"));
+
+        // Act
+        CoberturaIndice.Cobertura cobertura = coberturaDe(consulta);
+
+        // Assert
+        assertTrue(cobertura.coberta());
+        assertEquals("status_horarioCriacao", cobertura.indice());
+        assertFalse(cobertura.ordenacaoEmMemoria());
+    }
+
+    @Test
+    void streamPorStatus_deveTrazerPendentesCriadosAntesDoLimite_doMaisAntigoParaOMaisRecente() {
+        // Arrange
+        LocalDateTime base = LocalDateTime.of(2025, 3, 1, 10, 0);
+        Pedido recente = salvar("user2", base.plusMinutes(10));
+        Pedido antigo = salvar("user1", base);
+        salvar("user3", base.plusMinutes(40));
+        Pedido pago = new Pedido("user4");
+        pago.setHorarioCriacao(base);
+        pago.setStatus("PAGO");
+        mongoTemplate.insert(pago);
+
+        // Act
+        List<Pedido> lidos;
+        try (Stream<Pedido> pedidos = pedidoRepository.streamPorStatus("PENDENTE PAGAMENTO", base.plusMinutes(30))) {
+            lidos = pedidos.collect(Collectors.toList());
+        }
+
+        // Assert: só id, usuário e horário de criação
+        assertEquals(List.of(antigo.getId(), recente.getId()), lidos.stream().map(Pedido::getId).toList());
+        assertEquals("user1", lidos.get(0).getIdUsuario());
+        assertEquals(base, lidos.get(0).getHorarioCriacao());
+        assertNull(lidos.get(0).getValorTotal());
+        assertCobertaPeloIndiceDeStatus(PedidoRepositoryImpl.consultaPorStatus("PENDENTE PAGAMENTO", base));
+        assertCobertaPeloIndiceDeStatus(PedidoRepositoryImpl.consultaPorStatus("PENDENTE PAGAMENTO", null));
+    }
+
+    @Test
+    void buscarPorIdsEStatus_deveIgnorarPedidosQueJaMudaramDeSituacao() {
+        // Arrange
+        LocalDateTime horario = LocalDateTime.of(2025, 3, 1, 10, 0);
+        Pedido pendente = salvar("user1", horario);
+        Pedido expirado = salvar("user2", horario);
+        pedidoRepository.atualizarStatus(List.of(expirado.getId()), "PENDENTE PAGAMENTO", "EXPIRADO");
+
+        // Act
+        List<Pedido> pedidos = pedidoRepository.buscarPorIdsEStatus(
+                List.of(pendente.getId(), expirado.getId(), new ObjectId().toHexString()), "PENDENTE PAGAMENTO");
+
+        // Assert
+        assertEquals(1, pedidos.size());
+        assertEquals(pendente.getId(), pedidos.get(0).getId());
+        assertEquals("user1", pedidos.get(0).getIdUsuario());
+    }
+
+    @Test
+    void coberturaDe_deveApontarConsultaDescoberta_quandoIndiceDoUsuarioNaoExistir() {
+        // Arrange
+        mongoTemplate.getCollection("pedidos").dropIndex("idUsuario_horarioCriacao_id");
+
+        // Act
+        CoberturaIndice.Cobertura cobertura = coberturaDe(PedidoRepositoryImpl.consultaPorUsuario("user123"));
+
+        // Assert
+        assertFalse(cobertura.coberta());
+    }
+
+    private void assertCobertaPeloIndiceDeStatus(Query consulta) {
+        CoberturaIndice.Cobertura cobertura = coberturaDe(consulta);
+        assertTrue(cobertura.coberta(), "Consulta sem índice declarado: " + consulta);
+        assertEquals("status_horarioCriacao", cobertura.indice());
+        assertFalse(cobertura.ordenacaoEmMemoria(), "Ordenação em memória: " + consulta);
+    }
+
+    private CoberturaIndice.Cobertura coberturaDe(Query consulta) {
+        QueryMapper mapper = new QueryMapper(mongoTemplate.getConverter());
+        MongoPersistentEntity<?> entidade = mongoTemplate.getConverter().getMappingContext()
+                .getRequiredPersistentEntity(Pedido.class);
+        Document filtro = mapper.getMappedObject(consulta.getQueryObject(), entidade);
+        Document ordenacao = mapper.getMappedSort(consulta.getSortObject(), entidade);
+        List<Document> indices = mongoTemplate.getCollection("pedidos").listIndexes().into(new ArrayList<>());
+        return CoberturaIndice.avaliar(filtro, ordenacao, indices);
+    }
+
+    private Pedido salvar(String idUsuario, LocalDateTime horarioCriacao) {
+        Pedido pedido = new Pedido(idUsuario);
+        pedido.setId(new ObjectId().toHexString());
+        pedido.setHorarioCriacao(horarioCriacao);
+        pedido.setValorTotal(BigDecimal.TEN);
+        pedido.setStatus("PENDENTE PAGAMENTO");
+        return mongoTemplate.insert(pedido);
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.order.repository;
+
+import com.example.order.model.Usuario;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import de.bwaldvogel.mongo.MongoServer;
+import de.bwaldvogel.mongo.backend.memory.MemoryBackend;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Roda contra um servidor em memória compatível com o protocolo do Mongo.
+ */
+class UsuarioRepositoryImplTest {
+
+    private static MongoServer servidor;
+    private static MongoClient cliente;
+
+    private MongoTemplate mongoTemplate;
+    private UsuarioRepositoryImpl usuarioRepository;
+
+    @BeforeAll
+    static void iniciarServidor() {
+        servidor = new MongoServer(new MemoryBackend());
+        cliente = MongoClients.create(servidor.bindAndGetConnectionString());
+    }
+
+    @AfterAll
+    static void pararServidor() {
+        cliente.close();
+        servidor.shutdownNow();
+    }
+
+    @BeforeEach
+    void setUp() {
+        mongoTemplate = new MongoTemplate(cliente, "orderdb");
+        mongoTemplate.dropCollection(Usuario.class);
+        usuarioRepository = new UsuarioRepositoryImpl(mongoTemplate);
+    }
+
+    @Test
+    void atualizarSenhaSeInalterada_deveTrocarHash_quandoHashAindaForOConferido() {
+        // Arrange
+        salvar("user123", "hash-antigo");
+
+        // Act
+        boolean trocou = usuarioRepository.atualizarSenhaSeInalterada("user123", "hash-antigo", "hash-novo");
+
+        // Assert
+        assertTrue(trocou);
+        assertEquals("hash-novo", mongoTemplate.findById("user123", Usuario.class).getPassword());
+    }
+
+    @Test
+    void atualizarSenhaSeInalterada_naoDeveSobrescrever_quandoHashJaFoiTrocado() {
+        // Arrange: a senha mudou entre o login que disparou o rehash e a gravação dele
+        salvar("user123", "hash-da-senha-nova");
+        salvar("user456", "hash-antigo");
+
+        // Act
+        boolean trocou = usuarioRepository.atualizarSenhaSeInalterada("user123", "hash-antigo", "hash-novo");
+
+        // Assert
+        assertFalse(trocou);
+        assertEquals("hash-da-senha-nova", mongoTemplate.findById("user123", Usuario.class).getPassword());
+        assertEquals("hash-antigo", mongoTemplate.findById("user456", Usuario.class).getPassword());
+    }
+
+    private void salvar(String idUsuario, String password) {
+        Usuario usuario = new Usuario();
+        usuario.setIdUsuario(idUsuario);
+        usuario.setPassword(password);
+        mongoTemplate.insert(usuario);
+    }
+}
@@ -1,29 +1,28 @@
 package com.example.order.service;
 
 import com.example.order.exception.MensagemErrorException;
+import com.example.order.model.Usuario;
 import com.example.order.service.dto.LoginRequest;
 import com.example.order.service.dto.LoginResponse;
-import com.example.order.service.dto.RegistroRequest;
-import com.example.order.service.dto.RegistroResponse;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.mockito.junit.jupiter.MockitoSettings;
 import org.mockito.quality.Strictness;
 import org.springframework.http.HttpStatus;
-import org.springframework.security.core.userdetails.User;
-import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.test.util.ReflectionTestUtils;
 
 import java.util.Base64;
+import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -31,18 +30,14 @@ import static org.mockito.Mockito.*;
 class AuthServiceTest {
 
     @Mock
-    private UserDetailsService userDetailsService;
+    private UserService userService;
 
-    @Mock
-    private UserService userServiceMock; // Mock para UserService, usado separadamente
-
-    @InjectMocks
-    private AuthService authService; // Instância real, mas com mocks injetados
+    private AuthService authService; // Instância real, com o mock de UserService
 
     @BeforeEach
     void setUp() {
-        // Configura o authService para usar o mock
-        authService = new AuthService(userDetailsService);
+        // BCrypt de custo 4 executado na própria thread do teste
+        authService = new AuthService(userService, senhaService(4));
         // Configuramos o campo privado secretKey com uma chave segura (256 bits, 32 bytes)
         String secureSecretKey = Base64.getEncoder().encodeToString(new byte[32]); // Gera uma chave aleatória de 32 bytes
         ReflectionTestUtils.setField(authService, "secretKey", secureSecretKey);
@@ -54,15 +49,7 @@ class AuthServiceTest {
         LoginRequest loginRequest = mock(LoginRequest.class);
         when(loginRequest.getIdUsuario()).thenReturn("user123");
         when(loginRequest.getPassword()).thenReturn("password123");
-
-        UserDetails userDetails = User.withUsername("user123")
-                .password(new BCryptPasswordEncoder().encode("password123"))
-                .roles("USER")
-                .build();
-        when(userDetailsService.loadUserByUsername("user123")).thenReturn(userDetails);
-
-        // Testamos diretamente o método público generateToken
-        String expectedToken = authService.generateToken("user123");
+        when(userService.buscarUsuario("user123")).thenReturn(Optional.of(usuario(new BCryptPasswordEncoder(4).encode("password123"))));
 
         // Act
         LoginResponse response = authService.authenticate(loginRequest);
@@ -71,8 +58,9 @@ class AuthServiceTest {
         assertNotNull(response);
         assertNotNull(response.getToken()); // Verifica apenas se o token existe, não o valor exato
         assertTrue(response.getToken().length() > 0); // Garante que o token não está vazio
-        verify(userDetailsService).loadUserByUsername("user123");
-        verifyNoMoreInteractions(userDetailsService);
+        verify(userService).buscarUsuario("user123");
+        // Hash já no custo configurado: nada a regravar
+        verifyNoMoreInteractions(userService);
     }
 
     @Test
@@ -81,7 +69,7 @@ class AuthServiceTest {
         LoginRequest loginRequest = mock(LoginRequest.class);
         when(loginRequest.getIdUsuario()).thenReturn("user123");
         when(loginRequest.getPassword()).thenReturn("password123");
-        when(userDetailsService.loadUserByUsername("user123")).thenReturn(null);
+        when(userService.buscarUsuario("user123")).thenReturn(Optional.empty());
 
         // Act & Assert
         MensagemErrorException exception = assertThrows(MensagemErrorException.class, () -> {
@@ -89,8 +77,8 @@ class AuthServiceTest {
         });
         assertEquals(HttpStatus.UNAUTHORIZED, exception.getStatus());
         assertEquals("Credenciais inválidas", exception.getMessage());
-        verify(userDetailsService).loadUserByUsername("user123");
-        verifyNoMoreInteractions(userDetailsService);
+        verify(userService).buscarUsuario("user123");
+        verifyNoMoreInteractions(userService);
     }
 
     @Test
@@ -99,12 +87,7 @@ class AuthServiceTest {
         LoginRequest loginRequest = mock(LoginRequest.class);
         when(loginRequest.getIdUsuario()).thenReturn("user123");
         when(loginRequest.getPassword()).thenReturn("wrongPassword");
-
-        UserDetails userDetails = User.withUsername("user123")
-                .password(new BCryptPasswordEncoder().encode("password123"))
-                .roles("USER")
-                .build();
-        when(userDetailsService.loadUserByUsername("user123")).thenReturn(userDetails);
+        when(userService.buscarUsuario("user123")).thenReturn(Optional.of(usuario(new BCryptPasswordEncoder(4).encode("password123"))));
 
         // Act & Assert
         MensagemErrorException exception = assertThrows(MensagemErrorException.class, () -> {
@@ -112,8 +95,43 @@ class AuthServiceTest {
         });
         assertEquals(HttpStatus.UNAUTHORIZED, exception.getStatus());
         assertEquals("Credenciais inválidas", exception.getMessage());
-        verify(userDetailsService).loadUserByUsername("user123");
-        verifyNoMoreInteractions(userDetailsService);
+        verify(userService).buscarUsuario("user123");
+        verifyNoMoreInteractions(userService);
+    }
+
+    @Test
+    void authenticate_deveRegravarHashComCustoAtual_quandoHashTiverCustoMenor() {
+        // Arrange
+        authService = new AuthService(userService, senhaService(5));
+        ReflectionTestUtils.setField(authService, "secretKey", Base64.getEncoder().encodeToString(new byte[32]));
+        LoginRequest loginRequest = mock(LoginRequest.class);
+        when(loginRequest.getIdUsuario()).thenReturn("user123");
+        when(loginRequest.getPassword()).thenReturn("password123");
+        String hashAntigo = new BCryptPasswordEncoder(4).encode("password123");
+        when(userService.buscarUsuario("user123")).thenReturn(Optional.of(usuario(hashAntigo)));
+
+        // Act
+        authService.authenticate(loginRequest);
+
+        // Assert
+        ArgumentCaptor<String> novoHash = ArgumentCaptor.forClass(String.class);
+        verify(userService).atualizarHashSenha(eq("user123"), eq(hashAntigo), novoHash.capture());
+        assertTrue(novoHash.getValue().startsWith("$2a$05$"));
+        assertTrue(new BCryptPasswordEncoder().matches("password123", novoHash.getValue()));
+    }
+
+    @Test
+    void authenticate_naoDeveRegravarHash_quandoSenhaInvalida() {
+        // Arrange
+        authService = new AuthService(userService, senhaService(5));
+        LoginRequest loginRequest = mock(LoginRequest.class);
+        when(loginRequest.getIdUsuario()).thenReturn("user123");
+        when(loginRequest.getPassword()).thenReturn("wrongPassword");
+        when(userService.buscarUsuario("user123")).thenReturn(Optional.of(usuario(new BCryptPasswordEncoder(4).encode("password123"))));
+
+        // Act & Assert
+        assertThrows(MensagemErrorException.class, () -> authService.authenticate(loginRequest));
+        verify(userService, never()).atualizarHashSenha(anyString(), anyString(), anyString());
     }
 
     @Test
@@ -128,4 +146,15 @@ class AuthServiceTest {
         assertTrue(token.length() > 0); // Verifica se o token não está vazio
         // Não testamos o conteúdo exato, pois depende da chave secreta e da data
     }
-}
\ No newline at end of file
+
+    private static SenhaService senhaService(int custo) {
+        return new SenhaService(Runnable::run, new SimpleMeterRegistry(), custo, 1_000, 120, 100);
+    }
+
+    private static Usuario usuario(String hash) {
+        Usuario usuario = new Usuario();
+        usuario.setIdUsuario("user123");
+        usuario.setPassword(hash);
+        return usuario;
+    }
+}
@@ -0,0 +1,223 @@
+package com.example.order.service;
+
+import com.example.order.exception.ExternalAIndisponivelException;
+import com.example.order.feignclient.ExternalAClient;
+import com.example.order.model.AlteracoesCatalogo;
+import com.example.order.model.Produto;
+import feign.FeignException;
+import feign.Request;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class CatalogoEmMemoriaServiceTest {
+
+    @Mock
+    private ExternalAClient externalAClient;
+
+    private SimpleMeterRegistry meterRegistry;
+    private CatalogoEmMemoriaService catalogoEmMemoriaService;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        catalogoEmMemoriaService = new CatalogoEmMemoriaService(externalAClient, meterRegistry);
+        ReflectionTestUtils.setField(catalogoEmMemoriaService, "habilitado", true);
+    }
+
+    @Test
+    void snapshotAtual_deveSerNulo_quandoDesabilitadoOuAntesDaPrimeiraCarga() {
+        // Arrange
+        when(externalAClient.getTodosProdutos()).thenReturn(List.of(produto("1", "10.00")));
+
+        // Act & Assert
+        assertNull(catalogoEmMemoriaService.snapshotAtual());
+        catalogoEmMemoriaService.atualizar();
+        ReflectionTestUtils.setField(catalogoEmMemoriaService, "habilitado", false);
+        assertNull(catalogoEmMemoriaService.snapshotAtual());
+    }
+
+    @Test
+    void atualizar_deveCarregarCatalogoInteiro_quandoModoCompleto() {
+        // Arrange
+        when(externalAClient.getTodosProdutos()).thenReturn(List.of(produto("1", "10.00"), produto("2", "5.00")));
+
+        // Act
+        catalogoEmMemoriaService.atualizar();
+
+        // Assert
+        CatalogoEmMemoriaService.SnapshotCatalogo snapshot = catalogoEmMemoriaService.snapshotAtual();
+        assertEquals(1, snapshot.versao());
+        assertEquals(List.of("1", "2"), snapshot.lista().stream().map(Produto::getId).toList());
+        assertEquals(new BigDecimal("5.00"), snapshot.produto("2").getValor());
+        assertFalse(catalogoEmMemoriaService.isDesatualizado(snapshot));
+        assertThrows(UnsupportedOperationException.class, () -> snapshot.lista().add(produto("3", "1.00")));
+    }
+
+    @Test
+    void atualizar_deveManterVersaoELista_quandoConteudoNaoMudou() {
+        // Arrange
+        when(externalAClient.getTodosProdutos())
+                .thenReturn(List.of(produto("1", "10.00")))
+                .thenReturn(List.of(produto("1", "10.00")))
+                .thenReturn(List.of(produto("1", "12.00")));
+
+        // Act
+        catalogoEmMemoriaService.atualizar();
+        CatalogoEmMemoriaService.SnapshotCatalogo primeiro = catalogoEmMemoriaService.snapshotAtual();
+        catalogoEmMemoriaService.atualizar();
+        CatalogoEmMemoriaService.SnapshotCatalogo igual = catalogoEmMemoriaService.snapshotAtual();
+        catalogoEmMemoriaService.atualizar();
+        CatalogoEmMemoriaService.SnapshotCatalogo alterado = catalogoEmMemoriaService.snapshotAtual();
+
+        // Assert
+        assertEquals(1, igual.versao());
+        assertSame(primeiro.lista(), igual.lista());
+        assertEquals(2, alterado.versao());
+        assertEquals(new BigDecimal("12.00"), alterado.produto("1").getValor());
+    }
+
+    @Test
+    void atualizar_deveAplicarSoAsAlteracoes_quandoModoDelta() {
+        // Arrange
+        ReflectionTestUtils.setField(catalogoEmMemoriaService, "deltaHabilitado", true);
+        when(externalAClient.getAlteracoesProdutos(0L))
+                .thenReturn(new AlteracoesCatalogo(7L, List.of(produto("1", "10.00"), produto("2", "5.00")), List.of()));
+        when(externalAClient.getAlteracoesProdutos(7L))
+                .thenReturn(new AlteracoesCatalogo(9L, List.of(produto("2", "6.00"), produto("3", "1.00")), List.of("1")));
+
+        // Act
+        catalogoEmMemoriaService.atualizar();
+        catalogoEmMemoriaService.atualizar();
+
+        // Assert
+        CatalogoEmMemoriaService.SnapshotCatalogo snapshot = catalogoEmMemoriaService.snapshotAtual();
+        assertEquals(2, snapshot.versao());
+        assertEquals(List.of("2", "3"), snapshot.lista().stream().map(Produto::getId).toList());
+        assertEquals(new BigDecimal("6.00"), snapshot.produto("2").getValor());
+        assertNull(snapshot.produto("1"));
+        verify(externalAClient, never()).getTodosProdutos();
+        assertEquals(9L, ReflectionTestUtils.getField(catalogoEmMemoriaService, "versaoUpstream"));
+    }
+
+    @Test
+    void atualizar_deveFazerCargaCompleta_quandoUpstreamRecusarDelta() {
+        // Arrange
+        ReflectionTestUtils.setField(catalogoEmMemoriaService, "deltaHabilitado", true);
+        when(externalAClient.getAlteracoesProdutos(anyLong())).thenThrow(naoEncontrado());
+        when(externalAClient.getTodosProdutos()).thenReturn(List.of(produto("1", "10.00")));
+
+        // Act
+        catalogoEmMemoriaService.atualizar();
+
+        // Assert
+        assertNotNull(catalogoEmMemoriaService.snapshotAtual().produto("1"));
+        verify(externalAClient).getTodosProdutos();
+    }
+
+    @Test
+    void atualizar_deveIntercalarCargaCompleta_aCadaNDeltas() {
+        // Arrange
+        ReflectionTestUtils.setField(catalogoEmMemoriaService, "deltaHabilitado", true);
+        ReflectionTestUtils.setField(catalogoEmMemoriaService, "completaACada", 2);
+        when(externalAClient.getAlteracoesProdutos(anyLong()))
+                .thenReturn(new AlteracoesCatalogo(1L, List.of(produto("1", "10.00")), List.of()));
+        when(externalAClient.getTodosProdutos()).thenReturn(List.of(produto("1", "10.00")));
+
+        // Act
+        for (int i = 0; i < 6; i++) {
+            catalogoEmMemoriaService.atualizar();
+        }
+
+        // Assert: delta, delta, completa, delta, delta, completa; no modo delta a completa é o catálogo desde a versão 0
+        assertEquals(4, meterRegistry.get("catalogo.snapshot.atualizacao").tag("modo", "delta").timer().count());
+        assertEquals(2, meterRegistry.get("catalogo.snapshot.atualizacao").tag("modo", "completa").timer().count());
+        verify(externalAClient, times(6)).getAlteracoesProdutos(anyLong());
+        verify(externalAClient, never()).getTodosProdutos();
+        assertEquals(1, catalogoEmMemoriaService.snapshotAtual().versao());
+    }
+
+    @Test
+    void atualizar_deveContinuarDeltaDaVersaoDaCargaCompleta() {
+        // Arrange: o catálogo avança de 7 para 12 entre o primeiro delta e a carga completa
+        ReflectionTestUtils.setField(catalogoEmMemoriaService, "deltaHabilitado", true);
+        ReflectionTestUtils.setField(catalogoEmMemoriaService, "completaACada", 1);
+        when(externalAClient.getAlteracoesProdutos(0L))
+                .thenReturn(new AlteracoesCatalogo(7L, List.of(produto("1", "10.00")), List.of()))
+                .thenReturn(new AlteracoesCatalogo(12L, List.of(produto("1", "11.00"), produto("2", "5.00")), List.of()));
+        when(externalAClient.getAlteracoesProdutos(12L))
+                .thenReturn(new AlteracoesCatalogo(13L, List.of(produto("3", "1.00")), List.of("1")));
+
+        // Act: delta, completa, delta
+        catalogoEmMemoriaService.atualizar();
+        catalogoEmMemoriaService.atualizar();
+        catalogoEmMemoriaService.atualizar();
+
+        // Assert
+        verify(externalAClient, never()).getAlteracoesProdutos(7L);
+        verify(externalAClient, never()).getTodosProdutos();
+        CatalogoEmMemoriaService.SnapshotCatalogo snapshot = catalogoEmMemoriaService.snapshotAtual();
+        assertEquals(List.of("2", "3"), snapshot.lista().stream().map(Produto::getId).toList());
+        assertEquals(13L, ReflectionTestUtils.getField(catalogoEmMemoriaService, "versaoUpstream"));
+    }
+
+    @Test
+    void atualizarAgendado_deveManterSnapshotAnterior_quandoExternalAFalhar() {
+        // Arrange
+        when(externalAClient.getTodosProdutos())
+                .thenReturn(List.of(produto("1", "10.00")))
+                .thenThrow(new ExternalAIndisponivelException("External A indisponível"))
+                .thenReturn(List.of());
+        catalogoEmMemoriaService.atualizarAgendado();
+        CatalogoEmMemoriaService.SnapshotCatalogo antes = catalogoEmMemoriaService.snapshotAtual();
+
+        // Act
+        catalogoEmMemoriaService.atualizarAgendado();
+        catalogoEmMemoriaService.atualizarAgendado();
+
+        // Assert
+        assertSame(antes, catalogoEmMemoriaService.snapshotAtual());
+        assertEquals(2.0, meterRegistry.get("catalogo.snapshot.falhas").counter().count());
+    }
+
+    @Test
+    void isDesatualizado_deveIndicarSnapshotSemAtualizacaoRecente() {
+        // Arrange
+        ReflectionTestUtils.setField(catalogoEmMemoriaService, "desatualizadoAposSegundos", 60L);
+        CatalogoEmMemoriaService.SnapshotCatalogo recente = new CatalogoEmMemoriaService.SnapshotCatalogo(1, Map.of(),
+                List.of(), System.currentTimeMillis());
+        CatalogoEmMemoriaService.SnapshotCatalogo antigo = new CatalogoEmMemoriaService.SnapshotCatalogo(1, Map.of(),
+                List.of(), System.currentTimeMillis() - 61_000);
+
+        // Act & Assert
+        assertFalse(catalogoEmMemoriaService.isDesatualizado(recente));
+        assertTrue(catalogoEmMemoriaService.isDesatualizado(antigo));
+    }
+
+    private static Produto produto(String id, String valor) {
+        return new Produto(id, "Produto" + id, new BigDecimal(valor), 10);
+    }
+
+    private static FeignException naoEncontrado() {
+        Request request = Request.create(Request.HttpMethod.GET, "http://external-a/api/produto/alteracoes?desde=0",
+                Map.of(), null, StandardCharsets.UTF_8, null);
+        return new FeignException.NotFound("não encontrado", request, null, Map.of());
+    }
+}
@@ -0,0 +1,133 @@
+package com.example.order.service;
+
+import com.example.order.model.Produto;
+import com.example.order.service.dto.CatalogoProdutos;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class CatalogoRespostaServiceTest {
+
+    @Mock
+    private PedidoService pedidoService;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private SimpleMeterRegistry meterRegistry;
+    private CatalogoRespostaService catalogoRespostaService;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        catalogoRespostaService = new CatalogoRespostaService(pedidoService, objectMapper, meterRegistry);
+    }
+
+    @Test
+    void obter_deveCodificarCatalogoEmJsonEGzipComEtag() throws IOException {
+        // Arrange
+        List<Produto> produtos = List.of(new Produto("1", "Produto1", BigDecimal.TEN, 10));
+        when(pedidoService.buscaCatalogoProdutos()).thenReturn(new CatalogoProdutos(produtos, false));
+
+        // Act
+        CatalogoRespostaService.RespostaCatalogo resposta = catalogoRespostaService.obter();
+
+        // Assert
+        assertEquals(produtos, objectMapper.readValue(resposta.json(), new TypeReference<List<Produto>>() {
+        }));
+        try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(resposta.gzip()))) {
+            assertArrayEquals(resposta.json(), gzip.readAllBytes());
+        }
+        assertEquals(CatalogoRespostaService.etag(resposta.json()), resposta.etag());
+        assertTrue(resposta.etag().startsWith("\"") && resposta.etag().endsWith("\""));
+        assertFalse(resposta.desatualizado());
+    }
+
+    @Test
+    void obter_deveReaproveitarResposta_quandoMesmaListaDoCache() {
+        // Arrange
+        List<Produto> produtos = List.of(new Produto("1", "Produto1", BigDecimal.TEN, 10));
+        when(pedidoService.buscaCatalogoProdutos()).thenReturn(new CatalogoProdutos(produtos, false));
+
+        // Act
+        CatalogoRespostaService.RespostaCatalogo primeira = catalogoRespostaService.obter();
+        CatalogoRespostaService.RespostaCatalogo segunda = catalogoRespostaService.obter();
+
+        // Assert
+        assertSame(primeira, segunda);
+        assertEquals(1.0, contador("serializacao"));
+        assertEquals(1.0, contador("gzip"));
+    }
+
+    @Test
+    void obter_deveManterBytesEEtag_quandoListaRecarregadaComMesmoConteudo() {
+        // Arrange
+        when(pedidoService.buscaCatalogoProdutos())
+                .thenReturn(new CatalogoProdutos(List.of(new Produto("1", "Produto1", BigDecimal.TEN, 10)), false))
+                .thenReturn(new CatalogoProdutos(List.of(new Produto("1", "Produto1", BigDecimal.TEN, 10)), false));
+
+        // Act
+        CatalogoRespostaService.RespostaCatalogo primeira = catalogoRespostaService.obter();
+        CatalogoRespostaService.RespostaCatalogo segunda = catalogoRespostaService.obter();
+
+        // Assert
+        assertSame(primeira, segunda);
+        assertEquals(2.0, contador("serializacao"));
+        assertEquals(1.0, contador("gzip"));
+    }
+
+    @Test
+    void obter_deveGerarNovoEtag_quandoCatalogoMudar() {
+        // Arrange
+        when(pedidoService.buscaCatalogoProdutos())
+                .thenReturn(new CatalogoProdutos(List.of(new Produto("1", "Produto1", BigDecimal.TEN, 10)), false))
+                .thenReturn(new CatalogoProdutos(List.of(new Produto("1", "Produto1", BigDecimal.ONE, 10)), false));
+
+        // Act
+        CatalogoRespostaService.RespostaCatalogo primeira = catalogoRespostaService.obter();
+        CatalogoRespostaService.RespostaCatalogo segunda = catalogoRespostaService.obter();
+
+        // Assert
+        assertNotEquals(primeira.etag(), segunda.etag());
+        assertEquals(2.0, contador("gzip"));
+    }
+
+    @Test
+    void obter_deveSinalizarDesatualizado_semRecodificar() {
+        // Arrange
+        List<Produto> produtos = List.of(new Produto("1", "Produto1", BigDecimal.TEN, 10));
+        when(pedidoService.buscaCatalogoProdutos())
+                .thenReturn(new CatalogoProdutos(produtos, false))
+                .thenReturn(new CatalogoProdutos(produtos, true));
+
+        // Act
+        CatalogoRespostaService.RespostaCatalogo atual = catalogoRespostaService.obter();
+        CatalogoRespostaService.RespostaCatalogo desatualizado = catalogoRespostaService.obter();
+
+        // Assert
+        assertTrue(desatualizado.desatualizado());
+        assertSame(atual.json(), desatualizado.json());
+        assertEquals(atual.etag(), desatualizado.etag());
+        assertEquals(1.0, contador("serializacao"));
+    }
+
+    private double contador(String etapa) {
+        return meterRegistry.get("produtos.listagem.codificacao").tag("etapa", etapa).counter().count();
+    }
+}
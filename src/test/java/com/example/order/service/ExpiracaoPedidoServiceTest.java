@@ -0,0 +1,234 @@
+package com.example.order.service;
+
+import com.example.order.model.Pedido;
+import com.example.order.repository.PedidoRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class ExpiracaoPedidoServiceTest {
+
+    private static final LocalDateTime CRIACAO = LocalDateTime.of(2025, 3, 1, 10, 0);
+    private static final long CRIACAO_MILLIS = CRIACAO.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    private static final long JANELA_MILLIS = 30 * 60_000L;
+
+    @Mock
+    private PedidoRepository pedidoRepository;
+
+    @Mock
+    private ReservaEstoqueService reservaEstoqueService;
+
+    @Mock
+    private PedidosUsuarioCacheService pedidosUsuarioCacheService;
+
+    private SimpleMeterRegistry meterRegistry;
+    private ExpiracaoPedidoService expiracaoPedidoService;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        expiracaoPedidoService = new ExpiracaoPedidoService(pedidoRepository, reservaEstoqueService,
+                pedidosUsuarioCacheService, meterRegistry);
+        ReflectionTestUtils.setField(expiracaoPedidoService, "baldes", 8);
+        expiracaoPedidoService.prepararRoda(CRIACAO_MILLIS);
+    }
+
+    @Test
+    void processar_deveExpirarPedidoSoDepoisDaJanelaDePagamento() {
+        // Arrange
+        Pedido pedido = pendente("user123");
+        when(pedidoRepository.buscarPorIdsEStatus(anyCollection(), eq("PENDENTE PAGAMENTO"))).thenReturn(List.of(pedido));
+        when(pedidoRepository.atualizarStatus(anyCollection(), eq("PENDENTE PAGAMENTO"), eq("EXPIRADO"))).thenReturn(1L);
+        expiracaoPedidoService.agendar(pedido);
+
+        // Act
+        long antes = expiracaoPedidoService.processar(CRIACAO_MILLIS + JANELA_MILLIS - 1);
+        long depois = expiracaoPedidoService.processar(CRIACAO_MILLIS + JANELA_MILLIS);
+
+        // Assert
+        assertEquals(0, antes);
+        assertEquals(1, depois);
+        verify(pedidoRepository).atualizarStatus(List.of(pedido.getId()), "PENDENTE PAGAMENTO", "EXPIRADO");
+        verify(pedidosUsuarioCacheService).evict("user123");
+        verify(reservaEstoqueService, never()).liberar(any());
+        assertEquals(1.0, meterRegistry.get("pedidos.expiracao.expirados").counter().count());
+        assertEquals(0.0, meterRegistry.get("pedidos.expiracao.pendentes").gauge().value());
+    }
+
+    @Test
+    void processar_naoDeveAtualizar_quandoPedidoJaSaiuDePendente() {
+        // Arrange
+        expiracaoPedidoService.agendar(pendente("user123"));
+        when(pedidoRepository.buscarPorIdsEStatus(anyCollection(), eq("PENDENTE PAGAMENTO"))).thenReturn(List.of());
+
+        // Act
+        long expirados = expiracaoPedidoService.processar(CRIACAO_MILLIS + JANELA_MILLIS);
+
+        // Assert
+        assertEquals(0, expirados);
+        verify(pedidoRepository, never()).atualizarStatus(anyCollection(), any(), any());
+        verifyNoInteractions(pedidosUsuarioCacheService);
+    }
+
+    @Test
+    void processar_deveLiberarReservas_quandoLivroDeReservasHabilitado() {
+        // Arrange
+        Pedido pedido = pendente("user123");
+        expiracaoPedidoService.agendar(pedido);
+        when(reservaEstoqueService.isHabilitada()).thenReturn(true);
+        when(pedidoRepository.buscarPorIdsEStatus(anyCollection(), any())).thenReturn(List.of(pedido));
+        when(pedidoRepository.atualizarStatus(anyCollection(), any(), any())).thenReturn(1L);
+
+        // Act
+        expiracaoPedidoService.processar(CRIACAO_MILLIS + JANELA_MILLIS);
+
+        // Assert
+        verify(reservaEstoqueService).liberar(pedido.getId());
+    }
+
+    @Test
+    void processar_deveLiberarSoReservasDosPedidosExpirados_quandoUmFoiPagoAntesDoUpdate() {
+        // Arrange
+        Pedido expirado = pendente("user1");
+        Pedido pago = pendente("user2");
+        expiracaoPedidoService.agendar(expirado);
+        expiracaoPedidoService.agendar(pago);
+        when(reservaEstoqueService.isHabilitada()).thenReturn(true);
+        when(pedidoRepository.buscarPorIdsEStatus(anyCollection(), eq("PENDENTE PAGAMENTO")))
+                .thenReturn(List.of(expirado, pago));
+        when(pedidoRepository.atualizarStatus(anyCollection(), any(), any())).thenReturn(1L);
+        when(pedidoRepository.buscarPorIdsEStatus(anyCollection(), eq("EXPIRADO"))).thenReturn(List.of(expirado));
+
+        // Act
+        long expirados = expiracaoPedidoService.processar(CRIACAO_MILLIS + JANELA_MILLIS);
+
+        // Assert
+        assertEquals(1, expirados);
+        verify(reservaEstoqueService).liberar(expirado.getId());
+        verify(reservaEstoqueService, never()).liberar(pago.getId());
+    }
+
+    @Test
+    void processar_deveAtualizarEmLotes_eDescartarCacheUmaVezPorUsuario() {
+        // Arrange
+        ReflectionTestUtils.setField(expiracaoPedidoService, "tamanhoLote", 2);
+        List<Pedido> pedidos = List.of(pendente("user1"), pendente("user1"), pendente("user2"));
+        pedidos.forEach(expiracaoPedidoService::agendar);
+        when(pedidoRepository.buscarPorIdsEStatus(anyCollection(), any())).thenAnswer(invocation -> {
+            List<String> ids = List.copyOf(invocation.getArgument(0));
+            return pedidos.stream().filter(pedido -> ids.contains(pedido.getId())).toList();
+        });
+        when(pedidoRepository.atualizarStatus(anyCollection(), any(), any()))
+                .thenAnswer(invocation -> (long) invocation.<List<String>>getArgument(0).size());
+
+        // Act
+        long expirados = expiracaoPedidoService.processar(CRIACAO_MILLIS + JANELA_MILLIS);
+
+        // Assert
+        assertEquals(3, expirados);
+        verify(pedidoRepository, times(2)).atualizarStatus(anyCollection(), eq("PENDENTE PAGAMENTO"), eq("EXPIRADO"));
+        verify(pedidosUsuarioCacheService).evict("user1");
+        verify(pedidosUsuarioCacheService).evict("user2");
+    }
+
+    @Test
+    void processar_deveReagendarLote_quandoMongoFalhar() {
+        // Arrange
+        Pedido pedido = pendente("user123");
+        expiracaoPedidoService.agendar(pedido);
+        when(pedidoRepository.buscarPorIdsEStatus(anyCollection(), any()))
+                .thenThrow(new DataAccessResourceFailureException("Mongo indisponível"))
+                .thenReturn(List.of(pedido));
+        when(pedidoRepository.atualizarStatus(anyCollection(), any(), any())).thenReturn(1L);
+        long vencimento = CRIACAO_MILLIS + JANELA_MILLIS;
+
+        // Act
+        long naFalha = expiracaoPedidoService.processar(vencimento);
+        long antesDaNovaTentativa = expiracaoPedidoService.processar(
+                vencimento + ExpiracaoPedidoService.ATRASO_NOVA_TENTATIVA_MILLIS - 1);
+        long naNovaTentativa = expiracaoPedidoService.processar(
+                vencimento + ExpiracaoPedidoService.ATRASO_NOVA_TENTATIVA_MILLIS);
+
+        // Assert
+        assertEquals(0, naFalha);
+        assertEquals(0, antesDaNovaTentativa);
+        assertEquals(1, naNovaTentativa);
+        assertEquals(1.0, meterRegistry.get("pedidos.expiracao.falhas").counter().count());
+    }
+
+    @Test
+    void reconstruir_deveAgendarOsPendentesDoMongo() {
+        // Arrange
+        Pedido pedido = pendente("user123");
+        when(pedidoRepository.streamPorStatus(eq("PENDENTE PAGAMENTO"), isNull())).thenReturn(Stream.of(pedido));
+        when(pedidoRepository.buscarPorIdsEStatus(anyCollection(), any())).thenReturn(List.of(pedido));
+        when(pedidoRepository.atualizarStatus(anyCollection(), any(), any())).thenReturn(1L);
+
+        // Act
+        expiracaoPedidoService.reconstruir();
+
+        // Assert
+        assertEquals(1.0, meterRegistry.get("pedidos.expiracao.pendentes").gauge().value());
+        assertEquals(1, expiracaoPedidoService.processar(CRIACAO_MILLIS + JANELA_MILLIS));
+    }
+
+    @Test
+    void reconciliar_deveReagendarSoOsPendentesJaVencidos() {
+        // Arrange
+        when(pedidoRepository.streamPorStatus(eq("PENDENTE PAGAMENTO"), any(LocalDateTime.class)))
+                .thenReturn(Stream.of(pendente("user123")));
+
+        // Act
+        expiracaoPedidoService.reconciliar();
+
+        // Assert
+        verify(pedidoRepository).streamPorStatus(eq("PENDENTE PAGAMENTO"), argThat(limite ->
+                limite.isBefore(LocalDateTime.now().minusMinutes(29))));
+        assertEquals(1.0, meterRegistry.get("pedidos.expiracao.pendentes").gauge().value());
+    }
+
+    @Test
+    void agendar_deveIgnorarPedido_quandoExpiracaoDesabilitada() {
+        // Arrange
+        ExpiracaoPedidoService desabilitado = new ExpiracaoPedidoService(pedidoRepository, reservaEstoqueService,
+                pedidosUsuarioCacheService, new SimpleMeterRegistry());
+
+        // Act
+        desabilitado.iniciar();
+        desabilitado.agendar(pendente("user123"));
+        desabilitado.reconciliar();
+
+        // Assert
+        verifyNoInteractions(pedidoRepository);
+    }
+
+    private static Pedido pendente(String idUsuario) {
+        Pedido pedido = new Pedido(idUsuario);
+        pedido.setId(new ObjectId().toHexString());
+        pedido.setHorarioCriacao(CRIACAO);
+        pedido.setStatus("PENDENTE PAGAMENTO");
+        return pedido;
+    }
+}
@@ -0,0 +1,141 @@
+package com.example.order.service;
+
+import com.example.order.controller.ProdutoItem;
+import com.example.order.exception.MensagemErrorException;
+import com.example.order.service.dto.PedidoResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+import reactor.util.context.Context;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class IdempotenciaPedidoServiceReativoTest {
+
+    private static final String KEY = "idempotencia:user123:chave-1";
+    private static final List<ProdutoItem> CARRINHO = List.of(new ProdutoItem("1", 2), new ProdutoItem("2", 1));
+
+    @Mock
+    private RedisCacheServiceReativo redisCacheService;
+
+    private IdempotenciaPedidoServiceReativo idempotenciaPedidoService;
+    private final AtomicInteger criacoes = new AtomicInteger();
+    private final PedidoResponse resposta = PedidoResponse.builder().codigoPedido("pedido1").build();
+
+    @BeforeEach
+    void setUp() {
+        idempotenciaPedidoService = new IdempotenciaPedidoServiceReativo(redisCacheService, new SimpleMeterRegistry());
+        when(redisCacheService.liberarReserva(anyString(), anyString())).thenReturn(Mono.empty());
+    }
+
+    @Test
+    void executar_deveCriarPedidoEGuardarResposta_quandoChaveNova() {
+        // Arrange
+        when(redisCacheService.reservar(eq(KEY), anyString(), eq(Duration.ofMillis(30_000)))).thenReturn(Mono.just(true));
+        when(redisCacheService.concluirReserva(eq(KEY), anyString(), any(), eq(Duration.ofHours(24))))
+                .thenReturn(Mono.just(true));
+
+        // Act & Assert
+        StepVerifier.create(idempotenciaPedidoService.executar("chave-1", CARRINHO, this::criar).contextWrite(autenticado()))
+                .expectNext(new IdempotenciaPedidoService.Resultado(resposta, false))
+                .verifyComplete();
+        assertEquals(1, criacoes.get());
+        ArgumentCaptor<String> token = ArgumentCaptor.forClass(String.class);
+        verify(redisCacheService).reservar(eq(KEY), token.capture(), any());
+        verify(redisCacheService).concluirReserva(KEY, token.getValue(),
+                new PedidoIdempotente(IdempotenciaPedidoService.impressaoCarrinho(CARRINHO), resposta), Duration.ofHours(24));
+    }
+
+    @Test
+    void executar_deveAguardarPrimeiraRequisicaoEDevolverResposta_quandoDuplicataConcorrente() {
+        // Arrange
+        when(redisCacheService.reservar(eq(KEY), anyString(), any())).thenReturn(Mono.just(false));
+        when(redisCacheService.buscar(KEY))
+                .thenReturn(Mono.just("token-da-primeira"))
+                .thenReturn(Mono.just(new PedidoIdempotente(IdempotenciaPedidoService.impressaoCarrinho(CARRINHO), resposta)));
+
+        // Act & Assert
+        StepVerifier.create(idempotenciaPedidoService.executar("chave-1", CARRINHO, this::criar).contextWrite(autenticado()))
+                .expectNext(new IdempotenciaPedidoService.Resultado(resposta, true))
+                .verifyComplete();
+        assertEquals(0, criacoes.get());
+    }
+
+    @Test
+    void executar_deveResponder422_quandoChaveReutilizadaComOutroCarrinho() {
+        // Arrange
+        when(redisCacheService.reservar(eq(KEY), anyString(), any())).thenReturn(Mono.just(false));
+        when(redisCacheService.buscar(KEY)).thenReturn(Mono.just(new PedidoIdempotente(
+                IdempotenciaPedidoService.impressaoCarrinho(List.of(new ProdutoItem("1", 1))), resposta)));
+
+        // Act & Assert
+        StepVerifier.create(idempotenciaPedidoService.executar("chave-1", CARRINHO, this::criar).contextWrite(autenticado()))
+                .expectErrorSatisfies(erro -> assertEquals(HttpStatus.UNPROCESSABLE_ENTITY,
+                        assertInstanceOf(MensagemErrorException.class, erro).getStatus()))
+                .verify();
+        assertEquals(0, criacoes.get());
+    }
+
+    @Test
+    void executar_deveLiberarChave_quandoCriacaoFalhar() {
+        // Arrange
+        when(redisCacheService.reservar(eq(KEY), anyString(), any())).thenReturn(Mono.just(true));
+        MensagemErrorException falha = new MensagemErrorException(HttpStatus.BAD_REQUEST, "Produto indisponível");
+
+        // Act & Assert
+        StepVerifier.create(idempotenciaPedidoService.executar("chave-1", CARRINHO, () -> Mono.error(falha))
+                        .contextWrite(autenticado()))
+                .expectErrorMatches(erro -> erro == falha)
+                .verify();
+        ArgumentCaptor<String> token = ArgumentCaptor.forClass(String.class);
+        verify(redisCacheService).reservar(eq(KEY), token.capture(), any());
+        verify(redisCacheService).liberarReserva(KEY, token.getValue());
+        verify(redisCacheService, never()).concluirReserva(anyString(), anyString(), any(), any());
+    }
+
+    @Test
+    void executar_deveCriarSemDeduplicar_quandoRedisIndisponivel() {
+        // Arrange
+        when(redisCacheService.reservar(eq(KEY), anyString(), any()))
+                .thenReturn(Mono.error(new IllegalStateException("Redis fora do ar")));
+
+        // Act & Assert
+        StepVerifier.create(idempotenciaPedidoService.executar("chave-1", CARRINHO, this::criar).contextWrite(autenticado()))
+                .expectNext(new IdempotenciaPedidoService.Resultado(resposta, false))
+                .verifyComplete();
+        assertEquals(1, criacoes.get());
+    }
+
+    private Mono<PedidoResponse> criar() {
+        return Mono.fromSupplier(() -> {
+            criacoes.incrementAndGet();
+            return resposta;
+        });
+    }
+
+    private static Context autenticado() {
+        return ReactiveSecurityContextHolder.withAuthentication(
+                new UsernamePasswordAuthenticationToken("user123", null, List.of()));
+    }
+}
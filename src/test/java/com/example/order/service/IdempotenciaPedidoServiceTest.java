@@ -0,0 +1,177 @@
+package com.example.order.service;
+
+import com.example.order.controller.ProdutoItem;
+import com.example.order.exception.MensagemErrorException;
+import com.example.order.service.dto.PedidoResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class IdempotenciaPedidoServiceTest {
+
+    private static final String KEY = "idempotencia:user123:chave-1";
+    private static final List<ProdutoItem> CARRINHO = List.of(new ProdutoItem("1", 2), new ProdutoItem("2", 1));
+
+    @Mock
+    private RedisCacheService redisCacheService;
+
+    private SimpleMeterRegistry meterRegistry;
+    private IdempotenciaPedidoService idempotenciaPedidoService;
+    private final AtomicInteger criacoes = new AtomicInteger();
+    private final PedidoResponse resposta = PedidoResponse.builder().codigoPedido("pedido1").build();
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        idempotenciaPedidoService = new IdempotenciaPedidoService(redisCacheService, meterRegistry);
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken("user123", null, List.of()));
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void executar_deveCriarPedidoEGuardarResposta_quandoChaveNova() {
+        // Arrange
+        when(redisCacheService.tentarBloquear(eq(KEY), anyString(), eq(Duration.ofMillis(30_000)))).thenReturn(true);
+        when(redisCacheService.concluirBloqueio(eq(KEY), anyString(), any(), eq(24L), eq(TimeUnit.HOURS)))
+                .thenReturn(true);
+
+        // Act
+        IdempotenciaPedidoService.Resultado resultado = idempotenciaPedidoService.executar("chave-1", CARRINHO, this::criar);
+
+        // Assert
+        assertSame(resposta, resultado.resposta());
+        assertFalse(resultado.repetido());
+        assertEquals(1, criacoes.get());
+        ArgumentCaptor<String> token = ArgumentCaptor.forClass(String.class);
+        ArgumentCaptor<Object> guardado = ArgumentCaptor.forClass(Object.class);
+        verify(redisCacheService).tentarBloquear(eq(KEY), token.capture(), any());
+        verify(redisCacheService).concluirBloqueio(eq(KEY), eq(token.getValue()), guardado.capture(),
+                eq(24L), eq(TimeUnit.HOURS));
+        assertEquals(new PedidoIdempotente(IdempotenciaPedidoService.impressaoCarrinho(CARRINHO), resposta),
+                guardado.getValue());
+        assertEquals(1.0, meterRegistry.get("pedido.idempotencia").tag("resultado", "novo").counter().count());
+    }
+
+    @Test
+    void executar_deveDevolverRespostaGuardadaSemCriar_quandoChaveJaUsada() {
+        // Arrange
+        when(redisCacheService.tentarBloquear(eq(KEY), anyString(), any())).thenReturn(false);
+        when(redisCacheService.getCachedOrder(KEY, Object.class)).thenReturn(
+                new PedidoIdempotente(IdempotenciaPedidoService.impressaoCarrinho(CARRINHO), resposta));
+
+        // Act
+        IdempotenciaPedidoService.Resultado resultado = idempotenciaPedidoService.executar("chave-1", CARRINHO, this::criar);
+
+        // Assert
+        assertEquals(resposta, resultado.resposta());
+        assertTrue(resultado.repetido());
+        assertEquals(0, criacoes.get());
+        verify(redisCacheService, never()).concluirBloqueio(anyString(), anyString(), any(), anyLong(), any());
+        assertEquals(1.0, meterRegistry.get("pedido.idempotencia").tag("resultado", "repetido").counter().count());
+    }
+
+    @Test
+    void executar_deveAguardarPrimeiraRequisicao_quandoDuplicataConcorrente() {
+        // Arrange: a primeira leitura encontra a reserva da outra requisição; a segunda, a resposta dela
+        when(redisCacheService.tentarBloquear(eq(KEY), anyString(), any())).thenReturn(false);
+        when(redisCacheService.getCachedOrder(KEY, Object.class))
+                .thenReturn("token-da-primeira")
+                .thenReturn(new PedidoIdempotente(IdempotenciaPedidoService.impressaoCarrinho(CARRINHO), resposta));
+
+        // Act
+        IdempotenciaPedidoService.Resultado resultado = idempotenciaPedidoService.executar("chave-1", CARRINHO, this::criar);
+
+        // Assert
+        assertEquals(resposta, resultado.resposta());
+        assertTrue(resultado.repetido());
+        assertEquals(0, criacoes.get());
+    }
+
+    @Test
+    void executar_deveResponder409_quandoPrimeiraRequisicaoNaoTerminarNaEspera() {
+        // Arrange
+        ReflectionTestUtils.setField(idempotenciaPedidoService, "esperaMillis", 0L);
+        when(redisCacheService.tentarBloquear(eq(KEY), anyString(), any())).thenReturn(false);
+        when(redisCacheService.getCachedOrder(KEY, Object.class)).thenReturn("token-da-primeira");
+
+        // Act & Assert
+        MensagemErrorException exception = assertThrows(MensagemErrorException.class,
+                () -> idempotenciaPedidoService.executar("chave-1", CARRINHO, this::criar));
+        assertEquals(HttpStatus.CONFLICT, exception.getStatus());
+        assertEquals(0, criacoes.get());
+    }
+
+    @Test
+    void executar_deveResponder422_quandoChaveReutilizadaComOutroCarrinho() {
+        // Arrange
+        when(redisCacheService.tentarBloquear(eq(KEY), anyString(), any())).thenReturn(false);
+        when(redisCacheService.getCachedOrder(KEY, Object.class)).thenReturn(new PedidoIdempotente(
+                IdempotenciaPedidoService.impressaoCarrinho(List.of(new ProdutoItem("1", 1))), resposta));
+
+        // Act & Assert
+        MensagemErrorException exception = assertThrows(MensagemErrorException.class,
+                () -> idempotenciaPedidoService.executar("chave-1", CARRINHO, this::criar));
+        assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, exception.getStatus());
+        assertEquals(0, criacoes.get());
+    }
+
+    @Test
+    void executar_deveLiberarChave_quandoCriacaoFalhar() {
+        // Arrange
+        when(redisCacheService.tentarBloquear(eq(KEY), anyString(), any())).thenReturn(true);
+        MensagemErrorException falha = new MensagemErrorException(HttpStatus.BAD_REQUEST, "Produto indisponível");
+
+        // Act & Assert
+        assertSame(falha, assertThrows(MensagemErrorException.class,
+                () -> idempotenciaPedidoService.executar("chave-1", CARRINHO, () -> {
+                    throw falha;
+                })));
+        ArgumentCaptor<String> token = ArgumentCaptor.forClass(String.class);
+        verify(redisCacheService).tentarBloquear(eq(KEY), token.capture(), any());
+        verify(redisCacheService).liberarBloqueio(KEY, token.getValue());
+        verify(redisCacheService, never()).concluirBloqueio(anyString(), anyString(), any(), anyLong(), any());
+    }
+
+    @Test
+    void executar_deveRecusarChaveVazia() {
+        // Act & Assert
+        MensagemErrorException exception = assertThrows(MensagemErrorException.class,
+                () -> idempotenciaPedidoService.executar(" ", CARRINHO, this::criar));
+        assertEquals(HttpStatus.BAD_REQUEST, exception.getStatus());
+        verifyNoInteractions(redisCacheService);
+    }
+
+    private PedidoResponse criar() {
+        criacoes.incrementAndGet();
+        return resposta;
+    }
+}
@@ -0,0 +1,213 @@
+package com.example.order.service;
+
+import com.example.order.controller.ProdutoItem;
+import com.example.order.exception.MensagemErrorException;
+import com.example.order.feignclient.ExternalAClientReativo;
+import com.example.order.model.Pedido;
+import com.example.order.model.Produto;
+import com.example.order.repository.PedidoRepositoryReativo;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+import reactor.util.context.Context;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class PedidoServiceReativoTest {
+
+    @Mock
+    private PedidoRepositoryReativo pedidoRepository;
+
+    @Mock
+    private ExternalAClientReativo externalAClient;
+
+    @Mock
+    private RedisCacheServiceReativo redisCacheService;
+
+    private PedidoServiceReativo pedidoService;
+
+    @BeforeEach
+    void setUp() {
+        pedidoService = new PedidoServiceReativo(pedidoRepository, externalAClient, redisCacheService,
+                new SimpleMeterRegistry());
+        when(redisCacheService.gravar(anyString(), any(), any())).thenReturn(Mono.just(true));
+        when(redisCacheService.gravarEmLote(anyMap(), any())).thenReturn(Mono.empty());
+        when(redisCacheService.remover(anyCollection())).thenReturn(Mono.just(2L));
+        when(pedidoRepository.save(any(Pedido.class))).thenAnswer(invocation -> {
+            Pedido pedido = invocation.getArgument(0);
+            pedido.setId("pedido1");
+            return Mono.just(pedido);
+        });
+    }
+
+    @Test
+    void buscaTodosProdutos_deveServirDoCache_quandoEntradaAtual() {
+        // Arrange
+        List<Produto> produtos = List.of(new Produto("1", "Produto1", BigDecimal.TEN, 10));
+        when(redisCacheService.buscar("todosProdutos")).thenReturn(
+                Mono.just(new EntradaCache(produtos, System.currentTimeMillis() + 60_000, 5)));
+
+        // Act & Assert
+        StepVerifier.create(pedidoService.buscaTodosProdutos())
+                .expectNext(produtos)
+                .verifyComplete();
+        verify(externalAClient, never()).getTodosProdutos();
+    }
+
+    @Test
+    void buscaTodosProdutos_deveCarregarEGravarEnvelope_quandoAusenteNoCache() {
+        // Arrange
+        List<Produto> produtos = List.of(new Produto("1", "Produto1", BigDecimal.TEN, 10));
+        when(redisCacheService.buscar("todosProdutos")).thenReturn(Mono.empty());
+        when(externalAClient.getTodosProdutos()).thenReturn(Mono.just(produtos));
+
+        // Act & Assert
+        StepVerifier.create(pedidoService.buscaTodosProdutos())
+                .expectNext(produtos)
+                .verifyComplete();
+        ArgumentCaptor<Object> gravado = ArgumentCaptor.forClass(Object.class);
+        verify(redisCacheService).gravar(eq("todosProdutos"), gravado.capture(), eq(Duration.ofMinutes(10)));
+        assertEquals(produtos, ((EntradaCache) gravado.getValue()).getValor());
+    }
+
+    @Test
+    void buscaTodosProdutos_deveServirVencidoERecarregar_quandoEntradaExpirada() {
+        // Arrange
+        List<Produto> antigos = List.of(new Produto("1", "Antigo", BigDecimal.ONE, 1));
+        List<Produto> novos = List.of(new Produto("1", "Novo", BigDecimal.TEN, 10));
+        when(redisCacheService.buscar("todosProdutos")).thenReturn(
+                Mono.just(new EntradaCache(antigos, System.currentTimeMillis() - 1, 5)));
+        when(externalAClient.getTodosProdutos()).thenReturn(Mono.just(novos));
+
+        // Act & Assert
+        StepVerifier.create(pedidoService.buscaTodosProdutos())
+                .expectNext(antigos)
+                .verifyComplete();
+        verify(externalAClient).getTodosProdutos();
+        verify(redisCacheService).gravar(eq("todosProdutos"), any(EntradaCache.class), any());
+    }
+
+    @Test
+    void createBatchPedido_deveCriarPedidoComProdutosDoCacheEDoExternalA() {
+        // Arrange
+        when(externalAClient.getQuantidadeProduto(anyString())).thenReturn(Mono.just(10));
+        when(redisCacheService.buscarEmLote(List.of("produto:1", "produto:2"))).thenReturn(
+                Mono.just(Map.of("produto:1", new Produto("1", "Produto1", BigDecimal.TEN, 10))));
+        when(externalAClient.getProduto("2")).thenReturn(Mono.just(new Produto("2", "Produto2", new BigDecimal("2.50"), 10)));
+        List<ProdutoItem> itens = List.of(new ProdutoItem("1", 2), new ProdutoItem("2", 4));
+
+        // Act & Assert
+        StepVerifier.create(pedidoService.createBatchPedido(itens).contextWrite(autenticado()))
+                .assertNext(resposta -> {
+                    assertEquals("pedido1", resposta.getCodigoPedido());
+                    assertEquals(0, new BigDecimal("30.00").compareTo(resposta.getValorTotal()));
+                })
+                .verifyComplete();
+        verify(externalAClient, never()).getProduto("1");
+        verify(redisCacheService).gravarEmLote(eq(Map.of("produto:2", new Produto("2", "Produto2", new BigDecimal("2.50"), 10))),
+                eq(Duration.ofMinutes(5)));
+        verify(redisCacheService).gravar(eq("user123:batch"), any(Pedido.class), eq(Duration.ofHours(24)));
+        verify(redisCacheService).remover(PedidosUsuarioCacheService.chaves("user123"));
+    }
+
+    @Test
+    void createBatchPedido_deveFalharComBadRequest_quandoEstoqueInsuficiente() {
+        // Arrange
+        when(externalAClient.getQuantidadeProduto("1")).thenReturn(Mono.just(2));
+        when(redisCacheService.buscarEmLote(anyList())).thenReturn(
+                Mono.just(Map.of("produto:1", new Produto("1", "Produto1", BigDecimal.TEN, 10))));
+
+        // Act & Assert
+        StepVerifier.create(pedidoService.createBatchPedido(List.of(new ProdutoItem("1", 2))).contextWrite(autenticado()))
+                .expectErrorSatisfies(erro -> {
+                    MensagemErrorException exception = assertInstanceOf(MensagemErrorException.class, erro);
+                    assertEquals(HttpStatus.BAD_REQUEST, exception.getStatus());
+                    assertEquals("Produto 1 não está disponível", exception.getMessage());
+                })
+                .verify();
+        verify(pedidoRepository, never()).save(any());
+    }
+
+    @Test
+    void createBatchPedido_deveFalharComBadRequest_quandoProdutoNaoExistir() {
+        // Arrange
+        when(externalAClient.getQuantidadeProduto("X")).thenReturn(Mono.just(10));
+        when(redisCacheService.buscarEmLote(anyList())).thenReturn(Mono.just(Map.of()));
+        when(externalAClient.getProduto("X")).thenReturn(Mono.empty());
+
+        // Act & Assert
+        StepVerifier.create(pedidoService.createBatchPedido(List.of(new ProdutoItem("X", 1))).contextWrite(autenticado()))
+                .expectErrorSatisfies(erro -> assertEquals(HttpStatus.BAD_REQUEST,
+                        assertInstanceOf(MensagemErrorException.class, erro).getStatus()))
+                .verify();
+        verify(pedidoRepository, never()).save(any());
+    }
+
+    @Test
+    void createBatchPedido_deveFalharComForbidden_quandoSemUsuarioAutenticado() {
+        // Arrange
+        when(externalAClient.getQuantidadeProduto(anyString())).thenReturn(Mono.just(10));
+
+        // Act & Assert
+        StepVerifier.create(pedidoService.createBatchPedido(List.of(new ProdutoItem("1", 1))))
+                .expectErrorSatisfies(erro -> assertEquals(HttpStatus.FORBIDDEN,
+                        assertInstanceOf(MensagemErrorException.class, erro).getStatus()))
+                .verify();
+    }
+
+    @Test
+    void listarPedidosPorUsuarioPaginado_deveDevolverCursor_quandoHouverProximaPagina() {
+        // Arrange
+        Pedido primeiro = new Pedido("user123");
+        primeiro.setId("p1");
+        Pedido segundo = new Pedido("user123");
+        segundo.setId("p2");
+        when(pedidoRepository.buscarPaginaPorUsuario("user123", null, null, 2))
+                .thenReturn(Flux.just(primeiro, segundo));
+
+        // Act & Assert
+        StepVerifier.create(pedidoService.listarPedidosPorUsuarioPaginado(null, 1).contextWrite(autenticado()))
+                .assertNext(pagina -> {
+                    assertEquals(1, pagina.getPedidos().size());
+                    assertEquals("p1", pagina.getPedidos().get(0).getCodigoPedido());
+                    assertEquals(PedidoService.codificarCursor(primeiro), pagina.getProximoCursor());
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    void listarPedidosPorUsuarioPaginado_deveRecusarCursorInvalido() {
+        // Act & Assert
+        StepVerifier.create(pedidoService.listarPedidosPorUsuarioPaginado("nao-e-cursor", 10).contextWrite(autenticado()))
+                .expectErrorSatisfies(erro -> assertEquals(HttpStatus.BAD_REQUEST,
+                        assertInstanceOf(MensagemErrorException.class, erro).getStatus()))
+                .verify();
+        verifyNoInteractions(pedidoRepository);
+    }
+
+    private static Context autenticado() {
+        return ReactiveSecurityContextHolder.withAuthentication(
+                new UsernamePasswordAuthenticationToken("user123", null, List.of()));
+    }
+}
@@ -1,17 +1,21 @@
 package com.example.order.service;
 
+import com.example.order.exception.ExternalAIndisponivelException;
 import com.example.order.exception.MensagemErrorException;
 import com.example.order.feignclient.ExternalAClient;
+import com.example.order.feignclient.ExternalACoalescer;
 import com.example.order.model.Pedido;
 import com.example.order.model.Produto;
 import com.example.order.model.ProdutoComprado;
 import com.example.order.repository.PedidoRepository;
+import com.example.order.service.dto.CatalogoProdutos;
+import com.example.order.service.dto.PaginaPedidosResponse;
 import com.example.order.service.dto.PedidoResponse;
 import com.example.order.controller.ProdutoItem;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.mockito.junit.jupiter.MockitoSettings;
@@ -20,11 +24,22 @@ import org.springframework.http.HttpStatus;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -43,17 +58,43 @@ class PedidoServiceTest {
     @Mock
     private RedisCacheService redisCacheService;
 
+    @Mock
+    private ProdutoCacheService produtoCacheService;
+
+    @Mock
+    private CatalogoEmMemoriaService catalogoEmMemoriaService;
+
+    @Mock
+    private ExternalACoalescer externalACoalescer;
+
+    @Mock
+    private PedidosUsuarioCacheService pedidosUsuarioCacheService;
+
+    @Mock
+    private ReservaEstoqueService reservaEstoqueService;
+
+    @Mock
+    private ExpiracaoPedidoService expiracaoPedidoService;
+
+    @Mock
+    private PedidoWriteBehindService pedidoWriteBehindService;
+
     @Mock
     private Authentication authentication;
 
     @Mock
     private SecurityContext securityContext;
 
-    @InjectMocks
+    private SimpleMeterRegistry meterRegistry;
+
     private PedidoService pedidoService;
 
     @BeforeEach
     void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        pedidoService = new PedidoService(pedidoRepository, externalAClient, redisCacheService, produtoCacheService,
+                catalogoEmMemoriaService, pedidosUsuarioCacheService, reservaEstoqueService, expiracaoPedidoService,
+                pedidoWriteBehindService, Runnable::run, externalACoalescer, meterRegistry);
         // Configura o SecurityContextHolder para todos os testes
         when(securityContext.getAuthentication()).thenReturn(authentication);
         when(authentication.getName()).thenReturn("user123");
@@ -64,21 +105,22 @@ class PedidoServiceTest {
     void buscaTodosProdutos_deveRetornarListaDoCache_quandoCacheExistir() {
         // Arrange
         List<Produto> produtosCacheados = List.of(new Produto("1", "Produto1", BigDecimal.TEN, 10));
-        when(redisCacheService.getCachedOrder("todosProdutos", List.class)).thenReturn(produtosCacheados);
+        when(produtoCacheService.obterOuCarregar(eq("todosProdutos"), any(), eq(5L), eq(TimeUnit.MINUTES)))
+                .thenReturn(produtosCacheados);
 
         // Act
         List<Produto> result = pedidoService.buscaTodosProdutos();
 
         // Assert
         assertEquals(produtosCacheados, result);
-        verify(redisCacheService).getCachedOrder("todosProdutos", List.class);
-        // Não precisamos verificar o externalAClient, pois o teste espera que ele não seja chamado
+        verify(produtoCacheService).obterOuCarregar(eq("todosProdutos"), any(), eq(5L), eq(TimeUnit.MINUTES));
+        verify(externalAClient, never()).getTodosProdutos();
     }
 
     @Test
     void buscaTodosProdutos_deveRetornarListaVazia_quandoExternalRetornarNulo() {
         // Arrange
-        when(redisCacheService.getCachedOrder("todosProdutos", List.class)).thenReturn(null);
+        executarCarregadorDoCache();
         when(externalAClient.getTodosProdutos()).thenReturn(null);
 
         // Act
@@ -86,16 +128,15 @@ class PedidoServiceTest {
 
         // Assert
         assertTrue(result.isEmpty());
-        verify(redisCacheService).getCachedOrder("todosProdutos", List.class);
+        verify(produtoCacheService).obterOuCarregar(eq("todosProdutos"), any(), eq(5L), eq(TimeUnit.MINUTES));
         verify(externalAClient).getTodosProdutos();
-        verify(redisCacheService, never()).cacheOrder(anyString(), any(), anyLong(), any());
     }
 
     @Test
     void buscaTodosProdutos_deveCachearERetornarLista_quandoExternalRetornarProdutos() {
         // Arrange
         List<Produto> produtos = List.of(new Produto("1", "Produto1", BigDecimal.TEN, 10));
-        when(redisCacheService.getCachedOrder("todosProdutos", List.class)).thenReturn(null);
+        executarCarregadorDoCache();
         when(externalAClient.getTodosProdutos()).thenReturn(produtos);
 
         // Act
@@ -103,9 +144,100 @@ class PedidoServiceTest {
 
         // Assert
         assertEquals(produtos, result);
-        verify(redisCacheService).getCachedOrder("todosProdutos", List.class);
+        verify(produtoCacheService).obterOuCarregar(eq("todosProdutos"), any(), eq(5L), eq(TimeUnit.MINUTES));
         verify(externalAClient).getTodosProdutos();
-        verify(redisCacheService).cacheOrder("todosProdutos", produtos, 5L, java.util.concurrent.TimeUnit.MINUTES);
+    }
+
+    @Test
+    void buscaCatalogoProdutos_deveServirUltimoCatalogoComoDesatualizado_quandoExternalAIndisponivel() {
+        // Arrange
+        List<Produto> ultimoCatalogo = List.of(new Produto("1", "Produto1", BigDecimal.TEN, 10));
+        when(produtoCacheService.obterOuCarregar(eq("todosProdutos"), any(), eq(5L), eq(TimeUnit.MINUTES)))
+                .thenThrow(new ExternalAIndisponivelException("circuito aberto"));
+        when(produtoCacheService.ultimoConhecido("todosProdutos")).thenReturn(ultimoCatalogo);
+
+        // Act
+        CatalogoProdutos catalogo = pedidoService.buscaCatalogoProdutos();
+
+        // Assert
+        assertEquals(ultimoCatalogo, catalogo.getProdutos());
+        assertTrue(catalogo.isDesatualizado());
+    }
+
+    @Test
+    void buscaCatalogoProdutos_deveResponder503_quandoExternalAIndisponivelESemUltimoCatalogo() {
+        // Arrange
+        when(produtoCacheService.obterOuCarregar(eq("todosProdutos"), any(), eq(5L), eq(TimeUnit.MINUTES)))
+                .thenThrow(new ExternalAIndisponivelException("circuito aberto"));
+
+        // Act & Assert
+        MensagemErrorException exception = assertThrows(MensagemErrorException.class,
+                () -> pedidoService.buscaCatalogoProdutos());
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, exception.getStatus());
+    }
+
+    @Test
+    void buscaCatalogoProdutos_deveServirSnapshotEmMemoria_semConsultarCache() {
+        // Arrange
+        CatalogoEmMemoriaService.SnapshotCatalogo snapshot = snapshot(new Produto("1", "Produto1", BigDecimal.TEN, 10));
+        when(catalogoEmMemoriaService.snapshotAtual()).thenReturn(snapshot);
+        when(catalogoEmMemoriaService.isDesatualizado(snapshot)).thenReturn(true);
+
+        // Act
+        CatalogoProdutos catalogo = pedidoService.buscaCatalogoProdutos();
+
+        // Assert
+        assertSame(snapshot.lista(), catalogo.getProdutos());
+        assertTrue(catalogo.isDesatualizado());
+        verifyNoInteractions(produtoCacheService);
+        verify(externalAClient, never()).getTodosProdutos();
+    }
+
+    @Test
+    void createBatchPedido_devePrecificarPeloSnapshot_eSoBuscarNoCacheOsAusentes() {
+        // Arrange
+        when(catalogoEmMemoriaService.snapshotAtual())
+                .thenReturn(snapshot(new Produto("1", "Produto1", new BigDecimal("10.00"), 10)));
+        when(externalAClient.getQuantidadeProduto(anyString())).thenReturn(10);
+        when(produtoCacheService.getCachedEmLote(anyCollection(), eq(Produto.class)))
+                .thenReturn(Map.of("produto:2", new Produto("2", "Produto2", new BigDecimal("5.00"), 10)));
+        when(pedidoRepository.save(any(Pedido.class))).thenAnswer(invocation -> {
+            Pedido pedido = invocation.getArgument(0);
+            pedido.setId("pedido123");
+            return pedido;
+        });
+
+        // Act
+        PedidoResponse response = pedidoService.createBatchPedido(List.of(new ProdutoItem("1", 2), new ProdutoItem("2", 1)));
+
+        // Assert
+        assertEquals(new BigDecimal("25.00"), response.getValorTotal());
+        assertNull(response.getDadosDesatualizados());
+        verify(produtoCacheService).getCachedEmLote(eq(Set.of("produto:2")), eq(Produto.class));
+        verify(externalAClient, never()).getProduto(anyString());
+    }
+
+    @Test
+    void createBatchPedido_naoDeveConsultarCacheDeProdutos_quandoTodosNoSnapshot() {
+        // Arrange
+        CatalogoEmMemoriaService.SnapshotCatalogo snapshot = snapshot(new Produto("1", "Produto1", BigDecimal.TEN, 10));
+        when(catalogoEmMemoriaService.snapshotAtual()).thenReturn(snapshot);
+        when(catalogoEmMemoriaService.isDesatualizado(snapshot)).thenReturn(true);
+        when(externalAClient.getQuantidadeProduto("1")).thenReturn(10);
+        when(pedidoRepository.save(any(Pedido.class))).thenAnswer(invocation -> {
+            Pedido pedido = invocation.getArgument(0);
+            pedido.setId("pedido123");
+            return pedido;
+        });
+
+        // Act
+        PedidoResponse response = pedidoService.createBatchPedido(List.of(new ProdutoItem("1", 2)));
+
+        // Assert
+        assertEquals(new BigDecimal("20.00"), response.getValorTotal());
+        assertTrue(response.getDadosDesatualizados());
+        verify(produtoCacheService, never()).getCachedEmLote(anyCollection(), any());
+        verify(produtoCacheService, never()).cacheEmLote(anyMap(), anyLong(), any());
     }
 
     @Test
@@ -122,7 +254,7 @@ class PedidoServiceTest {
         pedidoSalvo.setProdutosComprado(List.of(new ProdutoComprado("1", 2, "Produto1")));
 
         when(externalAClient.getQuantidadeProduto("1")).thenReturn(10);
-        when(redisCacheService.getCachedOrder("produto:1", Produto.class)).thenReturn(produto);
+        when(produtoCacheService.getCachedEmLote(anyCollection(), eq(Produto.class))).thenReturn(Map.of("produto:1", produto));
         when(pedidoRepository.save(any(Pedido.class))).thenReturn(pedidoSalvo);
 
         // Act
@@ -135,9 +267,89 @@ class PedidoServiceTest {
         assertEquals(new BigDecimal("20.00"), response.getValorTotal());
         assertEquals("PENDENTE PAGAMENTO", response.getSituacao());
         verify(externalAClient).getQuantidadeProduto("1");
-        verify(redisCacheService).getCachedOrder("produto:1", Produto.class);
+        verify(produtoCacheService).getCachedEmLote(Set.of("produto:1"), Produto.class);
+        verify(produtoCacheService, never()).cacheEmLote(anyMap(), anyLong(), any());
         verify(pedidoRepository).save(any(Pedido.class));
         verify(redisCacheService).cacheOrder("user123:batch", pedidoSalvo);
+        verify(pedidosUsuarioCacheService).acrescentar(pedidoSalvo);
+        verify(expiracaoPedidoService).agendar(pedidoSalvo);
+    }
+
+    @Test
+    void createBatchPedido_deveLerCacheEGravarAusentes_emUmaOperacaoCada() {
+        // Arrange: três itens (um repetido), um no cache e dois ausentes
+        List<ProdutoItem> produtos = List.of(new ProdutoItem("1", 1), new ProdutoItem("2", 1),
+                new ProdutoItem("3", 1), new ProdutoItem("2", 1));
+        when(externalAClient.getQuantidadeProduto(anyString())).thenReturn(10);
+        when(produtoCacheService.getCachedEmLote(anyCollection(), eq(Produto.class)))
+                .thenReturn(Map.of("produto:1", new Produto("1", "Produto1", BigDecimal.TEN, 10)));
+        Produto produto2 = new Produto("2", "Produto2", BigDecimal.ONE, 10);
+        Produto produto3 = new Produto("3", "Produto3", BigDecimal.ONE, 10);
+        when(externalAClient.getProduto("2")).thenReturn(produto2);
+        when(externalAClient.getProduto("3")).thenReturn(produto3);
+        when(pedidoRepository.save(any(Pedido.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // Act
+        PedidoResponse response = pedidoService.createBatchPedido(produtos);
+
+        // Assert
+        assertEquals(new BigDecimal("13.00"), response.getValorTotal());
+        verify(produtoCacheService, times(1)).getCachedEmLote(Set.of("produto:1", "produto:2", "produto:3"), Produto.class);
+        verify(externalAClient, times(1)).getProduto("2");
+        verify(produtoCacheService, times(1)).cacheEmLote(Map.of("produto:2", produto2, "produto:3", produto3),
+                5, TimeUnit.MINUTES);
+        verify(produtoCacheService, never()).getCached(anyString(), any());
+    }
+
+    @Test
+    void createBatchPedido_deveArredondarTotalUmaVez_quandoPrecoDoUpstreamTemFracaoDeCentavo() {
+        // Arrange
+        when(externalAClient.getQuantidadeProduto("1")).thenReturn(10);
+        when(produtoCacheService.getCachedEmLote(anyCollection(), eq(Produto.class)))
+                .thenReturn(Map.of("produto:1", new Produto("1", "Produto1", new BigDecimal("0.333"), 10)));
+        when(pedidoRepository.save(any(Pedido.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // Act
+        PedidoResponse response = pedidoService.createBatchPedido(List.of(new ProdutoItem("1", 3)));
+
+        // Assert
+        assertEquals(new BigDecimal("1.00"), response.getValorTotal());
+    }
+
+    @Test
+    void createBatchPedido_deveUsarUltimoProdutoConhecidoSemRegravarNoCache_quandoCircuitoAberto() {
+        // Arrange
+        List<ProdutoItem> produtos = List.of(new ProdutoItem("1", 1), new ProdutoItem("2", 1));
+        Produto produto1 = new Produto("1", "Produto1", BigDecimal.TEN, 10);
+        Produto produto2 = new Produto("2", "Produto2", BigDecimal.ONE, 10);
+        when(externalAClient.getQuantidadeProduto(anyString())).thenReturn(10);
+        when(produtoCacheService.getCachedEmLote(anyCollection(), eq(Produto.class))).thenReturn(Map.of());
+        when(externalAClient.getProduto("1")).thenReturn(produto1);
+        when(externalAClient.getProduto("2")).thenThrow(new ExternalAIndisponivelException("circuito aberto"));
+        when(produtoCacheService.ultimoConhecido("produto:2")).thenReturn(produto2);
+        when(pedidoRepository.save(any(Pedido.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // Act
+        PedidoResponse response = pedidoService.createBatchPedido(produtos);
+
+        // Assert
+        assertEquals(new BigDecimal("11.00"), response.getValorTotal());
+        assertEquals(Boolean.TRUE, response.getDadosDesatualizados());
+        verify(produtoCacheService).cacheEmLote(Map.of("produto:1", produto1), 5, TimeUnit.MINUTES);
+    }
+
+    @Test
+    void createBatchPedido_deveFalharNaHora_quandoCircuitoDoEstoqueAberto() {
+        // Arrange
+        when(externalAClient.getQuantidadeProduto("1")).thenThrow(new ExternalAIndisponivelException("circuito aberto"));
+
+        // Act & Assert
+        MensagemErrorException exception = assertThrows(MensagemErrorException.class,
+                () -> pedidoService.createBatchPedido(List.of(new ProdutoItem("1", 1))));
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, exception.getStatus());
+        verify(externalAClient, never()).getProduto(anyString());
+        verify(produtoCacheService, never()).ultimoConhecido(anyString());
+        verifyNoInteractions(pedidoRepository);
     }
 
     @Test
@@ -155,6 +367,245 @@ class PedidoServiceTest {
         assertEquals("Produto 1 não está disponível", exception.getMessage());
         verify(externalAClient).getQuantidadeProduto("1");
         verifyNoInteractions(pedidoRepository); // Não deve salvar nada
+        verifyNoInteractions(pedidosUsuarioCacheService);
+    }
+
+    @Test
+    void createBatchPedido_deveReservarCarrinho_semConsultarQuantidadePorItem_quandoReservaHabilitada() {
+        // Arrange
+        List<ProdutoItem> produtos = List.of(new ProdutoItem("1", 2), new ProdutoItem("2", 1));
+        when(reservaEstoqueService.isHabilitada()).thenReturn(true);
+        when(produtoCacheService.getCachedEmLote(anyCollection(), eq(Produto.class))).thenReturn(Map.of(
+                "produto:1", new Produto("1", "Produto1", BigDecimal.TEN, 10),
+                "produto:2", new Produto("2", "Produto2", BigDecimal.ONE, 10)));
+        when(pedidoRepository.save(any(Pedido.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // Act
+        PedidoResponse response = pedidoService.createBatchPedido(produtos);
+
+        // Assert
+        assertNotNull(response.getCodigoPedido());
+        assertEquals(new BigDecimal("21.00"), response.getValorTotal());
+        verify(reservaEstoqueService).reservar(response.getCodigoPedido(), "user123", produtos);
+        verify(externalAClient, never()).getQuantidadeProduto(anyString());
+        verify(reservaEstoqueService, never()).liberar(anyString());
+    }
+
+    @Test
+    void createBatchPedido_deveRegistrarTempoDeCadaEtapa() {
+        // Arrange
+        List<ProdutoItem> produtos = List.of(new ProdutoItem("1", 2));
+        when(externalAClient.getQuantidadeProduto("1")).thenReturn(10);
+        when(externalAClient.getProduto("1")).thenReturn(new Produto("1", "Produto1", BigDecimal.TEN, 10));
+        when(pedidoRepository.save(any(Pedido.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // Act
+        pedidoService.createBatchPedido(produtos);
+
+        // Assert
+        for (String etapa : List.of("estoque", "cache-produto", "upstream", "precificacao", "gravacao")) {
+            assertEquals(1, meterRegistry.get("pedido.criacao.etapa").tag("etapa", etapa).timer().count(), etapa);
+        }
+        // Gravação do produto buscado no cache e do pedido salvo
+        assertEquals(2, meterRegistry.get("pedido.criacao.etapa").tag("etapa", "cache-escrita").timer().count());
+    }
+
+    @Test
+    void createBatchPedido_deveEnfileirarNoJournal_semGravarNoMongo_quandoWriteBehindHabilitado() {
+        // Arrange
+        List<ProdutoItem> produtos = List.of(new ProdutoItem("1", 2));
+        when(externalAClient.getQuantidadeProduto("1")).thenReturn(10);
+        when(externalAClient.getProduto("1")).thenReturn(new Produto("1", "Produto1", BigDecimal.TEN, 10));
+        when(pedidoWriteBehindService.isHabilitado()).thenReturn(true);
+        when(pedidoWriteBehindService.enfileirar(any(Pedido.class))).thenAnswer(invocation -> {
+            Pedido pedido = invocation.getArgument(0);
+            pedido.setId("pedido-journal");
+            return pedido;
+        });
+
+        // Act
+        PedidoResponse response = pedidoService.createBatchPedido(produtos);
+
+        // Assert
+        assertEquals("pedido-journal", response.getCodigoPedido());
+        verify(pedidoRepository, never()).save(any(Pedido.class));
+        verify(pedidosUsuarioCacheService).acrescentar(any(Pedido.class));
+    }
+
+    @Test
+    void createBatchPedido_deveLiberarReserva_quandoFalharAoSalvar() {
+        // Arrange
+        List<ProdutoItem> produtos = List.of(new ProdutoItem("1", 2));
+        when(reservaEstoqueService.isHabilitada()).thenReturn(true);
+        when(produtoCacheService.getCachedEmLote(anyCollection(), eq(Produto.class)))
+                .thenReturn(Map.of("produto:1", new Produto("1", "Produto1", BigDecimal.TEN, 10)));
+        when(pedidoRepository.save(any(Pedido.class))).thenThrow(new IllegalStateException("mongo fora"));
+
+        // Act & Assert
+        assertThrows(IllegalStateException.class, () -> pedidoService.createBatchPedido(produtos));
+        verify(reservaEstoqueService).liberar(anyString());
+        verifyNoInteractions(pedidosUsuarioCacheService);
+    }
+
+    @Test
+    void createBatchPedido_naoDeveSalvar_quandoReservaFalhar() {
+        // Arrange
+        List<ProdutoItem> produtos = List.of(new ProdutoItem("1", 2));
+        when(reservaEstoqueService.isHabilitada()).thenReturn(true);
+        doThrow(new MensagemErrorException(HttpStatus.BAD_REQUEST, "Produto 1 não está disponível"))
+                .when(reservaEstoqueService).reservar(anyString(), eq("user123"), eq(produtos));
+
+        // Act & Assert
+        MensagemErrorException exception = assertThrows(MensagemErrorException.class,
+                () -> pedidoService.createBatchPedido(produtos));
+        assertEquals(HttpStatus.BAD_REQUEST, exception.getStatus());
+        verifyNoInteractions(pedidoRepository);
+        verify(reservaEstoqueService, never()).liberar(anyString());
+    }
+
+    @Test
+    void createBatchPedido_deveConsultarItensEmParalelo_quandoFanOutHabilitado() throws Exception {
+        // Arrange
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        PedidoService servicoParalelo = new PedidoService(pedidoRepository, externalAClient, redisCacheService,
+                produtoCacheService, catalogoEmMemoriaService, pedidosUsuarioCacheService, reservaEstoqueService,
+                expiracaoPedidoService, pedidoWriteBehindService, executor, externalACoalescer, meterRegistry);
+        ReflectionTestUtils.setField(servicoParalelo, "fanOutHabilitado", true);
+        ReflectionTestUtils.setField(servicoParalelo, "maxConcorrenciaFanOut", 4);
+
+        // As duas consultas de estoque só retornam quando ambas estiverem em andamento ao mesmo tempo
+        CountDownLatch consultasSimultaneas = new CountDownLatch(2);
+        when(externalAClient.getQuantidadeProduto(anyString())).thenAnswer(invocation -> {
+            consultasSimultaneas.countDown();
+            assertTrue(consultasSimultaneas.await(5, TimeUnit.SECONDS));
+            return 10;
+        });
+        when(produtoCacheService.getCachedEmLote(anyCollection(), eq(Produto.class)))
+                .thenReturn(Map.of("produto:1", new Produto("1", "Produto1", BigDecimal.TEN, 10)));
+        Produto produto2 = new Produto("2", "Produto2", new BigDecimal("5.00"), 10);
+        when(externalAClient.getProduto("2")).thenReturn(produto2);
+        when(pedidoRepository.save(any(Pedido.class))).thenAnswer(invocation -> {
+            Pedido pedido = invocation.getArgument(0);
+            pedido.setId("pedido123");
+            return pedido;
+        });
+
+        try {
+            // Act
+            PedidoResponse response = servicoParalelo.createBatchPedido(
+                    List.of(new ProdutoItem("1", 2), new ProdutoItem("2", 3)));
+
+            // Assert
+            assertEquals("pedido123", response.getCodigoPedido());
+            assertEquals(new BigDecimal("35.00"), response.getValorTotal());
+            assertEquals("1", response.getProdutosComprado().get(0).getIdProduto());
+            assertEquals("Produto2", response.getProdutosComprado().get(1).getNomeProduto());
+            verify(produtoCacheService).cacheEmLote(Map.of("produto:2", produto2), 5, TimeUnit.MINUTES);
+            verify(externalAClient, never()).getProduto("1");
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void createBatchPedido_deveFalharRapido_quandoItemIndisponivelComFanOutHabilitado() {
+        // Arrange
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        PedidoService servicoParalelo = new PedidoService(pedidoRepository, externalAClient, redisCacheService,
+                produtoCacheService, catalogoEmMemoriaService, pedidosUsuarioCacheService, reservaEstoqueService,
+                expiracaoPedidoService, pedidoWriteBehindService, executor, externalACoalescer, meterRegistry);
+        ReflectionTestUtils.setField(servicoParalelo, "fanOutHabilitado", true);
+        ReflectionTestUtils.setField(servicoParalelo, "maxConcorrenciaFanOut", 4);
+
+        when(externalAClient.getQuantidadeProduto("1")).thenReturn(3);
+        when(externalAClient.getQuantidadeProduto("2")).thenReturn(10);
+        when(produtoCacheService.getCachedEmLote(anyCollection(), eq(Produto.class))).thenReturn(Map.of(
+                "produto:1", new Produto("1", "Produto1", BigDecimal.TEN, 10),
+                "produto:2", new Produto("2", "Produto2", BigDecimal.ONE, 10)));
+
+        try {
+            // Act & Assert
+            MensagemErrorException exception = assertThrows(MensagemErrorException.class, () ->
+                    servicoParalelo.createBatchPedido(List.of(new ProdutoItem("1", 5), new ProdutoItem("2", 1))));
+            assertEquals(HttpStatus.BAD_REQUEST, exception.getStatus());
+            assertEquals("Produto 1 não está disponível", exception.getMessage());
+            verifyNoInteractions(pedidoRepository);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void createBatchPedido_deveUsarConsultaEmLote_quandoCoalescerHabilitado() {
+        // Arrange
+        ReflectionTestUtils.setField(pedidoService, "coalescerHabilitado", true);
+        when(externalACoalescer.buscarProduto("1"))
+                .thenReturn(CompletableFuture.completedFuture(new Produto("1", "Produto1", BigDecimal.TEN, 10)));
+        when(externalACoalescer.buscarProduto("2"))
+                .thenReturn(CompletableFuture.completedFuture(new Produto("2", "Produto2", BigDecimal.ONE, 1)));
+        when(pedidoRepository.save(any(Pedido.class))).thenAnswer(invocation -> {
+            Pedido pedido = invocation.getArgument(0);
+            pedido.setId("pedido123");
+            return pedido;
+        });
+
+        // Act
+        PedidoResponse response = pedidoService.createBatchPedido(List.of(new ProdutoItem("1", 2)));
+
+        // Assert
+        assertEquals(new BigDecimal("20.00"), response.getValorTotal());
+        verify(externalACoalescer).buscarProduto("1");
+        verifyNoInteractions(externalAClient);
+        // Ausente do cache: o produto que veio no lote passa a ser cacheado
+        verify(produtoCacheService).cacheEmLote(eq(Map.of("produto:1", new Produto("1", "Produto1", BigDecimal.TEN, 10))),
+                eq(5L), eq(TimeUnit.MINUTES));
+
+        // O estoque devolvido no lote também é validado
+        MensagemErrorException exception = assertThrows(MensagemErrorException.class, () ->
+                pedidoService.createBatchPedido(List.of(new ProdutoItem("1", 1), new ProdutoItem("2", 1))));
+        assertEquals("Produto 2 não está disponível", exception.getMessage());
+    }
+
+    @Test
+    void createBatchPedido_deveUsarSnapshotECacheParaProduto_eCoalescerSoParaEstoque_quandoCoalescerHabilitado() {
+        // Arrange: no upstream os preços mudaram, mas o pedido segue o snapshot e o cache como nos demais modos
+        ReflectionTestUtils.setField(pedidoService, "coalescerHabilitado", true);
+        CatalogoEmMemoriaService.SnapshotCatalogo snapshot = snapshot(new Produto("1", "Produto1", new BigDecimal("10.00"), 10));
+        when(catalogoEmMemoriaService.snapshotAtual()).thenReturn(snapshot);
+        when(catalogoEmMemoriaService.isDesatualizado(snapshot)).thenReturn(true);
+        when(produtoCacheService.getCachedEmLote(anyCollection(), eq(Produto.class)))
+                .thenReturn(Map.of("produto:2", new Produto("2", "Produto2", new BigDecimal("5.00"), 10)));
+        when(externalACoalescer.buscarProduto("1"))
+                .thenReturn(CompletableFuture.completedFuture(new Produto("1", "Produto1", new BigDecimal("99.00"), 10)));
+        when(externalACoalescer.buscarProduto("2"))
+                .thenReturn(CompletableFuture.completedFuture(new Produto("2", "Produto2", new BigDecimal("99.00"), 10)));
+        when(pedidoRepository.save(any(Pedido.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // Act
+        PedidoResponse response = pedidoService.createBatchPedido(List.of(new ProdutoItem("1", 2), new ProdutoItem("2", 1)));
+
+        // Assert
+        assertEquals(new BigDecimal("25.00"), response.getValorTotal());
+        assertTrue(response.getDadosDesatualizados());
+        verify(produtoCacheService).getCachedEmLote(Set.of("produto:2"), Produto.class);
+        verify(produtoCacheService, never()).cacheEmLote(anyMap(), anyLong(), any());
+        verifyNoInteractions(externalAClient);
+    }
+
+    @Test
+    void createBatchPedido_deveFalharNaHora_quandoCoalescerIndisponivel() {
+        // Arrange: sem estoque confirmado não há pedido, mesmo com o produto no cache
+        ReflectionTestUtils.setField(pedidoService, "coalescerHabilitado", true);
+        when(produtoCacheService.getCachedEmLote(anyCollection(), eq(Produto.class)))
+                .thenReturn(Map.of("produto:1", new Produto("1", "Produto1", BigDecimal.TEN, 10)));
+        when(externalACoalescer.buscarProduto("1")).thenReturn(CompletableFuture.failedFuture(
+                new ExternalAIndisponivelException("Consulta em lote ao External A sem vaga no momento")));
+
+        // Act & Assert
+        MensagemErrorException exception = assertThrows(ExternalAIndisponivelException.class,
+                () -> pedidoService.createBatchPedido(List.of(new ProdutoItem("1", 1))));
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, exception.getStatus());
+        verifyNoInteractions(pedidoRepository);
     }
 
     @Test
@@ -165,8 +616,7 @@ class PedidoServiceTest {
         pedido.setValorTotal(BigDecimal.TEN);
         pedido.setStatus("PENDENTE PAGAMENTO");
         pedido.setHorarioCriacao(LocalDateTime.now());
-        List<Pedido> pedidosCacheados = List.of(pedido);
-        when(redisCacheService.getCachedOrder("pedidos:user123", List.class)).thenReturn(pedidosCacheados);
+        when(pedidosUsuarioCacheService.listar("user123")).thenReturn(List.of(pedido));
 
         // Act
         List<PedidoResponse> result = pedidoService.listarPedidosPorUsuario();
@@ -175,14 +625,14 @@ class PedidoServiceTest {
         assertFalse(result.isEmpty());
         assertEquals(1, result.size());
         assertEquals("pedido123", result.get(0).getCodigoPedido());
-        verify(redisCacheService).getCachedOrder("pedidos:user123", List.class);
+        verify(pedidosUsuarioCacheService).listar("user123");
         verifyNoInteractions(pedidoRepository);
     }
 
     @Test
     void listarPedidosPorUsuario_deveRetornarListaVazia_quandoNaoHouverPedidos() {
         // Arrange
-        when(redisCacheService.getCachedOrder("pedidos:user123", List.class)).thenReturn(null);
+        when(pedidosUsuarioCacheService.listar("user123")).thenReturn(null);
         when(pedidoRepository.findByIdUsuario("user123")).thenReturn(Collections.emptyList());
 
         // Act
@@ -190,32 +640,119 @@ class PedidoServiceTest {
 
         // Assert
         assertTrue(result.isEmpty());
-        verify(redisCacheService).getCachedOrder("pedidos:user123", List.class);
         verify(pedidoRepository).findByIdUsuario("user123");
-        verify(redisCacheService, never()).cacheOrder(anyString(), any(), anyLong(), any());
+        verify(pedidosUsuarioCacheService).popular("user123", List.of());
     }
 
     @Test
     void listarPedidosPorUsuario_deveCachearERetornarLista_quandoHouverPedidos() {
         // Arrange
-        Pedido pedido = new Pedido("user123");
-        pedido.setId("pedido123");
-        pedido.setValorTotal(BigDecimal.TEN);
-        pedido.setStatus("PENDENTE PAGAMENTO");
-        pedido.setHorarioCriacao(LocalDateTime.now());
-        List<Pedido> pedidos = List.of(pedido);
-        when(redisCacheService.getCachedOrder("pedidos:user123", List.class)).thenReturn(null);
-        when(pedidoRepository.findByIdUsuario("user123")).thenReturn(pedidos);
+        LocalDateTime agora = LocalDateTime.now();
+        Pedido antigo = pedidoCriadoEm("pedido1", agora.minusDays(1));
+        Pedido recente = pedidoCriadoEm("pedido2", agora);
+        when(pedidosUsuarioCacheService.listar("user123")).thenReturn(null);
+        when(pedidoRepository.findByIdUsuario("user123")).thenReturn(List.of(antigo, recente));
 
         // Act
         List<PedidoResponse> result = pedidoService.listarPedidosPorUsuario();
 
         // Assert
-        assertFalse(result.isEmpty());
-        assertEquals(1, result.size());
-        assertEquals("pedido123", result.get(0).getCodigoPedido());
-        verify(redisCacheService).getCachedOrder("pedidos:user123", List.class);
+        assertEquals(List.of("pedido2", "pedido1"), result.stream().map(PedidoResponse::getCodigoPedido).toList());
         verify(pedidoRepository).findByIdUsuario("user123");
-        verify(redisCacheService).cacheOrder("pedidos:user123", pedidos, 1L, java.util.concurrent.TimeUnit.MINUTES);
+        verify(pedidosUsuarioCacheService).popular(eq("user123"), argThat(pedidos -> pedidos.size() == 2));
+        verifyNoInteractions(redisCacheService);
+    }
+
+    @Test
+    void listarPedidosPorUsuarioPaginado_deveRetornarCursor_quandoHouverMaisPedidos() {
+        // Arrange
+        ReflectionTestUtils.setField(pedidoService, "tamanhoPaginaPadrao", 2);
+        ReflectionTestUtils.setField(pedidoService, "tamanhoPaginaMaximo", 100);
+        LocalDateTime agora = LocalDateTime.of(2025, 3, 1, 10, 0, 0, 123_000_000);
+        List<Pedido> pedidos = List.of(pedidoCriadoEm("p3", agora), pedidoCriadoEm("p2", agora.minusMinutes(1)),
+                pedidoCriadoEm("p1", agora.minusMinutes(2)));
+        when(pedidoRepository.buscarPaginaPorUsuario("user123", null, null, 3)).thenReturn(pedidos);
+        when(pedidoRepository.buscarPaginaPorUsuario("user123", agora.minusMinutes(1), "p2", 3))
+                .thenReturn(List.of(pedidos.get(2)));
+
+        // Act
+        PaginaPedidosResponse primeira = pedidoService.listarPedidosPorUsuarioPaginado(null, null);
+        PaginaPedidosResponse segunda = pedidoService.listarPedidosPorUsuarioPaginado(primeira.getProximoCursor(), null);
+
+        // Assert
+        assertEquals(List.of("p3", "p2"), primeira.getPedidos().stream().map(PedidoResponse::getCodigoPedido).toList());
+        assertNotNull(primeira.getProximoCursor());
+        assertEquals(List.of("p1"), segunda.getPedidos().stream().map(PedidoResponse::getCodigoPedido).toList());
+        assertNull(segunda.getProximoCursor());
+        verifyNoInteractions(redisCacheService);
+    }
+
+    @Test
+    void listarPedidosPorUsuarioPaginado_deveLimitarTamanhoAoMaximo() {
+        // Arrange
+        ReflectionTestUtils.setField(pedidoService, "tamanhoPaginaMaximo", 100);
+        when(pedidoRepository.buscarPaginaPorUsuario(anyString(), any(), any(), anyInt())).thenReturn(List.of());
+
+        // Act
+        PaginaPedidosResponse pagina = pedidoService.listarPedidosPorUsuarioPaginado(null, 5_000);
+
+        // Assert
+        assertTrue(pagina.getPedidos().isEmpty());
+        verify(pedidoRepository).buscarPaginaPorUsuario("user123", null, null, 101);
+    }
+
+    @Test
+    void listarPedidosPorUsuarioPaginado_deveLancarExcecao_quandoCursorForInvalido() {
+        // Act & Assert
+        MensagemErrorException exception = assertThrows(MensagemErrorException.class,
+                () -> pedidoService.listarPedidosPorUsuarioPaginado("nao-e-um-cursor", 10));
+        assertEquals(HttpStatus.BAD_REQUEST, exception.getStatus());
+        verify(pedidoRepository, never()).buscarPaginaPorUsuario(anyString(), any(), any(), anyInt());
+    }
+
+    @Test
+    void listarPedidosPorUsuarioPaginado_deveLancarExcecao_quandoTamanhoForInvalido() {
+        // Act & Assert
+        MensagemErrorException exception = assertThrows(MensagemErrorException.class,
+                () -> pedidoService.listarPedidosPorUsuarioPaginado(null, 0));
+        assertEquals(HttpStatus.BAD_REQUEST, exception.getStatus());
+    }
+
+    @Test
+    void streamPedidosPorUsuario_deveMapearPedidosDoCursor_semConsultarCache() {
+        // Arrange
+        LocalDateTime agora = LocalDateTime.now();
+        when(pedidoRepository.streamPorUsuario("user123"))
+                .thenReturn(Stream.of(pedidoCriadoEm("p2", agora), pedidoCriadoEm("p1", agora.minusMinutes(1))));
+
+        // Act
+        List<String> codigos;
+        try (Stream<PedidoResponse> pedidos = pedidoService.streamPedidosPorUsuario()) {
+            codigos = pedidos.map(PedidoResponse::getCodigoPedido).collect(Collectors.toList());
+        }
+
+        // Assert
+        assertEquals(List.of("p2", "p1"), codigos);
+        verifyNoInteractions(redisCacheService);
+    }
+
+    private static Pedido pedidoCriadoEm(String id, LocalDateTime horarioCriacao) {
+        Pedido pedido = new Pedido("user123");
+        pedido.setId(id);
+        pedido.setValorTotal(BigDecimal.TEN);
+        pedido.setStatus("PENDENTE PAGAMENTO");
+        pedido.setHorarioCriacao(horarioCriacao);
+        return pedido;
+    }
+
+    // Simula um cache vazio: o ProdutoCacheService executa o carregador recebido e devolve o resultado
+    private void executarCarregadorDoCache() {
+        when(produtoCacheService.obterOuCarregar(anyString(), any(), anyLong(), any()))
+                .thenAnswer(invocation -> ((Supplier<?>) invocation.getArgument(1)).get());
+    }
+
+    private static CatalogoEmMemoriaService.SnapshotCatalogo snapshot(Produto... produtos) {
+        Map<String, Produto> porId = Stream.of(produtos).collect(Collectors.toMap(Produto::getId, produto -> produto));
+        return new CatalogoEmMemoriaService.SnapshotCatalogo(1, porId, List.of(produtos), System.currentTimeMillis());
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,328 @@
+package com.example.order.service;
+
+import com.example.order.model.Pedido;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import de.bwaldvogel.mongo.MongoServer;
+import de.bwaldvogel.mongo.backend.memory.MemoryBackend;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Range;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.redis.connection.stream.Consumer;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.connection.stream.PendingMessage;
+import org.springframework.data.redis.connection.stream.PendingMessages;
+import org.springframework.data.redis.connection.stream.ReadOffset;
+import org.springframework.data.redis.connection.stream.RecordId;
+import org.springframework.data.redis.connection.stream.StreamOffset;
+import org.springframework.data.redis.connection.stream.StreamReadOptions;
+import org.springframework.data.redis.connection.stream.StreamRecords;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StreamOperations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * O journal (stream do Redis) é simulado; as gravações em lote rodam contra um servidor em memória
+ * compatível com o protocolo do Mongo.
+ */
+class PedidoWriteBehindServiceTest {
+
+    private static MongoServer servidor;
+    private static MongoClient cliente;
+
+    private MongoTemplate mongoTemplate;
+    private StreamOperations<String, Object, Object> stream;
+    private SimpleMeterRegistry meterRegistry;
+    private PedidoWriteBehindService writeBehindService;
+
+    @BeforeAll
+    static void iniciarServidor() {
+        servidor = new MongoServer(new MemoryBackend());
+        cliente = MongoClients.create(servidor.bindAndGetConnectionString());
+    }
+
+    @AfterAll
+    static void pararServidor() {
+        cliente.close();
+        servidor.shutdownNow();
+    }
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        mongoTemplate = new MongoTemplate(cliente, "orderdb");
+        mongoTemplate.dropCollection(Pedido.class);
+        RedisTemplate<String, Object> redisTemplate = mock(RedisTemplate.class);
+        stream = mock(StreamOperations.class);
+        when(redisTemplate.<Object, Object>opsForStream()).thenReturn(stream);
+        meterRegistry = new SimpleMeterRegistry();
+        writeBehindService = new PedidoWriteBehindService(redisTemplate, mongoTemplate, meterRegistry);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void enfileirar_deveAtribuirIdEAnexarAoJournal_semGravarNoMongo() {
+        // Arrange
+        Pedido pedido = pedido(null);
+
+        // Act
+        Pedido enfileirado = writeBehindService.enfileirar(pedido);
+
+        // Assert
+        assertTrue(ObjectId.isValid(enfileirado.getId()));
+        ArgumentCaptor<MapRecord<String, Object, Object>> registro = ArgumentCaptor.forClass(MapRecord.class);
+        verify(stream).add(registro.capture());
+        assertEquals(PedidoWriteBehindService.CHAVE_JOURNAL, registro.getValue().getStream());
+        assertSame(pedido, registro.getValue().getValue().get("pedido"));
+        assertTrue(mongoTemplate.findAll(Pedido.class).isEmpty());
+    }
+
+    @Test
+    void processarLote_deveGravarEmLoteEConfirmarEntradas() {
+        // Arrange
+        List<MapRecord<String, Object, Object>> registros = registros(pedido(id()), pedido(id()), pedido(id()));
+        quandoLer(registros);
+        when(stream.size(PedidoWriteBehindService.CHAVE_JOURNAL)).thenReturn(3L);
+
+        // Act
+        int lidos = writeBehindService.processarLote(ReadOffset.lastConsumed());
+
+        // Assert
+        assertEquals(3, lidos);
+        assertEquals(3, mongoTemplate.findAll(Pedido.class).size());
+        RecordId[] ids = registros.stream().map(MapRecord::getId).toArray(RecordId[]::new);
+        verify(stream).acknowledge(PedidoWriteBehindService.CHAVE_JOURNAL, PedidoWriteBehindService.GRUPO, ids);
+        verify(stream).delete(PedidoWriteBehindService.CHAVE_JOURNAL, ids);
+        assertEquals(3.0, meterRegistry.get("pedidos.write-behind.gravados").counter().count());
+        assertEquals(1, meterRegistry.get("pedidos.write-behind.gravacao").timer().count());
+        assertEquals(0.0, meterRegistry.get("pedidos.write-behind.fila").gauge().value());
+    }
+
+    @Test
+    void processarLote_deveIgnorarPedidosJaGravados_quandoReprocessarJournalAposQueda() {
+        // Arrange: o primeiro pedido chegou ao Mongo, mas a instância caiu antes do XACK
+        Pedido jaGravado = pedido(id());
+        mongoTemplate.insert(jaGravado);
+        Pedido novo = pedido(id());
+        List<MapRecord<String, Object, Object>> registros = registros(jaGravado, novo);
+        quandoLer(registros);
+
+        // Act
+        int lidos = writeBehindService.processarLote(ReadOffset.from("0"));
+
+        // Assert
+        assertEquals(2, lidos);
+        assertEquals(2, mongoTemplate.findAll(Pedido.class).size());
+        assertNotNull(mongoTemplate.findById(novo.getId(), Pedido.class));
+        verify(stream).acknowledge(eq(PedidoWriteBehindService.CHAVE_JOURNAL), eq(PedidoWriteBehindService.GRUPO),
+                any(RecordId[].class));
+        assertEquals(1.0, meterRegistry.get("pedidos.write-behind.gravados").counter().count());
+    }
+
+    @Test
+    void processarLote_naoDeveConfirmar_quandoGravacaoFalhar() {
+        // Arrange
+        MongoTemplate mongoIndisponivel = mock(MongoTemplate.class);
+        when(mongoIndisponivel.bulkOps(any(), eq(Pedido.class))).thenThrow(new DataAccessResourceFailureException("Mongo fora do ar"));
+        writeBehindService = new PedidoWriteBehindService(redisTemplateCom(stream), mongoIndisponivel, new SimpleMeterRegistry());
+        quandoLer(registros(pedido(id())));
+
+        // Act & Assert
+        assertThrows(DataAccessResourceFailureException.class, () -> writeBehindService.processarLote(ReadOffset.lastConsumed()));
+        verify(stream, never()).acknowledge(anyString(), anyString(), any(RecordId[].class));
+        verify(stream, never()).delete(anyString(), any(RecordId[].class));
+    }
+
+    @Test
+    void processarLote_deveGravarEntradasSeguintes_quandoPrimeiraEntradaDoLoteFalhar() {
+        // Arrange
+        Pedido ruim = pedido(id());
+        Pedido bom1 = pedido(id());
+        Pedido bom2 = pedido(id());
+        List<MapRecord<String, Object, Object>> registros = registros(ruim, bom1, bom2);
+        quandoLer(registros);
+        quandoEntregue(1);
+        writeBehindService = new PedidoWriteBehindService(redisTemplateCom(stream), mongoRecusando(ruim), meterRegistry);
+
+        // Act & Assert
+        assertThrows(DataIntegrityViolationException.class,
+                () -> writeBehindService.processarLote(ReadOffset.lastConsumed()));
+        assertNull(mongoTemplate.findById(ruim.getId(), Pedido.class));
+        assertNotNull(mongoTemplate.findById(bom1.getId(), Pedido.class));
+        assertNotNull(mongoTemplate.findById(bom2.getId(), Pedido.class));
+        RecordId[] gravados = {registros.get(1).getId(), registros.get(2).getId()};
+        verify(stream).acknowledge(PedidoWriteBehindService.CHAVE_JOURNAL, PedidoWriteBehindService.GRUPO, gravados);
+        verify(stream).delete(PedidoWriteBehindService.CHAVE_JOURNAL, gravados);
+        verify(stream, never()).add(any(MapRecord.class));
+        assertEquals(2.0, meterRegistry.get("pedidos.write-behind.gravados").counter().count());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void processarLote_deveMoverParaFalhasEConfirmar_quandoEntradaEsgotarTentativas() {
+        // Arrange
+        Pedido ruim = pedido(id());
+        Pedido bom = pedido(id());
+        List<MapRecord<String, Object, Object>> registros = registros(ruim, bom);
+        quandoLer(registros);
+        quandoEntregue(5);
+        writeBehindService = new PedidoWriteBehindService(redisTemplateCom(stream), mongoRecusando(ruim), meterRegistry);
+
+        // Act
+        int lidos = writeBehindService.processarLote(ReadOffset.from("0"));
+
+        // Assert
+        assertEquals(2, lidos);
+        assertNotNull(mongoTemplate.findById(bom.getId(), Pedido.class));
+        ArgumentCaptor<MapRecord<String, Object, Object>> desviado = ArgumentCaptor.forClass(MapRecord.class);
+        verify(stream).add(desviado.capture());
+        assertEquals(PedidoWriteBehindService.CHAVE_FALHAS, desviado.getValue().getStream());
+        assertSame(ruim, desviado.getValue().getValue().get("pedido"));
+        RecordId[] confirmados = {registros.get(1).getId(), registros.get(0).getId()};
+        verify(stream).acknowledge(PedidoWriteBehindService.CHAVE_JOURNAL, PedidoWriteBehindService.GRUPO, confirmados);
+        verify(stream).delete(PedidoWriteBehindService.CHAVE_JOURNAL, confirmados);
+        assertEquals(1.0, meterRegistry.get("pedidos.write-behind.falhas").counter().count());
+    }
+
+    @Test
+    void recuperarPendentes_deveReler_ateEsvaziarEntradasNaoConfirmadas() {
+        // Arrange
+        when(lerDoJournal(stream, null))
+                .thenReturn(registros(pedido(id())))
+                .thenReturn(List.of());
+        ReflectionTestUtils.setField(writeBehindService, "ativo", true);
+
+        // Act
+        writeBehindService.recuperarPendentes(ReadOffset.from("0"));
+
+        // Assert
+        assertEquals(1, mongoTemplate.findAll(Pedido.class).size());
+        ArgumentCaptor<StreamOffset<String>> offset = ArgumentCaptor.captor();
+        lerDoJournal(verify(stream, times(2)), offset);
+        assertEquals(ReadOffset.from("0"), offset.getValue().getOffset());
+    }
+
+    @Test
+    void executarCiclo_deveRegravarLoteQueFalhou_quandoGravacaoSeguinteFuncionar() {
+        // Arrange: o journal entrega cada entrada nova uma vez; as não confirmadas só voltam lendo do início
+        Pedido pedido = pedido(id());
+        List<MapRecord<String, Object, Object>> novas = new ArrayList<>(registros(pedido));
+        List<MapRecord<String, Object, Object>> pendentes = new ArrayList<>();
+        when(lerDoJournal(stream, null)).thenAnswer(invocacao -> {
+            StreamOffset<?> offset = invocacao.getArgument(2);
+            if (!offset.getOffset().equals(ReadOffset.lastConsumed())) {
+                return new ArrayList<>(pendentes);
+            }
+            List<MapRecord<String, Object, Object>> lidas = new ArrayList<>(novas);
+            pendentes.addAll(novas);
+            novas.clear();
+            return lidas;
+        });
+        doAnswer(invocacao -> {
+            pendentes.clear();
+            return 1L;
+        }).when(stream).acknowledge(anyString(), anyString(), any(RecordId[].class));
+        MongoTemplate mongoInstavel = spy(mongoTemplate);
+        doThrow(new DataAccessResourceFailureException("Mongo fora do ar")).doCallRealMethod()
+                .when(mongoInstavel).bulkOps(any(), eq(Pedido.class));
+        writeBehindService = new PedidoWriteBehindService(redisTemplateCom(stream), mongoInstavel, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(writeBehindService, "ativo", true);
+
+        // Act
+        boolean primeiroCiclo = writeBehindService.executarCiclo();
+        boolean gravadoNoPrimeiro = mongoTemplate.findById(pedido.getId(), Pedido.class) != null;
+        boolean segundoCiclo = writeBehindService.executarCiclo();
+
+        // Assert
+        assertFalse(primeiroCiclo);
+        assertFalse(gravadoNoPrimeiro);
+        assertTrue(segundoCiclo);
+        assertNotNull(mongoTemplate.findById(pedido.getId(), Pedido.class));
+        assertTrue(pendentes.isEmpty());
+        verify(stream).acknowledge(eq(PedidoWriteBehindService.CHAVE_JOURNAL), eq(PedidoWriteBehindService.GRUPO),
+                any(RecordId[].class));
+    }
+
+    // Mongo real que recusa um pedido específico, tanto no lote quanto no insert avulso
+    private MongoTemplate mongoRecusando(Pedido recusado) {
+        MongoTemplate mongoSeletivo = spy(mongoTemplate);
+        DataIntegrityViolationException erro = new DataIntegrityViolationException("Document failed validation");
+        doThrow(erro).when(mongoSeletivo).bulkOps(any(), eq(Pedido.class));
+        doThrow(erro).when(mongoSeletivo).insert(argThat((Pedido pedido) -> recusado.getId().equals(pedido.getId())));
+        return mongoSeletivo;
+    }
+
+    private void quandoEntregue(long vezes) {
+        when(stream.pending(eq(PedidoWriteBehindService.CHAVE_JOURNAL), eq(PedidoWriteBehindService.GRUPO),
+                any(Range.class), anyLong())).thenAnswer(invocacao -> {
+            Range<?> faixa = invocacao.getArgument(2);
+            RecordId id = RecordId.of(String.valueOf(faixa.getLowerBound().getValue().orElseThrow()));
+            return new PendingMessages(PedidoWriteBehindService.GRUPO, List.of(new PendingMessage(id,
+                    Consumer.from(PedidoWriteBehindService.GRUPO, "local"), Duration.ofSeconds(1), vezes)));
+        });
+    }
+
+    private void quandoLer(List<MapRecord<String, Object, Object>> registros) {
+        when(lerDoJournal(stream, null)).thenReturn(registros);
+    }
+
+    // O read é varargs de um tipo genérico; o aviso de unchecked fica só aqui
+    @SuppressWarnings("unchecked")
+    private static List<MapRecord<String, Object, Object>> lerDoJournal(StreamOperations<String, Object, Object> alvo,
+                                                                       ArgumentCaptor<StreamOffset<String>> offset) {
+        return alvo.read(any(Consumer.class), any(StreamReadOptions.class),
+                offset != null ? offset.capture() : any(StreamOffset.class));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static RedisTemplate<String, Object> redisTemplateCom(StreamOperations<String, Object, Object> stream) {
+        RedisTemplate<String, Object> redisTemplate = mock(RedisTemplate.class);
+        when(redisTemplate.<Object, Object>opsForStream()).thenReturn(stream);
+        return redisTemplate;
+    }
+
+    private static List<MapRecord<String, Object, Object>> registros(Pedido... pedidos) {
+        List<MapRecord<String, Object, Object>> registros = new ArrayList<>();
+        for (int i = 0; i < pedidos.length; i++) {
+            registros.add(StreamRecords.newRecord()
+                    .in(PedidoWriteBehindService.CHAVE_JOURNAL)
+                    .withId(RecordId.of(1_000L, i))
+                    .ofMap(Map.of("pedido", (Object) pedidos[i])));
+        }
+        return registros;
+    }
+
+    private static Pedido pedido(String id) {
+        Pedido pedido = new Pedido("user123");
+        pedido.setId(id);
+        pedido.setStatus("PENDENTE PAGAMENTO");
+        pedido.setValorTotal(BigDecimal.TEN);
+        return pedido;
+    }
+
+    private static String id() {
+        return new ObjectId().toHexString();
+    }
+}
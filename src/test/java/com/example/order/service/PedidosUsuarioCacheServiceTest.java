@@ -0,0 +1,137 @@
+package com.example.order.service;
+
+import com.example.order.model.Pedido;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class PedidosUsuarioCacheServiceTest {
+
+    private static final List<String> CHAVES = List.of("pedidos-usuario:user123", "pedidos-usuario:user123:dados");
+
+    @Mock
+    private RedisTemplate<String, Object> redisTemplate;
+
+    @InjectMocks
+    private PedidosUsuarioCacheService pedidosUsuarioCacheService;
+
+    @BeforeEach
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    void setUp() {
+        // Serializador simples para conferir os argumentos enviados ao script
+        RedisSerializer serializador = new RedisSerializer<Object>() {
+            @Override
+            public byte[] serialize(Object valor) {
+                return String.valueOf(valor).getBytes(StandardCharsets.UTF_8);
+            }
+
+            @Override
+            public Object deserialize(byte[] bytes) {
+                return new String(bytes, StandardCharsets.UTF_8);
+            }
+        };
+        when(redisTemplate.getValueSerializer()).thenReturn(serializador);
+    }
+
+    @Test
+    void acrescentar_deveEnviarIdPontuacaoEPedido_semMarcarListaComoCompleta() {
+        // Arrange
+        Pedido pedido = pedido("pedido1", LocalDateTime.of(2025, 3, 1, 10, 0));
+
+        // Act
+        pedidosUsuarioCacheService.acrescentar(pedido);
+
+        // Assert
+        List<String> argumentos = argumentosDoScript();
+        assertEquals(List.of("3600000", "0", "pedido1",
+                String.valueOf(pedido.getHorarioCriacao().toInstant(ZoneOffset.UTC).toEpochMilli()), pedido.toString()),
+                argumentos);
+    }
+
+    @Test
+    void popular_deveMarcarListaComoCompleta_mesmoSemPedidos() {
+        // Act
+        pedidosUsuarioCacheService.popular("user123", List.of());
+
+        // Assert
+        assertEquals(List.of("3600000", "1"), argumentosDoScript());
+    }
+
+    @Test
+    void listar_deveRetornarNulo_quandoListaNaoEstiverCarregada() {
+        // Arrange
+        when(redisTemplate.execute(any(RedisScript.class), any(RedisSerializer.class), any(RedisSerializer.class),
+                eq(CHAVES), any(Object[].class))).thenReturn(null);
+
+        // Act & Assert
+        assertNull(pedidosUsuarioCacheService.listar("user123"));
+    }
+
+    @Test
+    void listar_deveRetornarNulo_quandoAlgumPedidoFaltarNoHash() {
+        // Arrange
+        when(redisTemplate.execute(any(RedisScript.class), any(RedisSerializer.class), any(RedisSerializer.class),
+                eq(CHAVES), any(Object[].class)))
+                .thenReturn(Arrays.asList(pedido("pedido2", LocalDateTime.now()), null));
+
+        // Act & Assert
+        assertNull(pedidosUsuarioCacheService.listar("user123"));
+    }
+
+    @Test
+    void listar_deveRetornarPedidosNaOrdemDoSortedSet() {
+        // Arrange
+        Pedido recente = pedido("pedido2", LocalDateTime.now());
+        Pedido antigo = pedido("pedido1", LocalDateTime.now().minusDays(1));
+        when(redisTemplate.execute(any(RedisScript.class), any(RedisSerializer.class), any(RedisSerializer.class),
+                eq(CHAVES), any(Object[].class))).thenReturn(List.of(recente, antigo));
+
+        // Act
+        List<Pedido> pedidos = pedidosUsuarioCacheService.listar("user123");
+
+        // Assert
+        assertEquals(List.of(recente, antigo), pedidos);
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<String> argumentosDoScript() {
+        ArgumentCaptor<Object[]> argumentos = ArgumentCaptor.forClass(Object[].class);
+        verify(redisTemplate).execute(any(RedisScript.class), any(RedisSerializer.class), any(RedisSerializer.class),
+                eq(CHAVES), argumentos.capture());
+        return Arrays.stream(argumentos.getValue())
+                .map(argumento -> new String((byte[]) argumento, StandardCharsets.UTF_8))
+                .toList();
+    }
+
+    private static Pedido pedido(String id, LocalDateTime horarioCriacao) {
+        Pedido pedido = new Pedido("user123");
+        pedido.setId(id);
+        pedido.setHorarioCriacao(horarioCriacao);
+        pedido.setValorTotal(BigDecimal.TEN);
+        pedido.setStatus("PENDENTE PAGAMENTO");
+        return pedido;
+    }
+}
@@ -0,0 +1,179 @@
+package com.example.order.service;
+
+import net.jqwik.api.Arbitraries;
+import net.jqwik.api.Assume;
+import net.jqwik.api.Arbitrary;
+import net.jqwik.api.Combinators;
+import net.jqwik.api.Example;
+import net.jqwik.api.ForAll;
+import net.jqwik.api.Property;
+import net.jqwik.api.Provide;
+import net.jqwik.api.Tuple;
+import net.jqwik.api.constraints.IntRange;
+import net.jqwik.api.constraints.LongRange;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Propriedades da precificação em centavos: para carrinhos gerados aleatoriamente, o resultado é exatamente o
+ * do cálculo equivalente em {@link BigDecimal}, com as linhas em fração de centavo arredondadas uma vez no total.
+ */
+class PrecificacaoPedidoTest {
+
+    @Property
+    void total_deveIgualarSomaEmBigDecimalArredondadaUmaVez_quandoSemDesconto(@ForAll("carrinhos") List<Linha> carrinho) {
+        // Arrange: o cálculo que createBatchPedido fazia antes, em BigDecimal, com o total levado ao centavo no fim
+        BigDecimal esperado = BigDecimal.ZERO;
+        for (Linha linha : carrinho) {
+            esperado = esperado.add(linha.preco().multiply(BigDecimal.valueOf(linha.quantidade())));
+        }
+
+        // Act
+        PrecificacaoPedido precificacao = new PrecificacaoPedido();
+        carrinho.forEach(linha -> precificacao.adicionarLinha(linha.preco(), linha.quantidade()));
+
+        // Assert
+        assertEquals(esperado.setScale(PrecificacaoPedido.ESCALA, RoundingMode.HALF_EVEN), precificacao.total());
+        if (carrinho.stream().noneMatch(linha -> fracaoDeCentavo(linha.preco()))) {
+            assertEquals(0, esperado.compareTo(precificacao.total()));
+        }
+        assertEquals(0, precificacao.descontoCentavos());
+    }
+
+    @Property
+    void total_deveIgualarReferenciaEmBigDecimal_quandoDescontoPorLinha(@ForAll("carrinhos") List<Linha> carrinho) {
+        // Arrange: mesmas regras de arredondamento, aplicadas em BigDecimal
+        Assume.that(carrinho.stream().noneMatch(linha -> fracaoDeCentavo(linha.preco())));
+        BigDecimal subtotal = BigDecimal.ZERO;
+        BigDecimal desconto = BigDecimal.ZERO;
+        for (Linha linha : carrinho) {
+            BigDecimal bruto = linha.preco().setScale(2, RoundingMode.UNNECESSARY)
+                    .multiply(BigDecimal.valueOf(linha.quantidade()));
+            subtotal = subtotal.add(bruto);
+            desconto = desconto.add(bruto.multiply(BigDecimal.valueOf(linha.descontoPontosBase()))
+                    .divide(BigDecimal.valueOf(PrecificacaoPedido.DESCONTO_INTEGRAL), 2, RoundingMode.HALF_EVEN));
+        }
+
+        // Act
+        PrecificacaoPedido precificacao = new PrecificacaoPedido();
+        carrinho.forEach(linha -> precificacao.adicionarLinha(PrecificacaoPedido.centavos(linha.preco()),
+                linha.quantidade(), linha.descontoPontosBase()));
+
+        // Assert
+        assertEquals(subtotal, PrecificacaoPedido.valor(precificacao.subtotalCentavos()));
+        assertEquals(desconto, PrecificacaoPedido.valor(precificacao.descontoCentavos()));
+        assertEquals(subtotal.subtract(desconto), precificacao.total());
+    }
+
+    @Property
+    void centavos_deveConverterExato_ouRecusarFracaoDeCentavo(
+            @ForAll @LongRange(min = 0, max = 1_000_000_000_000L) long semEscala,
+            @ForAll @IntRange(min = 0, max = 6) int escala) {
+        // Arrange
+        BigDecimal preco = BigDecimal.valueOf(semEscala, escala);
+
+        // Act & Assert
+        if (fracaoDeCentavo(preco)) {
+            assertThrows(IllegalArgumentException.class, () -> PrecificacaoPedido.centavos(preco));
+        } else {
+            assertEquals(0, preco.compareTo(PrecificacaoPedido.valor(PrecificacaoPedido.centavos(preco))));
+        }
+    }
+
+    @Example
+    void centavos_deveAceitarZerosAlemDaSegundaCasa_eRecusarMeioCentavo() {
+        assertEquals(1050, PrecificacaoPedido.centavos(new BigDecimal("10.500000")));
+        assertEquals(1000, PrecificacaoPedido.centavos(new BigDecimal("1E+1")));
+        assertThrows(IllegalArgumentException.class, () -> PrecificacaoPedido.centavos(new BigDecimal("0.335")));
+    }
+
+    @Example
+    void total_deveArredondarFracaoDeCentavoUmaVezSo_noTotalDoPedido() {
+        // Por unidade daria 3 × 0.33 = 0.99; somado exato e arredondado no fim, 0.999 vira 1.00
+        assertEquals(new BigDecimal("1.00"), new PrecificacaoPedido().adicionarLinha(new BigDecimal("0.333"), 3).total());
+        // Linhas em centavos e fracionadas juntas: 10.00 + 0.0025 + 0.0025 = 10.005, meio centavo vai para o par
+        assertEquals(new BigDecimal("10.00"), new PrecificacaoPedido()
+                .adicionarLinha(BigDecimal.TEN, 1)
+                .adicionarLinha(new BigDecimal("0.0025"), 1)
+                .adicionarLinha(new BigDecimal("0.0025"), 1)
+                .total());
+        assertEquals(new BigDecimal("0.02"), new PrecificacaoPedido().adicionarLinha(new BigDecimal("0.015"), 1).total());
+        assertThrows(IllegalArgumentException.class,
+                () -> new PrecificacaoPedido().adicionarLinha(new BigDecimal("0.001"), -1));
+    }
+
+    @Property
+    void descontoLinha_deveIgualarDivisaoHalfEvenEmBigDecimal_semEstourarLong(
+            @ForAll @LongRange(min = 0, max = Long.MAX_VALUE) long brutoCentavos,
+            @ForAll @IntRange(min = 0, max = PrecificacaoPedido.DESCONTO_INTEGRAL) int descontoPontosBase) {
+        // Act
+        long desconto = PrecificacaoPedido.descontoLinha(brutoCentavos, descontoPontosBase);
+
+        // Assert
+        BigDecimal esperado = BigDecimal.valueOf(brutoCentavos).multiply(BigDecimal.valueOf(descontoPontosBase))
+                .divide(BigDecimal.valueOf(PrecificacaoPedido.DESCONTO_INTEGRAL), 0, RoundingMode.HALF_EVEN);
+        assertEquals(esperado.longValueExact(), desconto);
+    }
+
+    @Example
+    void descontoLinha_deveArredondarMeioCentavoParaOPar() {
+        assertEquals(12, PrecificacaoPedido.descontoLinha(25, 5_000));
+        assertEquals(18, PrecificacaoPedido.descontoLinha(35, 5_000));
+        assertEquals(35, PrecificacaoPedido.descontoLinha(35, PrecificacaoPedido.DESCONTO_INTEGRAL));
+        assertEquals(0, PrecificacaoPedido.totalLinha(999, 3, PrecificacaoPedido.DESCONTO_INTEGRAL));
+    }
+
+    @Example
+    void adicionarLinha_deveLancarArithmeticException_quandoTotalNaoCouberEmLong() {
+        PrecificacaoPedido precificacao = new PrecificacaoPedido()
+                .adicionarLinha(Long.MAX_VALUE / 2, 1, 0);
+
+        assertThrows(ArithmeticException.class, () -> precificacao.adicionarLinha(Long.MAX_VALUE / 2 + 2, 1, 0));
+        assertThrows(ArithmeticException.class, () -> precificacao.adicionarLinha(Long.MAX_VALUE / 2, 3, 0));
+        assertThrows(ArithmeticException.class, () -> PrecificacaoPedido.centavos(new BigDecimal("1E+20")));
+    }
+
+    @Example
+    void adicionarLinha_deveRecusarValoresNegativosEDescontoForaDaFaixa() {
+        PrecificacaoPedido precificacao = new PrecificacaoPedido();
+
+        assertThrows(IllegalArgumentException.class, () -> precificacao.adicionarLinha(BigDecimal.TEN, -1));
+        assertThrows(IllegalArgumentException.class, () -> precificacao.adicionarLinha(new BigDecimal("-0.01"), 1));
+        assertThrows(IllegalArgumentException.class, () -> precificacao.adicionarLinha(100, 1, -1));
+        assertThrows(IllegalArgumentException.class,
+                () -> precificacao.adicionarLinha(100, 1, PrecificacaoPedido.DESCONTO_INTEGRAL + 1));
+        assertEquals(0, precificacao.totalCentavos());
+    }
+
+    // Preços com 0 a 6 casas, quantidades de carrinhos B2B e descontos de 0 a 100%. A maioria dos carrinhos só tem
+    // preços exatos em centavos (de 3 a 6 casas, só com zeros depois da segunda); os demais, qualquer preço
+    @Provide
+    Arbitrary<List<Linha>> carrinhos() {
+        Arbitrary<Integer> escalas = Arbitraries.integers().between(0, 6);
+        Arbitrary<BigDecimal> exatos = Combinators.combine(Arbitraries.longs().between(0, 100_000_000_000L), escalas)
+                .as((semEscala, escala) -> escala <= PrecificacaoPedido.ESCALA
+                        ? BigDecimal.valueOf(semEscala, escala)
+                        : BigDecimal.valueOf(semEscala, PrecificacaoPedido.ESCALA).setScale(escala));
+        Arbitrary<BigDecimal> quaisquer = Combinators.combine(Arbitraries.longs().between(0, 100_000_000_000L), escalas)
+                .as(BigDecimal::valueOf);
+        return Arbitraries.frequencyOf(Tuple.of(4, carrinhosCom(exatos)), Tuple.of(1, carrinhosCom(quaisquer)));
+    }
+
+    private static Arbitrary<List<Linha>> carrinhosCom(Arbitrary<BigDecimal> precos) {
+        Arbitrary<Integer> quantidades = Arbitraries.integers().between(0, 100_000);
+        Arbitrary<Integer> descontos = Arbitraries.oneOf(Arbitraries.just(0),
+                Arbitraries.integers().between(0, PrecificacaoPedido.DESCONTO_INTEGRAL));
+        return Combinators.combine(precos, quantidades, descontos).as(Linha::new).list().ofMinSize(1).ofMaxSize(200);
+    }
+
+    private static boolean fracaoDeCentavo(BigDecimal preco) {
+        return preco.stripTrailingZeros().scale() > PrecificacaoPedido.ESCALA;
+    }
+
+    record Linha(BigDecimal preco, int quantidade, int descontoPontosBase) {
+    }
+}
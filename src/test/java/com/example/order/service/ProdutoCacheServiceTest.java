@@ -0,0 +1,362 @@
+package com.example.order.service;
+
+import com.example.order.model.Produto;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class ProdutoCacheServiceTest {
+
+    @Mock
+    private RedisCacheService redisCacheService;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private ProdutoCacheService produtoCacheService;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        produtoCacheService = new ProdutoCacheService(redisCacheService, meterRegistry, Runnable::run, 100, 30);
+    }
+
+    @Test
+    void getCached_deveServirDoL1_aposPrimeiraLeituraNoRedis() {
+        // Arrange
+        Produto produto = new Produto("1", "Produto1", BigDecimal.TEN, 10);
+        when(redisCacheService.getCachedOrder("produto:1", Produto.class)).thenReturn(produto);
+
+        // Act
+        Produto primeira = produtoCacheService.getCached("produto:1", Produto.class);
+        Produto segunda = produtoCacheService.getCached("produto:1", Produto.class);
+
+        // Assert
+        assertSame(produto, primeira);
+        assertSame(produto, segunda);
+        verify(redisCacheService, times(1)).getCachedOrder("produto:1", Produto.class);
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", "produtos-l2").tag("result", "hit")
+                .counter().count());
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", "produtos-l1").tag("result", "hit")
+                .functionCounter().count());
+    }
+
+    @Test
+    void getCached_deveRetornarNulo_quandoAusenteNasDuasCamadas() {
+        // Act
+        Produto produto = produtoCacheService.getCached("produto:1", Produto.class);
+
+        // Assert
+        assertNull(produto);
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", "produtos-l2").tag("result", "miss")
+                .counter().count());
+    }
+
+    @Test
+    void getCached_deveContarAcertosEFalhasPorPrefixoDaChave() {
+        // Arrange
+        when(redisCacheService.getCachedOrder("produto:1", Produto.class))
+                .thenReturn(new Produto("1", "Produto1", BigDecimal.TEN, 10));
+
+        // Act
+        produtoCacheService.getCached("produto:1", Produto.class);
+        produtoCacheService.getCached("produto:1", Produto.class);
+        produtoCacheService.getCached("produto:2", Produto.class);
+        produtoCacheService.getCached("todosProdutos", Object.class);
+
+        // Assert
+        assertEquals(2.0, meterRegistry.get("cache.acessos").tag("prefixo", "produto:").tag("resultado", "acerto")
+                .counter().count());
+        assertEquals(1.0, meterRegistry.get("cache.acessos").tag("prefixo", "produto:").tag("resultado", "falha")
+                .counter().count());
+        assertEquals(1.0, meterRegistry.get("cache.acessos").tag("prefixo", "todosProdutos").tag("resultado", "falha")
+                .counter().count());
+    }
+
+    @Test
+    void cache_deveGravarNoRedisEPublicarInvalidacao() {
+        // Arrange
+        Produto produto = new Produto("1", "Produto1", BigDecimal.TEN, 10);
+
+        // Act
+        produtoCacheService.cache("produto:1", produto, 5, TimeUnit.MINUTES);
+        Produto lido = produtoCacheService.getCached("produto:1", Produto.class);
+
+        // Assert
+        assertSame(produto, lido);
+        verify(redisCacheService).cacheOrder("produto:1", produto, 5, TimeUnit.MINUTES);
+        verify(redisCacheService, never()).getCachedOrder("produto:1", Produto.class);
+        ArgumentCaptor<String> mensagem = ArgumentCaptor.forClass(String.class);
+        verify(redisCacheService).publicar(eq(ProdutoCacheService.CANAL_INVALIDACAO), mensagem.capture());
+        assertTrue(mensagem.getValue().endsWith("|produto:1"));
+    }
+
+    @Test
+    void getCachedEmLote_deveBuscarNoRedisSomenteAusentesDoL1_emUmaLeitura() {
+        // Arrange
+        Produto produto1 = new Produto("1", "Produto1", BigDecimal.TEN, 10);
+        Produto produto2 = new Produto("2", "Produto2", BigDecimal.ONE, 5);
+        produtoCacheService.cache("produto:1", produto1, 5, TimeUnit.MINUTES);
+        when(redisCacheService.buscarEmLote(List.of("produto:2", "produto:3"))).thenReturn(Arrays.asList(produto2, null));
+
+        // Act
+        Map<String, Produto> encontrados = produtoCacheService.getCachedEmLote(
+                List.of("produto:1", "produto:2", "produto:3", "produto:2"), Produto.class);
+
+        // Assert
+        assertEquals(Map.of("produto:1", produto1, "produto:2", produto2), encontrados);
+        verify(redisCacheService, times(1)).buscarEmLote(anyList());
+        verify(redisCacheService, never()).getCachedOrder(anyString(), any());
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", "produtos-l2").tag("result", "hit")
+                .counter().count());
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", "produtos-l2").tag("result", "miss")
+                .counter().count());
+    }
+
+    @Test
+    void cacheEmLote_deveGravarEPublicarInvalidacoes_emUmUnicoPipeline() {
+        // Arrange
+        Produto produto1 = new Produto("1", "Produto1", BigDecimal.TEN, 10);
+        Produto produto2 = new Produto("2", "Produto2", BigDecimal.ONE, 5);
+        Map<String, Produto> valores = Map.of("produto:1", produto1, "produto:2", produto2);
+
+        // Act
+        produtoCacheService.cacheEmLote(valores, 5, TimeUnit.MINUTES);
+        Map<String, Produto> lidos = produtoCacheService.getCachedEmLote(valores.keySet(), Produto.class);
+
+        // Assert
+        assertEquals(valores, lidos);
+        ArgumentCaptor<Collection<String>> mensagens = ArgumentCaptor.forClass(Collection.class);
+        verify(redisCacheService).gravarEmLote(eq(valores), eq(5L), eq(TimeUnit.MINUTES),
+                eq(ProdutoCacheService.CANAL_INVALIDACAO), mensagens.capture());
+        assertEquals(2, mensagens.getValue().size());
+        assertTrue(mensagens.getValue().stream().anyMatch(mensagem -> mensagem.endsWith("|produto:2")));
+        verify(redisCacheService, never()).buscarEmLote(anyList());
+        verify(redisCacheService, never()).publicar(anyString(), anyString());
+    }
+
+    @Test
+    void ultimoConhecido_deveDevolverValorVencidoNoL1_eDescartarAposInvalidacao() throws Exception {
+        // Arrange
+        Produto produto = new Produto("1", "Produto1", BigDecimal.TEN, 10);
+        produtoCacheService.cache("produto:1", produto, 1, TimeUnit.MILLISECONDS);
+        Thread.sleep(5);
+
+        // Act
+        Produto noCache = produtoCacheService.getCached("produto:1", Produto.class);
+        Produto ultimo = produtoCacheService.ultimoConhecido("produto:1");
+        produtoCacheService.invalidar("produto:1");
+
+        // Assert
+        assertNull(noCache);
+        assertSame(produto, ultimo);
+        assertNull(produtoCacheService.ultimoConhecido("produto:1"));
+        assertEquals(1.0, meterRegistry.get("cache.ultimo-conhecido").counter().count());
+    }
+
+    @Test
+    void onMessage_deveDescartarEntradaLocal_quandoOutraInstanciaInvalidar() {
+        // Arrange
+        Produto antigo = new Produto("1", "Antigo", BigDecimal.ONE, 10);
+        Produto novo = new Produto("1", "Novo", BigDecimal.TEN, 10);
+        produtoCacheService.cache("produto:1", antigo, 5, TimeUnit.MINUTES);
+        when(redisCacheService.getCachedOrder("produto:1", Produto.class)).thenReturn(novo);
+
+        // Act
+        produtoCacheService.onMessage(mensagem("outra-instancia|produto:1"), null);
+
+        // Assert
+        assertSame(novo, produtoCacheService.getCached("produto:1", Produto.class));
+        assertEquals(1.0, meterRegistry.get("cache.invalidacoes").counter().count());
+    }
+
+    @Test
+    void onMessage_deveIgnorarMensagensDaPropriaInstancia() {
+        // Arrange
+        Produto produto = new Produto("1", "Produto1", BigDecimal.TEN, 10);
+        produtoCacheService.cache("produto:1", produto, 5, TimeUnit.MINUTES);
+        ArgumentCaptor<String> publicada = ArgumentCaptor.forClass(String.class);
+        verify(redisCacheService).publicar(eq(ProdutoCacheService.CANAL_INVALIDACAO), publicada.capture());
+
+        // Act
+        produtoCacheService.onMessage(mensagem(publicada.getValue()), null);
+
+        // Assert
+        assertSame(produto, produtoCacheService.getCached("produto:1", Produto.class));
+        verify(redisCacheService, never()).getCachedOrder("produto:1", Produto.class);
+    }
+
+    @Test
+    void obterOuCarregar_deveExecutarCarregadorUmaUnicaVez_comChamadasConcorrentes() throws Exception {
+        // Arrange
+        when(redisCacheService.tentarBloquear(eq("lock:todosProdutos"), anyString(), any(Duration.class))).thenReturn(true);
+        AtomicInteger chamadasAoUpstream = new AtomicInteger();
+        CountDownLatch liberarUpstream = new CountDownLatch(1);
+        List<Produto> produtos = List.of(new Produto("1", "Produto1", BigDecimal.TEN, 10));
+        ExecutorService clientes = Executors.newFixedThreadPool(8);
+
+        try {
+            // Act
+            List<Future<List<Produto>>> respostas = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                respostas.add(clientes.submit(() -> produtoCacheService.obterOuCarregar("todosProdutos", () -> {
+                    chamadasAoUpstream.incrementAndGet();
+                    try {
+                        liberarUpstream.await(5, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return produtos;
+                }, 5, TimeUnit.MINUTES)));
+            }
+            Thread.sleep(200);
+            liberarUpstream.countDown();
+
+            // Assert
+            for (Future<List<Produto>> resposta : respostas) {
+                assertSame(produtos, resposta.get(5, TimeUnit.SECONDS));
+            }
+            assertEquals(1, chamadasAoUpstream.get());
+            // TTL físico = 5 minutos de validade + 300 segundos servindo o valor vencido
+            verify(redisCacheService).cacheOrder(eq("todosProdutos"), any(EntradaCache.class),
+                    eq(TimeUnit.MINUTES.toMillis(10)), eq(TimeUnit.MILLISECONDS));
+            verify(redisCacheService).liberarBloqueio(eq("lock:todosProdutos"), anyString());
+        } finally {
+            clientes.shutdownNow();
+        }
+    }
+
+    @Test
+    void obterOuCarregar_deveDevolverNuloAosQueEsperavam_semRecarregar_quandoCarregadorRetornarNulo() throws Exception {
+        // Arrange
+        when(redisCacheService.tentarBloquear(eq("lock:produto:9"), anyString(), any(Duration.class))).thenReturn(true);
+        AtomicInteger chamadasAoUpstream = new AtomicInteger();
+        CountDownLatch liberarUpstream = new CountDownLatch(1);
+        ExecutorService clientes = Executors.newFixedThreadPool(8);
+
+        try {
+            // Act
+            List<Future<Produto>> respostas = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                respostas.add(clientes.submit(() -> produtoCacheService.<Produto>obterOuCarregar("produto:9", () -> {
+                    chamadasAoUpstream.incrementAndGet();
+                    try {
+                        liberarUpstream.await(5, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return null;
+                }, 5, TimeUnit.MINUTES)));
+            }
+            Thread.sleep(200);
+            liberarUpstream.countDown();
+
+            // Assert
+            for (Future<Produto> resposta : respostas) {
+                assertNull(resposta.get(5, TimeUnit.SECONDS));
+            }
+            assertEquals(1, chamadasAoUpstream.get());
+            verify(redisCacheService, times(1)).tentarBloquear(eq("lock:produto:9"), anyString(), any(Duration.class));
+            verify(redisCacheService, never()).cacheOrder(anyString(), any(), anyLong(), any());
+        } finally {
+            clientes.shutdownNow();
+        }
+    }
+
+    @Test
+    void obterOuCarregar_deveServirValorVencido_eRecarregarEmSegundoPlano() {
+        // Arrange
+        EntradaCache vencida = new EntradaCache(List.of("antigo"), System.currentTimeMillis() - 1_000, 10);
+        when(redisCacheService.getCachedOrder("todosProdutos", Object.class)).thenReturn(vencida);
+        when(redisCacheService.tentarBloquear(anyString(), anyString(), any(Duration.class))).thenReturn(true);
+
+        // Act
+        List<String> resultado = produtoCacheService.obterOuCarregar("todosProdutos", () -> List.of("novo"),
+                5, TimeUnit.MINUTES);
+
+        // Assert
+        assertEquals(List.of("antigo"), resultado);
+        assertEquals(List.of("novo"), produtoCacheService.obterOuCarregar("todosProdutos", () -> List.of("outro"),
+                5, TimeUnit.MINUTES));
+        assertEquals(1.0, meterRegistry.get("cache.carregamentos").tag("tipo", "segundo-plano").counter().count());
+    }
+
+    @Test
+    void obterOuCarregar_deveRecarregarAntecipadamente_quandoCargaForCaraEPertoDoVencimento() {
+        // Arrange
+        ReflectionTestUtils.setField(produtoCacheService, "betaAtualizacaoAntecipada", 1_000_000.0);
+        EntradaCache quaseVencida = new EntradaCache(List.of("atual"), System.currentTimeMillis() + 1_000, 500);
+        when(redisCacheService.getCachedOrder("todosProdutos", Object.class)).thenReturn(quaseVencida);
+        when(redisCacheService.tentarBloquear(anyString(), anyString(), any(Duration.class))).thenReturn(true);
+        AtomicInteger chamadasAoUpstream = new AtomicInteger();
+
+        // Act
+        List<String> resultado = produtoCacheService.obterOuCarregar("todosProdutos", () -> {
+            chamadasAoUpstream.incrementAndGet();
+            return List.of("novo");
+        }, 5, TimeUnit.MINUTES);
+
+        // Assert
+        assertEquals(List.of("atual"), resultado);
+        assertEquals(1, chamadasAoUpstream.get());
+    }
+
+    @Test
+    void obterOuCarregar_deveAguardarOutraInstancia_quandoBloqueioEstiverOcupado() {
+        // Arrange
+        EntradaCache carregadaPorOutraInstancia = new EntradaCache(List.of("remoto"),
+                System.currentTimeMillis() + 60_000, 10);
+        when(redisCacheService.getCachedOrder("todosProdutos", Object.class))
+                .thenReturn(null, null, carregadaPorOutraInstancia);
+        when(redisCacheService.tentarBloquear(anyString(), anyString(), any(Duration.class))).thenReturn(false);
+        AtomicInteger chamadasAoUpstream = new AtomicInteger();
+
+        // Act
+        List<String> resultado = produtoCacheService.obterOuCarregar("todosProdutos", () -> {
+            chamadasAoUpstream.incrementAndGet();
+            return List.of("local");
+        }, 5, TimeUnit.MINUTES);
+
+        // Assert
+        assertEquals(List.of("remoto"), resultado);
+        assertEquals(0, chamadasAoUpstream.get());
+        verify(redisCacheService, never()).cacheOrder(anyString(), any(), anyLong(), any());
+    }
+
+    private static DefaultMessage mensagem(String conteudo) {
+        return new DefaultMessage(ProdutoCacheService.CANAL_INVALIDACAO.getBytes(StandardCharsets.UTF_8),
+                conteudo.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -11,6 +11,8 @@ import org.springframework.data.redis.core.ValueOperations;
 import static org.junit.jupiter.api.Assertions.*;
 
 import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.List;
 
 import static org.mockito.Mockito.*;
 
@@ -59,4 +61,25 @@ public class RedisCacheServiceTest {
         assertEquals("CUST123", retrievedPedido.getIdUsuario());
         verify(valueOperations, times(1)).get("test:key");
     }
-}
\ No newline at end of file
+
+    @Test
+    void testBuscarEmLote() {
+        Pedido pedido = Pedido.builder().idUsuario("CUST123").build();
+        when(valueOperations.multiGet(List.of("a", "b"))).thenReturn(Arrays.asList(pedido, null));
+
+        List<Object> valores = redisCacheService.buscarEmLote(List.of("a", "b"));
+
+        assertEquals(Arrays.asList(pedido, null), valores);
+        verify(valueOperations, times(1)).multiGet(List.of("a", "b"));
+        verify(valueOperations, never()).get(any());
+    }
+
+    @Test
+    void testBuscarEmLote_quandoRedisRetornarNulo() {
+        when(valueOperations.multiGet(List.of("a", "b"))).thenReturn(null);
+
+        List<Object> valores = redisCacheService.buscarEmLote(List.of("a", "b"));
+
+        assertEquals(Arrays.asList(null, null), valores);
+    }
+}
@@ -0,0 +1,173 @@
+package com.example.order.service;
+
+import com.example.order.controller.ProdutoItem;
+import com.example.order.exception.MensagemErrorException;
+import com.example.order.feignclient.ExternalAClient;
+import com.example.order.model.Pedido;
+import com.example.order.model.Produto;
+import com.example.order.repository.PedidoRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.mockito.stubbing.OngoingStubbing;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class ReservaEstoqueServiceTest {
+
+    private static final List<String> CHAVES_PEDIDO = List.of(ReservaEstoqueService.CHAVE_DISPONIVEL,
+            ReservaEstoqueService.CHAVE_RESERVADO, "reserva:pedido1", ReservaEstoqueService.CHAVE_EXPIRACAO);
+
+    @Mock
+    private RedisTemplate<String, Object> redisTemplate;
+
+    @Mock
+    private ExternalAClient externalAClient;
+
+    @Mock
+    private PedidoRepository pedidoRepository;
+
+    @InjectMocks
+    private ReservaEstoqueService reservaEstoqueService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(reservaEstoqueService, "habilitada", true);
+    }
+
+    @Test
+    void reservar_deveEnviarCarrinhoInteiroEmUmaChamada_somandoItensRepetidos() {
+        // Arrange
+        quandoReservar().thenReturn(List.of(1L));
+
+        // Act
+        reservaEstoqueService.reservar("pedido1", "user123",
+                List.of(new ProdutoItem("A", 2), new ProdutoItem("B", 1), new ProdutoItem("A", 3)));
+
+        // Assert
+        ArgumentCaptor<Object[]> argumentos = ArgumentCaptor.forClass(Object[].class);
+        verify(redisTemplate, times(1)).execute(any(RedisScript.class), any(RedisSerializer.class),
+                any(RedisSerializer.class), eq(CHAVES_PEDIDO), argumentos.capture());
+        List<Object> enviados = Arrays.asList(argumentos.getValue());
+        assertEquals("pedido1", enviados.get(0));
+        assertEquals("user123", enviados.get(2));
+        assertEquals(List.of("A", "5", "B", "1"), enviados.subList(3, 7));
+        verifyNoInteractions(externalAClient);
+    }
+
+    @Test
+    void reservar_deveLancarExcecao_quandoProdutoNaoTiverEstoqueSuficiente() {
+        // Arrange
+        quandoReservar().thenReturn(List.of(0L, "B"));
+
+        // Act & Assert
+        MensagemErrorException exception = assertThrows(MensagemErrorException.class,
+                () -> reservaEstoqueService.reservar("pedido1", "user123", List.of(new ProdutoItem("B", 10))));
+        assertEquals(HttpStatus.BAD_REQUEST, exception.getStatus());
+        assertEquals("Produto B não está disponível", exception.getMessage());
+    }
+
+    @Test
+    void reservar_deveSincronizarProdutoDesconhecido_eTentarNovamente() {
+        // Arrange
+        quandoReservar().thenReturn(List.of(-1L, "A"), List.of(1L));
+        when(externalAClient.getQuantidadeProduto("A")).thenReturn(50);
+
+        // Act
+        reservaEstoqueService.reservar("pedido1", "user123", List.of(new ProdutoItem("A", 2)));
+
+        // Assert
+        verify(externalAClient).getQuantidadeProduto("A");
+        verify(redisTemplate).execute(any(RedisScript.class), any(RedisSerializer.class), any(RedisSerializer.class),
+                eq(List.of(ReservaEstoqueService.CHAVE_DISPONIVEL, ReservaEstoqueService.CHAVE_RESERVADO)),
+                eq("A"), eq("50"));
+        verify(redisTemplate, times(2)).execute(any(RedisScript.class), any(RedisSerializer.class),
+                any(RedisSerializer.class), eq(CHAVES_PEDIDO), any(Object[].class));
+    }
+
+    @Test
+    void liberarReservasVencidas_deveEncerrarSoReservasDePedidosJaForaDePendente_semAlterarPedidos() {
+        // Arrange: o pedido1 já foi expirado pela roda, o pedido2 ainda está pendente
+        when(redisTemplate.execute(any(RedisScript.class), any(RedisSerializer.class), any(RedisSerializer.class),
+                eq(List.of(ReservaEstoqueService.CHAVE_EXPIRACAO)), any(Object[].class)))
+                .thenReturn(List.of("pedido1", "pedido2"));
+        when(redisTemplate.execute(any(RedisScript.class), any(RedisSerializer.class), any(RedisSerializer.class),
+                eq(CHAVES_PEDIDO), any(Object[].class))).thenReturn("user123");
+        Pedido pendente = new Pedido("user456");
+        pendente.setId("pedido2");
+        when(pedidoRepository.buscarPorIdsEStatus(List.of("pedido1", "pedido2"), "PENDENTE PAGAMENTO"))
+                .thenReturn(List.of(pendente));
+
+        // Act
+        reservaEstoqueService.liberarReservasVencidas();
+
+        // Assert
+        verify(redisTemplate).execute(any(RedisScript.class), any(RedisSerializer.class), any(RedisSerializer.class),
+                eq(CHAVES_PEDIDO), eq("pedido1"), eq("1"));
+        verify(redisTemplate, never()).execute(any(RedisScript.class), any(RedisSerializer.class),
+                any(RedisSerializer.class), eq(List.of(ReservaEstoqueService.CHAVE_DISPONIVEL,
+                        ReservaEstoqueService.CHAVE_RESERVADO, "reserva:pedido2", ReservaEstoqueService.CHAVE_EXPIRACAO)),
+                any(Object[].class));
+        ArgumentCaptor<Object[]> argumentos = ArgumentCaptor.forClass(Object[].class);
+        verify(redisTemplate, times(2)).execute(any(RedisScript.class), any(RedisSerializer.class),
+                any(RedisSerializer.class), eq(List.of(ReservaEstoqueService.CHAVE_EXPIRACAO)), argumentos.capture());
+        List<Object> adiados = Arrays.asList(argumentos.getValue());
+        assertEquals(List.of("pedido2"), adiados.subList(1, adiados.size()));
+        verify(pedidoRepository, never()).atualizarStatus(anyCollection(), any(), any());
+    }
+
+    @Test
+    void sincronizarComExternalA_deveEnviarQuantidadesDeTodosOsProdutos() {
+        // Arrange
+        when(externalAClient.getTodosProdutos()).thenReturn(List.of(
+                new Produto("A", "Café", BigDecimal.TEN, 100),
+                new Produto("B", "Água", BigDecimal.ONE, 200)));
+
+        // Act
+        reservaEstoqueService.sincronizarComExternalA();
+
+        // Assert
+        verify(redisTemplate).execute(any(RedisScript.class), any(RedisSerializer.class), any(RedisSerializer.class),
+                eq(List.of(ReservaEstoqueService.CHAVE_DISPONIVEL, ReservaEstoqueService.CHAVE_RESERVADO)),
+                eq("A"), eq("100"), eq("B"), eq("200"));
+    }
+
+    @Test
+    void tarefasAgendadas_naoDevemFazerNada_quandoReservaDesabilitada() {
+        // Arrange
+        ReflectionTestUtils.setField(reservaEstoqueService, "habilitada", false);
+
+        // Act
+        reservaEstoqueService.liberarReservasVencidas();
+        reservaEstoqueService.sincronizarComExternalA();
+
+        // Assert
+        verifyNoInteractions(redisTemplate, externalAClient, pedidoRepository);
+    }
+
+    private OngoingStubbing<Object> quandoReservar() {
+        return when(redisTemplate.execute(any(RedisScript.class), any(RedisSerializer.class), any(RedisSerializer.class),
+                eq(CHAVES_PEDIDO), any(Object[].class)));
+    }
+}
@@ -0,0 +1,144 @@
+package com.example.order.service;
+
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RodaExpiracaoTest {
+
+    @Test
+    void avancar_naoDeveVencerAntesDoPrazo_eVencerAteUmTickDepois() {
+        // Arrange
+        RodaExpiracao roda = new RodaExpiracao(1000, 8, 0);
+        ObjectId exato = new ObjectId();
+        ObjectId quebrado = new ObjectId();
+        roda.agendar(exato, 5_000);
+        roda.agendar(quebrado, 5_001);
+
+        // Act & Assert
+        assertEquals(List.of(), roda.avancar(4_999));
+        assertEquals(List.of(exato), roda.avancar(5_000));
+        assertEquals(List.of(), roda.avancar(5_999));
+        assertEquals(List.of(quebrado), roda.avancar(6_000));
+        assertEquals(0, roda.pendentes());
+    }
+
+    @Test
+    void avancar_deveManterEntradasDeVoltasFuturas_quandoPrazoAlemDaRoda() {
+        // Arrange: 8 baldes de 1s, prazo a 20s cai no mesmo balde dos ticks 4 e 12
+        RodaExpiracao roda = new RodaExpiracao(1000, 8, 0);
+        ObjectId longe = new ObjectId();
+        roda.agendar(longe, 20_000);
+
+        // Act & Assert
+        assertEquals(List.of(), roda.avancar(4_000));
+        assertEquals(List.of(), roda.avancar(12_000));
+        assertEquals(1, roda.pendentes());
+        assertEquals(List.of(longe), roda.avancar(20_000));
+    }
+
+    @Test
+    void agendar_deveVencerNoProximoAvanco_quandoPrazoJaPassou() {
+        // Arrange
+        RodaExpiracao roda = new RodaExpiracao(1000, 8, 0);
+        roda.avancar(10_000);
+        ObjectId vencido = new ObjectId();
+
+        // Act
+        roda.agendar(vencido, 1_500);
+
+        // Assert
+        assertEquals(List.of(vencido), roda.avancar(11_000));
+    }
+
+    @Test
+    void avancar_deveDevolverOMesmoObjectId_eLiberarMemoriaDoBalde() {
+        // Arrange
+        RodaExpiracao roda = new RodaExpiracao(1000, 1, 0);
+        List<ObjectId> ids = new ArrayList<>();
+        for (int i = 0; i < 1_000; i++) {
+            ObjectId id = new ObjectId();
+            ids.add(id);
+            roda.agendar(id, 1_000);
+        }
+
+        // Act
+        List<ObjectId> vencidos = roda.avancar(1_000);
+
+        // Assert
+        assertEquals(ids, vencidos);
+        assertEquals(0, roda.pendentes());
+    }
+
+    @Test
+    void construtor_deveRecusarQuantidadeDeBaldesQueNaoSejaPotenciaDe2() {
+        assertThrows(IllegalArgumentException.class, () -> new RodaExpiracao(1000, 100, 0));
+        assertThrows(IllegalArgumentException.class, () -> new RodaExpiracao(0, 8, 0));
+    }
+
+    @Test
+    void agendar_deveVencerCadaPedidoUmaVez_quandoConcorrenteAoAvanco() throws Exception {
+        // Arrange
+        int threads = 8;
+        int porThread = 20_000;
+        RodaExpiracao roda = new RodaExpiracao(1, 64, 0);
+        AtomicLong agora = new AtomicLong();
+        AtomicBoolean agendando = new AtomicBoolean(true);
+        CountDownLatch largada = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<Set<ObjectId>>> agendados = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            agendados.add(executor.submit(() -> {
+                Set<ObjectId> ids = new HashSet<>();
+                largada.await();
+                for (int i = 0; i < porThread; i++) {
+                    ObjectId id = new ObjectId();
+                    ids.add(id);
+                    // Prazos espalhados à frente e atrás do tick corrente
+                    roda.agendar(id, agora.get() + (i % 200) - 50);
+                }
+                return ids;
+            }));
+        }
+
+        // Act
+        List<ObjectId> vencidos = new ArrayList<>();
+        largada.countDown();
+        Future<?> fim = executor.submit(() -> {
+            for (Future<Set<ObjectId>> agendado : agendados) {
+                agendado.get();
+            }
+            agendando.set(false);
+            return null;
+        });
+        while (agendando.get()) {
+            vencidos.addAll(roda.avancar(agora.incrementAndGet()));
+        }
+        fim.get();
+        vencidos.addAll(roda.avancar(agora.get() + 1_000));
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        // Assert
+        Set<ObjectId> esperados = new HashSet<>();
+        for (Future<Set<ObjectId>> agendado : agendados) {
+            esperados.addAll(agendado.get());
+        }
+        assertEquals(threads * porThread, vencidos.size());
+        assertEquals(esperados, new HashSet<>(vencidos));
+        assertEquals(0, roda.pendentes());
+    }
+}
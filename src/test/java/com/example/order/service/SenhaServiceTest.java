@@ -0,0 +1,253 @@
+package com.example.order.service;
+
+import com.example.order.exception.MensagemErrorException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SenhaServiceTest {
+
+    private static final String HASH = new BCryptPasswordEncoder(4).encode("senha123");
+
+    private SimpleMeterRegistry meterRegistry;
+    private ThreadPoolTaskExecutor bcryptExecutor;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (bcryptExecutor != null) {
+            bcryptExecutor.shutdown();
+        }
+    }
+
+    @Test
+    void confere_devePularBcrypt_quandoMesmaSenhaVerificadaRecentemente() {
+        // Arrange
+        SenhaService senhaService = new SenhaService(Runnable::run, meterRegistry, 4, 1_000, 120, 100);
+
+        // Act
+        boolean primeira = senhaService.confere("user123", "senha123", HASH);
+        boolean segunda = senhaService.confere("user123", "senha123", HASH);
+
+        // Assert
+        assertTrue(primeira);
+        assertTrue(segunda);
+        assertEquals(1, meterRegistry.get("auth.bcrypt").tag("operacao", "verificacao").timer().count());
+        assertEquals(1.0, meterRegistry.get("auth.bcrypt.cache").counter().count());
+    }
+
+    @Test
+    void confere_naoDeveGuardarVerificacao_quandoSenhaErrada() {
+        // Arrange
+        SenhaService senhaService = new SenhaService(Runnable::run, meterRegistry, 4, 1_000, 120, 100);
+
+        // Act
+        boolean primeira = senhaService.confere("user123", "errada", HASH);
+        boolean segunda = senhaService.confere("user123", "errada", HASH);
+
+        // Assert
+        assertFalse(primeira);
+        assertFalse(segunda);
+        assertEquals(2, meterRegistry.get("auth.bcrypt").tag("operacao", "verificacao").timer().count());
+        assertEquals(0.0, meterRegistry.get("auth.bcrypt.cache").counter().count());
+    }
+
+    @Test
+    void confere_deveVerificarDeNovo_quandoHashGravadoMudou() {
+        // Arrange
+        SenhaService senhaService = new SenhaService(Runnable::run, meterRegistry, 4, 1_000, 120, 100);
+        String novoHash = new BCryptPasswordEncoder(5).encode("senha123");
+        senhaService.confere("user123", "senha123", HASH);
+
+        // Act
+        boolean confere = senhaService.confere("user123", "senha123", novoHash);
+
+        // Assert
+        assertTrue(confere);
+        assertEquals(2, meterRegistry.get("auth.bcrypt").tag("operacao", "verificacao").timer().count());
+    }
+
+    @Test
+    void confere_deveSempreVerificar_quandoCacheDesligado() {
+        // Arrange
+        SenhaService senhaService = new SenhaService(Runnable::run, meterRegistry, 4, 1_000, 0, 100);
+
+        // Act
+        senhaService.confere("user123", "senha123", HASH);
+        senhaService.confere("user123", "senha123", HASH);
+
+        // Assert
+        assertEquals(2, meterRegistry.get("auth.bcrypt").tag("operacao", "verificacao").timer().count());
+    }
+
+    @Test
+    void confere_deveCompararComHashFicticio_quandoUsuarioInexistente() {
+        // Arrange
+        SenhaService senhaService = new SenhaService(Runnable::run, meterRegistry, 4, 1_000, 120, 100);
+
+        // Act
+        boolean confere = senhaService.confere("inexistente", "senha123", null);
+
+        // Assert
+        assertFalse(confere);
+        assertEquals(1, meterRegistry.get("auth.bcrypt").tag("operacao", "verificacao").timer().count());
+    }
+
+    @Test
+    void precisaAtualizar_deveIndicarHashComCustoMenorQueOConfigurado() {
+        // Arrange
+        SenhaService senhaService = new SenhaService(Runnable::run, meterRegistry, 5, 1_000, 120, 100);
+
+        // Act & Assert
+        assertTrue(senhaService.precisaAtualizar(HASH));
+        assertFalse(senhaService.precisaAtualizar(new BCryptPasswordEncoder(5).encode("senha123")));
+        assertFalse(senhaService.precisaAtualizar(new BCryptPasswordEncoder(6).encode("senha123")));
+    }
+
+    @Test
+    void gerarHash_deveUsarCustoConfiguradoNoPoolDeBcrypt() {
+        // Arrange
+        bcryptExecutor = executor(1, 1);
+        AtomicReference<String> thread = new AtomicReference<>();
+        SenhaService senhaService = new SenhaService(tarefa -> bcryptExecutor.execute(() -> {
+            thread.set(Thread.currentThread().getName());
+            tarefa.run();
+        }), meterRegistry, 5, 1_000, 120, 100);
+
+        // Act
+        String hash = senhaService.gerarHash("senha123");
+
+        // Assert
+        assertTrue(hash.startsWith("$2a$05$"));
+        assertTrue(thread.get().startsWith("bcrypt-"));
+    }
+
+    @Test
+    void confere_deveRecusarCom503_quandoPoolEFilaCheios() throws Exception {
+        // Arrange: a única thread e a única vaga da fila ficam ocupadas
+        bcryptExecutor = executor(1, 1);
+        CountDownLatch liberar = new CountDownLatch(1);
+        bcryptExecutor.execute(() -> aguardar(liberar));
+        bcryptExecutor.execute(() -> aguardar(liberar));
+        SenhaService senhaService = new SenhaService(bcryptExecutor, meterRegistry, 4, 1_000, 120, 100);
+
+        // Act
+        long inicio = System.nanoTime();
+        MensagemErrorException exception = assertThrows(MensagemErrorException.class,
+                () -> senhaService.confere("user123", "senha123", HASH));
+        long decorridoMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio);
+        liberar.countDown();
+
+        // Assert
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, exception.getStatus());
+        assertTrue(decorridoMillis < 500, "recusa levou " + decorridoMillis + " ms");
+        assertEquals(1.0, meterRegistry.get("auth.bcrypt.recusadas").counter().count());
+    }
+
+    @Test
+    void confere_deveRecusarCom503_quandoEsperaNaFilaEsgotar() {
+        // Arrange
+        bcryptExecutor = executor(1, 4);
+        CountDownLatch liberar = new CountDownLatch(1);
+        bcryptExecutor.execute(() -> aguardar(liberar));
+        SenhaService senhaService = new SenhaService(bcryptExecutor, meterRegistry, 4, 50, 120, 100);
+
+        // Act
+        MensagemErrorException exception = assertThrows(MensagemErrorException.class,
+                () -> senhaService.confere("user123", "senha123", HASH));
+        liberar.countDown();
+
+        // Assert
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, exception.getStatus());
+        assertEquals(1.0, meterRegistry.get("auth.bcrypt.recusadas").counter().count());
+    }
+
+    /**
+     * Rajada de 64 logins simultâneos com pool de 2 threads e fila de 4: no máximo 2 BCrypts rodam ao mesmo
+     * tempo (o restante da CPU fica para os pedidos) e o excedente é recusado em vez de enfileirar sem limite.
+     */
+    @Test
+    void confere_deveLimitarBcryptsSimultaneosERecusarExcedente_quandoRajadaDeLogins() throws Exception {
+        // Arrange
+        bcryptExecutor = executor(2, 4);
+        AtomicInteger emAndamento = new AtomicInteger();
+        AtomicInteger pico = new AtomicInteger();
+        SenhaService senhaService = new SenhaService(tarefa -> bcryptExecutor.execute(() -> {
+            pico.accumulateAndGet(emAndamento.incrementAndGet(), Math::max);
+            try {
+                tarefa.run();
+            } finally {
+                emAndamento.decrementAndGet();
+            }
+        }), meterRegistry, 4, 5_000, 0, 100);
+        // Custo 10: cada verificação leva dezenas de milissegundos, bem mais que a largada da rajada
+        String hashCusto10 = new BCryptPasswordEncoder(10).encode("senha123");
+        ExecutorService clientes = Executors.newFixedThreadPool(64);
+        CountDownLatch largada = new CountDownLatch(1);
+        AtomicInteger aceitos = new AtomicInteger();
+        AtomicInteger recusados = new AtomicInteger();
+
+        // Act
+        List<Future<?>> logins = new ArrayList<>();
+        for (int i = 0; i < 64; i++) {
+            logins.add(clientes.submit(() -> {
+                aguardar(largada);
+                try {
+                    senhaService.confere("user123", "senha123", hashCusto10);
+                    aceitos.incrementAndGet();
+                } catch (MensagemErrorException e) {
+                    recusados.incrementAndGet();
+                }
+            }));
+        }
+        largada.countDown();
+        for (Future<?> login : logins) {
+            login.get(30, TimeUnit.SECONDS);
+        }
+        clientes.shutdown();
+
+        // Assert
+        assertTrue(pico.get() <= 2, "pico de BCrypts simultâneos: " + pico.get());
+        assertTrue(recusados.get() > 0);
+        assertEquals(64, aceitos.get() + recusados.get());
+        assertEquals(recusados.get(), (int) meterRegistry.get("auth.bcrypt.recusadas").counter().count());
+    }
+
+    private static ThreadPoolTaskExecutor executor(int poolSize, int capacidadeFila) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(capacidadeFila);
+        executor.setThreadNamePrefix("bcrypt-");
+        executor.initialize();
+        return executor;
+    }
+
+    private static void aguardar(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
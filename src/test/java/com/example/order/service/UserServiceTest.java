@@ -6,7 +6,7 @@ import com.example.order.repository.UsuarioRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.mockito.junit.jupiter.MockitoSettings;
@@ -28,13 +28,15 @@ class UserServiceTest {
     @Mock
     private UsuarioRepository usuarioRepository;
 
-    @InjectMocks
+    @Mock
+    private SenhaService senhaService;
+
     private UserService userService;
 
     @BeforeEach
     void setUp() {
         // Configura o userService para usar o mock
-        userService = new UserService(usuarioRepository);
+        userService = new UserService(usuarioRepository, senhaService);
     }
 
     @Test
@@ -88,13 +90,16 @@ class UserServiceTest {
 
         when(usuarioRepository.existsByIdUsuario(idUsuario)).thenReturn(false);
         when(usuarioRepository.save(any(Usuario.class))).thenReturn(usuario);
+        when(senhaService.gerarHash(password)).thenReturn(usuario.getPassword());
 
         // Act
         userService.registrarUsuario(idUsuario, password);
 
         // Assert
         verify(usuarioRepository).existsByIdUsuario(idUsuario);
-        verify(usuarioRepository).save(any(Usuario.class));
+        ArgumentCaptor<Usuario> salvo = ArgumentCaptor.forClass(Usuario.class);
+        verify(usuarioRepository).save(salvo.capture());
+        assertEquals(usuario.getPassword(), salvo.getValue().getPassword());
         verifyNoMoreInteractions(usuarioRepository);
     }
 
@@ -114,4 +119,18 @@ class UserServiceTest {
         verify(usuarioRepository).existsByIdUsuario(idUsuario);
         verifyNoMoreInteractions(usuarioRepository);
     }
-}
\ No newline at end of file
+
+    @Test
+    void atualizarHashSenha_deveUsarUpdateCondicional_semLerNemSalvarUsuario() {
+        // Arrange
+        when(usuarioRepository.atualizarSenhaSeInalterada("user123", "hash-antigo", "hash-novo")).thenReturn(false);
+
+        // Act
+        userService.atualizarHashSenha("user123", "hash-antigo", "hash-novo");
+
+        // Assert
+        verify(usuarioRepository).atualizarSenhaSeInalterada("user123", "hash-antigo", "hash-novo");
+        verify(usuarioRepository, never()).findById(any());
+        verify(usuarioRepository, never()).save(any());
+    }
+}